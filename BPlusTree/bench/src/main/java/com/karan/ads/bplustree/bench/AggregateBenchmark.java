@@ -0,0 +1,119 @@
+package com.karan.ads.bplustree.bench;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.karan.ads.bplustree.BPlusTree;
+import com.karan.ads.bplustree.Key;
+import com.karan.ads.bplustree.KeyStatistics;
+
+/**
+ * Measures the KeyStatistics of a range of keys: combined from the
+ * summaries kept by the tree, and computed from the pairs copied out by
+ * search(double, double). The tree holds a million keys 0, 1, 2, ...
+ * inserted in random order.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AggregateBenchmark {
+
+	/** The number of keys loaded into the tree. */
+	private static final int SIZE = 1000000;
+
+	/** The number of precomputed starting keys, a power of two. */
+	private static final int PROBES = 1 << 12;
+
+	/** The number of keys in a range. */
+	@Param({ "100", "100000" })
+	public int width;
+
+	/** The loaded tree, keeping KeyStatistics summaries. */
+	private BPlusTree tree;
+
+	/** The starting keys of the ranges. */
+	private double[] probes;
+
+	/** The position of the next probe. */
+	private int next;
+
+	/**
+	 * Loads the tree in random order and draws the starting keys.
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		SplittableRandom random = new SplittableRandom(0x5EEDL);
+		int[] keys = new int[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			keys[i] = i;
+		}
+		for (int i = SIZE - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int swap = keys[i];
+			keys[i] = keys[j];
+			keys[j] = swap;
+		}
+		tree = new BPlusTree();
+		tree.initialize(64);
+		tree.setKeyMonoid(KeyStatistics.MONOID);
+		for (int key : keys) {
+			tree.insert(key, "Value");
+		}
+		probes = new double[PROBES];
+		for (int i = 0; i < PROBES; i++) {
+			probes[i] = random.nextInt(SIZE - width);
+		}
+	}
+
+	/**
+	 * Combines the statistics of a range from the summaries.
+	 *
+	 * @return the statistics, consumed by JMH
+	 */
+	@Benchmark
+	public KeyStatistics aggregate() {
+		double key = probes[next++ & (PROBES - 1)];
+		return tree.aggregate(KeyStatistics.MONOID, key, key + width - 1);
+	}
+
+	/**
+	 * Computes the statistics of a range from its pairs.
+	 *
+	 * @return the statistics, consumed by JMH
+	 */
+	@Benchmark
+	public KeyStatistics collect() {
+		double key = probes[next++ & (PROBES - 1)];
+		List<Key> pairs = tree.search(key, key + width - 1);
+		long valueCount = 0;
+		double sum = 0;
+		for (Key pair : pairs) {
+			valueCount += pair.getValues().size();
+			sum += pair.getKey();
+		}
+		return new KeyStatistics(pairs.size(), valueCount, pairs.get(0).getKey(), pairs.get(pairs.size() - 1).getKey(),
+				sum);
+	}
+
+}
@@ -0,0 +1,99 @@
+package com.karan.ads.bplustree.bench;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.karan.ads.bplustree.ConcurrentBPlusTree;
+
+/**
+ * Measures the ConcurrentBPlusTree under a read-heavy mix. The readMostly
+ * group runs seven searching threads next to one inserting thread; the
+ * search benchmark runs searches only and is meant to be run with -t 1, 2,
+ * 4, ... to see how reads scale with cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentBenchmark {
+
+	/** The degree of the tree. */
+	@Param({ "32", "128" })
+	public int m;
+
+	/** The number of keys loaded into the tree before measuring. */
+	@Param({ "1000000" })
+	public int size;
+
+	/** The tree under test. */
+	private ConcurrentBPlusTree tree;
+
+	/**
+	 * Loads the tree with the keys 0, 2, 4, ... so that inserts of odd keys
+	 * land between the stored ones.
+	 */
+	@Setup(Level.Iteration)
+	public void setup() {
+		tree = new ConcurrentBPlusTree();
+		tree.initialize(m);
+		for (int i = 0; i < size; i++) {
+			tree.insert(2 * i, "Value" + i);
+		}
+	}
+
+	/**
+	 * Searches a random stored key.
+	 *
+	 * @return the values found, consumed by JMH
+	 */
+	@Benchmark
+	@Group("readMostly")
+	@GroupThreads(7)
+	public Object groupSearch() {
+		return tree.search(2 * ThreadLocalRandom.current().nextInt(size));
+	}
+
+	/**
+	 * Inserts a random key between the stored keys.
+	 */
+	@Benchmark
+	@Group("readMostly")
+	@GroupThreads(1)
+	public void groupInsert() {
+		tree.insert(2 * ThreadLocalRandom.current().nextInt(size) + 1, "Value");
+	}
+
+	/**
+	 * Searches a random stored key.
+	 *
+	 * @return the values found, consumed by JMH
+	 */
+	@Benchmark
+	@Threads(Threads.MAX)
+	public Object search() {
+		return tree.search(2 * ThreadLocalRandom.current().nextInt(size));
+	}
+
+}
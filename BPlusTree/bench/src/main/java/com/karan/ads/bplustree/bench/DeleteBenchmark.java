@@ -0,0 +1,109 @@
+package com.karan.ads.bplustree.bench;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.karan.ads.bplustree.BPlusTree;
+
+/**
+ * Measures deletes under churn for each merge threshold: a stored key is
+ * deleted and inserted again, which keeps the size of the tree and makes
+ * nodes shrink and grow around their thresholds, and deleting most of the
+ * keys of the tree in random order.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeleteBenchmark {
+
+	/** The number of precomputed keys, a power of two. */
+	private static final int PROBES = 1 << 20;
+
+	/** The degree of the tree. */
+	@Param({ "64" })
+	public int m;
+
+	/** The number of keys loaded into the tree before measuring. */
+	@Param({ "1000000" })
+	public int size;
+
+	/** The fill below which a delete rebalances a node. */
+	@Param({ "0", "0.25", "0.33" })
+	public double mergeThreshold;
+
+	/** The tree under test. */
+	private BPlusTree tree;
+
+	/** The keys deleted and inserted again, drawn from the stored keys. */
+	private double[] probes;
+
+	/** The position of the next key. */
+	private int next;
+
+	/**
+	 * Loads the tree with random keys and draws the keys to be deleted from
+	 * them.
+	 */
+	@Setup(Level.Iteration)
+	public void setup() {
+		SplittableRandom random = new SplittableRandom(0x5EEDL);
+		double[] keys = new double[size];
+		tree = new BPlusTree();
+		tree.initialize(m);
+		tree.setMergeThreshold(mergeThreshold);
+		for (int i = 0; i < size; i++) {
+			keys[i] = random.nextInt(Integer.MAX_VALUE);
+			tree.insert(keys[i], "Value");
+		}
+		probes = new double[PROBES];
+		for (int i = 0; i < PROBES; i++) {
+			probes[i] = keys[random.nextInt(size)];
+		}
+		next = 0;
+	}
+
+	/**
+	 * Deletes a stored key and inserts it again.
+	 *
+	 * @return true if the key was deleted, consumed by JMH
+	 */
+	@Benchmark
+	public boolean churn() {
+		double key = probes[next++ & (PROBES - 1)];
+		boolean deleted = tree.delete(key);
+		tree.insert(key, "Value");
+		return deleted;
+	}
+
+	/**
+	 * Deletes a stored key, or misses one already deleted. The keys run out
+	 * over an iteration, so the tree shrinks as it is measured.
+	 *
+	 * @return true if the key was deleted, consumed by JMH
+	 */
+	@Benchmark
+	public boolean drain() {
+		return tree.delete(probes[next++ & (PROBES - 1)]);
+	}
+
+}
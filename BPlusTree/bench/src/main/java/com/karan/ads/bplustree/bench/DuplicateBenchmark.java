@@ -0,0 +1,122 @@
+package com.karan.ads.bplustree.bench;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.karan.ads.bplustree.BPlusTree;
+import com.karan.ads.bplustree.ValueDictionary;
+
+/**
+ * Measures keys with long posting lists: loading them by inserts, reading a
+ * page of the values of a key, and streaming all of them. The values repeat
+ * within a small set, so the dictionary parameter shows the effect of
+ * storing codes instead of bytes; run with -prof gc to see the allocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DuplicateBenchmark {
+
+	/** The number of distinct keys. */
+	private static final int KEYS = 16;
+
+	/** The number of distinct values. */
+	private static final int DISTINCT_VALUES = 1000;
+
+	/** The number of values of each key. */
+	@Param({ "1000", "100000" })
+	public int valuesPerKey;
+
+	/** True to store the values through a ValueDictionary. */
+	@Param({ "false", "true" })
+	public boolean dictionary;
+
+	/** The values inserted, in order. */
+	private String[] values;
+
+	/** The loaded tree. */
+	private BPlusTree tree;
+
+	/**
+	 * Builds the values and loads the tree with them.
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		values = new String[DISTINCT_VALUES];
+		for (int i = 0; i < DISTINCT_VALUES; i++) {
+			values[i] = "Value" + i;
+		}
+		tree = load();
+	}
+
+	/**
+	 * Loads every key with all of its values, one insert at a time.
+	 *
+	 * @return the tree, consumed by JMH
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 3)
+	@Measurement(iterations = 5)
+	public BPlusTree load() {
+		BPlusTree loaded = new BPlusTree();
+		loaded.initialize(32);
+		if (dictionary) {
+			loaded.setValueDictionary(new ValueDictionary());
+		}
+		for (int v = 0; v < valuesPerKey; v++) {
+			for (int k = 0; k < KEYS; k++) {
+				loaded.insert(k, values[(v * KEYS + k) % DISTINCT_VALUES]);
+			}
+		}
+		return loaded;
+	}
+
+	/**
+	 * Reads a page of 100 values from the middle of a posting list.
+	 *
+	 * @return the page, consumed by JMH
+	 */
+	@Benchmark
+	public List<String> searchPage() {
+		return tree.searchPage(KEYS / 2, valuesPerKey / 2, 100);
+	}
+
+	/**
+	 * Streams all values of a key.
+	 *
+	 * @param blackhole
+	 *            consumes the values
+	 */
+	@Benchmark
+	public void iterate(Blackhole blackhole) {
+		Iterator<String> iterator = tree.search(KEYS / 2).iterator();
+		while (iterator.hasNext()) {
+			blackhole.consume(iterator.next());
+		}
+	}
+
+}
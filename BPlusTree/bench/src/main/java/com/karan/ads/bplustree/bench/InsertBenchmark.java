@@ -0,0 +1,59 @@
+package com.karan.ads.bplustree.bench;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures BPlusTree.insert on a tree already holding size keys. The tree is
+ * rebuilt before every iteration, so each iteration starts from the same
+ * size; the keys inserted continue the same distribution.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InsertBenchmark extends TreeState {
+
+	/** The keys to be inserted, generated before measuring. */
+	private double[] pending;
+
+	/** The position of the next key to be inserted. */
+	private int next;
+
+	/**
+	 * Rebuilds the tree and generates the keys to be inserted.
+	 */
+	@Setup(Level.Iteration)
+	public void setup() {
+		loadTree();
+		pending = new double[PROBES * 16];
+		for (int i = 0; i < pending.length; i++) {
+			pending[i] = generator.getAsDouble();
+		}
+		next = 0;
+	}
+
+	/**
+	 * Inserts the next key.
+	 */
+	@Benchmark
+	public void insert() {
+		int i = next++ & (pending.length - 1);
+		tree.insert(pending[i], "Value");
+	}
+
+}
@@ -0,0 +1,93 @@
+package com.karan.ads.bplustree.bench;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.karan.ads.bplustree.BPlusTree;
+
+/**
+ * Measures BPlusTree.search(double) of keys drawn from a Zipfian
+ * distribution without a key cache and with caches of each capacity. The
+ * sampled latencies show the percentiles, the tree being walked only by the
+ * searches that miss the cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyCacheBenchmark {
+
+	/** The number of precomputed probe keys, a power of two. */
+	private static final int PROBES = 1 << 20;
+
+	/** The number of keys loaded into the tree. */
+	private static final int SIZE = 1000000;
+
+	/** The degree of the tree. */
+	@Param({ "64" })
+	public int m;
+
+	/** The capacity of the cache, 0 for a tree without a cache. */
+	@Param({ "0", "1024", "16384" })
+	public int capacity;
+
+	/** The tree under test. */
+	private BPlusTree tree;
+
+	/** The keys searched, in the order they are searched. */
+	private double[] probes;
+
+	/** The position of the next probe. */
+	private int next;
+
+	/**
+	 * Loads the tree with the keys 0 to SIZE - 1, sets the cache, and draws
+	 * the probes.
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		tree = new BPlusTree();
+		tree.initialize(m);
+		for (int i = 0; i < SIZE; i++) {
+			tree.insert(i, "Value");
+		}
+		if (capacity > 0) {
+			tree.enableKeyCache(capacity);
+		}
+		DoubleSupplier generator = KeyDistribution.ZIPFIAN.newGenerator(SIZE, 0x5EEDL);
+		probes = new double[PROBES];
+		for (int i = 0; i < PROBES; i++) {
+			probes[i] = generator.getAsDouble();
+		}
+	}
+
+	/**
+	 * Searches a key drawn from the Zipfian distribution.
+	 *
+	 * @return the values found, consumed by JMH
+	 */
+	@Benchmark
+	public Object search() {
+		return tree.search(probes[next++ & (PROBES - 1)]);
+	}
+
+}
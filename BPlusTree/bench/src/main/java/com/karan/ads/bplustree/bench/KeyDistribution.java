@@ -0,0 +1,84 @@
+package com.karan.ads.bplustree.bench;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.SplittableRandom;
+import java.util.function.DoubleSupplier;
+
+/**
+ * The key distributions used by the benchmarks. Each distribution creates an
+ * endless generator of keys for a tree of a given size.
+ */
+public enum KeyDistribution {
+
+	/** Keys drawn uniformly at random from [0, size * 10). */
+	UNIFORM {
+		@Override
+		public DoubleSupplier newGenerator(long size, long seed) {
+			SplittableRandom random = new SplittableRandom(seed);
+			double bound = size * 10.0;
+			return () -> random.nextDouble() * bound;
+		}
+	},
+
+	/** Increasing keys 0, 1, 2, ... as in time ordered data. */
+	SEQUENTIAL {
+		@Override
+		public DoubleSupplier newGenerator(long size, long seed) {
+			long[] next = { 0 };
+			return () -> next[0]++;
+		}
+	},
+
+	/**
+	 * Keys out of [0, size) where a few keys are drawn far more often than
+	 * others. Ranks are scrambled so that the frequent keys are spread over
+	 * the tree instead of sitting in its leftmost leaf.
+	 */
+	ZIPFIAN {
+		@Override
+		public DoubleSupplier newGenerator(long size, long seed) {
+			ZipfianGenerator zipf = new ZipfianGenerator(size, ZipfianGenerator.DEFAULT_THETA, seed);
+			return () -> scramble(zipf.next(), size);
+		}
+	},
+
+	/** Only size / 100 distinct keys, each holding about 100 values. */
+	DUPLICATES {
+		@Override
+		public DoubleSupplier newGenerator(long size, long seed) {
+			SplittableRandom random = new SplittableRandom(seed);
+			long distinct = Math.max(1, size / 100);
+			return () -> random.nextLong(distinct);
+		}
+	};
+
+	/**
+	 * Creates a new generator of keys.
+	 *
+	 * @param size
+	 *            the number of keys the tree is meant to hold
+	 * @param seed
+	 *            the seed for the generator
+	 * @return the generator of keys
+	 */
+	public abstract DoubleSupplier newGenerator(long size, long seed);
+
+	/**
+	 * Maps a rank to a pseudo random position in [0, size).
+	 *
+	 * @param rank
+	 *            the rank to be mapped
+	 * @param size
+	 *            the size of the key space
+	 * @return the scrambled key
+	 */
+	private static double scramble(long rank, long size) {
+		long h = rank * 0x9E3779B97F4A7C15L;
+		h ^= h >>> 32;
+		return Math.floorMod(h, size);
+	}
+
+}
@@ -0,0 +1,111 @@
+package com.karan.ads.bplustree.bench;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.karan.ads.bplustree.BPlusTree;
+
+/**
+ * Measures BPlusTree.search(double) of stored keys (hit) and absent keys
+ * (miss) with and without a key filter, for each false positive rate of the
+ * filter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyFilterBenchmark {
+
+	/** The number of precomputed probe keys, a power of two. */
+	private static final int PROBES = 1 << 16;
+
+	/** The number of keys loaded into the tree. */
+	private static final int SIZE = 1000000;
+
+	/** The memory budget of the filter. */
+	private static final long MAX_BYTES = 64L << 20;
+
+	/** The degree of the tree. */
+	@Param({ "64" })
+	public int m;
+
+	/** The false positive rate of the filter, 0 for a tree without a filter. */
+	@Param({ "0", "0.01", "0.001" })
+	public double falsePositiveRate;
+
+	/** The tree under test. */
+	private BPlusTree tree;
+
+	/** Keys that are stored in the tree. */
+	private double[] hits;
+
+	/** Keys that are not stored in the tree, odd where every stored key is even. */
+	private double[] misses;
+
+	/** The position of the next probe. */
+	private int next;
+
+	/**
+	 * Loads the tree with even keys, sets the filter, and draws the probes.
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		SplittableRandom random = new SplittableRandom(0x5EEDL);
+		tree = new BPlusTree();
+		tree.initialize(m);
+		if (falsePositiveRate > 0) {
+			tree.enableKeyFilter(falsePositiveRate, MAX_BYTES);
+		}
+		double[] keys = new double[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			keys[i] = 2.0 * random.nextInt(1 << 29);
+			tree.insert(keys[i], "Value");
+		}
+		hits = new double[PROBES];
+		misses = new double[PROBES];
+		for (int i = 0; i < PROBES; i++) {
+			hits[i] = keys[random.nextInt(SIZE)];
+			misses[i] = 2.0 * random.nextInt(1 << 29) + 1;
+		}
+	}
+
+	/**
+	 * Searches a key that is stored in the tree.
+	 *
+	 * @return the values found, consumed by JMH
+	 */
+	@Benchmark
+	public Object hit() {
+		return tree.search(hits[next++ & (PROBES - 1)]);
+	}
+
+	/**
+	 * Searches a key that is not stored in the tree.
+	 *
+	 * @return the values found, consumed by JMH
+	 */
+	@Benchmark
+	public Object miss() {
+		return tree.search(misses[next++ & (PROBES - 1)]);
+	}
+
+}
@@ -0,0 +1,212 @@
+package com.karan.ads.bplustree.bench;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.karan.ads.bplustree.BPlusTree;
+import com.karan.ads.bplustree.GenericBPlusTree;
+import com.karan.ads.bplustree.IntBPlusTree;
+import com.karan.ads.bplustree.LongBPlusTree;
+
+/**
+ * Compares the double tree with the trees specialized for long and int keys,
+ * and with the generic tree over boxed Long keys, on the same set of keys:
+ * point searches on a loaded tree, and loading a whole tree by inserts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeyTypeBenchmark {
+
+	/** The number of precomputed probe keys, a power of two. */
+	private static final int PROBES = 1 << 16;
+
+	/** The degree of the trees. */
+	@Param({ "32", "128" })
+	public int m;
+
+	/** The number of keys loaded into the trees. */
+	@Param({ "100000", "1000000" })
+	public int size;
+
+	/** The keys, in the order they are inserted. */
+	private int[] keys;
+
+	/** The keys searched, drawn from the loaded keys. */
+	private int[] probes;
+
+	/** The same probes, boxed once for the generic tree. */
+	private Long[] boxedProbes;
+
+	/** The trees under test, loaded with the same keys. */
+	private BPlusTree doubleTree;
+
+	private LongBPlusTree longTree;
+
+	private IntBPlusTree intTree;
+
+	private GenericBPlusTree<Long> genericTree;
+
+	/** The position of the next probe. */
+	private int next;
+
+	/**
+	 * Draws the keys and loads every tree with them.
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		SplittableRandom random = new SplittableRandom(0x5EEDL);
+		keys = new int[size];
+		for (int i = 0; i < size; i++) {
+			keys[i] = random.nextInt(Integer.MAX_VALUE);
+		}
+		probes = new int[PROBES];
+		boxedProbes = new Long[PROBES];
+		for (int i = 0; i < PROBES; i++) {
+			probes[i] = keys[random.nextInt(size)];
+			boxedProbes[i] = (long) probes[i];
+		}
+		doubleTree = loadDouble();
+		longTree = loadLong();
+		intTree = loadInt();
+		genericTree = loadGeneric();
+	}
+
+	/**
+	 * Searches a stored key in the double tree.
+	 *
+	 * @return the values found, consumed by JMH
+	 */
+	@Benchmark
+	public Object searchDouble() {
+		return doubleTree.search(probes[next++ & (PROBES - 1)]);
+	}
+
+	/**
+	 * Searches a stored key in the long tree.
+	 *
+	 * @return the values found, consumed by JMH
+	 */
+	@Benchmark
+	public Object searchLong() {
+		return longTree.search(probes[next++ & (PROBES - 1)]);
+	}
+
+	/**
+	 * Searches a stored key in the int tree.
+	 *
+	 * @return the values found, consumed by JMH
+	 */
+	@Benchmark
+	public Object searchInt() {
+		return intTree.search(probes[next++ & (PROBES - 1)]);
+	}
+
+	/**
+	 * Searches a stored key in the generic tree, with boxed keys.
+	 *
+	 * @return the values found, consumed by JMH
+	 */
+	@Benchmark
+	public Object searchGeneric() {
+		return genericTree.search(boxedProbes[next++ & (PROBES - 1)]);
+	}
+
+	/**
+	 * Loads the double tree with all keys, one insert at a time.
+	 *
+	 * @return the tree, consumed by JMH
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 3)
+	@Measurement(iterations = 5)
+	public BPlusTree loadDouble() {
+		BPlusTree tree = new BPlusTree();
+		tree.initialize(m);
+		for (int i = 0; i < keys.length; i++) {
+			tree.insert(keys[i], "Value");
+		}
+		return tree;
+	}
+
+	/**
+	 * Loads the long tree with all keys, one insert at a time.
+	 *
+	 * @return the tree, consumed by JMH
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 3)
+	@Measurement(iterations = 5)
+	public LongBPlusTree loadLong() {
+		LongBPlusTree tree = new LongBPlusTree();
+		tree.initialize(m);
+		for (int i = 0; i < keys.length; i++) {
+			tree.insert(keys[i], "Value");
+		}
+		return tree;
+	}
+
+	/**
+	 * Loads the int tree with all keys, one insert at a time.
+	 *
+	 * @return the tree, consumed by JMH
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 3)
+	@Measurement(iterations = 5)
+	public IntBPlusTree loadInt() {
+		IntBPlusTree tree = new IntBPlusTree();
+		tree.initialize(m);
+		for (int i = 0; i < keys.length; i++) {
+			tree.insert(keys[i], "Value");
+		}
+		return tree;
+	}
+
+	/**
+	 * Loads the generic tree with all keys as boxed Longs, one insert at a time.
+	 *
+	 * @return the tree, consumed by JMH
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 3)
+	@Measurement(iterations = 5)
+	public GenericBPlusTree<Long> loadGeneric() {
+		GenericBPlusTree<Long> tree = new GenericBPlusTree<>(Comparator.naturalOrder());
+		tree.initialize(m);
+		for (int i = 0; i < keys.length; i++) {
+			tree.insert((long) keys[i], "Value");
+		}
+		return tree;
+	}
+
+}
@@ -0,0 +1,99 @@
+package com.karan.ads.bplustree.bench;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.karan.ads.bplustree.BPlusTree;
+
+/**
+ * Compares looking up a batch of random keys with one call of multiGet
+ * against a call of search(double) per key, on a tree of a million keys.
+ * Half of the probes are absent. Run with -prof perfnorm to compare the
+ * cache misses per batch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MultiGetBenchmark {
+
+	/** The number of keys loaded into the tree. */
+	private static final int SIZE = 1000000;
+
+	/** The number of keys looked up at once. */
+	@Param({ "100", "10000", "100000" })
+	public int batch;
+
+	/** The degree of the tree. */
+	@Param({ "32", "128" })
+	public int m;
+
+	/** The keys looked up. */
+	private double[] probes;
+
+	/** The loaded tree. */
+	private BPlusTree tree;
+
+	/**
+	 * Loads the tree with the even keys and draws the probes.
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		SplittableRandom random = new SplittableRandom(0x5EEDL);
+		tree = new BPlusTree();
+		tree.initialize(m);
+		for (int i = 0; i < SIZE; i++) {
+			tree.insert(2 * random.nextInt(SIZE), "Value");
+		}
+		probes = new double[batch];
+		for (int i = 0; i < batch; i++) {
+			probes[i] = random.nextInt(2 * SIZE);
+		}
+	}
+
+	/**
+	 * Looks up the batch with one walk of the tree.
+	 *
+	 * @return the values found, consumed by JMH
+	 */
+	@Benchmark
+	public List<List<String>> multiGet() {
+		return tree.multiGet(probes);
+	}
+
+	/**
+	 * Looks up the batch one key at a time.
+	 *
+	 * @return the values found, consumed by JMH
+	 */
+	@Benchmark
+	public List<List<String>> searchEach() {
+		List<List<String>> results = new ArrayList<>(probes.length);
+		for (double probe : probes) {
+			results.add(tree.search(probe));
+		}
+		return results;
+	}
+
+}
@@ -0,0 +1,125 @@
+package com.karan.ads.bplustree.bench;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.karan.ads.bplustree.BPlusTree;
+import com.karan.ads.bplustree.NodeSearch;
+
+/**
+ * Compares the strategies of search within a node for each degree m: alone,
+ * on full nodes drawn from a pool larger than the caches, and as part of
+ * BPlusTree.search(double) on a tree of a million keys.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NodeSearchBenchmark {
+
+	/** The number of nodes searched in turn, a power of two. */
+	private static final int NODES = 1 << 12;
+
+	/** The number of precomputed probe keys, a power of two. */
+	private static final int PROBES = 1 << 16;
+
+	/** The number of keys loaded into the tree. */
+	private static final int SIZE = 1000000;
+
+	/** The degree of the tree, a node holding up to m - 1 keys. */
+	@Param({ "16", "64", "128", "256" })
+	public int m;
+
+	/** The search within a node. */
+	@Param({ "BINARY", "BRANCHLESS", "LINEAR" })
+	public NodeSearch strategy;
+
+	/** The keys of the nodes, each sorted. */
+	private double[][] nodes;
+
+	/** The keys searched in the nodes. */
+	private double[] nodeProbes;
+
+	/** The keys searched in the tree, drawn from the loaded keys. */
+	private double[] treeProbes;
+
+	/** The tree, using the strategy. */
+	private BPlusTree tree;
+
+	/** The position of the next probe. */
+	private int next;
+
+	/**
+	 * Builds the nodes and the tree, and draws the probes.
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		SplittableRandom random = new SplittableRandom(0x5EEDL);
+		nodes = new double[NODES][];
+		for (int n = 0; n < NODES; n++) {
+			nodes[n] = new double[m - 1];
+			for (int i = 0; i < m - 1; i++) {
+				nodes[n][i] = random.nextInt(1 << 20);
+			}
+			Arrays.sort(nodes[n]);
+		}
+		nodeProbes = new double[PROBES];
+		for (int i = 0; i < PROBES; i++) {
+			nodeProbes[i] = random.nextInt(1 << 20);
+		}
+		double[] keys = new double[SIZE];
+		tree = new BPlusTree();
+		tree.initialize(m);
+		tree.setNodeSearch(strategy);
+		for (int i = 0; i < SIZE; i++) {
+			keys[i] = random.nextInt(Integer.MAX_VALUE);
+			tree.insert(keys[i], "Value");
+		}
+		treeProbes = new double[PROBES];
+		for (int i = 0; i < PROBES; i++) {
+			treeProbes[i] = keys[random.nextInt(SIZE)];
+		}
+	}
+
+	/**
+	 * Searches a key in a full node.
+	 *
+	 * @return the index found, consumed by JMH
+	 */
+	@Benchmark
+	public int node() {
+		int i = next++;
+		return strategy.upperBound(nodeProbes[i & (PROBES - 1)], nodes[i & (NODES - 1)], m - 1);
+	}
+
+	/**
+	 * Searches a stored key in the tree.
+	 *
+	 * @return the values found, consumed by JMH
+	 */
+	@Benchmark
+	public Object search() {
+		return tree.search(treeProbes[next++ & (PROBES - 1)]);
+	}
+
+}
@@ -0,0 +1,150 @@
+package com.karan.ads.bplustree.bench;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.karan.ads.bplustree.BPlusTree;
+import com.karan.ads.bplustree.OffHeapBPlusTree;
+
+/**
+ * Compares the off-heap tree with the heap tree on the same keys: point
+ * searches on a loaded tree, and loading a whole tree by inserts. Run with
+ * -prof gc to compare the allocation, and with a large size to compare the
+ * time spent in the garbage collector.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OffHeapBenchmark {
+
+	/** The number of precomputed probe keys, a power of two. */
+	private static final int PROBES = 1 << 16;
+
+	/** The degree of the trees. */
+	@Param({ "32", "128" })
+	public int m;
+
+	/** The number of keys loaded into the trees. */
+	@Param({ "100000", "1000000" })
+	public int size;
+
+	/** The keys, in the order they are inserted. */
+	private double[] keys;
+
+	/** The keys searched, drawn from the loaded keys. */
+	private double[] probes;
+
+	/** The trees under test, loaded with the same keys. */
+	private BPlusTree heapTree;
+
+	private OffHeapBPlusTree offHeapTree;
+
+	/** The position of the next probe. */
+	private int next;
+
+	/**
+	 * Draws the keys and loads both trees with them.
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		SplittableRandom random = new SplittableRandom(0x5EEDL);
+		keys = new double[size];
+		for (int i = 0; i < size; i++) {
+			keys[i] = random.nextInt(Integer.MAX_VALUE);
+		}
+		probes = new double[PROBES];
+		for (int i = 0; i < PROBES; i++) {
+			probes[i] = keys[random.nextInt(size)];
+		}
+		heapTree = loadHeap();
+		offHeapTree = loadOffHeap();
+	}
+
+	/**
+	 * Frees the slabs of the off-heap tree.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		offHeapTree.close();
+	}
+
+	/**
+	 * Searches a stored key in the heap tree.
+	 *
+	 * @return the values found, consumed by JMH
+	 */
+	@Benchmark
+	public Object searchHeap() {
+		return heapTree.search(probes[next++ & (PROBES - 1)]);
+	}
+
+	/**
+	 * Searches a stored key in the off-heap tree.
+	 *
+	 * @return the values found, consumed by JMH
+	 */
+	@Benchmark
+	public Object searchOffHeap() {
+		return offHeapTree.search(probes[next++ & (PROBES - 1)]);
+	}
+
+	/**
+	 * Loads the heap tree with all keys, one insert at a time.
+	 *
+	 * @return the tree, consumed by JMH
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 3)
+	@Measurement(iterations = 5)
+	public BPlusTree loadHeap() {
+		BPlusTree tree = new BPlusTree();
+		tree.initialize(m);
+		for (int i = 0; i < keys.length; i++) {
+			tree.insert(keys[i], "Value");
+		}
+		return tree;
+	}
+
+	/**
+	 * Loads the off-heap tree with all keys, one insert at a time. The slabs
+	 * are dropped with the tree.
+	 *
+	 * @return the tree, consumed by JMH
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 3)
+	@Measurement(iterations = 5)
+	public OffHeapBPlusTree loadOffHeap() {
+		OffHeapBPlusTree tree = new OffHeapBPlusTree(m);
+		for (int i = 0; i < keys.length; i++) {
+			tree.insert(keys[i], "Value");
+		}
+		return tree;
+	}
+
+}
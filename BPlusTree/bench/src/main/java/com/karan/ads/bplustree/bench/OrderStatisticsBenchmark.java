@@ -0,0 +1,137 @@
+package com.karan.ads.bplustree.bench;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.karan.ads.bplustree.BPlusTree;
+import com.karan.ads.bplustree.Key;
+
+/**
+ * Measures the queries answered from the counts of the internal nodes on a
+ * tree of a million keys 0, 1, 2, ..., against collecting a range to count
+ * it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderStatisticsBenchmark {
+
+	/** The number of keys loaded into the tree. */
+	private static final int SIZE = 1000000;
+
+	/** The number of precomputed starting keys, a power of two. */
+	private static final int PROBES = 1 << 12;
+
+	/** The number of keys in a counted range. */
+	@Param({ "100", "100000" })
+	public int width;
+
+	/** The loaded tree. */
+	private BPlusTree tree;
+
+	/** The starting keys of the ranges. */
+	private double[] probes;
+
+	/** The position of the next probe. */
+	private int next;
+
+	/**
+	 * Loads the tree in random order and draws the starting keys.
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		SplittableRandom random = new SplittableRandom(0x5EEDL);
+		int[] keys = new int[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			keys[i] = i;
+		}
+		for (int i = SIZE - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int swap = keys[i];
+			keys[i] = keys[j];
+			keys[j] = swap;
+		}
+		tree = new BPlusTree();
+		tree.initialize(64);
+		for (int key : keys) {
+			tree.insert(key, "Value");
+		}
+		probes = new double[PROBES];
+		for (int i = 0; i < PROBES; i++) {
+			probes[i] = random.nextInt(SIZE - width);
+		}
+	}
+
+	/**
+	 * Counts the keys of a range from the counts.
+	 *
+	 * @return the number of keys
+	 */
+	@Benchmark
+	public long count() {
+		double key = probes[next++ & (PROBES - 1)];
+		return tree.count(key, key + width - 1);
+	}
+
+	/**
+	 * Counts the keys of a range by collecting them.
+	 *
+	 * @return the number of keys
+	 */
+	@Benchmark
+	public long collect() {
+		double key = probes[next++ & (PROBES - 1)];
+		return tree.search(key, key + width - 1).size();
+	}
+
+	/**
+	 * Ranks a key.
+	 *
+	 * @return the rank
+	 */
+	@Benchmark
+	public long rank() {
+		return tree.rank(probes[next++ & (PROBES - 1)]);
+	}
+
+	/**
+	 * Finds the key of a rank.
+	 *
+	 * @return the key, consumed by JMH
+	 */
+	@Benchmark
+	public Key select() {
+		return tree.select((long) probes[next++ & (PROBES - 1)]);
+	}
+
+	/**
+	 * Finds the median key.
+	 *
+	 * @return the key, consumed by JMH
+	 */
+	@Benchmark
+	public Key percentile() {
+		return tree.percentile(0.5);
+	}
+
+}
@@ -0,0 +1,79 @@
+package com.karan.ads.bplustree.bench;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures BPlusTree.search(double) for keys that are present (hit) and keys
+ * that fall between the stored keys (miss).
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PointSearchBenchmark extends TreeState {
+
+	/** Keys that are stored in the tree, in the order they are probed. */
+	private double[] hits;
+
+	/** Keys that are not stored in the tree. */
+	private double[] misses;
+
+	/** The position of the next probe. */
+	private int next;
+
+	/**
+	 * Loads the tree and picks the probe keys. Hits are drawn from the key
+	 * distribution, so that a skewed distribution also has skewed lookups.
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		loadTree();
+		hits = new double[PROBES];
+		misses = new double[PROBES];
+		SplittableRandom random = new SplittableRandom(SEED);
+		for (int i = 0; i < PROBES; i++) {
+			hits[i] = generator.getAsDouble();
+			int j = random.nextInt(sortedKeys.length);
+			double upper = j + 1 < sortedKeys.length ? sortedKeys[j + 1] : sortedKeys[j] + 1;
+			misses[i] = (sortedKeys[j] + upper) / 2;
+		}
+	}
+
+	/**
+	 * Searches a key that is stored in the tree (or will be, for keys the
+	 * generator has not produced before).
+	 *
+	 * @return the values found, consumed by JMH
+	 */
+	@Benchmark
+	public Object hit() {
+		return tree.search(hits[next++ & (PROBES - 1)]);
+	}
+
+	/**
+	 * Searches a key that is not stored in the tree.
+	 *
+	 * @return the values found, consumed by JMH
+	 */
+	@Benchmark
+	public Object miss() {
+		return tree.search(misses[next++ & (PROBES - 1)]);
+	}
+
+}
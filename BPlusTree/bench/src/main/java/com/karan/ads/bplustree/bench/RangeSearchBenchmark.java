@@ -0,0 +1,93 @@
+package com.karan.ads.bplustree.bench;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.karan.ads.bplustree.RangeCursor;
+
+/**
+ * Measures BPlusTree.search(double, double) and the range cursor. The width of a range is the
+ * number of distinct stored keys it spans.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RangeSearchBenchmark extends TreeState {
+
+	/** The number of distinct keys in each range. */
+	@Param({ "10", "100", "10000" })
+	public int width;
+
+	/** The lower bounds of the ranges. */
+	private double[] lows;
+
+	/** The upper bounds of the ranges. */
+	private double[] highs;
+
+	/** The position of the next range. */
+	private int next;
+
+	/**
+	 * Loads the tree and picks the ranges.
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		loadTree();
+		lows = new double[PROBES];
+		highs = new double[PROBES];
+		SplittableRandom random = new SplittableRandom(SEED);
+		int span = Math.min(width, sortedKeys.length);
+		for (int i = 0; i < PROBES; i++) {
+			int j = random.nextInt(sortedKeys.length - span + 1);
+			lows[i] = sortedKeys[j];
+			highs[i] = sortedKeys[j + span - 1];
+		}
+	}
+
+	/**
+	 * Searches all key value pairs in a range.
+	 *
+	 * @return the pairs found, consumed by JMH
+	 */
+	@Benchmark
+	public Object range() {
+		int i = next++ & (PROBES - 1);
+		return tree.search(lows[i], highs[i]);
+	}
+
+	/**
+	 * Walks all key value pairs in a range with a cursor, without collecting
+	 * them.
+	 *
+	 * @param blackhole
+	 *            consumes the pairs
+	 */
+	@Benchmark
+	public void cursor(Blackhole blackhole) {
+		int i = next++ & (PROBES - 1);
+		RangeCursor cursor = tree.cursor(lows[i], highs[i]);
+		while (cursor.next()) {
+			blackhole.consume(cursor.getKey());
+			blackhole.consume(cursor.getValue());
+		}
+	}
+
+}
@@ -0,0 +1,128 @@
+package com.karan.ads.bplustree.bench;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.karan.ads.bplustree.BPlusTree;
+import com.karan.ads.bplustree.Key;
+import com.karan.ads.bplustree.RangeCursor;
+
+/**
+ * Compares ways of finding the k greatest keys below a bound: topK walking
+ * backwards through the 'prev' links, a descending cursor, and a forward
+ * range search over a window guessed from the density of the keys, which
+ * reads about twice the keys needed and then keeps the last k.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopKBenchmark {
+
+	/** The number of precomputed bounds, a power of two. */
+	private static final int PROBES = 1 << 16;
+
+	/** The number of keys loaded into the tree. */
+	private static final int SIZE = 1000000;
+
+	/** The largest key, the keys being drawn uniformly below it. */
+	private static final int KEY_SPACE = 1 << 30;
+
+	/** The degree of the tree. */
+	@Param({ "64" })
+	public int m;
+
+	/** The number of keys returned. */
+	@Param({ "10", "100", "1000" })
+	public int k;
+
+	/** The tree under test. */
+	private BPlusTree tree;
+
+	/** The upper bounds of the queries. */
+	private double[] probes;
+
+	/** The width of the window of the range search, holding about 2k keys. */
+	private double window;
+
+	/** The position of the next bound. */
+	private int next;
+
+	/**
+	 * Loads the tree with uniform keys and draws the bounds.
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		SplittableRandom random = new SplittableRandom(0x5EEDL);
+		tree = new BPlusTree();
+		tree.initialize(m);
+		for (int i = 0; i < SIZE; i++) {
+			tree.insert(random.nextInt(KEY_SPACE), "Value");
+		}
+		probes = new double[PROBES];
+		for (int i = 0; i < PROBES; i++) {
+			probes[i] = random.nextInt(KEY_SPACE);
+		}
+		window = 2.0 * k * KEY_SPACE / SIZE;
+	}
+
+	/**
+	 * Finds the k greatest keys with topK.
+	 *
+	 * @return the keys found, consumed by JMH
+	 */
+	@Benchmark
+	public Object topK() {
+		return tree.topK(probes[next++ & (PROBES - 1)], k);
+	}
+
+	/**
+	 * Reads the k greatest pairs with a descending cursor.
+	 *
+	 * @return the sum of the keys read, consumed by JMH
+	 */
+	@Benchmark
+	public double descendingCursor() {
+		RangeCursor cursor = tree.descendingCursor(Double.NEGATIVE_INFINITY, true, probes[next++ & (PROBES - 1)],
+				true, k);
+		double sum = 0;
+		while (cursor.next()) {
+			sum += cursor.getKey();
+		}
+		return sum;
+	}
+
+	/**
+	 * Finds the k greatest keys with a forward range search over a window
+	 * guessed to hold about 2k keys.
+	 *
+	 * @return the keys kept, consumed by JMH
+	 */
+	@Benchmark
+	public Object guessedRange() {
+		double hi = probes[next++ & (PROBES - 1)];
+		List<Key> found = tree.search(hi - window, hi);
+		return found.subList(Math.max(0, found.size() - k), found.size());
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.karan.ads.bplustree.bench;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.Arrays;
+import java.util.function.DoubleSupplier;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.karan.ads.bplustree.BPlusTree;
+
+/**
+ * The common parameters of the benchmarks, and a helper to load a tree with
+ * them. Larger trees than the default ones (up to 1e8 keys) are run with
+ * -p size=100000000 and a heap large enough to hold them.
+ */
+@State(Scope.Benchmark)
+public abstract class TreeState {
+
+	/** The seed used for all generated keys, so that runs are comparable. */
+	protected static final long SEED = 0x5EEDL;
+
+	/** The number of precomputed probe keys, a power of two. */
+	protected static final int PROBES = 1 << 16;
+
+	/** The degree of the tree. */
+	@Param({ "6", "32", "128" })
+	public int m;
+
+	/** The number of keys loaded into the tree before measuring. */
+	@Param({ "1000", "100000", "1000000" })
+	public int size;
+
+	/** The distribution of the keys. */
+	@Param({ "UNIFORM", "SEQUENTIAL", "ZIPFIAN", "DUPLICATES" })
+	public KeyDistribution distribution;
+
+	/** The tree under test. */
+	protected BPlusTree tree;
+
+	/** The distinct keys of the tree, sorted. */
+	protected double[] sortedKeys;
+
+	/** The generator of keys, positioned after the loaded keys. */
+	protected DoubleSupplier generator;
+
+	/**
+	 * Builds the tree with size keys drawn from the distribution.
+	 */
+	protected void loadTree() {
+		generator = distribution.newGenerator(size, SEED);
+		tree = new BPlusTree();
+		tree.initialize(m);
+		double[] loaded = new double[size];
+		for (int i = 0; i < size; i++) {
+			loaded[i] = generator.getAsDouble();
+			tree.insert(loaded[i], "Value" + i);
+		}
+		Arrays.sort(loaded);
+		int distinct = 0;
+		for (int i = 0; i < size; i++) {
+			if (distinct == 0 || loaded[i] != loaded[distinct - 1]) {
+				loaded[distinct++] = loaded[i];
+			}
+		}
+		sortedKeys = Arrays.copyOf(loaded, distinct);
+	}
+
+}
@@ -0,0 +1,134 @@
+package com.karan.ads.bplustree.bench;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.Iterator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.karan.ads.bplustree.ConcurrentBPlusTree;
+import com.karan.ads.bplustree.Key;
+import com.karan.ads.bplustree.VersionView;
+import com.karan.ads.bplustree.VersionedBPlusTree;
+
+/**
+ * Measures long range scans running next to an inserting thread. The
+ * versioned group scans a pinned version of the VersionedBPlusTree, which
+ * sees none of the concurrent inserts; the linked group scans the
+ * ConcurrentBPlusTree, which retries nodes split under it and sees the
+ * inserts that land ahead of it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VersionedBenchmark {
+
+	/** The degree of the trees. */
+	@Param({ "64" })
+	public int m;
+
+	/** The number of keys loaded into the trees before measuring. */
+	@Param({ "1000000" })
+	public int size;
+
+	/** The number of keys read by a scan. */
+	@Param({ "10000" })
+	public int scanLength;
+
+	/** The versioned tree under test. */
+	private VersionedBPlusTree versioned;
+
+	/** The B-link tree compared with. */
+	private ConcurrentBPlusTree linked;
+
+	/**
+	 * Loads both trees with the keys 0, 2, 4, ... so that inserts of odd keys
+	 * land between the stored ones.
+	 */
+	@Setup(Level.Iteration)
+	public void setup() {
+		versioned = new VersionedBPlusTree();
+		versioned.initialize(m);
+		linked = new ConcurrentBPlusTree();
+		linked.initialize(m);
+		for (int i = 0; i < size; i++) {
+			versioned.insert(2 * i, "Value" + i);
+			linked.insert(2 * i, "Value" + i);
+		}
+	}
+
+	/**
+	 * Scans a pinned version from a random key.
+	 *
+	 * @return the number of keys read, consumed by JMH
+	 */
+	@Benchmark
+	@Group("versioned")
+	@GroupThreads(1)
+	public int versionedScan() {
+		double from = 2 * ThreadLocalRandom.current().nextInt(size - scanLength);
+		int count = 0;
+		try (VersionView view = versioned.pin()) {
+			Iterator<Key> keys = view.iterator(from, from + 2 * scanLength);
+			while (keys.hasNext()) {
+				keys.next();
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Inserts a random key between the stored keys of the versioned tree.
+	 */
+	@Benchmark
+	@Group("versioned")
+	@GroupThreads(1)
+	public void versionedInsert() {
+		versioned.insert(2 * ThreadLocalRandom.current().nextInt(size) + 1, "Value");
+	}
+
+	/**
+	 * Scans the B-link tree from a random key.
+	 *
+	 * @return the keys read, consumed by JMH
+	 */
+	@Benchmark
+	@Group("linked")
+	@GroupThreads(1)
+	public Object linkedScan() {
+		double from = 2 * ThreadLocalRandom.current().nextInt(size - scanLength);
+		return linked.search(from, from + 2 * scanLength);
+	}
+
+	/**
+	 * Inserts a random key between the stored keys of the B-link tree.
+	 */
+	@Benchmark
+	@Group("linked")
+	@GroupThreads(1)
+	public void linkedInsert() {
+		linked.insert(2 * ThreadLocalRandom.current().nextInt(size) + 1, "Value");
+	}
+
+}
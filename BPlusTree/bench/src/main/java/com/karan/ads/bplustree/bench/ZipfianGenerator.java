@@ -0,0 +1,77 @@
+package com.karan.ads.bplustree.bench;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates ranks in [0, items) following a Zipfian distribution, using the
+ * method of Gray et al. ("Quickly Generating Billion-Record Synthetic
+ * Databases"). Rank 0 is the most frequent one.
+ */
+public class ZipfianGenerator {
+
+	/** The default skew, as used by YCSB. */
+	public static final double DEFAULT_THETA = 0.99;
+
+	/** The number of items. */
+	private final long items;
+
+	/** The skew of the distribution. */
+	private final double theta;
+
+	/** Precomputed constants of the distribution. */
+	private final double zetaN;
+	private final double alpha;
+	private final double eta;
+
+	/** The source of randomness. */
+	private final SplittableRandom random;
+
+	/**
+	 * Instantiates a new zipfian generator.
+	 *
+	 * @param items
+	 *            the number of items to draw ranks from
+	 * @param theta
+	 *            the skew of the distribution, between 0 and 1
+	 * @param seed
+	 *            the seed of the random number generator
+	 */
+	public ZipfianGenerator(long items, double theta, long seed) {
+		this.items = items;
+		this.theta = theta;
+		this.random = new SplittableRandom(seed);
+		// zeta(n) is linear in the number of items, computed once per
+		// generator
+		double zeta = 0;
+		for (long i = 1; i <= items; i++) {
+			zeta += 1 / Math.pow(i, theta);
+		}
+		double zeta2 = 1 + 1 / Math.pow(2, theta);
+		this.zetaN = zeta;
+		this.alpha = 1 / (1 - theta);
+		this.eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta2 / zetaN);
+	}
+
+	/**
+	 * Draws the next rank.
+	 *
+	 * @return the next rank
+	 */
+	public long next() {
+		double u = random.nextDouble();
+		double uz = u * zetaN;
+		if (uz < 1) {
+			return 0;
+		}
+		if (uz < 1 + Math.pow(0.5, theta)) {
+			return 1;
+		}
+		long rank = (long) (items * Math.pow(eta * u - eta + 1, alpha));
+		return Math.min(rank, items - 1);
+	}
+
+}
@@ -0,0 +1,85 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * The Class CommandReaderTest. Checks that the keys parsed by the reader are
+ * those Double.parseDouble gives, and that it refuses the keys it refuses.
+ */
+public class CommandReaderTest {
+
+	/** The folder of the input files. */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Keys made of a sign and a point without any digit are not numbers.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@Test
+	public void pointWithoutDigits() throws IOException {
+		for (String key : new String[] { ".", "-.", "+.", " . ", "-", "" }) {
+			try (CommandReader reader = open("Search(" + key + ")")) {
+				reader.next();
+				fail("Key \"" + key + "\" parsed as " + reader.getKey1());
+			} catch (NumberFormatException e) {
+				// refused, as by Double.parseDouble
+			}
+		}
+	}
+
+	/**
+	 * Keys with a point and digits on one side only, or other forms, parse as
+	 * Double.parseDouble parses them.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@Test
+	public void sameAsParseDouble() throws IOException {
+		String[] keys = { "0", "-0", "5.", ".5", "-.5", "+5.", "3.55", "-3.91", "30.96", "00012.500", "1e3",
+				"0.1234567890123456789", "123456789012345678" };
+		for (String key : keys) {
+			try (CommandReader reader = open("Search(" + key + "," + key + ")")) {
+				assertEquals(CommandReader.SEARCH_RANGE, reader.next());
+				double expected = Double.parseDouble(key);
+				assertEquals(key, Double.doubleToLongBits(expected), Double.doubleToLongBits(reader.getKey1()));
+				assertEquals(key, Double.doubleToLongBits(expected), Double.doubleToLongBits(reader.getKey2()));
+			}
+		}
+	}
+
+	/**
+	 * Opens a reader over an input file of degree 3 with one command.
+	 *
+	 * @param command
+	 *            the command
+	 * @return the reader, past the degree
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private CommandReader open(String command) throws IOException {
+		Path path = folder.newFile().toPath();
+		Files.write(path, ("3\n" + command + "\n").getBytes(StandardCharsets.US_ASCII));
+		CommandReader reader = new CommandReader(path);
+		reader.readOrder();
+		return reader;
+	}
+
+}
@@ -0,0 +1,173 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * The Class PagedBPlusTreeTest. Checks that values of any size accepted by
+ * insert are written to the file and read back, through splits, evictions
+ * and reopening.
+ */
+public class PagedBPlusTreeTest {
+
+	/** The size of the pages of the trees tested. */
+	private static final int PAGE_SIZE = 4096;
+
+	/** The folder of the files of the trees. */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * A value just small enough for an overflow page, too large to be kept in
+	 * an external page next to its header and slot.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@Test
+	public void largestValue() throws IOException {
+		Path path = folder.newFile().toPath();
+		String largest = text('x', PAGE_SIZE - OverflowPage.HEADER_SIZE - 4);
+		try (PagedBPlusTree tree = new PagedBPlusTree(path, 8, PAGE_SIZE, 8)) {
+			tree.insert(1, text('a', 4060));
+			tree.insert(2, largest);
+			tree.flush();
+		}
+		try (PagedBPlusTree tree = new PagedBPlusTree(path, 8, PAGE_SIZE, 8)) {
+			assertEquals(Arrays.asList(text('a', 4060)), tree.search(1));
+			assertEquals(Arrays.asList(largest), tree.search(2));
+			assertNull(tree.search(3));
+		}
+	}
+
+	/**
+	 * A value one byte larger than an overflow page can hold is refused.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void valueLargerThanPage() throws IOException {
+		try (PagedBPlusTree tree = new PagedBPlusTree(folder.newFile().toPath(), 8, PAGE_SIZE, 8)) {
+			tree.insert(1, text('x', PAGE_SIZE - OverflowPage.HEADER_SIZE - 3));
+		}
+	}
+
+	/**
+	 * Random keys with values of random sizes, up to most of a page, in a
+	 * small pool, so that splits of nodes full of bytes are written by
+	 * evictions. The tree is checked against a map, then flushed, reopened
+	 * and checked again.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@Test
+	public void randomValueSizes() throws IOException {
+		for (int seed = 0; seed < 20; seed++) {
+			Random random = new Random(seed);
+			Path path = folder.newFile().toPath();
+			int poolPages = 8 + random.nextInt(20);
+			Map<Double, List<String>> expected = new TreeMap<>();
+			try (PagedBPlusTree tree = new PagedBPlusTree(path, 16, PAGE_SIZE, poolPages)) {
+				for (int i = 0; i < 600; i++) {
+					double key = random.nextInt(300);
+					String value = text((char) ('a' + random.nextInt(26)), random.nextInt(3000));
+					tree.insert(key, value);
+					expected.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+				}
+				check(tree, expected);
+				tree.flush();
+			}
+			try (PagedBPlusTree tree = new PagedBPlusTree(path, 16, PAGE_SIZE, poolPages)) {
+				check(tree, expected);
+			}
+		}
+	}
+
+	/**
+	 * Random inserts mixed with range scans in a small pool, so that the
+	 * read ahead of a scan evicts dirty pages of the run it read. Every scan
+	 * and, at the end, every key are checked against a map.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@Test
+	public void insertsBetweenRangeScans() throws IOException {
+		for (int seed = 0; seed < 20; seed++) {
+			Random random = new Random(seed);
+			int poolPages = 8 + random.nextInt(20);
+			TreeMap<Double, List<String>> expected = new TreeMap<>();
+			try (PagedBPlusTree tree = new PagedBPlusTree(folder.newFile().toPath(), 16, PAGE_SIZE, poolPages)) {
+				for (int i = 0; i < 5000; i++) {
+					double key = random.nextInt(2000);
+					String value = "v" + i;
+					tree.insert(key, value);
+					expected.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+					if (random.nextInt(20) == 0) {
+						double lo = random.nextInt(2000);
+						double hi = lo + random.nextInt(500);
+						List<Key> found = tree.search(lo, hi);
+						assertEquals(expected.subMap(lo, true, hi, true).size(), found.size());
+						for (Key pair : found) {
+							assertEquals(expected.get(pair.getKey()), pair.getValues());
+						}
+					}
+				}
+				check(tree, expected);
+			}
+		}
+	}
+
+	/**
+	 * Checks the values of each key, and the keys of a range spanning them
+	 * all.
+	 *
+	 * @param tree
+	 *            the tree
+	 * @param expected
+	 *            the values of each key, in insertion order
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private static void check(PagedBPlusTree tree, Map<Double, List<String>> expected) throws IOException {
+		for (Map.Entry<Double, List<String>> entry : expected.entrySet()) {
+			assertEquals(entry.getValue(), tree.search(entry.getKey()));
+		}
+		assertEquals(expected.size(), tree.search(-1, Double.MAX_VALUE).size());
+	}
+
+	/**
+	 * Builds a string of repeated chars.
+	 *
+	 * @param c
+	 *            the char
+	 * @param length
+	 *            the length
+	 * @return the string
+	 */
+	private static String text(char c, int length) {
+		char[] chars = new char[length];
+		Arrays.fill(chars, c);
+		return new String(chars);
+	}
+
+}
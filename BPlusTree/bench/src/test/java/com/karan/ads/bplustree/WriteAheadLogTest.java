@@ -0,0 +1,171 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.karan.ads.bplustree.WriteAheadLog.Durability;
+
+/**
+ * The Class WriteAheadLogTest. Checks that no record is acknowledged once
+ * the log fails to write, and that replay keeps only the complete records of
+ * a torn log.
+ */
+public class WriteAheadLogTest {
+
+	/** A device on which every write fails with no space left, on Linux. */
+	private static final Path FULL_DEVICE = Paths.get("/dev/full");
+
+	/** The number of threads syncing at once. */
+	private static final int THREADS = 8;
+
+	/** The folder of the log files. */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Every caller of sync, the leader writing the batch and those waiting
+	 * for it, throws when the write fails, and so does every later append.
+	 *
+	 * @throws Exception
+	 *             if the test fails
+	 */
+	@Test
+	public void syncThrowsOnceWriteFails() throws Exception {
+		assumeTrue(Files.isWritable(FULL_DEVICE));
+		WriteAheadLog log = new WriteAheadLog(FULL_DEVICE, Durability.SYNC, 0);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicReferenceArray<Object> outcomes = new AtomicReferenceArray<>(THREADS);
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			final int index = t;
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+					log.sync(log.append(WriteAheadLog.OPERATION_INSERT, index, "Value" + index));
+					outcomes.set(index, "acknowledged");
+				} catch (Exception e) {
+					outcomes.set(index, e);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		for (int t = 0; t < THREADS; t++) {
+			if (!(outcomes.get(t) instanceof IOException)) {
+				fail("Thread " + t + " was " + outcomes.get(t));
+			}
+		}
+		try {
+			log.append(WriteAheadLog.OPERATION_INSERT, 1, "Late");
+			fail("Append after a failed write");
+		} catch (IOException e) {
+			// the log stays failed
+		}
+		try {
+			log.close();
+		} catch (IOException e) {
+			// the records can not be written on close either
+		}
+	}
+
+	/**
+	 * A failure of the background flush with PERIODIC durability reaches the
+	 * writers.
+	 *
+	 * @throws Exception
+	 *             if the test fails
+	 */
+	@Test
+	public void periodicFailureReachesWriters() throws Exception {
+		assumeTrue(Files.isWritable(FULL_DEVICE));
+		WriteAheadLog log = new WriteAheadLog(FULL_DEVICE, Durability.PERIODIC, 1);
+		long lsn = log.append(WriteAheadLog.OPERATION_INSERT, 1, "Value1");
+		IOException failure = null;
+		long deadline = System.nanoTime() + 10_000_000_000L;
+		while (null == failure && System.nanoTime() < deadline) {
+			try {
+				Thread.sleep(5);
+				log.append(WriteAheadLog.OPERATION_INSERT, 2, "Value2");
+			} catch (IOException e) {
+				failure = e;
+			}
+		}
+		if (null == failure) {
+			fail("Appends kept succeeding after the flush failed");
+		}
+		try {
+			log.sync(lsn);
+			fail("Sync after a failed flush");
+		} catch (IOException e) {
+			// the log stays failed
+		}
+		try {
+			log.close();
+		} catch (IOException e) {
+			// the records can not be written on close either
+		}
+	}
+
+	/**
+	 * A record torn by a crash is cut off on replay with the records before
+	 * it kept, and the next record follows the last complete one.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@Test
+	public void tornTailReplaysCompleteRecords() throws IOException {
+		Path path = folder.newFile().toPath();
+		try (WriteAheadLog log = new WriteAheadLog(path, Durability.SYNC, 0)) {
+			log.replay(0, (operation, key, value) -> fail("Empty log replayed a record"));
+			for (int i = 1; i <= 10; i++) {
+				log.sync(log.append(WriteAheadLog.OPERATION_INSERT, i, "Value" + i));
+			}
+		}
+		// tear the last record, as a crash in the middle of its write would
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 3);
+		}
+		List<Double> keys = new ArrayList<>();
+		try (WriteAheadLog log = new WriteAheadLog(path, Durability.SYNC, 0)) {
+			assertEquals(9, log.replay(0, (operation, key, value) -> {
+				assertEquals("Value" + (int) key, value);
+				keys.add(key);
+			}));
+			assertEquals(9, log.getLastLsn());
+			log.sync(log.append(WriteAheadLog.OPERATION_INSERT, 11, "Value11"));
+		}
+		keys.clear();
+		try (WriteAheadLog log = new WriteAheadLog(path, Durability.SYNC, 0)) {
+			assertEquals(10, log.replay(0, (operation, key, value) -> keys.add(key)));
+			assertEquals(Double.valueOf(11), keys.get(9));
+			assertFalse(keys.contains(10.0));
+		}
+	}
+
+}
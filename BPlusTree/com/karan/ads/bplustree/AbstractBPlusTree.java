@@ -0,0 +1,295 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The Class AbstractBPlusTree. The structure shared by the B Plus Trees with
+ * long, int and generic keys. Only the comparisons depend on the type of the
+ * keys, so each tree descends and searches with its own typed loop, without
+ * boxing, and then relies on this class to add values, shift keys, split
+ * nodes and keep the linked list of external nodes. Keys are moved between
+ * nodes with System.arraycopy, which works on any array type, and a key is
+ * promoted to a parent by copying it from the array of the split node. Splits
+ * follow BPlusTree: an external node is split at m/2 once it holds m keys,
+ * and an internal node at ceil(m/2) - 1, its middle key moving up.
+ */
+abstract class AbstractBPlusTree {
+
+	/** The degree m. */
+	int m;
+
+	/** The root of the B Plus Tree. */
+	KeyedNode root;
+
+	/**
+	 * Initializes the B Plus Tree. Sets the degree of the BPlus Tree as m
+	 *
+	 * @param order
+	 *            the degree of the B Plus Tree
+	 */
+	public void initialize(int order) {
+		if (order < 3) {
+			throw new IllegalArgumentException("The degree must be at least 3, got " + order);
+		}
+		this.m = order;
+		this.root = null;
+	}
+
+	/**
+	 * Creates an array for the keys of a node.
+	 *
+	 * @param length
+	 *            the length of the array
+	 * @return a long[], an int[] or an Object[] of the given length
+	 */
+	abstract Object newKeys(int length);
+
+	/**
+	 * Creates a new node.
+	 *
+	 * @param external
+	 *            true for an external node
+	 * @return the node
+	 */
+	KeyedNode newNode(boolean external) {
+		return new KeyedNode(newKeys(this.m), this.m, external);
+	}
+
+	/**
+	 * Gets the root to start an insert from, creating it for an empty tree.
+	 *
+	 * @return the root
+	 */
+	KeyedNode rootForInsert() {
+		if (null == this.root) {
+			this.root = newNode(true);
+		}
+		return this.root;
+	}
+
+	/**
+	 * Adds a value to a key already present in an external node, turning the
+	 * single value into a posting list on the first duplicate.
+	 *
+	 * @param node
+	 *            the external node
+	 * @param index
+	 *            the index of the key
+	 * @param value
+	 *            the value to be added
+	 */
+	void addValue(KeyedNode node, int index, String value) {
+		Object existing = node.values[index];
+		if (existing instanceof String) {
+			PostingList valueList = new PostingList(null);
+			valueList.append((String) existing);
+			node.values[index] = valueList;
+			existing = valueList;
+		}
+		((PostingList) existing).append(value);
+	}
+
+	/**
+	 * Shifts the keys and values of an external node right of an index by
+	 * one. The caller then stores the new key at the index, and calls
+	 * insertedAt with its value.
+	 *
+	 * @param node
+	 *            the external node
+	 * @param index
+	 *            the index of the new key
+	 */
+	void openSlot(KeyedNode node, int index) {
+		System.arraycopy(node.keys, index, node.keys, index + 1, node.keyCount - index);
+		System.arraycopy(node.values, index, node.values, index + 1, node.keyCount - index);
+	}
+
+	/**
+	 * Completes the insert of a new key stored at an index opened by
+	 * openSlot, and splits the node if it became full.
+	 *
+	 * @param node
+	 *            the external node
+	 * @param index
+	 *            the index of the new key
+	 * @param value
+	 *            the value of the new key
+	 */
+	void insertedAt(KeyedNode node, int index, String value) {
+		node.values[index] = value;
+		node.keyCount++;
+		if (node.keyCount == this.m) {
+			splitExternalNode(node);
+		}
+	}
+
+	/**
+	 * Split external node.
+	 *
+	 * @param curr
+	 *            the full external node to be split
+	 */
+	private void splitExternalNode(KeyedNode curr) {
+		int midIndex = this.m / 2;
+		int keyCount = curr.keyCount;
+		KeyedNode rightPart = newNode(true);
+
+		// the right part gets the middle key and the keys right of it
+		System.arraycopy(curr.keys, midIndex, rightPart.keys, 0, keyCount - midIndex);
+		System.arraycopy(curr.values, midIndex, rightPart.values, 0, keyCount - midIndex);
+		rightPart.keyCount = keyCount - midIndex;
+		Arrays.fill(curr.values, midIndex, keyCount, null);
+		clearKeys(curr.keys, midIndex, keyCount);
+		curr.keyCount = midIndex;
+
+		// the right part is placed right after the split node in the linked
+		// list
+		rightPart.next = curr.next;
+		if (null != curr.next) {
+			curr.next.prev = rightPart;
+		}
+		rightPart.prev = curr;
+		curr.next = rightPart;
+
+		// a copy of the first key of the right part separates the two parts
+		insertIntoParent(curr, rightPart.keys, 0, rightPart);
+	}
+
+	/**
+	 * Inserts the key separating the two parts of a split node into its
+	 * parent, splitting the parent in turn if it becomes full.
+	 *
+	 * @param left
+	 *            the left part of the split, the node that was split
+	 * @param source
+	 *            the array of keys holding the separating key
+	 * @param sourceIndex
+	 *            the index of the separating key in the array
+	 * @param rightPart
+	 *            the right part of the split
+	 */
+	private void insertIntoParent(KeyedNode left, Object source, int sourceIndex, KeyedNode rightPart) {
+		KeyedNode parent = left.parent;
+		if (null == parent) {
+			// the root was split, so a new root is created with the two
+			// parts as its children
+			KeyedNode newRoot = newNode(false);
+			System.arraycopy(source, sourceIndex, newRoot.keys, 0, 1);
+			newRoot.children[0] = left;
+			newRoot.children[1] = rightPart;
+			newRoot.keyCount = 1;
+			left.parent = newRoot;
+			rightPart.parent = newRoot;
+			this.root = newRoot;
+			return;
+		}
+
+		// the separating key goes right before the child that was split, so
+		// its position is found without comparing keys
+		int keyCount = parent.keyCount;
+		int index = 0;
+		while (parent.children[index] != left) {
+			index++;
+		}
+		System.arraycopy(parent.keys, index, parent.keys, index + 1, keyCount - index);
+		System.arraycopy(parent.children, index + 1, parent.children, index + 2, keyCount - index);
+		System.arraycopy(source, sourceIndex, parent.keys, index, 1);
+		parent.children[index + 1] = rightPart;
+		rightPart.parent = parent;
+		parent.keyCount = keyCount + 1;
+
+		if (parent.keyCount == this.m) {
+			splitInternalNode(parent);
+		}
+	}
+
+	/**
+	 * Split internal node.
+	 *
+	 * @param curr
+	 *            the full internal node to be split
+	 */
+	private void splitInternalNode(KeyedNode curr) {
+		int midIndex = (int) Math.ceil(this.m / 2.0) - 1;
+		int rightKeyCount = this.m - midIndex - 1;
+		KeyedNode rightPart = newNode(false);
+
+		// the keys and children right of the middle key move to the right
+		// part, and the middle key moves up
+		System.arraycopy(curr.keys, midIndex + 1, rightPart.keys, 0, rightKeyCount);
+		System.arraycopy(curr.children, midIndex + 1, rightPart.children, 0, rightKeyCount + 1);
+		for (int i = 0; i <= rightKeyCount; i++) {
+			rightPart.children[i].parent = rightPart;
+		}
+		rightPart.keyCount = rightKeyCount;
+		Arrays.fill(curr.children, midIndex + 1, this.m + 1, null);
+		curr.keyCount = midIndex;
+
+		insertIntoParent(curr, curr.keys, midIndex, rightPart);
+		clearKeys(curr.keys, midIndex, this.m);
+	}
+
+	/**
+	 * Clears keys that were moved out of a node, so that keys that are
+	 * objects can be collected. Primitive keys are left as they are.
+	 *
+	 * @param keys
+	 *            the array of keys
+	 * @param from
+	 *            the first index to be cleared
+	 * @param to
+	 *            the index after the last one to be cleared
+	 */
+	private static void clearKeys(Object keys, int from, int to) {
+		if (keys instanceof Object[]) {
+			Arrays.fill((Object[]) keys, from, to, null);
+		}
+	}
+
+	/**
+	 * Gets the values of a key in an external node.
+	 *
+	 * @param node
+	 *            the external node
+	 * @param index
+	 *            the index of the key
+	 * @return the values of the key
+	 */
+	@SuppressWarnings("unchecked")
+	static List<String> valueList(KeyedNode node, int index) {
+		Object slot = node.values[index];
+		if (slot instanceof String) {
+			return Collections.singletonList((String) slot);
+		}
+		return (List<String>) slot;
+	}
+
+	/**
+	 * Gets the leftmost external node.
+	 *
+	 * @return the first external node, null if the tree is empty
+	 */
+	KeyedNode firstExternalNode() {
+		KeyedNode curr = this.root;
+		while (null != curr && !curr.isExternal()) {
+			curr = curr.children[0];
+		}
+		return curr;
+	}
+
+	/**
+	 * Gets the degree of the tree.
+	 *
+	 * @return the degree m
+	 */
+	public int getOrder() {
+		return this.m;
+	}
+
+}
@@ -1,15 +1,23 @@
 package com.karan.ads.bplustree;
 
-/* 
+/*
  * author : Karan Chauhan
  */
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
-// Note: The linked list is not used in the B Plus Tree implementation. 
-// It's only used for a testing method that prints the b plus tree using a level order traversal 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+// Note: The linked list is not used in the B Plus Tree implementation.
+// It's only used for a testing method that prints the b plus tree using a level order traversal
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 /**
@@ -24,6 +32,57 @@ public class BPlusTree {
 	/** The root of the B Plus Tree. */
 	private Node root;
 
+	/** The dictionary of the values, null if values are stored as given. */
+	private ValueDictionary dictionary;
+
+	/** The search within a node. */
+	private NodeSearch nodeSearch = NodeSearch.DEFAULT;
+
+	/** The monoid of the summaries kept in the internal nodes, null to keep none. */
+	private KeyMonoid<Object> monoid;
+
+	/** The estimated bytes of a Node, not counting its arrays. */
+	private static final int NODE_BYTES = 56;
+
+	/** The estimated bytes of a String, not counting its array. */
+	private static final int STRING_BYTES = 24;
+
+	/** The estimated bytes of a PostingList, not counting its chunks. */
+	private static final int POSTING_LIST_BYTES = 96;
+
+	/** The fewest keys multiGet sorts and walks the tree with, fewer being searched one by one. */
+	private static final int MULTI_GET_MIN_BATCH = 512;
+
+	/** The number of bits of a digit of the radix sort of multiGet. */
+	private static final int RADIX_BITS = 8;
+
+	/** The fill below which a node is rebalanced after a delete, unless set. */
+	public static final double DEFAULT_MERGE_THRESHOLD = 0.25;
+
+	/** The largest fill below which a node may be rebalanced after a delete. */
+	private static final double MAX_MERGE_THRESHOLD = 1 / 3.0;
+
+	/** The fill of a node below which a delete rebalances it. */
+	private double mergeThreshold = DEFAULT_MERGE_THRESHOLD;
+
+	/** The rightmost external node, null until it is needed after a bulk build. */
+	private Node rightmost;
+
+	/** The index of the child taken at each level by the last descent of an insert or a delete. */
+	private int[] path = new int[16];
+
+	/** The statistics of the operations, null while they are not kept. */
+	private volatile TreeStats stats;
+
+	/** The fewest keys a key filter is sized for. */
+	private static final long MIN_FILTER_CAPACITY = 1024;
+
+	/** The filter of the keys searched, null while there is none. */
+	private KeyFilter keyFilter;
+
+	/** The cache of the values of the keys searched most, null while there is none. */
+	private KeyCache keyCache;
+
 	/**
 	 * Instantiates a new b plus tree.
 	 */
@@ -41,384 +100,2062 @@ public class BPlusTree {
 		// At initialization, order of the tree is set to m. Root is set to null
 		this.m = order;
 		this.root = null;
+		this.rightmost = null;
+		keysReplaced();
 		// System.out.println("B+ Tree Initialized. Degree is " + m);
 	}
 
 	/**
-	 * Insert a key and value pair to the B Plus Tree
+	 * Sets the dictionary of the values. Posting lists created from then on
+	 * store the code of each value instead of its bytes, and single values
+	 * are replaced by the instance held by the dictionary. Worth it when few
+	 * distinct values repeat under many keys.
 	 *
-	 * @param key
-	 *            the key to be inserted
-	 * @param value
-	 *            the value to be inserted
+	 * @param dictionary
+	 *            the dictionary of the values, null to store values as given
 	 */
-	public void insert(double key, String value) {
+	public void setValueDictionary(ValueDictionary dictionary) {
+		this.dictionary = dictionary;
+	}
 
-		// Case 1: Inserting to an Empty B Plus Tree
-		if (null == this.root) {
-			// For an empty B Tree, root is created and its key is set as the
-			// newly inserted key
-			Node newNode = new Node();
-			newNode.getKeys().add(new Key(key, value));
-			this.root = newNode;
-			// Since the root has no parent, parent set to null
-			this.root.setParent(null);
-		}
+	/**
+	 * Gets the dictionary of the values.
+	 *
+	 * @return the dictionary, null if values are stored as given
+	 */
+	public ValueDictionary getValueDictionary() {
+		return dictionary;
+	}
 
-		// Case 2: Only one node that is not full
-		else if (this.root.getChildren().isEmpty() && this.root.getKeys().size() < (this.m - 1)) {
-			// For all insertions until the root gets overfull for the first
-			// time, we just update the root node, adding the new keys
-			insertWithinExternalNode(key, value, this.root);
-		}
+	/**
+	 * Sets the search within a node, used on the way down and in the
+	 * external nodes.
+	 *
+	 * @param nodeSearch
+	 *            the strategy of the search within a node
+	 */
+	public void setNodeSearch(NodeSearch nodeSearch) {
+		this.nodeSearch = nodeSearch;
+	}
 
-		// Case 3: Normal insert
-		else {
-			Node curr = this.root;
-			// Since we insert the element only at the external node, we
-			// traverse to the last level
-			while (!curr.getChildren().isEmpty()) {
-				curr = curr.getChildren().get(binarySearchWithinInternalNode(key, curr.getKeys()));
-			}
-			insertWithinExternalNode(key, value, curr);
-			if (curr.getKeys().size() == this.m) {
-				// If the external node becomes full, we split it
-				splitExternalNode(curr, this.m);
-			}
+	/**
+	 * Gets the search within a node.
+	 *
+	 * @return the strategy of the search within a node
+	 */
+	public NodeSearch getNodeSearch() {
+		return nodeSearch;
+	}
+
+	/**
+	 * Sets the monoid whose summaries the internal nodes keep for each child,
+	 * so that aggregate with this monoid combines whole subtrees. The
+	 * summaries of the keys already in the tree are computed at once, and
+	 * every insert then updates them along its path, which costs a few
+	 * combinations per level.
+	 *
+	 * @param monoid
+	 *            the monoid of the summaries, null to keep none
+	 */
+	@SuppressWarnings("unchecked")
+	public void setKeyMonoid(KeyMonoid<?> monoid) {
+		this.monoid = (KeyMonoid<Object>) monoid;
+		if (null != this.root) {
+			summarizeTree(this.root);
 		}
+	}
 
+	/**
+	 * Gets the monoid of the summaries kept in the internal nodes.
+	 *
+	 * @return the monoid, null if no summaries are kept
+	 */
+	public KeyMonoid<?> getKeyMonoid() {
+		return monoid;
 	}
 
 	/**
-	 * Insert the key value pair to the external node.
+	 * Sets the fill of a node below which a delete rebalances it, as a
+	 * fraction of the m - 1 keys it holds at most. A node that falls below it
+	 * is merged with a sibling if the merged node is at most 1 - threshold
+	 * full, and takes keys from its fuller sibling otherwise, so that both
+	 * end up above the threshold. Half full nodes, as a split leaves them,
+	 * thus take many deletes before they are merged, and merged nodes take
+	 * many inserts before they split again. A threshold of 0 rebalances a
+	 * node only once it is empty. A node never keeps less than one key, or
+	 * an internal node less than two children, so the height of the tree
+	 * stays logarithmic in the number of keys.
 	 *
-	 * @param key
-	 *            the key to be inserted
-	 * @param value
-	 *            the value to be inserted
-	 * @param node
-	 *            the node where the key value pair has to be inserted
+	 * @param mergeThreshold
+	 *            the fraction of a full node, in [0, 1/3]
 	 */
-	private void insertWithinExternalNode(double key, String value, Node node) {
-		// A binary search is executed to find the correct place where the node
-		// is to be inserted
-		int indexOfKey = binarySearchWithinInternalNode(key, node.getKeys());
-		if (indexOfKey != 0 && node.getKeys().get(indexOfKey - 1).getKey() == key) {
-			// Key already exists. Add the new value to the list
-			node.getKeys().get(indexOfKey - 1).getValues().add(value);
-		} else {
-			// Key doesn't exist. Add key and value
-			Key newKey = new Key(key, value);
-			node.getKeys().add(indexOfKey, newKey);
+	public void setMergeThreshold(double mergeThreshold) {
+		if (!(mergeThreshold >= 0 && mergeThreshold <= MAX_MERGE_THRESHOLD)) {
+			throw new IllegalArgumentException("Merge threshold must be in [0, 1/3]: " + mergeThreshold);
 		}
+		this.mergeThreshold = mergeThreshold;
 	}
 
 	/**
-	 * Split external node.
+	 * Gets the fill of a node below which a delete rebalances it.
 	 *
-	 * @param curr
-	 *            the over-full external node to be split
-	 * @param m
-	 *            the degree of the B Plus Tree
+	 * @return the fraction of a full node
 	 */
-	private void splitExternalNode(Node curr, int m) {
+	public double getMergeThreshold() {
+		return mergeThreshold;
+	}
 
-		// Find the middle index
-		int midIndex = m / 2;
+	/**
+	 * Starts keeping statistics of the operations of the tree, if they are
+	 * not kept already. Each insert and search then reads the clock twice.
+	 *
+	 * @return the statistics
+	 */
+	public synchronized TreeStats enableStats() {
+		if (null == this.stats) {
+			this.stats = new TreeStats(this);
+		}
+		return this.stats;
+	}
 
-		Node middle = new Node();
-		Node rightPart = new Node();
+	/**
+	 * Stops keeping statistics of the operations of the tree.
+	 */
+	public synchronized void disableStats() {
+		this.stats = null;
+	}
 
-		// Set the right part to have middle element and the elements right to
-		// the middle element
-		rightPart.setKeys(curr.getKeys().subList(midIndex, curr.getKeys().size()));
-		rightPart.setParent(middle);
-		// While making middle as the internal node, we add only the key since
-		// internal nodes of bplus tree do not contain values
-		middle.getKeys().add(new Key(curr.getKeys().get(midIndex).getKey()));
-		middle.getChildren().add(rightPart);
-		// Curr holds the left part, so update the split node to contain just
-		// the left part
-		curr.getKeys().subList(midIndex, curr.getKeys().size()).clear();
+	/**
+	 * Gets the statistics of the operations of the tree.
+	 *
+	 * @return the statistics, null if they are not kept
+	 */
+	public TreeStats getStats() {
+		return this.stats;
+	}
 
-		boolean firstSplit = true;
-		// propogate the middle element up the tree and merge with parent of
-		// previously overfull node
-		splitInternalNode(curr.getParent(), curr, m, middle, firstSplit);
+	/**
+	 * Keeps a filter of the keys of the tree, so that a search of an absent
+	 * key is usually answered without walking down the tree. The filter is a
+	 * blocked Bloom filter sized for twice the keys of the tree, within the
+	 * memory budget. Inserts add their new keys to it, and it is built again
+	 * from the keys of the tree, for twice as many, once it holds as many
+	 * keys as it was sized for, and after a bulk load. Deleted keys stay in
+	 * it until it is built again, as false positives.
+	 *
+	 * @param falsePositiveRate
+	 *            the rate of absent keys that still walk down the tree, in
+	 *            (0, 1)
+	 * @param maxBytes
+	 *            the largest number of bytes taken by the filter, at least 64
+	 * @return the filter, built from the keys of the tree
+	 */
+	public KeyFilter enableKeyFilter(double falsePositiveRate, long maxBytes) {
+		this.keyFilter = buildKeyFilter(falsePositiveRate, maxBytes);
+		return this.keyFilter;
+	}
 
+	/**
+	 * Stops keeping a filter of the keys of the tree.
+	 */
+	public void disableKeyFilter() {
+		this.keyFilter = null;
 	}
 
 	/**
-	 * Split internal node.
+	 * Gets the filter of the keys of the tree.
 	 *
-	 * @param curr
-	 *            the current Internal Node
-	 * @param prev
-	 *            the child of the current Internal Node (Previous internal
-	 *            node)
-	 * @param m
-	 *            the degree of the B Plus Tree
-	 * @param toBeInserted
-	 *            the part split to be inserted to this internal Node
-	 * @param firstSplit
-	 *            indicates if the split is happening at the first internal node
-	 *            from the bottom
+	 * @return the filter, null if there is none
 	 */
-	private void splitInternalNode(Node curr, Node prev, int m, Node toBeInserted, boolean firstSplit) {
-		if (null == curr) {
-			// if we split the root before, then a new root has to be created
-			this.root = toBeInserted;
-			// we find where the child has to be inserted by doing a binary
-			// search on keys
-			int indexForPrev = binarySearchWithinInternalNode(prev.getKeys().get(0).getKey(), toBeInserted.getKeys());
-			prev.setParent(toBeInserted);
-			toBeInserted.getChildren().add(indexForPrev, prev);
-			if (firstSplit) {
-				// update the linked list only for first split (for external
-				// node)
-				if (indexForPrev == 0) {
-					toBeInserted.getChildren().get(0).setNext(toBeInserted.getChildren().get(1));
-					toBeInserted.getChildren().get(1).setPrev(toBeInserted.getChildren().get(0));
-				} else {
-					toBeInserted.getChildren().get(indexForPrev + 1)
-							.setPrev(toBeInserted.getChildren().get(indexForPrev));
-					toBeInserted.getChildren().get(indexForPrev - 1)
-							.setNext(toBeInserted.getChildren().get(indexForPrev));
-				}
-			}
-		} else {
-			// merge the internal node with the mid + right of previous split
-			mergeInternalNodes(toBeInserted, curr);
-			if (curr.getKeys().size() == m) {
-				// do a split again if the internal node becomes full
-				int midIndex = (int) Math.ceil(m / 2.0) - 1;
-				Node middle = new Node();
-				Node rightPart = new Node();
+	public KeyFilter getKeyFilter() {
+		return this.keyFilter;
+	}
 
-				// since internal nodes follow a split like the b tree, right
-				// part contains elements right of the mid element, and the
-				// middle becomes parent of right part
-				rightPart.setKeys(curr.getKeys().subList(midIndex + 1, curr.getKeys().size()));
-				rightPart.setParent(middle);
-
-				middle.getKeys().add(curr.getKeys().get(midIndex));
-				middle.getChildren().add(rightPart);
-
-				List<Node> childrenOfCurr = curr.getChildren();
-				List<Node> childrenOfRight = new ArrayList<>();
-
-				int lastChildOfLeft = childrenOfCurr.size() - 1;
-
-				// update the children that have to be sent to the right part
-				// from the split node
-				for (int i = childrenOfCurr.size() - 1; i >= 0; i--) {
-					List<Key> currKeysList = childrenOfCurr.get(i).getKeys();
-					if (middle.getKeys().get(0).getKey() <= currKeysList.get(0).getKey()) {
-						childrenOfCurr.get(i).setParent(rightPart);
-						childrenOfRight.add(0, childrenOfCurr.get(i));
-						lastChildOfLeft--;
-					} else {
-						break;
-					}
-				}
+	/**
+	 * Keeps a cache of the values of the keys searched most, in front of the
+	 * walk down the tree of a search of a key. A key found in the tree is
+	 * cached if it was searched more often than the key it would replace.
+	 * Inserting a value into a cached key, or deleting it or one of its
+	 * values, drops it from the cache, and loading the tree in bulk empties
+	 * the cache.
+	 *
+	 * @param capacity
+	 *            the largest number of keys cached, rounded up to a power of
+	 *            two
+	 * @return the cache, empty
+	 */
+	public KeyCache enableKeyCache(int capacity) {
+		this.keyCache = new KeyCache(capacity);
+		return this.keyCache;
+	}
 
-				rightPart.setChildren(childrenOfRight);
+	/**
+	 * Stops keeping a cache of the keys searched most.
+	 */
+	public void disableKeyCache() {
+		this.keyCache = null;
+	}
 
-				// update the overfull node to contain just the left part and
-				// update its children
-				curr.getChildren().subList(lastChildOfLeft + 1, childrenOfCurr.size()).clear();
-				curr.getKeys().subList(midIndex, curr.getKeys().size()).clear();
+	/**
+	 * Gets the cache of the keys searched most.
+	 *
+	 * @return the cache, null if there is none
+	 */
+	public KeyCache getKeyCache() {
+		return this.keyCache;
+	}
 
-				// propogate split one level up
-				splitInternalNode(curr.getParent(), curr, m, middle, false);
-			}
+	/**
+	 * Rebuilds what the tree keeps about its keys beside the nodes, after
+	 * all of them were replaced: the summaries of its monoid, its key filter
+	 * and its key cache.
+	 */
+	private void keysReplaced() {
+		if (null != this.monoid) {
+			setKeyMonoid(this.monoid);
+		}
+		if (null != this.keyFilter) {
+			rebuildKeyFilter();
+		}
+		if (null != this.keyCache) {
+			this.keyCache.clear();
 		}
 	}
 
 	/**
-	 * Merge internal nodes.
+	 * Builds the key filter again from the keys of the tree, with the false
+	 * positive rate and the memory budget of the current one.
+	 */
+	private void rebuildKeyFilter() {
+		this.keyFilter = buildKeyFilter(this.keyFilter.getFalsePositiveRate(), this.keyFilter.getMaxBytes());
+	}
+
+	/**
+	 * Builds a filter of the keys of the tree, walking the linked list of
+	 * external nodes, sized for twice as many keys.
 	 *
-	 * @param mergeFrom
-	 *            to part from which we have to merge (middle of the previous
-	 *            split node)
-	 * @param mergeInto
-	 *            the internal node to be merged to
+	 * @param falsePositiveRate
+	 *            the false positive rate of the filter
+	 * @param maxBytes
+	 *            the largest number of bytes taken by the filter
+	 * @return the filter
 	 */
-	private void mergeInternalNodes(Node mergeFrom, Node mergeInto) {
-		Key keyToBeInserted = mergeFrom.getKeys().get(0);
-		Node childToBeInserted = mergeFrom.getChildren().get(0);
-		// Find the index where the key has to be inserted to by doing a binary
-		// search
-		int indexToBeInsertedAt = binarySearchWithinInternalNode(keyToBeInserted.getKey(), mergeInto.getKeys());
-		int childInsertPos = indexToBeInsertedAt;
-		if (keyToBeInserted.getKey() <= childToBeInserted.getKeys().get(0).getKey()) {
-			childInsertPos = indexToBeInsertedAt + 1;
+	private KeyFilter buildKeyFilter(double falsePositiveRate, long maxBytes) {
+		KeyFilter filter = new KeyFilter(Math.max(MIN_FILTER_CAPACITY, 2 * size()), falsePositiveRate, maxBytes);
+		for (Node node = findExternalNode(Double.NEGATIVE_INFINITY); null != node; node = node.getNext()) {
+			double[] keys = node.getKeys();
+			for (int i = 0; i < node.getKeyCount(); i++) {
+				filter.add(keys[i]);
+			}
 		}
-		childToBeInserted.setParent(mergeInto);
-		mergeInto.getChildren().add(childInsertPos, childToBeInserted);
-		mergeInto.getKeys().add(indexToBeInsertedAt, keyToBeInserted);
-
-		// Update Linked List of external nodes
-		if (!mergeInto.getChildren().isEmpty() && mergeInto.getChildren().get(0).getChildren().isEmpty()) {
+		return filter;
+	}
 
-			// If merge is happening at the last element, then only pointer
-			// between new node and previously last element
-			// needs to be updated
-			if (mergeInto.getChildren().size() - 1 != childInsertPos
-					&& mergeInto.getChildren().get(childInsertPos + 1).getPrev() == null) {
-				mergeInto.getChildren().get(childInsertPos + 1).setPrev(mergeInto.getChildren().get(childInsertPos));
-				mergeInto.getChildren().get(childInsertPos).setNext(mergeInto.getChildren().get(childInsertPos + 1));
-			}
-			// If merge is happening at the last element, then only pointer
-			// between new node and previously last element
-			// needs to be updated
-			else if (0 != childInsertPos && mergeInto.getChildren().get(childInsertPos - 1).getNext() == null) {
-				mergeInto.getChildren().get(childInsertPos).setPrev(mergeInto.getChildren().get(childInsertPos - 1));
-				mergeInto.getChildren().get(childInsertPos - 1).setNext(mergeInto.getChildren().get(childInsertPos));
-			}
-			// If merge is happening in between, then the next element and the
-			// previous element's prev and next pointers have to be updated
-			else {
-				mergeInto.getChildren().get(childInsertPos)
-						.setNext(mergeInto.getChildren().get(childInsertPos - 1).getNext());
-				mergeInto.getChildren().get(childInsertPos).getNext()
-						.setPrev(mergeInto.getChildren().get(childInsertPos));
-				mergeInto.getChildren().get(childInsertPos - 1).setNext(mergeInto.getChildren().get(childInsertPos));
-				mergeInto.getChildren().get(childInsertPos).setPrev(mergeInto.getChildren().get(childInsertPos - 1));
+	/**
+	 * Computes the structure of the tree by walking every node: its height,
+	 * the number and the fill of its nodes, and an estimate of the memory
+	 * they take. The nodes are read as they are, so the tree should not
+	 * change meanwhile for the result to be exact.
+	 *
+	 * @return the structure of the tree
+	 */
+	public TreeStructure structure() {
+		long[] fillHistogram = new long[TreeStructure.FILL_BUCKETS];
+		long internalNodes = 0;
+		long externalNodes = 0;
+		long keys = 0;
+		long values = 0;
+		long children = 0;
+		long bytes = 0;
+		int height = 0;
+		List<Node> level = new ArrayList<>();
+		if (null != this.root) {
+			level.add(this.root);
+		}
+		while (!level.isEmpty()) {
+			height++;
+			List<Node> below = new ArrayList<>();
+			for (Node node : level) {
+				int keyCount = Math.min(node.getKeyCount(), node.getKeys().length);
+				bytes += NODE_BYTES + arrayBytes(node.getKeys().length, 8);
+				Node[] nodeChildren = node.getChildren();
+				if (null == nodeChildren) {
+					externalNodes++;
+					keys += keyCount;
+					int fill = keyCount * TreeStructure.FILL_BUCKETS / Math.max(1, this.m - 1);
+					fillHistogram[Math.min(fill, TreeStructure.FILL_BUCKETS - 1)]++;
+					Object[] slots = node.getValues();
+					bytes += arrayBytes(slots.length, 4);
+					for (int i = 0; i < keyCount; i++) {
+						Object slot = slots[i];
+						if (slot instanceof String) {
+							values++;
+							bytes += STRING_BYTES + arrayBytes(((String) slot).length(), 1);
+						} else if (slot instanceof PostingList) {
+							values += ((PostingList) slot).size();
+							bytes += POSTING_LIST_BYTES + ((PostingList) slot).getChunkBytes();
+						}
+					}
+				} else {
+					internalNodes++;
+					children += keyCount + 1;
+					bytes += arrayBytes(nodeChildren.length, 4) + 2 * arrayBytes(nodeChildren.length, 8);
+					if (null != node.getSummaries()) {
+						bytes += arrayBytes(nodeChildren.length, 4);
+					}
+					for (int i = 0; i <= keyCount; i++) {
+						if (null != nodeChildren[i]) {
+							below.add(nodeChildren[i]);
+						}
+					}
+				}
 			}
+			level = below;
 		}
+		double internalFill = internalNodes == 0 ? 0 : (double) children / (internalNodes * this.m);
+		double externalFill = externalNodes == 0 ? 0 : (double) keys / (externalNodes * (this.m - 1));
+		return new TreeStructure(height, internalNodes, externalNodes, keys, values, internalFill, externalFill,
+				fillHistogram, bytes);
+	}
 
+	/**
+	 * Estimates the bytes taken by an array, with its header and padding.
+	 *
+	 * @param length
+	 *            the length of the array
+	 * @param elementBytes
+	 *            the bytes taken by an element
+	 * @return the estimated bytes
+	 */
+	private static long arrayBytes(int length, int elementBytes) {
+		return (16 + (long) length * elementBytes + 7) & ~7L;
 	}
 
 	/**
-	 * Helper method - Prints the tree using a level order traversal
+	 * Insert a key and value pair to the B Plus Tree
+	 *
+	 * @param key
+	 *            the key to be inserted
+	 * @param value
+	 *            the value to be inserted
 	 */
-	public void printTree() {
-		Queue<Node> queue = new LinkedList<Node>();
-		queue.add(this.root);
-		queue.add(null);
-		Node curr = null;
-		int levelNumber = 2;
-		System.out.println("Printing level 1");
-		while (!queue.isEmpty()) {
-			curr = queue.poll();
-			if (null == curr) {
-				queue.add(null);
-				if (queue.peek() == null) {
-					break;
-				}
-				System.out.println("\n" + "Printing level " + levelNumber++);
-				continue;
-			}
+	public void insert(double key, String value) {
+		TreeStats stats = this.stats;
+		long start = null == stats ? 0 : System.nanoTime();
+		boolean newKey = true;
 
-			printNode(curr);
+		// Case 1: Inserting to an Empty B Plus Tree
+		if (null == this.root) {
+			// For an empty B Tree, root is created and its key is set as the
+			// newly inserted key
+			Node newNode = new Node(this.m, true);
+			newNode.getKeys()[0] = key;
+			newNode.getValues()[0] = storedValue(value);
+			newNode.setKeyCount(1);
+			this.root = newNode;
+			this.rightmost = newNode;
+			// Since the root has no parent, parent set to null
+			this.root.setParent(null);
+		}
 
-			if (curr.getChildren().isEmpty()) {
-				break;
+		// Case 2: Only one node that is not full
+		else if (this.root.isExternal() && this.root.getKeyCount() < (this.m - 1)) {
+			// For all insertions until the root gets overfull for the first
+			// time, we just update the root node, adding the new keys
+			int keyCount = this.root.getKeyCount();
+			insertWithinExternalNode(key, value, this.root);
+			newKey = this.root.getKeyCount() != keyCount;
+		}
+
+		// Case 3: Append. The key is greater than every key in the tree, so
+		// it goes to the end of the rightmost external node, which is kept,
+		// and the descent is skipped
+		else if (key > lastKey()) {
+			if (null != stats) {
+				stats.countAppend();
 			}
-			for (int i = 0; i < curr.getChildren().size(); i++) {
-				queue.add(curr.getChildren().get(i));
+			Node curr = this.rightmost;
+			int keyCount = curr.getKeyCount();
+			curr.getKeys()[keyCount] = key;
+			curr.getValues()[keyCount] = storedValue(value);
+			curr.setKeyCount(keyCount + 1);
+			updateAncestors(curr, null, 0, key, 1, 1);
+			if (keyCount + 1 == this.m) {
+				// Keys keep coming in order, so the full node is left full
+				// and only the new key moves to the right part
+				splitExternalNode(curr, this.m, true);
 			}
 		}
 
-		curr = curr.getNext();
-		while (null != curr) {
-			printNode(curr);
-			curr = curr.getNext();
+		// Case 4: Normal insert
+		else {
+			Node curr = this.root;
+			int depth = 0;
+			// Since we insert the element only at the external node, we
+			// traverse to the last level
+			while (!curr.isExternal()) {
+				int child = binarySearchWithinInternalNode(key, curr.getKeys(), curr.getKeyCount());
+				if (depth == this.path.length) {
+					this.path = Arrays.copyOf(this.path, depth * 2);
+				}
+				this.path[depth++] = child;
+				curr = curr.getChildren()[child];
+			}
+			int keyCount = curr.getKeyCount();
+			insertWithinExternalNode(key, value, curr);
+			newKey = curr.getKeyCount() != keyCount;
+			updateAncestors(curr, this.path, depth, key, curr.getKeyCount() - keyCount, 1);
+			if (curr.getKeyCount() == this.m) {
+				// If the external node becomes full, we split it
+				splitExternalNode(curr, this.m, false);
+			}
+		}
+
+		KeyFilter filter = this.keyFilter;
+		if (newKey && null != filter) {
+			if (filter.getCount() < filter.getCapacity()) {
+				filter.add(key);
+			} else {
+				// The filter is full, build a larger one, which also drops
+				// the keys deleted since it was built
+				rebuildKeyFilter();
+			}
 		}
 
+		if (null != stats) {
+			stats.recordInsert(System.nanoTime() - start);
+		}
 	}
 
 	/**
-	 * Helper method Prints a node of the tree.
+	 * Delete a key with all its values from the B Plus Tree
 	 *
-	 * @param curr
-	 *            the node to be printed
+	 * @param key
+	 *            the key to be deleted
+	 * @return true if the key was present
 	 */
-	private void printNode(Node curr) {
-		for (int i = 0; i < curr.getKeys().size(); i++) {
-			System.out.print(curr.getKeys().get(i).getKey() + ":(");
-			String values = "";
-			for (int j = 0; j < curr.getKeys().get(i).getValues().size(); j++) {
-				values = values + curr.getKeys().get(i).getValues().get(j) + ",";
-			}
-			System.out.print(values.isEmpty() ? ");" : values.substring(0, values.length() - 1) + ");");
-		}
-		System.out.print("||");
+	public boolean delete(double key) {
+		return remove(key, null);
 	}
 
 	/**
-	 * Modified Binary search within internal node.
+	 * Delete one value of a key from the B Plus Tree. The key is deleted
+	 * along with its last value.
 	 *
 	 * @param key
-	 *            the key to be searched
-	 * @param keyList
-	 *            the list of keys to be searched
-	 * @return the first index of the list at which the key which is greater
-	 *         than the input key
-	 */
-	public int binarySearchWithinInternalNode(double key, List<Key> keyList) {
-		int st = 0;
-		int end = keyList.size() - 1;
-		int mid;
-		int index = -1;
-		// Return first index if key is less than the first element
-		if (key < keyList.get(st).getKey()) {
-			return 0;
-		}
-		// Return array size + 1 as the new positin of the key if greater than
-		// last element
-		if (key >= keyList.get(end).getKey()) {
-			return keyList.size();
-		}
-		while (st <= end) {
-			mid = (st + end) / 2;
-			// Following condition ensures that we find a location s.t. key is
-			// smaller than element at that index and is greater than or equal
-			// to the element at the previous index. This location is where the
-			// key would be inserted
-			if (key < keyList.get(mid).getKey() && key >= keyList.get(mid - 1).getKey()) {
-				index = mid;
-				break;
-			} // Following conditions follow normal Binary Search
-			else if (key >= keyList.get(mid).getKey()) {
-				st = mid + 1;
-			} else {
-				end = mid - 1;
-			}
+	 *            the key of the value
+	 * @param value
+	 *            the value to be deleted, its first occurrence if the key has
+	 *            it more than once
+	 * @return true if the key had the value
+	 */
+	public boolean delete(double key, String value) {
+		if (null == value) {
+			throw new IllegalArgumentException("Value must not be null");
 		}
-		return index;
+		return remove(key, value);
 	}
 
 	/**
-	 * Search values for a key
+	 * Removes a key, or one of its values, from its external node, and
+	 * rebalances the node if it falls below the merge threshold.
 	 *
 	 * @param key
-	 *            the key to be searched
-	 * @return the list of values for the key
+	 *            the key
+	 * @param value
+	 *            the value to be removed, null to remove the key with all its
+	 *            values
+	 * @return true if something was removed
 	 */
-	public List<String> search(double key) {
-		List<String> searchValues = null;
-
+	private boolean remove(double key, String value) {
+		TreeStats stats = this.stats;
+		long start = null == stats ? 0 : System.nanoTime();
 		Node curr = this.root;
-		// Traverse to the corresponding external node that would 'should'
-		// contain this key
-		while (curr.getChildren().size() != 0) {
-			curr = curr.getChildren().get(binarySearchWithinInternalNode(key, curr.getKeys()));
+		if (null == curr) {
+			return false;
 		}
-		List<Key> keyList = curr.getKeys();
-		// Do a linear search in this node for the key. Set the parameter
-		// 'searchValues' only if success
-		for (int i = 0; i < keyList.size(); i++) {
-			if (key == keyList.get(i).getKey()) {
-				searchValues = keyList.get(i).getValues();
-			}
-			if (key < keyList.get(i).getKey()) {
-				break;
+		int depth = 0;
+		while (!curr.isExternal()) {
+			int child = binarySearchWithinInternalNode(key, curr.getKeys(), curr.getKeyCount());
+			if (depth == this.path.length) {
+				this.path = Arrays.copyOf(this.path, depth * 2);
 			}
+			this.path[depth++] = child;
+			curr = curr.getChildren()[child];
 		}
+		double[] keys = curr.getKeys();
+		Object[] values = curr.getValues();
+		int keyCount = curr.getKeyCount();
+		int index = binarySearchWithinInternalNode(key, keys, keyCount) - 1;
+		if (index < 0 || keys[index] != key) {
+			return false;
+		}
+		if (null != this.keyCache) {
+			this.keyCache.invalidate(key);
+		}
+
+		long removedValues = 1;
+		boolean removeKey = true;
+		if (null == value) {
+			removedValues = curr.getValueCount(index);
+		} else if (values[index] instanceof String) {
+			if (!value.equals(values[index])) {
+				return false;
+			}
+		} else {
+			Object remaining = withoutValue((PostingList) values[index], value);
+			if (remaining == values[index]) {
+				return false;
+			}
+			values[index] = remaining;
+			removeKey = false;
+		}
+
+		if (removeKey) {
+			// The key goes with its values. Shift the greater keys left and
+			// clear the freed slot so its values can be collected
+			System.arraycopy(keys, index + 1, keys, index, keyCount - index - 1);
+			System.arraycopy(values, index + 1, values, index, keyCount - index - 1);
+			values[keyCount - 1] = null;
+			curr.setKeyCount(keyCount - 1);
+			updateAncestors(curr, this.path, depth, key, -1, -removedValues);
+			if (curr == this.root) {
+				if (keyCount == 1) {
+					this.root = null;
+					this.rightmost = null;
+				}
+			} else if (keyCount - 1 < minKeys()) {
+				rebalance(curr, depth);
+			}
+		} else {
+			updateAncestors(curr, this.path, depth, key, 0, -removedValues);
+		}
+
+		if (null != stats) {
+			stats.recordDelete(System.nanoTime() - start);
+		}
+		return true;
+	}
+
+	/**
+	 * Copies a posting list without the first occurrence of a value.
+	 *
+	 * @param valueList
+	 *            the posting list of a key
+	 * @param value
+	 *            the value to be removed
+	 * @return the posting list without the value, the single value left as a
+	 *         String, or the posting list itself if it does not hold the
+	 *         value
+	 */
+	private Object withoutValue(PostingList valueList, String value) {
+		int position = 0;
+		for (String stored : valueList) {
+			if (value.equals(stored)) {
+				break;
+			}
+			position++;
+		}
+		if (position == valueList.size()) {
+			return valueList;
+		}
+		if (valueList.size() == 2) {
+			return storedValue(valueList.get(1 - position));
+		}
+		// Posting lists are only appended to, so the remaining values are
+		// copied into a new one
+		PostingList remaining = new PostingList(this.dictionary);
+		int i = 0;
+		for (String stored : valueList) {
+			if (i++ != position) {
+				remaining.append(stored);
+			}
+		}
+		return remaining;
+	}
+
+	/**
+	 * Builds the B Plus Tree bottom-up from arrays of key value pairs,
+	 * replacing its contents. The pairs are sorted in parallel if they are
+	 * not sorted by key already. Values of equal keys are grouped into a
+	 * single key in the order they are given, as repeated inserts would.
+	 *
+	 * @param keys
+	 *            the keys to be loaded
+	 * @param values
+	 *            the value for each key
+	 * @param fillFactor
+	 *            the fraction of each node to be filled, in (0, 1]
+	 */
+	public void bulkLoad(double[] keys, String[] values, double fillFactor) {
+		if (keys.length != values.length) {
+			throw new IllegalArgumentException("Got " + keys.length + " keys for " + values.length + " values");
+		}
+		BulkLoader loader = new BulkLoader(this.m, fillFactor, this.dictionary);
+		boolean sorted = true;
+		for (int i = 1; i < keys.length && sorted; i++) {
+			sorted = keys[i - 1] <= keys[i];
+		}
+		if (sorted) {
+			this.rightmost = null;
+			this.root = loader.build(keys, values, keys.length);
+			keysReplaced();
+			return;
+		}
+		Key[] pairs = new Key[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			pairs[i] = new Key(keys[i], Collections.singletonList(values[i]));
+		}
+		bulkLoad(pairs, loader);
+	}
+
+	/**
+	 * Builds the B Plus Tree bottom-up from a stream of key value pairs,
+	 * replacing its contents. The pairs are sorted in parallel, and values of
+	 * equal keys are grouped into a single key in the order of the stream.
+	 *
+	 * @param pairs
+	 *            the keys with their values to be loaded
+	 * @param fillFactor
+	 *            the fraction of each node to be filled, in (0, 1]
+	 */
+	public void bulkLoad(Stream<Key> pairs, double fillFactor) {
+		BulkLoader loader = new BulkLoader(this.m, fillFactor, this.dictionary);
+		bulkLoad(pairs.toArray(Key[]::new), loader);
+	}
+
+	/**
+	 * Writes a binary snapshot of the B Plus Tree to a file: the key of every
+	 * pair in key order, followed by the values as length-prefixed strings,
+	 * with a checksum for each.
+	 *
+	 * @param path
+	 *            the path of the snapshot file
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public void writeSnapshot(Path path) throws IOException {
+		Snapshot.write(findExternalNode(Double.NEGATIVE_INFINITY), path, 0);
+	}
+
+	/**
+	 * Replaces the contents of the B Plus Tree with a snapshot written by
+	 * writeSnapshot. The file is memory-mapped and its pairs, already sorted,
+	 * are handed to the bulk loader.
+	 *
+	 * @param path
+	 *            the path of the snapshot file
+	 * @param fillFactor
+	 *            the fraction of each node to be filled, in (0, 1]
+	 * @throws IOException
+	 *             if the file cannot be read or its checksums do not match
+	 */
+	public void loadSnapshot(Path path, double fillFactor) throws IOException {
+		BulkLoader loader = new BulkLoader(this.m, fillFactor, this.dictionary);
+		Snapshot snapshot = Snapshot.read(path);
+		this.rightmost = null;
+		this.root = loader.build(snapshot.keys, snapshot.values, snapshot.keys.length);
+		keysReplaced();
+	}
+
+	/**
+	 * Sorts the pairs and builds the tree from them.
+	 *
+	 * @param pairs
+	 *            the keys with their values to be loaded
+	 * @param loader
+	 *            the bulk loader building the tree
+	 */
+	private void bulkLoad(Key[] pairs, BulkLoader loader) {
+		// The parallel sort is stable, so values of equal keys keep their
+		// order
+		Arrays.parallelSort(pairs, Comparator.comparingDouble(Key::getKey));
+		int count = 0;
+		for (Key pair : pairs) {
+			count += pair.getValues().size();
+		}
+		double[] keys = new double[count];
+		String[] values = new String[count];
+		int i = 0;
+		for (Key pair : pairs) {
+			for (String value : pair.getValues()) {
+				keys[i] = pair.getKey();
+				values[i++] = value;
+			}
+		}
+		this.rightmost = null;
+		this.root = loader.build(keys, values, count);
+		keysReplaced();
+	}
+
+	/**
+	 * Insert the key value pair to the external node.
+	 *
+	 * @param key
+	 *            the key to be inserted
+	 * @param value
+	 *            the value to be inserted
+	 * @param node
+	 *            the node where the key value pair has to be inserted
+	 */
+	private void insertWithinExternalNode(double key, String value, Node node) {
+		double[] keys = node.getKeys();
+		Object[] values = node.getValues();
+		int keyCount = node.getKeyCount();
+		// A binary search is executed to find the correct place where the node
+		// is to be inserted
+		int indexOfKey = binarySearchWithinInternalNode(key, keys, keyCount);
+		if (indexOfKey != 0 && keys[indexOfKey - 1] == key) {
+			// Key already exists. Add the new value to the posting list,
+			// turning the single value into a list on the first duplicate,
+			// and drop the cached values of the key
+			if (null != this.keyCache) {
+				this.keyCache.invalidate(key);
+			}
+			Object existing = values[indexOfKey - 1];
+			if (existing instanceof String) {
+				PostingList valueList = new PostingList(this.dictionary);
+				valueList.append((String) existing);
+				values[indexOfKey - 1] = valueList;
+				existing = valueList;
+			}
+			((PostingList) existing).append(value);
+		} else {
+			// Key doesn't exist. Shift the greater keys right and add key and
+			// value
+			System.arraycopy(keys, indexOfKey, keys, indexOfKey + 1, keyCount - indexOfKey);
+			System.arraycopy(values, indexOfKey, values, indexOfKey + 1, keyCount - indexOfKey);
+			keys[indexOfKey] = key;
+			values[indexOfKey] = storedValue(value);
+			node.setKeyCount(keyCount + 1);
+		}
+	}
+
+	/**
+	 * Updates what the ancestors of an external node keep about it after a
+	 * key or a value was inserted into or removed from it: the number of keys
+	 * and values under it, and the summary of its keys if the tree has a
+	 * KeyMonoid.
+	 *
+	 * @param node
+	 *            the external node
+	 * @param path
+	 *            the index of the child taken at each level down to the
+	 *            node, null for the rightmost external node
+	 * @param depth
+	 *            the number of levels above the node
+	 * @param key
+	 *            the key inserted
+	 * @param keys
+	 *            the number of keys added, negative if keys were removed
+	 * @param values
+	 *            the number of values added, negative if values were removed
+	 */
+	private void updateAncestors(Node node, int[] path, int depth, double key, long keys, long values) {
+		// A new key that is appended after every other key, or whose order
+		// does not matter to the monoid, is combined into the summaries on
+		// the right. Otherwise the summary of each child is recomputed
+		Object added = null != this.monoid && keys == 1 && (null == path || this.monoid.isCommutative())
+				? this.monoid.ofKey(key, 1) : null;
+		Node below = node;
+		for (Node parent = node.getParent(); null != parent; parent = parent.getParent()) {
+			int child = null == path ? parent.getKeyCount() : path[--depth];
+			parent.getSubtreeKeyCounts()[child] += keys;
+			parent.getSubtreeValueCounts()[child] += values;
+			if (null != this.monoid) {
+				Object[] summaries = summaries(parent);
+				summaries[child] = null != added ? this.monoid.combine(summaries[child], added) : summarize(below);
+			}
+			below = parent;
+		}
+	}
+
+	/**
+	 * Gets the array of summaries of an internal node, creating it if the
+	 * node has none yet.
+	 *
+	 * @param node
+	 *            the internal node
+	 * @return the array of summaries
+	 */
+	private Object[] summaries(Node node) {
+		Object[] summaries = node.getSummaries();
+		if (null == summaries) {
+			summaries = new Object[this.m + 1];
+			node.setSummaries(summaries);
+		}
+		return summaries;
+	}
+
+	/**
+	 * Computes the summary of the keys under a node from its keys, or from
+	 * the summaries it keeps for its children.
+	 *
+	 * @param node
+	 *            the node
+	 * @return the summary of the keys under the node
+	 */
+	private Object summarize(Node node) {
+		Object summary = this.monoid.identity();
+		if (node.isExternal()) {
+			for (int i = 0; i < node.getKeyCount(); i++) {
+				summary = this.monoid.combine(summary, this.monoid.ofKey(node.getKeys()[i], node.getValueCount(i)));
+			}
+		} else {
+			Object[] summaries = summaries(node);
+			for (int i = 0; i <= node.getKeyCount(); i++) {
+				summary = this.monoid.combine(summary, summaries[i]);
+			}
+		}
+		return summary;
+	}
+
+	/**
+	 * Computes the summaries of every internal node under a node, bottom-up,
+	 * or drops them if the tree has no KeyMonoid.
+	 *
+	 * @param node
+	 *            the node
+	 * @return the summary of the keys under the node, null without a monoid
+	 */
+	private Object summarizeTree(Node node) {
+		if (!node.isExternal()) {
+			if (null == this.monoid) {
+				node.setSummaries(null);
+			}
+			for (int i = 0; i <= node.getKeyCount(); i++) {
+				Object summary = summarizeTree(node.getChildren()[i]);
+				if (null != this.monoid) {
+					summaries(node)[i] = summary;
+				}
+			}
+		}
+		return null == this.monoid ? null : summarize(node);
+	}
+
+	/**
+	 * Gets the value to be stored in a node for a single value.
+	 *
+	 * @param value
+	 *            the value inserted
+	 * @return the instance held by the dictionary, or the value itself
+	 */
+	private String storedValue(String value) {
+		return null == this.dictionary ? value : this.dictionary.intern(value);
+	}
+
+	/**
+	 * Gets the largest key of the tree, from the rightmost external node.
+	 *
+	 * @return the largest key
+	 */
+	private double lastKey() {
+		if (null == this.rightmost) {
+			// The tree was built in bulk, find the rightmost external node
+			// once
+			Node curr = this.root;
+			while (!curr.isExternal()) {
+				curr = curr.getChildren()[curr.getKeyCount()];
+			}
+			this.rightmost = curr;
+		}
+		return this.rightmost.getKeys()[this.rightmost.getKeyCount() - 1];
+	}
+
+	/**
+	 * Split external node.
+	 *
+	 * @param curr
+	 *            the over-full external node to be split
+	 * @param m
+	 *            the degree of the B Plus Tree
+	 * @param append
+	 *            true if the node is the rightmost one and the last key was
+	 *            appended to it, which splits off the last key only
+	 */
+	private void splitExternalNode(Node curr, int m, boolean append) {
+
+		// Find the middle index. Appended keys split 100/0 instead, or a
+		// tree filled in order would leave every external node half empty
+		int midIndex = append ? m - 1 : m / 2;
+		int keyCount = curr.getKeyCount();
+		if (null != this.stats) {
+			this.stats.countExternalSplit();
+		}
+
+		Node rightPart = new Node(m, true);
+
+		// Set the right part to have middle element and the elements right to
+		// the middle element
+		System.arraycopy(curr.getKeys(), midIndex, rightPart.getKeys(), 0, keyCount - midIndex);
+		System.arraycopy(curr.getValues(), midIndex, rightPart.getValues(), 0, keyCount - midIndex);
+		rightPart.setKeyCount(keyCount - midIndex);
+		// Curr holds the left part, so update the split node to contain just
+		// the left part. Values moved out are cleared so they can be collected
+		Arrays.fill(curr.getValues(), midIndex, keyCount, null);
+		curr.setKeyCount(midIndex);
+
+		// Update the linked list of external nodes, the right part is placed
+		// right after the split node
+		rightPart.setNext(curr.getNext());
+		if (null != curr.getNext()) {
+			curr.getNext().setPrev(rightPart);
+		}
+		rightPart.setPrev(curr);
+		curr.setNext(rightPart);
+		if (curr == this.rightmost) {
+			this.rightmost = rightPart;
+		}
+
+		// propogate the middle element up the tree and merge with parent of
+		// previously overfull node. Internal nodes of bplus tree do not
+		// contain values, so only the key is sent up
+		splitInternalNode(curr.getParent(), curr, m, rightPart.getKeys()[0], rightPart, append);
+
+	}
+
+	/**
+	 * Split internal node.
+	 *
+	 * @param curr
+	 *            the current Internal Node
+	 * @param prev
+	 *            the child of the current Internal Node (Previous internal
+	 *            node)
+	 * @param m
+	 *            the degree of the B Plus Tree
+	 * @param middleKey
+	 *            the middle key of the previous split to be inserted to this
+	 *            internal Node
+	 * @param rightPart
+	 *            the right part of the previous split, inserted as the child
+	 *            right of the middle key
+	 * @param append
+	 *            true if the split started from an append, so the right part
+	 *            is the last child of the internal node
+	 */
+	private void splitInternalNode(Node curr, Node prev, int m, double middleKey, Node rightPart,
+			boolean append) {
+		if (null == curr) {
+			// if we split the root before, then a new root has to be created
+			// with the left and right part of the split as its children
+			Node newRoot = new Node(m, false);
+			if (null != this.stats) {
+				this.stats.countRootSplit();
+			}
+			newRoot.getKeys()[0] = middleKey;
+			newRoot.getChildren()[0] = prev;
+			newRoot.getChildren()[1] = rightPart;
+			newRoot.getSubtreeKeyCounts()[0] = prev.countKeys();
+			newRoot.getSubtreeKeyCounts()[1] = rightPart.countKeys();
+			newRoot.getSubtreeValueCounts()[0] = prev.countValues();
+			newRoot.getSubtreeValueCounts()[1] = rightPart.countValues();
+			if (null != this.monoid) {
+				summaries(newRoot)[0] = summarize(prev);
+				summaries(newRoot)[1] = summarize(rightPart);
+			}
+			newRoot.setKeyCount(1);
+			prev.setParent(newRoot);
+			rightPart.setParent(newRoot);
+			this.root = newRoot;
+		} else {
+			// merge the internal node with the mid + right of previous split
+			mergeInternalNodes(middleKey, rightPart, curr);
+			if (curr.getKeyCount() == m) {
+				// do a split again if the internal node becomes full. After
+				// an append, the right part keeps one key and two children
+				int midIndex = append ? m - 2 : (int) Math.ceil(m / 2.0) - 1;
+				Node newRightPart = new Node(m, false);
+				if (null != this.stats) {
+					this.stats.countInternalSplit();
+				}
+				double[] keys = curr.getKeys();
+				Node[] children = curr.getChildren();
+
+				// since internal nodes follow a split like the b tree, right
+				// part contains elements right of the mid element, and the
+				// middle is sent up as the parent of right part
+				int rightKeyCount = m - midIndex - 1;
+				System.arraycopy(keys, midIndex + 1, newRightPart.getKeys(), 0, rightKeyCount);
+				newRightPart.setKeyCount(rightKeyCount);
+
+				// the children right of the middle key are moved to the right
+				// part
+				System.arraycopy(children, midIndex + 1, newRightPart.getChildren(), 0, rightKeyCount + 1);
+				System.arraycopy(curr.getSubtreeKeyCounts(), midIndex + 1, newRightPart.getSubtreeKeyCounts(), 0,
+						rightKeyCount + 1);
+				System.arraycopy(curr.getSubtreeValueCounts(), midIndex + 1, newRightPart.getSubtreeValueCounts(), 0,
+						rightKeyCount + 1);
+				if (null != this.monoid) {
+					System.arraycopy(summaries(curr), midIndex + 1, summaries(newRightPart), 0, rightKeyCount + 1);
+					Arrays.fill(summaries(curr), midIndex + 1, m + 1, null);
+				}
+				for (int i = 0; i <= rightKeyCount; i++) {
+					newRightPart.getChildren()[i].setParent(newRightPart);
+				}
+				Arrays.fill(children, midIndex + 1, m + 1, null);
+
+				// update the overfull node to contain just the left part
+				curr.setKeyCount(midIndex);
+
+				// propogate split one level up
+				splitInternalNode(curr.getParent(), curr, m, keys[midIndex], newRightPart, append);
+			}
+		}
+	}
+
+	/**
+	 * Merge internal nodes.
+	 *
+	 * @param middleKey
+	 *            the middle key of the previous split node
+	 * @param rightPart
+	 *            the right part of the previous split node
+	 * @param mergeInto
+	 *            the internal node to be merged to
+	 */
+	private void mergeInternalNodes(double middleKey, Node rightPart, Node mergeInto) {
+		double[] keys = mergeInto.getKeys();
+		Node[] children = mergeInto.getChildren();
+		long[] keyCounts = mergeInto.getSubtreeKeyCounts();
+		long[] valueCounts = mergeInto.getSubtreeValueCounts();
+		int keyCount = mergeInto.getKeyCount();
+		// Find the index where the key has to be inserted to by doing a binary
+		// search. The right part is always the child right of the key
+		int indexToBeInsertedAt = binarySearchWithinInternalNode(middleKey, keys, keyCount);
+		int childInsertPos = indexToBeInsertedAt + 1;
+		System.arraycopy(keys, indexToBeInsertedAt, keys, indexToBeInsertedAt + 1, keyCount - indexToBeInsertedAt);
+		System.arraycopy(children, childInsertPos, children, childInsertPos + 1, keyCount + 1 - childInsertPos);
+		System.arraycopy(keyCounts, childInsertPos, keyCounts, childInsertPos + 1, keyCount + 1 - childInsertPos);
+		System.arraycopy(valueCounts, childInsertPos, valueCounts, childInsertPos + 1, keyCount + 1 - childInsertPos);
+		keys[indexToBeInsertedAt] = middleKey;
+		children[childInsertPos] = rightPart;
+		// The right part was counted with the split child left of it
+		keyCounts[childInsertPos] = rightPart.countKeys();
+		valueCounts[childInsertPos] = rightPart.countValues();
+		keyCounts[childInsertPos - 1] -= keyCounts[childInsertPos];
+		valueCounts[childInsertPos - 1] -= valueCounts[childInsertPos];
+		if (null != this.monoid) {
+			Object[] summaries = summaries(mergeInto);
+			System.arraycopy(summaries, childInsertPos, summaries, childInsertPos + 1, keyCount + 1 - childInsertPos);
+			summaries[childInsertPos - 1] = summarize(children[childInsertPos - 1]);
+			summaries[childInsertPos] = summarize(rightPart);
+		}
+		rightPart.setParent(mergeInto);
+		mergeInto.setKeyCount(keyCount + 1);
+	}
+
+	/**
+	 * Gets the fewest keys a node other than the root keeps before a delete
+	 * rebalances it.
+	 *
+	 * @return the fewest keys of a node, at least 1
+	 */
+	private int minKeys() {
+		return Math.max(1, (int) (this.mergeThreshold * (this.m - 1)));
+	}
+
+	/**
+	 * Rebalances a node that fell below the merge threshold, and its
+	 * ancestors as long as a merge leaves them below it too. A node is merged
+	 * with its sibling with fewer keys if the merged node leaves room for
+	 * inserts, or if the keys of the two are too few to be shared. Otherwise
+	 * it borrows keys from its sibling with more keys. A root left with a
+	 * single child is replaced by the child.
+	 *
+	 * @param node
+	 *            the node below the merge threshold, not the root
+	 * @param depth
+	 *            the number of levels above the node, whose child indexes
+	 *            are in path
+	 */
+	private void rebalance(Node node, int depth) {
+		int minKeys = minKeys();
+		int mergeLimit = Math.max(minKeys, (int) ((1 - this.mergeThreshold) * (this.m - 1)));
+		while (node != this.root && node.getKeyCount() < minKeys) {
+			Node parent = node.getParent();
+			int child = this.path[--depth];
+			Node left = child > 0 ? parent.getChildren()[child - 1] : null;
+			Node right = child < parent.getKeyCount() ? parent.getChildren()[child + 1] : null;
+			boolean leftFewer = null == right || null != left && left.getKeyCount() <= right.getKeyCount();
+			Node fewer = leftFewer ? left : right;
+			int keys = node.getKeyCount() + fewer.getKeyCount();
+			// An internal merge pulls the separating key down
+			int mergedKeys = node.isExternal() ? keys : keys + 1;
+			if (mergedKeys <= mergeLimit || keys < 2 * minKeys) {
+				int separator = leftFewer ? child - 1 : child;
+				if (node.isExternal()) {
+					mergeExternalNodes(parent, separator);
+				} else {
+					mergeInternalSiblings(parent, separator);
+				}
+				if (null != this.stats) {
+					this.stats.countMerge();
+				}
+				node = parent;
+			} else {
+				// Both siblings end up with at least half the keys of the two
+				boolean fromLeft = null == right || null != left && left.getKeyCount() > right.getKeyCount();
+				int separator = fromLeft ? child - 1 : child;
+				if (node.isExternal()) {
+					shareExternalKeys(parent, separator);
+				} else {
+					shareInternalKeys(parent, separator);
+				}
+				if (null != this.stats) {
+					this.stats.countBorrow();
+				}
+				return;
+			}
+		}
+		if (!this.root.isExternal() && this.root.getKeyCount() == 0) {
+			// The root lost its last key, the tree shrinks by a level
+			this.root = this.root.getChildren()[0];
+			this.root.setParent(null);
+		}
+	}
+
+	/**
+	 * Merge an external node into its left sibling. The right node leaves
+	 * the linked list of external nodes and its parent.
+	 *
+	 * @param parent
+	 *            the parent of both nodes
+	 * @param separator
+	 *            the index in the parent of the key separating the two nodes
+	 */
+	private void mergeExternalNodes(Node parent, int separator) {
+		Node left = parent.getChildren()[separator];
+		Node right = left.getNext();
+		int leftCount = left.getKeyCount();
+		int rightCount = right.getKeyCount();
+		System.arraycopy(right.getKeys(), 0, left.getKeys(), leftCount, rightCount);
+		System.arraycopy(right.getValues(), 0, left.getValues(), leftCount, rightCount);
+		left.setKeyCount(leftCount + rightCount);
+		left.setNext(right.getNext());
+		if (null != right.getNext()) {
+			right.getNext().setPrev(left);
+		}
+		if (right == this.rightmost) {
+			this.rightmost = left;
+		}
+		removeChild(parent, separator);
+	}
+
+	/**
+	 * Merge an internal node into its left sibling, pulling the separating
+	 * key of the parent down between their keys.
+	 *
+	 * @param parent
+	 *            the parent of both nodes
+	 * @param separator
+	 *            the index in the parent of the key separating the two nodes
+	 */
+	private void mergeInternalSiblings(Node parent, int separator) {
+		Node left = parent.getChildren()[separator];
+		Node right = parent.getChildren()[separator + 1];
+		int leftCount = left.getKeyCount();
+		int rightCount = right.getKeyCount();
+		left.getKeys()[leftCount] = parent.getKeys()[separator];
+		System.arraycopy(right.getKeys(), 0, left.getKeys(), leftCount + 1, rightCount);
+		System.arraycopy(right.getChildren(), 0, left.getChildren(), leftCount + 1, rightCount + 1);
+		System.arraycopy(right.getSubtreeKeyCounts(), 0, left.getSubtreeKeyCounts(), leftCount + 1, rightCount + 1);
+		System.arraycopy(right.getSubtreeValueCounts(), 0, left.getSubtreeValueCounts(), leftCount + 1,
+				rightCount + 1);
+		if (null != this.monoid) {
+			System.arraycopy(summaries(right), 0, summaries(left), leftCount + 1, rightCount + 1);
+		}
+		for (int i = 0; i <= rightCount; i++) {
+			right.getChildren()[i].setParent(left);
+		}
+		left.setKeyCount(leftCount + rightCount + 1);
+		removeChild(parent, separator);
+	}
+
+	/**
+	 * Removes the child right of a key from an internal node after it was
+	 * merged into the child left of the key, which takes over its counts and
+	 * summary.
+	 *
+	 * @param node
+	 *            the internal node
+	 * @param separator
+	 *            the index of the key
+	 */
+	private void removeChild(Node node, int separator) {
+		double[] keys = node.getKeys();
+		Node[] children = node.getChildren();
+		long[] keyCounts = node.getSubtreeKeyCounts();
+		long[] valueCounts = node.getSubtreeValueCounts();
+		int keyCount = node.getKeyCount();
+		keyCounts[separator] += keyCounts[separator + 1];
+		valueCounts[separator] += valueCounts[separator + 1];
+		System.arraycopy(keys, separator + 1, keys, separator, keyCount - separator - 1);
+		System.arraycopy(children, separator + 2, children, separator + 1, keyCount - separator - 1);
+		System.arraycopy(keyCounts, separator + 2, keyCounts, separator + 1, keyCount - separator - 1);
+		System.arraycopy(valueCounts, separator + 2, valueCounts, separator + 1, keyCount - separator - 1);
+		if (null != this.monoid) {
+			// The keys of the left child all come before those of the right
+			// one, so their summaries combine in order
+			Object[] summaries = summaries(node);
+			summaries[separator] = this.monoid.combine(summaries[separator], summaries[separator + 1]);
+			System.arraycopy(summaries, separator + 2, summaries, separator + 1, keyCount - separator - 1);
+			summaries[keyCount] = null;
+		}
+		children[keyCount] = null;
+		node.setKeyCount(keyCount - 1);
+	}
+
+	/**
+	 * Moves keys between two external siblings so that each holds half of
+	 * their keys, and makes the first key of the right one their separator.
+	 *
+	 * @param parent
+	 *            the parent of both nodes
+	 * @param separator
+	 *            the index in the parent of the key separating the two nodes
+	 */
+	private void shareExternalKeys(Node parent, int separator) {
+		Node left = parent.getChildren()[separator];
+		Node right = left.getNext();
+		int leftCount = left.getKeyCount();
+		int rightCount = right.getKeyCount();
+		int target = (leftCount + rightCount) / 2;
+		long movedValues = 0;
+		if (leftCount < target) {
+			// Move the first keys of the right node to the end of the left one
+			int moved = target - leftCount;
+			for (int i = 0; i < moved; i++) {
+				movedValues += right.getValueCount(i);
+			}
+			System.arraycopy(right.getKeys(), 0, left.getKeys(), leftCount, moved);
+			System.arraycopy(right.getValues(), 0, left.getValues(), leftCount, moved);
+			System.arraycopy(right.getKeys(), moved, right.getKeys(), 0, rightCount - moved);
+			System.arraycopy(right.getValues(), moved, right.getValues(), 0, rightCount - moved);
+			Arrays.fill(right.getValues(), rightCount - moved, rightCount, null);
+			left.setKeyCount(target);
+			right.setKeyCount(rightCount - moved);
+			moveCounts(parent, separator, moved, movedValues);
+		} else {
+			// Move the last keys of the left node to the front of the right one
+			int moved = leftCount - target;
+			for (int i = target; i < leftCount; i++) {
+				movedValues += left.getValueCount(i);
+			}
+			System.arraycopy(right.getKeys(), 0, right.getKeys(), moved, rightCount);
+			System.arraycopy(right.getValues(), 0, right.getValues(), moved, rightCount);
+			System.arraycopy(left.getKeys(), target, right.getKeys(), 0, moved);
+			System.arraycopy(left.getValues(), target, right.getValues(), 0, moved);
+			Arrays.fill(left.getValues(), target, leftCount, null);
+			left.setKeyCount(target);
+			right.setKeyCount(rightCount + moved);
+			moveCounts(parent, separator, -moved, -movedValues);
+		}
+		parent.getKeys()[separator] = right.getKeys()[0];
+		if (null != this.monoid) {
+			summaries(parent)[separator] = summarize(left);
+			summaries(parent)[separator + 1] = summarize(right);
+		}
+	}
+
+	/**
+	 * Moves keys between two internal siblings through their parent so that
+	 * each holds half of their keys: the separating key goes down into one
+	 * sibling and a key of the other goes up in its place, with the children
+	 * between them changing sides.
+	 *
+	 * @param parent
+	 *            the parent of both nodes
+	 * @param separator
+	 *            the index in the parent of the key separating the two nodes
+	 */
+	private void shareInternalKeys(Node parent, int separator) {
+		Node left = parent.getChildren()[separator];
+		Node right = parent.getChildren()[separator + 1];
+		int leftCount = left.getKeyCount();
+		int rightCount = right.getKeyCount();
+		int target = (leftCount + rightCount) / 2;
+		double[] parentKeys = parent.getKeys();
+		long movedKeys = 0;
+		long movedValues = 0;
+		if (leftCount < target) {
+			// The first children of the right node move to the end of the left
+			int moved = target - leftCount;
+			for (int i = 0; i < moved; i++) {
+				movedKeys += right.getSubtreeKeyCounts()[i];
+				movedValues += right.getSubtreeValueCounts()[i];
+				right.getChildren()[i].setParent(left);
+			}
+			left.getKeys()[leftCount] = parentKeys[separator];
+			System.arraycopy(right.getKeys(), 0, left.getKeys(), leftCount + 1, moved - 1);
+			parentKeys[separator] = right.getKeys()[moved - 1];
+			System.arraycopy(right.getKeys(), moved, right.getKeys(), 0, rightCount - moved);
+			moveChildren(right, 0, left, leftCount + 1, moved);
+			moveChildren(right, moved, right, 0, rightCount - moved + 1);
+			Arrays.fill(right.getChildren(), rightCount - moved + 1, rightCount + 1, null);
+			left.setKeyCount(target);
+			right.setKeyCount(rightCount - moved);
+			moveCounts(parent, separator, movedKeys, movedValues);
+		} else {
+			// The last children of the left node move to the front of the right
+			int moved = leftCount - target;
+			for (int i = target + 1; i <= leftCount; i++) {
+				movedKeys += left.getSubtreeKeyCounts()[i];
+				movedValues += left.getSubtreeValueCounts()[i];
+				left.getChildren()[i].setParent(right);
+			}
+			System.arraycopy(right.getKeys(), 0, right.getKeys(), moved, rightCount);
+			right.getKeys()[moved - 1] = parentKeys[separator];
+			System.arraycopy(left.getKeys(), target + 1, right.getKeys(), 0, moved - 1);
+			parentKeys[separator] = left.getKeys()[target];
+			moveChildren(right, 0, right, moved, rightCount + 1);
+			moveChildren(left, target + 1, right, 0, moved);
+			Arrays.fill(left.getChildren(), target + 1, leftCount + 1, null);
+			left.setKeyCount(target);
+			right.setKeyCount(rightCount + moved);
+			moveCounts(parent, separator, -movedKeys, -movedValues);
+		}
+		if (null != this.monoid) {
+			summaries(parent)[separator] = summarize(left);
+			summaries(parent)[separator + 1] = summarize(right);
+		}
+	}
+
+	/**
+	 * Copies a run of children of an internal node, with their counts and
+	 * summaries, to another internal node or another position of the same.
+	 *
+	 * @param from
+	 *            the node the children are copied from
+	 * @param fromIndex
+	 *            the index of the first child copied
+	 * @param to
+	 *            the node the children are copied to
+	 * @param toIndex
+	 *            the index the first child is copied to
+	 * @param length
+	 *            the number of children copied
+	 */
+	private void moveChildren(Node from, int fromIndex, Node to, int toIndex, int length) {
+		System.arraycopy(from.getChildren(), fromIndex, to.getChildren(), toIndex, length);
+		System.arraycopy(from.getSubtreeKeyCounts(), fromIndex, to.getSubtreeKeyCounts(), toIndex, length);
+		System.arraycopy(from.getSubtreeValueCounts(), fromIndex, to.getSubtreeValueCounts(), toIndex, length);
+		if (null != this.monoid) {
+			System.arraycopy(summaries(from), fromIndex, summaries(to), toIndex, length);
+		}
+	}
+
+	/**
+	 * Moves keys and values from the count of the child right of a key to
+	 * the count of the child left of it.
+	 *
+	 * @param node
+	 *            the internal node
+	 * @param separator
+	 *            the index of the key
+	 * @param keys
+	 *            the number of keys moved to the left, negative if they
+	 *            moved to the right
+	 * @param values
+	 *            the number of values moved to the left, negative if they
+	 *            moved to the right
+	 */
+	private static void moveCounts(Node node, int separator, long keys, long values) {
+		node.getSubtreeKeyCounts()[separator] += keys;
+		node.getSubtreeKeyCounts()[separator + 1] -= keys;
+		node.getSubtreeValueCounts()[separator] += values;
+		node.getSubtreeValueCounts()[separator + 1] -= values;
+	}
+
+	/**
+	 * Helper method - Prints the tree using a level order traversal
+	 */
+	public void printTree() {
+		Queue<Node> queue = new LinkedList<Node>();
+		queue.add(this.root);
+		queue.add(null);
+		Node curr = null;
+		int levelNumber = 2;
+		System.out.println("Printing level 1");
+		while (!queue.isEmpty()) {
+			curr = queue.poll();
+			if (null == curr) {
+				queue.add(null);
+				if (queue.peek() == null) {
+					break;
+				}
+				System.out.println("\n" + "Printing level " + levelNumber++);
+				continue;
+			}
+
+			printNode(curr);
+
+			if (curr.isExternal()) {
+				break;
+			}
+			for (int i = 0; i <= curr.getKeyCount(); i++) {
+				queue.add(curr.getChildren()[i]);
+			}
+		}
+
+		curr = curr.getNext();
+		while (null != curr) {
+			printNode(curr);
+			curr = curr.getNext();
+		}
+
+	}
+
+	/**
+	 * Helper method Prints a node of the tree.
+	 *
+	 * @param curr
+	 *            the node to be printed
+	 */
+	private void printNode(Node curr) {
+		for (int i = 0; i < curr.getKeyCount(); i++) {
+			System.out.print(curr.getKeys()[i] + ":(");
+			String values = "";
+			if (curr.isExternal()) {
+				List<String> valueList = curr.getValueList(i);
+				for (int j = 0; j < valueList.size(); j++) {
+					values = values + valueList.get(j) + ",";
+				}
+			}
+			System.out.print(values.isEmpty() ? ");" : values.substring(0, values.length() - 1) + ");");
+		}
+		System.out.print("||");
+	}
+
+	/**
+	 * Modified Binary search within internal node.
+	 *
+	 * @param key
+	 *            the key to be searched
+	 * @param keys
+	 *            the sorted array of keys to be searched
+	 * @param keyCount
+	 *            the number of keys in use in the array
+	 * @return the first index of the array at which the key is greater than
+	 *         the input key, or keyCount if there is no such key
+	 */
+	public int binarySearchWithinInternalNode(double key, double[] keys, int keyCount) {
+		return nodeSearch.upperBound(key, keys, keyCount);
+	}
+
+	/**
+	 * Finds the first index of a sorted array of keys at which the key is
+	 * greater than the input key, with the strategy set by the system
+	 * property bplustree.nodeSearch.
+	 *
+	 * @param key
+	 *            the key to be searched
+	 * @param keys
+	 *            the sorted array of keys to be searched
+	 * @param keyCount
+	 *            the number of keys in use in the array
+	 * @return the first index of the array at which the key is greater than
+	 *         the input key, or keyCount if there is no such key
+	 */
+	static int upperBound(double key, double[] keys, int keyCount) {
+		return NodeSearch.DEFAULT.upperBound(key, keys, keyCount);
+	}
+
+	/**
+	 * Search values for a key
+	 *
+	 * @param key
+	 *            the key to be searched
+	 * @return the list of values for the key, a read-only view of the
+	 *         posting list if the key has more than one
+	 */
+	public List<String> search(double key) {
+		TreeStats stats = this.stats;
+		if (null == stats) {
+			return find(key);
+		}
+		long start = System.nanoTime();
+		List<String> values = find(key);
+		stats.recordSearch(System.nanoTime() - start);
+		return values;
+	}
+
+	/**
+	 * Finds the values of a key, in the key cache first if there is one.
+	 *
+	 * @param key
+	 *            the key to be searched
+	 * @return the list of values for the key, null if the key is not present
+	 */
+	private List<String> find(double key) {
+		KeyCache cache = this.keyCache;
+		if (null == cache) {
+			return findInTree(key);
+		}
+		List<String> values = cache.get(key);
+		TreeStats stats = this.stats;
+		if (null != values) {
+			if (null != stats) {
+				stats.countCacheHits(1);
+			}
+			return values;
+		}
+		if (null != stats) {
+			stats.countCacheMisses(1);
+		}
+		values = findInTree(key);
+		if (null != values) {
+			cache.offer(key, values);
+		}
+		return values;
+	}
+
+	/**
+	 * Finds the values of a key in the tree, unless the key filter rejects
+	 * the key.
+	 *
+	 * @param key
+	 *            the key to be searched
+	 * @return the list of values for the key, null if the key is not present
+	 */
+	private List<String> findInTree(double key) {
+		KeyFilter filter = this.keyFilter;
+		if (null != filter && !filter.mightContain(key)) {
+			// The key was never inserted, skip the walk down the tree
+			TreeStats stats = this.stats;
+			if (null != stats) {
+				stats.countFilterRejects(1);
+			}
+			return null;
+		}
+		// Traverse to the corresponding external node that would 'should'
+		// contain this key
+		Node curr = findExternalNode(key);
+		if (null == curr) {
+			return null;
+		}
+		// Do a binary search in this node for the key. The key, if present,
+		// is just before the first greater key
+		int index = binarySearchWithinInternalNode(key, curr.getKeys(), curr.getKeyCount()) - 1;
+		if (index >= 0 && curr.getKeys()[index] == key) {
+			return curr.getValueList(index);
+		}
+		TreeStats stats = this.stats;
+		if (null != filter && null != stats) {
+			stats.countFilterFalsePositives(1);
+		}
+		return null;
+	}
+
+	/**
+	 * Search a page of the values of a key, decoding only the values of the
+	 * page for a key with a long posting list.
+	 *
+	 * @param key
+	 *            the key to be searched
+	 * @param offset
+	 *            the index of the first value of the page
+	 * @param limit
+	 *            the largest number of values in the page
+	 * @return the values of the page, null if the key is not present
+	 */
+	public List<String> searchPage(double key, int offset, int limit) {
+		List<String> values = search(key);
+		if (null == values) {
+			return null;
+		}
+		if (values instanceof PostingList) {
+			return ((PostingList) values).page(offset, limit);
+		}
+		// A single value
+		return offset == 0 && limit > 0 ? values : Collections.<String> emptyList();
+	}
+
+	/**
+	 * Counts the values of a key, without decoding them.
+	 *
+	 * @param key
+	 *            the key to be searched
+	 * @return the number of values for the key, 0 if the key is not present
+	 */
+	public int valueCount(double key) {
+		List<String> values = search(key);
+		return null == values ? 0 : values.size();
+	}
+
+	/**
+	 * Search values for many keys at once. The keys are sorted and the tree
+	 * is walked once: each node is visited at most once, for the keys that
+	 * fall under it, and the upper levels are not searched again for every
+	 * key as repeated calls of search(double) would. The keys found in the
+	 * key cache or rejected by the key filter are left out of the walk.
+	 * Small batches are searched one key at a time.
+	 *
+	 * @param keys
+	 *            the keys to be searched, in any order and possibly repeated
+	 * @return the list of values of each key, in the order of the keys, null
+	 *         for a key that is not present
+	 */
+	public List<List<String>> multiGet(double[] keys) {
+		long start = null == this.stats ? 0 : System.nanoTime();
+		List<List<String>> found = new ArrayList<>(Collections.nCopies(keys.length, (List<String>) null));
+		if (keys.length < MULTI_GET_MIN_BATCH) {
+			// Sorting costs more than it saves
+			for (int i = 0; i < keys.length; i++) {
+				found.set(i, find(keys[i]));
+			}
+		} else if (null != root) {
+			KeyFilter filter = this.keyFilter;
+			KeyCache cache = this.keyCache;
+			double[] candidates = keys;
+			int[] positions = null;
+			long cacheHits = 0;
+			if (null != filter || null != cache) {
+				// The keys found in the cache or rejected by the filter are
+				// neither sorted nor walked down the tree
+				positions = new int[keys.length];
+				int count = 0;
+				for (int i = 0; i < keys.length; i++) {
+					List<String> cached = null == cache ? null : cache.get(keys[i]);
+					if (null != cached) {
+						found.set(i, cached);
+						cacheHits++;
+					} else if (null == filter || filter.mightContain(keys[i])) {
+						positions[count++] = i;
+					}
+				}
+				candidates = new double[count];
+				for (int i = 0; i < count; i++) {
+					candidates[i] = keys[positions[i]];
+				}
+			}
+			if (candidates.length > 0) {
+				int[] order = sortedOrder(candidates);
+				double[] probes = new double[candidates.length];
+				for (int i = 0; i < candidates.length; i++) {
+					probes[i] = candidates[order[i]];
+					if (null != positions) {
+						order[i] = positions[order[i]];
+					}
+				}
+				multiGet(root, probes, order, 0, candidates.length, found);
+			}
+			long falsePositives = 0;
+			for (int i = 0; null != positions && i < candidates.length; i++) {
+				List<String> values = found.get(positions[i]);
+				if (null == values) {
+					falsePositives++;
+				} else if (null != cache) {
+					cache.offer(candidates[i], values);
+				}
+			}
+			if (null != this.stats) {
+				if (null != filter) {
+					this.stats.countFilterRejects(keys.length - cacheHits - candidates.length);
+					this.stats.countFilterFalsePositives(falsePositives);
+				}
+				if (null != cache) {
+					this.stats.countCacheHits(cacheHits);
+					this.stats.countCacheMisses(keys.length - cacheHits);
+				}
+			}
+		}
+		if (null != this.stats) {
+			this.stats.recordMultiGet(keys.length, System.nanoTime() - start);
+		}
+		return found;
+	}
+
+	/**
+	 * Searches a range of sorted keys under a node. An internal node hands
+	 * each child the contiguous run of keys that falls under it, skipping the
+	 * children no key falls under; an external node is searched for each key.
+	 *
+	 * @param node
+	 *            the node
+	 * @param probes
+	 *            the sorted keys to be searched
+	 * @param order
+	 *            the index in the input of each sorted key
+	 * @param from
+	 *            the index of the first key under the node
+	 * @param to
+	 *            the index after the last key under the node
+	 * @param found
+	 *            the list of values of each input key, set for the keys
+	 *            present
+	 */
+	private void multiGet(Node node, double[] probes, int[] order, int from, int to, List<List<String>> found) {
+		double[] keys = node.getKeys();
+		int keyCount = node.getKeyCount();
+		if (node.isExternal()) {
+			for (int i = from; i < to; i++) {
+				// The key, if present, is just before the first greater key
+				int index = binarySearchWithinInternalNode(probes[i], keys, keyCount) - 1;
+				if (index >= 0 && keys[index] == probes[i]) {
+					found.set(order[i], node.getValueList(index));
+				}
+			}
+			return;
+		}
+		int i = from;
+		while (i < to) {
+			int child = binarySearchWithinInternalNode(probes[i], keys, keyCount);
+			// The keys under the child are those before its separating key
+			int end = child == keyCount ? to : lowerBound(keys[child], probes, i + 1, to);
+			multiGet(node.getChildren()[child], probes, order, i, end, found);
+			i = end;
+		}
+	}
+
+	/**
+	 * Finds the first index of a range of a sorted array of keys at which
+	 * the key is not smaller than the bound, NaN keys never being smaller.
+	 * The range is galloped through from its start, as the index is most
+	 * often close to it.
+	 *
+	 * @param bound
+	 *            the bound
+	 * @param keys
+	 *            the sorted array of keys
+	 * @param from
+	 *            the index of the first key of the range
+	 * @param to
+	 *            the index after the last key of the range
+	 * @return the first index at which the key is not smaller than the bound,
+	 *         or to if there is no such key
+	 */
+	private static int lowerBound(double bound, double[] keys, int from, int to) {
+		int step = 1;
+		while (from + step < to && keys[from + step - 1] < bound) {
+			from += step;
+			step <<= 1;
+		}
+		to = Math.min(to, from + step);
+		while (from < to) {
+			int mid = (from + to) >>> 1;
+			if (keys[mid] < bound) {
+				from = mid + 1;
+			} else {
+				to = mid;
+			}
+		}
+		return from;
+	}
+
+	/**
+	 * Sorts the indices of an array of keys by key, in the order of
+	 * Double.compare, with a radix sort of the bits of the keys. Digits equal
+	 * in every key, such as the low bits of the mantissa of whole numbers,
+	 * are skipped.
+	 *
+	 * @param keys
+	 *            the keys
+	 * @return the indices of the keys, the index of the smallest key first
+	 */
+	private static int[] sortedOrder(double[] keys) {
+		int n = keys.length;
+		long[] bits = new long[n];
+		int[] order = new int[n];
+		for (int i = 0; i < n; i++) {
+			long b = Double.doubleToLongBits(keys[i]);
+			// Flip the sign bit of positive keys and every bit of negative
+			// keys, so that the bits compare as unsigned numbers
+			bits[i] = b ^ ((b >> 63) | Long.MIN_VALUE);
+			order[i] = i;
+		}
+		long[] bitsBuffer = new long[n];
+		int[] orderBuffer = new int[n];
+		int[] counts = new int[1 << RADIX_BITS];
+		for (int shift = 0; shift < 64; shift += RADIX_BITS) {
+			Arrays.fill(counts, 0);
+			for (int i = 0; i < n; i++) {
+				counts[(int) (bits[i] >>> shift) & ((1 << RADIX_BITS) - 1)]++;
+			}
+			if (counts[(int) (bits[0] >>> shift) & ((1 << RADIX_BITS) - 1)] == n) {
+				continue;
+			}
+			int start = 0;
+			for (int d = 0; d < counts.length; d++) {
+				int count = counts[d];
+				counts[d] = start;
+				start += count;
+			}
+			for (int i = 0; i < n; i++) {
+				int position = counts[(int) (bits[i] >>> shift) & ((1 << RADIX_BITS) - 1)]++;
+				bitsBuffer[position] = bits[i];
+				orderBuffer[position] = order[i];
+			}
+			long[] swapBits = bits;
+			bits = bitsBuffer;
+			bitsBuffer = swapBits;
+			int[] swapOrder = order;
+			order = orderBuffer;
+			orderBuffer = swapOrder;
+		}
+		return order;
+	}
+
+	/**
+	 * Counts the keys of the tree, from the counts kept in the root.
+	 *
+	 * @return the number of keys
+	 */
+	public long size() {
+		return null == root ? 0 : root.countKeys();
+	}
+
+	/**
+	 * Counts the values of the tree, from the counts kept in the root.
+	 *
+	 * @return the number of values of all keys
+	 */
+	public long valueCount() {
+		return null == root ? 0 : root.countValues();
+	}
+
+	/**
+	 * Counts the keys smaller than a key, which is the index the key has or
+	 * would have in the sorted keys of the tree.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the number of keys smaller than the key
+	 */
+	public long rank(double key) {
+		return countBelow(key, false, false);
+	}
+
+	/**
+	 * Counts the keys between key1 and key2, both included, without visiting
+	 * them.
+	 *
+	 * @param key1
+	 *            the starting key
+	 * @param key2
+	 *            the ending key
+	 * @return the number of keys between the two keys
+	 */
+	public long count(double key1, double key2) {
+		if (!(key1 <= key2)) {
+			return 0;
+		}
+		return countBelow(key2, true, false) - countBelow(key1, false, false);
+	}
+
+	/**
+	 * Counts the values of the keys between key1 and key2, both included,
+	 * without visiting them.
+	 *
+	 * @param key1
+	 *            the starting key
+	 * @param key2
+	 *            the ending key
+	 * @return the number of values of the keys between the two keys
+	 */
+	public long countValues(double key1, double key2) {
+		if (!(key1 <= key2)) {
+			return 0;
+		}
+		return countBelow(key2, true, true) - countBelow(key1, false, true);
+	}
+
+	/**
+	 * Counts the keys, or their values, below a key. On the way down, the
+	 * counts of the children left of the one the key descends to are added,
+	 * then the keys below the key in the external node.
+	 *
+	 * @param key
+	 *            the key
+	 * @param inclusive
+	 *            true to count the key itself
+	 * @param values
+	 *            true to count the values of the keys instead of the keys
+	 * @return the number of keys, or values, below the key
+	 */
+	private long countBelow(double key, boolean inclusive, boolean values) {
+		Node curr = this.root;
+		if (null == curr) {
+			return 0;
+		}
+		long count = 0;
+		while (!curr.isExternal()) {
+			int child = binarySearchWithinInternalNode(key, curr.getKeys(), curr.getKeyCount());
+			long[] counts = values ? curr.getSubtreeValueCounts() : curr.getSubtreeKeyCounts();
+			for (int i = 0; i < child; i++) {
+				count += counts[i];
+			}
+			curr = curr.getChildren()[child];
+		}
+		int index = binarySearchWithinInternalNode(key, curr.getKeys(), curr.getKeyCount());
+		if (!inclusive && index > 0 && curr.getKeys()[index - 1] == key) {
+			index--;
+		}
+		if (!values) {
+			return count + index;
+		}
+		for (int i = 0; i < index; i++) {
+			count += curr.getValueCount(i);
+		}
+		return count;
+	}
+
+	/**
+	 * Finds the key of a given rank, the smallest key having rank 0.
+	 *
+	 * @param rank
+	 *            the number of keys smaller than the key to be found
+	 * @return the key with its values
+	 * @throws IndexOutOfBoundsException
+	 *             if the rank is negative or not smaller than the number of
+	 *             keys
+	 */
+	public Key select(long rank) {
+		return select(rank, false);
+	}
+
+	/**
+	 * Finds the key below which a fraction of the values of the tree lies,
+	 * each value counting as one observation of its key: the smallest key
+	 * such that at least that fraction of the values are of that key or of a
+	 * smaller one.
+	 *
+	 * @param fraction
+	 *            the fraction of the values, in [0, 1], 0.5 for the median
+	 * @return the key with its values, null if the tree is empty
+	 */
+	public Key percentile(double fraction) {
+		if (!(fraction >= 0 && fraction <= 1)) {
+			throw new IllegalArgumentException("Fraction must be in [0, 1]: " + fraction);
+		}
+		long total = valueCount();
+		if (total == 0) {
+			return null;
+		}
+		// The nearest rank: the first value at or past the fraction
+		long rank = Math.max(1, (long) Math.ceil(fraction * total)) - 1;
+		return select(rank, true);
+	}
+
+	/**
+	 * Finds the key of a given rank among the keys, or among the values.
+	 *
+	 * @param rank
+	 *            the number of keys, or values, before the one to be found
+	 * @param values
+	 *            true to rank the values instead of the keys
+	 * @return the key with its values
+	 */
+	private Key select(long rank, boolean values) {
+		long size = values ? valueCount() : size();
+		if (rank < 0 || rank >= size) {
+			throw new IndexOutOfBoundsException("Rank " + rank + " of " + size);
+		}
+		Node curr = this.root;
+		while (!curr.isExternal()) {
+			long[] counts = values ? curr.getSubtreeValueCounts() : curr.getSubtreeKeyCounts();
+			int child = 0;
+			while (rank >= counts[child]) {
+				rank -= counts[child++];
+			}
+			curr = curr.getChildren()[child];
+		}
+		int index = 0;
+		if (!values) {
+			index = (int) rank;
+		} else {
+			while (rank >= curr.getValueCount(index)) {
+				rank -= curr.getValueCount(index++);
+			}
+		}
+		return new Key(curr.getKeys()[index], curr.getValueList(index));
+	}
+
+	/**
+	 * Summarizes the keys between key1 and key2, both included, with a
+	 * monoid. With the monoid set by setKeyMonoid, the summaries kept for the
+	 * subtrees inside the range are combined, and only the keys of the two
+	 * external nodes at the ends of the range are read, whatever the width
+	 * of the range. With any other monoid, the keys of the range are read one
+	 * by one.
+	 *
+	 * @param <S>
+	 *            the type of the summary
+	 * @param monoid
+	 *            the monoid of the summary
+	 * @param key1
+	 *            the starting key
+	 * @param key2
+	 *            the ending key
+	 * @return the summary of the keys between the two keys
+	 */
+	@SuppressWarnings("unchecked")
+	public <S> S aggregate(KeyMonoid<S> monoid, double key1, double key2) {
+		S summary = monoid.identity();
+		if (null == this.root || !(key1 <= key2)) {
+			return summary;
+		}
+		if (monoid == this.monoid) {
+			return (S) aggregate(this.root, key1, key2, true, true);
+		}
+		// No summaries are kept for this monoid, walk the range
+		Node curr = findExternalNode(key1);
+		int index = startIndex(curr, key1, true);
+		while (null != curr) {
+			for (; index < curr.getKeyCount(); index++) {
+				double key = curr.getKeys()[index];
+				if (key > key2) {
+					return summary;
+				}
+				summary = monoid.combine(summary, monoid.ofKey(key, curr.getValueCount(index)));
+			}
+			curr = curr.getNext();
+			index = 0;
+		}
+		return summary;
+	}
 
-		return searchValues;
+	/**
+	 * Summarizes the keys under a node that are in a range. The children the
+	 * range covers whole are taken from the kept summaries, and the search
+	 * goes down only into the children holding the ends of the range, of
+	 * which there is at most one on each side.
+	 *
+	 * @param node
+	 *            the node
+	 * @param key1
+	 *            the starting key
+	 * @param key2
+	 *            the ending key
+	 * @param bounded1
+	 *            false if every key under the node is at least key1
+	 * @param bounded2
+	 *            false if every key under the node is at most key2
+	 * @return the summary of the keys under the node in the range
+	 */
+	private Object aggregate(Node node, double key1, double key2, boolean bounded1, boolean bounded2) {
+		double[] keys = node.getKeys();
+		int keyCount = node.getKeyCount();
+		Object summary = this.monoid.identity();
+		if (node.isExternal()) {
+			for (int i = 0; i < keyCount; i++) {
+				if ((!bounded1 || keys[i] >= key1) && (!bounded2 || keys[i] <= key2)) {
+					summary = this.monoid.combine(summary, this.monoid.ofKey(keys[i], node.getValueCount(i)));
+				}
+			}
+			return summary;
+		}
+		int first = bounded1 ? binarySearchWithinInternalNode(key1, keys, keyCount) : 0;
+		int last = bounded2 ? binarySearchWithinInternalNode(key2, keys, keyCount) : keyCount;
+		if (first == last) {
+			return aggregate(node.getChildren()[first], key1, key2, bounded1, bounded2);
+		}
+		Object[] summaries = node.getSummaries();
+		summary = aggregate(node.getChildren()[first], key1, key2, bounded1, false);
+		for (int i = first + 1; i < last; i++) {
+			summary = this.monoid.combine(summary, summaries[i]);
+		}
+		return this.monoid.combine(summary, aggregate(node.getChildren()[last], key1, key2, false, bounded2));
 	}
 
 	/**
@@ -430,33 +2167,326 @@ public class BPlusTree {
 	 *            the ending key
 	 * @return the list of key value pairs between the two keys
 	 */
-	
+
 	public List<Key> search(double key1, double key2) {
 		//System.out.println("Searching between keys " + key1 + ", " + key2);
+		long start = null == this.stats ? 0 : System.nanoTime();
 		List<Key> searchKeys = new ArrayList<>();
-		Node currNode = this.root;
-		// Traverse to the corresponding external node that would 'should'
-		// contain starting key (key1)
-		while (currNode.getChildren().size() != 0) {
-			currNode = currNode.getChildren().get(binarySearchWithinInternalNode(key1, currNode.getKeys()));
-		}
-		
-		// Start from current node and add keys whose value lies between key1 and key2 with their corresponding pairs
-		// Stop if end of list is encountered or if value encountered in list is greater than key2
-		
-		boolean endSearch = false;
-		while (null != currNode && !endSearch) {
-			for (int i = 0; i < currNode.getKeys().size(); i++) {
-				if (currNode.getKeys().get(i).getKey() >= key1 && currNode.getKeys().get(i).getKey() <= key2)
-					searchKeys.add(currNode.getKeys().get(i));
-				if (currNode.getKeys().get(i).getKey() > key2) {
-					endSearch = true;
+		// Walk the linked list from key1 and add keys whose value lies between
+		// key1 and key2 with their corresponding pairs
+		spliterator(key1, true, key2, true).forEachRemaining(searchKeys::add);
+		if (null != this.stats) {
+			this.stats.recordRangeSearch(System.nanoTime() - start);
+		}
+		return searchKeys;
+	}
+
+	/**
+	 * Opens a cursor over all key value pairs between two keys. The cursor
+	 * walks the linked list of external nodes lazily, one pair per call to
+	 * next, and stops at the first key past the upper bound.
+	 *
+	 * @param key1
+	 *            the starting key
+	 * @param key1Inclusive
+	 *            true if pairs with key equal to key1 are included
+	 * @param key2
+	 *            the ending key
+	 * @param key2Inclusive
+	 *            true if pairs with key equal to key2 are included
+	 * @param limit
+	 *            the maximum number of pairs returned by the cursor
+	 * @return the cursor, positioned before the first pair
+	 */
+	public RangeCursor cursor(double key1, boolean key1Inclusive, double key2, boolean key2Inclusive, long limit) {
+		Node node = findExternalNode(key1);
+		return new RangeCursor(node, startIndex(node, key1, key1Inclusive), key2, key2Inclusive, limit);
+	}
+
+	/**
+	 * Opens a cursor over all key value pairs between key1 and key2, both
+	 * inclusive.
+	 *
+	 * @param key1
+	 *            the starting key
+	 * @param key2
+	 *            the ending key
+	 * @return the cursor, positioned before the first pair
+	 */
+	public RangeCursor cursor(double key1, double key2) {
+		return cursor(key1, true, key2, true, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Opens a cursor over all key value pairs between two keys in descending
+	 * order. The cursor starts at the ending key and walks the linked list of
+	 * external nodes backwards through the 'prev' links, stopping at the
+	 * first key below the starting key.
+	 *
+	 * @param key1
+	 *            the starting key, the lower bound
+	 * @param key1Inclusive
+	 *            true if pairs with key equal to key1 are included
+	 * @param key2
+	 *            the ending key, where the cursor starts
+	 * @param key2Inclusive
+	 *            true if pairs with key equal to key2 are included
+	 * @param limit
+	 *            the maximum number of pairs returned by the cursor
+	 * @return the cursor, positioned before the pair with the greatest key
+	 */
+	public RangeCursor descendingCursor(double key1, boolean key1Inclusive, double key2, boolean key2Inclusive,
+			long limit) {
+		Node node = findExternalNode(key2);
+		return new RangeCursor(node, endIndex(node, key2, key2Inclusive), key1, key1Inclusive, limit, true);
+	}
+
+	/**
+	 * Opens a cursor over all key value pairs between key1 and key2, both
+	 * inclusive, in descending order.
+	 *
+	 * @param key1
+	 *            the starting key
+	 * @param key2
+	 *            the ending key
+	 * @return the cursor, positioned before the pair with the greatest key
+	 */
+	public RangeCursor descendingCursor(double key1, double key2) {
+		return descendingCursor(key1, true, key2, true, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Finds the greatest key less than or equal to a key.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the greatest key not above the key with its values, null if
+	 *         there is none
+	 */
+	public Key floor(double key) {
+		return neighbour(key, true, true);
+	}
+
+	/**
+	 * Finds the least key greater than or equal to a key.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the least key not below the key with its values, null if there
+	 *         is none
+	 */
+	public Key ceiling(double key) {
+		return neighbour(key, true, false);
+	}
+
+	/**
+	 * Finds the greatest key strictly less than a key.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the greatest key below the key with its values, null if there
+	 *         is none
+	 */
+	public Key lower(double key) {
+		return neighbour(key, false, true);
+	}
+
+	/**
+	 * Finds the least key strictly greater than a key.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the least key above the key with its values, null if there is
+	 *         none
+	 */
+	public Key higher(double key) {
+		return neighbour(key, false, false);
+	}
+
+	/**
+	 * Finds the k greatest keys less than or equal to a bound, in descending
+	 * order. One walk down the tree finds the bound, then the keys are read
+	 * backwards through the 'prev' links, so the cost is O(log n + k) whatever
+	 * the spread of the keys.
+	 *
+	 * @param hi
+	 *            the upper bound
+	 * @param k
+	 *            the number of keys
+	 * @return up to k keys with their values, the greatest first
+	 */
+	public List<Key> topK(double hi, int k) {
+		return nearest(hi, true, true, k);
+	}
+
+	/**
+	 * Finds the k least keys greater than or equal to a bound, in ascending
+	 * order, in O(log n + k).
+	 *
+	 * @param lo
+	 *            the lower bound
+	 * @param k
+	 *            the number of keys
+	 * @return up to k keys with their values, the least first
+	 */
+	public List<Key> bottomK(double lo, int k) {
+		return nearest(lo, true, false, k);
+	}
+
+	/**
+	 * Finds the nearest key on one side of a key.
+	 *
+	 * @param key
+	 *            the key
+	 * @param inclusive
+	 *            true if the key itself may be returned
+	 * @param descending
+	 *            true to look below the key, false to look above it
+	 * @return the nearest key with its values, null if there is none
+	 */
+	private Key neighbour(double key, boolean inclusive, boolean descending) {
+		List<Key> found = nearest(key, inclusive, descending, 1);
+		return found.isEmpty() ? null : found.get(0);
+	}
+
+	/**
+	 * Collects the keys nearest to a key on one side of it, walking the
+	 * linked list of external nodes away from the key.
+	 *
+	 * @param key
+	 *            the key
+	 * @param inclusive
+	 *            true if the key itself may be collected
+	 * @param descending
+	 *            true to collect the keys below the key, false above it
+	 * @param k
+	 *            the largest number of keys collected
+	 * @return the keys with their values, the nearest first
+	 */
+	private List<Key> nearest(double key, boolean inclusive, boolean descending, int k) {
+		if (k < 0) {
+			throw new IllegalArgumentException("k must not be negative: " + k);
+		}
+		List<Key> found = new ArrayList<>((int) Math.min(k, size()));
+		Node node = findExternalNode(key);
+		if (null == node || k == 0) {
+			return found;
+		}
+		int index = descending ? endIndex(node, key, inclusive) : startIndex(node, key, inclusive);
+		while (found.size() < k) {
+			// Follow the linked list at the end of a node, skipping the
+			// nodes left empty by deletes
+			while (descending ? index < 0 : index >= node.getKeyCount()) {
+				node = descending ? node.getPrev() : node.getNext();
+				if (null == node) {
+					return found;
 				}
+				index = descending ? node.getKeyCount() - 1 : 0;
 			}
-			currNode = currNode.getNext();
+			found.add(new Key(node.getKeys()[index], node.getValueList(index)));
+			index += descending ? -1 : 1;
 		}
+		return found;
+	}
 
-		return searchKeys;
+	/**
+	 * Creates a spliterator over the keys between two keys, each with its
+	 * list of values. Like the cursor, the keys are produced lazily from the
+	 * linked list of external nodes.
+	 *
+	 * @param key1
+	 *            the starting key
+	 * @param key1Inclusive
+	 *            true if key1 itself is included
+	 * @param key2
+	 *            the ending key
+	 * @param key2Inclusive
+	 *            true if key2 itself is included
+	 * @return the spliterator over the keys in the range
+	 */
+	public Spliterator<Key> spliterator(double key1, boolean key1Inclusive, double key2, boolean key2Inclusive) {
+		Node node = findExternalNode(key1);
+		return new RangeSpliterator(node, startIndex(node, key1, key1Inclusive), key2, key2Inclusive);
+	}
+
+	/**
+	 * Creates a sequential stream over the keys between two keys, each with
+	 * its list of values.
+	 *
+	 * @param key1
+	 *            the starting key
+	 * @param key1Inclusive
+	 *            true if key1 itself is included
+	 * @param key2
+	 *            the ending key
+	 * @param key2Inclusive
+	 *            true if key2 itself is included
+	 * @return the stream of keys in the range
+	 */
+	public Stream<Key> stream(double key1, boolean key1Inclusive, double key2, boolean key2Inclusive) {
+		return StreamSupport.stream(spliterator(key1, key1Inclusive, key2, key2Inclusive), false);
+	}
+
+	/**
+	 * Traverses to the external node that 'should' contain a key.
+	 *
+	 * @param key
+	 *            the key to be searched
+	 * @return the external node, null if the tree is empty
+	 */
+	Node findExternalNode(double key) {
+		Node curr = this.root;
+		while (null != curr && !curr.isExternal()) {
+			curr = curr.getChildren()[binarySearchWithinInternalNode(key, curr.getKeys(), curr.getKeyCount())];
+		}
+		return curr;
+	}
+
+	/**
+	 * Finds the index of the first key in an external node that is past a
+	 * lower bound.
+	 *
+	 * @param node
+	 *            the external node, may be null
+	 * @param key
+	 *            the lower bound
+	 * @param inclusive
+	 *            true if a key equal to the bound is included
+	 * @return the index of the first key in the range, may be keyCount
+	 */
+	private int startIndex(Node node, double key, boolean inclusive) {
+		if (null == node) {
+			return 0;
+		}
+		int index = binarySearchWithinInternalNode(key, node.getKeys(), node.getKeyCount());
+		if (inclusive && index > 0 && node.getKeys()[index - 1] == key) {
+			index--;
+		}
+		return index;
+	}
+
+	/**
+	 * Finds the index of the last key in an external node that is before an
+	 * upper bound.
+	 *
+	 * @param node
+	 *            the external node, may be null
+	 * @param key
+	 *            the upper bound
+	 * @param inclusive
+	 *            true if a key equal to the bound is included
+	 * @return the index of the last key in the range, -1 if it is in a
+	 *         previous node
+	 */
+	private int endIndex(Node node, double key, boolean inclusive) {
+		if (null == node) {
+			return -1;
+		}
+		int index = binarySearchWithinInternalNode(key, node.getKeys(), node.getKeyCount()) - 1;
+		if (!inclusive && index >= 0 && node.getKeys()[index] == key) {
+			index--;
+		}
+		return index;
 	}
 
 }
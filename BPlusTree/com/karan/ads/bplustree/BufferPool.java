@@ -0,0 +1,315 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The Class BufferPool. Keeps a bounded number of decoded pages in memory and
+ * evicts them with the CLOCK algorithm: a page that was used since the clock
+ * hand last passed it gets a second chance, so the internal nodes touched by
+ * every search stay resident. A page in use is pinned and never evicted. A
+ * modified page is marked dirty and written back when it is evicted or
+ * flushed.
+ */
+class BufferPool {
+
+	/**
+	 * The Class Frame. A slot of the pool holding one page.
+	 */
+	private static final class Frame {
+
+		/** The page held by the frame, null if the frame is free. */
+		Page page;
+
+		/** The number of users of the page. */
+		int pinCount;
+
+		/** True if the page was used since the clock hand passed it. */
+		boolean referenced;
+
+		/** True if the page was modified since it was last written. */
+		boolean dirty;
+	}
+
+	/** The page file. */
+	private final PageFile file;
+
+	/** The frames of the pool. */
+	private final Frame[] frames;
+
+	/** The frames holding a page, by page ID. */
+	private final Map<Long, Frame> pageTable;
+
+	/** The position of the clock hand. */
+	private int clockHand;
+
+	/** The buffer used to read and write a single page. */
+	private final ByteBuffer pageBuffer;
+
+	/** The number of pages read from the file. */
+	private long pageReads;
+
+	/** The number of pages written to the file. */
+	private long pageWrites;
+
+	/** The number of requests served from the pool. */
+	private long hits;
+
+	/**
+	 * Instantiates a new buffer pool.
+	 *
+	 * @param file
+	 *            the page file
+	 * @param capacity
+	 *            the number of pages the pool holds
+	 */
+	BufferPool(PageFile file, int capacity) {
+		this.file = file;
+		this.frames = new Frame[capacity];
+		for (int i = 0; i < capacity; i++) {
+			frames[i] = new Frame();
+		}
+		this.pageTable = new HashMap<>(capacity * 2);
+		this.pageBuffer = ByteBuffer.allocate(file.getPageSize());
+	}
+
+	/**
+	 * Gets a page and pins it, reading it from the file if it is not in the
+	 * pool.
+	 *
+	 * @param pageId
+	 *            the page ID
+	 * @return the page
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	Page pin(long pageId) throws IOException {
+		Frame frame = pageTable.get(pageId);
+		if (null != frame) {
+			hits++;
+		} else {
+			pageBuffer.clear();
+			file.read(pageId, pageBuffer);
+			pageBuffer.flip();
+			pageReads++;
+			Page page = Page.readFrom(pageId, pageBuffer, file.getOrder());
+			if (null == page) {
+				throw new IOException("Page " + pageId + " was never written");
+			}
+			frame = install(page);
+		}
+		frame.pinCount++;
+		frame.referenced = true;
+		return frame.page;
+	}
+
+	/**
+	 * Adds a newly allocated page to the pool, pinned and dirty.
+	 *
+	 * @param page
+	 *            the new page
+	 * @return the page
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	<T extends Page> T pinNew(T page) throws IOException {
+		Frame frame = install(page);
+		frame.pinCount = 1;
+		frame.referenced = true;
+		frame.dirty = true;
+		return page;
+	}
+
+	/**
+	 * Unpins a page.
+	 *
+	 * @param page
+	 *            the page
+	 * @param dirty
+	 *            true if the page was modified
+	 */
+	void unpin(Page page, boolean dirty) {
+		Frame frame = pageTable.get(page.pageId);
+		frame.pinCount--;
+		frame.dirty |= dirty;
+	}
+
+	/**
+	 * Checks if a page is in the pool.
+	 *
+	 * @param pageId
+	 *            the page ID
+	 * @return true if the page is in the pool
+	 */
+	boolean contains(long pageId) {
+		return pageTable.containsKey(pageId);
+	}
+
+	/**
+	 * Reads a run of consecutive pages with one read, and adds those that
+	 * were not in the pool before the read, unpinned and not referenced so that they are the
+	 * first to go if they are not used. Used to read ahead of a scan over
+	 * external nodes that were written next to each other.
+	 *
+	 * @param pageId
+	 *            the page ID of the first page
+	 * @param count
+	 *            the number of pages to read
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	void readAhead(long pageId, int count) throws IOException {
+		count = (int) Math.min(count, file.getPageCount() - pageId);
+		// never let read-ahead take more than half of the pool
+		count = Math.min(count, frames.length / 2);
+		if (count <= 1) {
+			return;
+		}
+		// the pages in the pool are newer than the run read from the file,
+		// even once an install below evicts and writes them back, so they
+		// are told apart before any install
+		boolean[] resident = new boolean[count];
+		for (int i = 0; i < count; i++) {
+			resident[i] = pageTable.containsKey(pageId + i);
+		}
+		int pageSize = file.getPageSize();
+		ByteBuffer run = ByteBuffer.allocate(count * pageSize);
+		file.read(pageId, run);
+		pageReads += count;
+		for (int i = 0; i < count; i++) {
+			if (resident[i] || pageTable.containsKey(pageId + i)) {
+				continue;
+			}
+			run.limit((i + 1) * pageSize).position(i * pageSize);
+			Page page = Page.readFrom(pageId + i, run.slice(), file.getOrder());
+			if (null != page) {
+				install(page).referenced = false;
+			}
+		}
+	}
+
+	/**
+	 * Writes all dirty pages to the file.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	void flush() throws IOException {
+		// pages are written in page order, so that the writes are sequential
+		Frame[] dirty = new Frame[frames.length];
+		int count = 0;
+		for (Frame frame : frames) {
+			if (null != frame.page && frame.dirty) {
+				dirty[count++] = frame;
+			}
+		}
+		Arrays.sort(dirty, 0, count, (a, b) -> Long.compare(a.page.pageId, b.page.pageId));
+		for (int i = 0; i < count; i++) {
+			writeBack(dirty[i]);
+		}
+	}
+
+	/**
+	 * Places a page in a free frame, evicting a page if the pool is full.
+	 *
+	 * @param page
+	 *            the page
+	 * @return the frame holding the page
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private Frame install(Page page) throws IOException {
+		Frame frame = findVictim();
+		if (null != frame.page) {
+			if (frame.dirty) {
+				writeBack(frame);
+			}
+			pageTable.remove(frame.page.pageId);
+		}
+		frame.page = page;
+		frame.pinCount = 0;
+		frame.dirty = false;
+		pageTable.put(page.pageId, frame);
+		return frame;
+	}
+
+	/**
+	 * Moves the clock hand to a frame that is free, or whose page is unpinned
+	 * and was not used since the hand last passed it.
+	 *
+	 * @return the frame to be reused
+	 */
+	private Frame findVictim() {
+		// two full turns clear every reference bit, so a third one without a
+		// victim means every page is pinned
+		for (int i = 0; i < 3 * frames.length; i++) {
+			Frame frame = frames[clockHand];
+			clockHand = (clockHand + 1) % frames.length;
+			if (null == frame.page) {
+				return frame;
+			}
+			if (frame.pinCount > 0) {
+				continue;
+			}
+			if (frame.referenced) {
+				frame.referenced = false;
+				continue;
+			}
+			return frame;
+		}
+		throw new IllegalStateException("All " + frames.length + " pages of the buffer pool are pinned");
+	}
+
+	/**
+	 * Writes a page to the file.
+	 *
+	 * @param frame
+	 *            the frame holding the page
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private void writeBack(Frame frame) throws IOException {
+		pageBuffer.clear();
+		frame.page.writeTo(pageBuffer);
+		// the rest of the page is left as it is in the file
+		pageBuffer.flip();
+		file.write(frame.page.pageId, pageBuffer);
+		pageWrites++;
+		frame.dirty = false;
+	}
+
+	/**
+	 * Gets the number of pages read from the file.
+	 *
+	 * @return the page reads
+	 */
+	long getPageReads() {
+		return pageReads;
+	}
+
+	/**
+	 * Gets the number of pages written to the file.
+	 *
+	 * @return the page writes
+	 */
+	long getPageWrites() {
+		return pageWrites;
+	}
+
+	/**
+	 * Gets the number of page requests served from the pool.
+	 *
+	 * @return the hits
+	 */
+	long getHits() {
+		return hits;
+	}
+
+}
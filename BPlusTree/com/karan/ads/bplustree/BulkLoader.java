@@ -0,0 +1,166 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+/**
+ * The Class BulkLoader. Builds a B Plus Tree bottom-up from sorted key value
+ * pairs: the external nodes are packed first, and each internal level is
+ * built on top of the level below until a single root is left. Each internal
+ * node is given the number of keys and values under each of its children.
+ */
+class BulkLoader {
+
+	/** The degree m. */
+	private final int m;
+
+	/** The number of keys placed in each external node. */
+	private final int keysPerLeaf;
+
+	/** The number of children placed in each internal node. */
+	private final int childrenPerNode;
+
+	/** The dictionary of the values, null if values are stored as given. */
+	private final ValueDictionary dictionary;
+
+	/**
+	 * Instantiates a new bulk loader.
+	 *
+	 * @param m
+	 *            the degree of the B Plus Tree
+	 * @param fillFactor
+	 *            the fraction of each node to be filled, in (0, 1]
+	 * @param dictionary
+	 *            the dictionary of the values, null to store them as given
+	 */
+	BulkLoader(int m, double fillFactor, ValueDictionary dictionary) {
+		if (!(fillFactor > 0 && fillFactor <= 1)) {
+			throw new IllegalArgumentException("Fill factor must be in (0, 1]: " + fillFactor);
+		}
+		this.m = m;
+		// An external node holds at most m - 1 keys and an internal node at
+		// most m children, a node reaching m keys is split on insert
+		this.keysPerLeaf = Math.max(1, Math.min(m - 1, (int) Math.ceil((m - 1) * fillFactor)));
+		this.childrenPerNode = Math.max(2, Math.min(m, (int) Math.ceil(m * fillFactor)));
+		this.dictionary = dictionary;
+	}
+
+	/**
+	 * Builds the tree from key value pairs sorted by key. Values of equal keys
+	 * are grouped into a single key, in the order they are given.
+	 *
+	 * @param keys
+	 *            the sorted keys
+	 * @param values
+	 *            the value of each key
+	 * @param count
+	 *            the number of pairs to be loaded
+	 * @return the root of the new tree, null if there are no pairs
+	 */
+	Node build(double[] keys, String[] values, int count) {
+		if (count == 0) {
+			return null;
+		}
+		int distinct = 1;
+		for (int i = 1; i < count; i++) {
+			if (keys[i] != keys[i - 1]) {
+				distinct++;
+			}
+		}
+
+		// Spread the keys evenly over the external nodes, so that the last
+		// node is not left almost empty
+		int leafCount = (distinct + keysPerLeaf - 1) / keysPerLeaf;
+		Node[] level = new Node[leafCount];
+		double[] lowKeys = new double[leafCount];
+		int pair = 0;
+		Node prev = null;
+		for (int l = 0; l < leafCount; l++) {
+			int keysInLeaf = distinct / leafCount + (l < distinct % leafCount ? 1 : 0);
+			Node leaf = new Node(m, true);
+			for (int k = 0; k < keysInLeaf; k++) {
+				pair = fillSlot(leaf, k, keys, values, pair, count);
+			}
+			leaf.setKeyCount(keysInLeaf);
+			leaf.setPrev(prev);
+			if (null != prev) {
+				prev.setNext(leaf);
+			}
+			prev = leaf;
+			level[l] = leaf;
+			lowKeys[l] = leaf.getKeys()[0];
+		}
+
+		// Build the internal levels until a single root is left
+		while (level.length > 1) {
+			int parentCount = (level.length + childrenPerNode - 1) / childrenPerNode;
+			if (level.length / parentCount < 2) {
+				// every internal node needs at least two children
+				parentCount = level.length / 2;
+			}
+			Node[] parents = new Node[parentCount];
+			double[] parentLowKeys = new double[parentCount];
+			int child = 0;
+			for (int p = 0; p < parentCount; p++) {
+				int childrenInNode = level.length / parentCount + (p < level.length % parentCount ? 1 : 0);
+				Node parent = new Node(m, false);
+				for (int c = 0; c < childrenInNode; c++, child++) {
+					parent.getChildren()[c] = level[child];
+					parent.getSubtreeKeyCounts()[c] = level[child].countKeys();
+					parent.getSubtreeValueCounts()[c] = level[child].countValues();
+					level[child].setParent(parent);
+					if (c > 0) {
+						// the separator is the smallest key of the subtree
+						// right of it
+						parent.getKeys()[c - 1] = lowKeys[child];
+					}
+				}
+				parent.setKeyCount(childrenInNode - 1);
+				parents[p] = parent;
+				parentLowKeys[p] = lowKeys[child - childrenInNode];
+			}
+			level = parents;
+			lowKeys = parentLowKeys;
+		}
+		return level[0];
+	}
+
+	/**
+	 * Fills a slot of an external node with the next key and all of its
+	 * values.
+	 *
+	 * @param leaf
+	 *            the external node to be filled
+	 * @param slot
+	 *            the index of the slot in the node
+	 * @param keys
+	 *            the sorted keys
+	 * @param values
+	 *            the value of each key
+	 * @param pair
+	 *            the index of the first pair of the key
+	 * @param count
+	 *            the number of pairs
+	 * @return the index of the first pair of the next key
+	 */
+	private int fillSlot(Node leaf, int slot, double[] keys, String[] values, int pair, int count) {
+		double key = keys[pair];
+		int end = pair + 1;
+		while (end < count && keys[end] == key) {
+			end++;
+		}
+		leaf.getKeys()[slot] = key;
+		if (end - pair == 1) {
+			leaf.getValues()[slot] = null == dictionary ? values[pair] : dictionary.intern(values[pair]);
+		} else {
+			PostingList valueList = new PostingList(dictionary);
+			for (int i = pair; i < end; i++) {
+				valueList.append(values[i]);
+			}
+			leaf.getValues()[slot] = valueList;
+		}
+		return end;
+	}
+
+}
@@ -0,0 +1,356 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The Class CommandReader. Reads the commands of an input file of treesearch
+ * straight from the bytes of the file, one line at a time:
+ *
+ * Insert(key,value) Search(key) Search(key1,key2) Delete(key) Delete(key,value)
+ *
+ * The file is read through a FileChannel into a reusable buffer, and keys are
+ * parsed from the bytes without creating a String, so the only object created
+ * per command is the value of an insert or a delete.
+ */
+public class CommandReader implements Closeable {
+
+	/** Returned by next at the end of the file. */
+	public static final int END = 0;
+
+	/** An insert of key1 with value. */
+	public static final int INSERT = 1;
+
+	/** A search for the values of key1. */
+	public static final int SEARCH_KEY = 2;
+
+	/** A search for the pairs between key1 and key2. */
+	public static final int SEARCH_RANGE = 3;
+
+	/** A delete of key1 with all its values, or of its value if value is not null. */
+	public static final int DELETE = 4;
+
+	/** The initial size of the read buffer. */
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	/** The bytes of the insert command, up to its opening parenthesis. */
+	private static final byte[] INSERT_NAME = "Insert(".getBytes(StandardCharsets.US_ASCII);
+
+	/** The bytes of the search command, up to its opening parenthesis. */
+	private static final byte[] SEARCH_NAME = "Search(".getBytes(StandardCharsets.US_ASCII);
+
+	/** The bytes of the delete command, up to its opening parenthesis. */
+	private static final byte[] DELETE_NAME = "Delete(".getBytes(StandardCharsets.US_ASCII);
+
+	/** The exact powers of ten, used by the fast path of parseKey. */
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/** The channel to the input file. */
+	private final FileChannel channel;
+
+	/** The buffer holding the bytes read and not parsed yet. */
+	private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+	/** True once the whole file was read into the buffer. */
+	private boolean endOfFile;
+
+	/** The start of the current line in the buffer. */
+	private int lineStart;
+
+	/** The end of the current line in the buffer, excluding line breaks. */
+	private int lineEnd;
+
+	/** The position of the parser in the current line. */
+	private int cursor;
+
+	/** The first key of the last command. */
+	private double key1;
+
+	/** The second key of the last command. */
+	private double key2;
+
+	/** The value of the last insert or delete, null for a delete of a key. */
+	private String value;
+
+	/** The number of commands read. */
+	private long commandCount;
+
+	/**
+	 * Opens an input file.
+	 *
+	 * @param path
+	 *            the path of the input file
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public CommandReader(Path path) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		buffer.flip();
+	}
+
+	/**
+	 * Reads the first line of the file, holding the degree of the tree.
+	 *
+	 * @return the degree
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 * @throws NumberFormatException
+	 *             if the first line is not an integer
+	 */
+	public int readOrder() throws IOException {
+		if (!nextLine()) {
+			throw new NumberFormatException("The input file is empty");
+		}
+		return Integer.parseInt(new String(buffer.array(), lineStart, lineEnd - lineStart,
+				StandardCharsets.US_ASCII).trim());
+	}
+
+	/**
+	 * Reads the next command, skipping lines that are not commands.
+	 *
+	 * @return INSERT, SEARCH_KEY, SEARCH_RANGE, DELETE, or END at the end of
+	 *         the file
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 * @throws NumberFormatException
+	 *             if a key is not a number
+	 */
+	public int next() throws IOException {
+		while (nextLine()) {
+			if (startsWith(INSERT_NAME)) {
+				cursor = lineStart + INSERT_NAME.length;
+				key1 = parseKey();
+				cursor++;
+				int start = cursor;
+				while (cursor < lineEnd && buffer.get(cursor) != ')' && buffer.get(cursor) != ',') {
+					cursor++;
+				}
+				value = new String(buffer.array(), start, cursor - start, StandardCharsets.UTF_8);
+				commandCount++;
+				return INSERT;
+			}
+			if (startsWith(SEARCH_NAME)) {
+				cursor = lineStart + SEARCH_NAME.length;
+				key1 = parseKey();
+				commandCount++;
+				if (cursor < lineEnd && buffer.get(cursor) == ',') {
+					cursor++;
+					key2 = parseKey();
+					return SEARCH_RANGE;
+				}
+				return SEARCH_KEY;
+			}
+			if (startsWith(DELETE_NAME)) {
+				cursor = lineStart + DELETE_NAME.length;
+				key1 = parseKey();
+				value = null;
+				if (cursor < lineEnd && buffer.get(cursor) == ',') {
+					cursor++;
+					int start = cursor;
+					while (cursor < lineEnd && buffer.get(cursor) != ')') {
+						cursor++;
+					}
+					value = new String(buffer.array(), start, cursor - start, StandardCharsets.UTF_8);
+				}
+				commandCount++;
+				return DELETE;
+			}
+		}
+		return END;
+	}
+
+	/**
+	 * Moves to the next line, reading more of the file if the line is not
+	 * complete in the buffer.
+	 *
+	 * @return false at the end of the file
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private boolean nextLine() throws IOException {
+		byte[] bytes = buffer.array();
+		while (true) {
+			int position = buffer.position();
+			int limit = buffer.limit();
+			int end = position;
+			while (end < limit && bytes[end] != '\n') {
+				end++;
+			}
+			if (end < limit || (endOfFile && position < limit)) {
+				lineStart = position;
+				lineEnd = end;
+				if (lineEnd > lineStart && bytes[lineEnd - 1] == '\r') {
+					lineEnd--;
+				}
+				buffer.position(Math.min(end + 1, limit));
+				return true;
+			}
+			if (endOfFile) {
+				return false;
+			}
+			fill();
+			bytes = buffer.array();
+		}
+	}
+
+	/**
+	 * Moves the unparsed bytes to the start of the buffer and reads more of
+	 * the file after them, growing the buffer if a line does not fit.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private void fill() throws IOException {
+		buffer.compact();
+		if (!buffer.hasRemaining()) {
+			ByteBuffer grown = ByteBuffer.allocate(buffer.capacity() * 2);
+			buffer.flip();
+			grown.put(buffer);
+			buffer = grown;
+		}
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				endOfFile = true;
+				break;
+			}
+		}
+		buffer.flip();
+	}
+
+	/**
+	 * Checks if the current line starts with a command name.
+	 *
+	 * @param name
+	 *            the bytes of the name
+	 * @return true if the line starts with the name
+	 */
+	private boolean startsWith(byte[] name) {
+		if (lineEnd - lineStart < name.length) {
+			return false;
+		}
+		byte[] bytes = buffer.array();
+		for (int i = 0; i < name.length; i++) {
+			if (bytes[lineStart + i] != name[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Parses a key at the position of the parser, up to the next comma or
+	 * closing parenthesis, and leaves the parser on that delimiter. Keys with
+	 * at most 15 significant digits and a small exponent, such as all keys
+	 * written as plain decimals, are computed exactly with a single division
+	 * or multiplication of doubles. Other keys fall back to
+	 * Double.parseDouble, so the result is always the same as it would give.
+	 *
+	 * @return the key
+	 * @throws NumberFormatException
+	 *             if the key is not a number
+	 */
+	private double parseKey() {
+		byte[] bytes = buffer.array();
+		int start = cursor;
+		int end = start;
+		while (end < lineEnd && bytes[end] != ',' && bytes[end] != ')') {
+			end++;
+		}
+		cursor = end;
+		int i = start;
+		while (i < end && bytes[i] == ' ') {
+			i++;
+		}
+		while (end > i && bytes[end - 1] == ' ') {
+			end--;
+		}
+		boolean negative = false;
+		if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+			negative = bytes[i] == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int scale = 0;
+		boolean point = false;
+		// a key needs at least one digit, "." alone is not a number
+		boolean anyDigit = false;
+		boolean valid = i < end;
+		for (; i < end && valid; i++) {
+			byte b = bytes[i];
+			if (b >= '0' && b <= '9') {
+				anyDigit = true;
+				if (mantissa != 0 || b != '0') {
+					digits++;
+				}
+				mantissa = mantissa * 10 + (b - '0');
+				if (point) {
+					scale++;
+				}
+			} else if (b == '.' && !point) {
+				point = true;
+			} else {
+				valid = false;
+			}
+		}
+		if (valid && anyDigit && digits <= 15 && scale < POWERS_OF_TEN.length) {
+			// both the mantissa and the power of ten are exact doubles, so the
+			// quotient is correctly rounded
+			double key = mantissa / POWERS_OF_TEN[scale];
+			return negative ? -key : key;
+		}
+		return Double.parseDouble(new String(bytes, start, cursor - start, StandardCharsets.US_ASCII));
+	}
+
+	/**
+	 * Gets the first key of the last command.
+	 *
+	 * @return the key of an insert or search, or the starting key of a range
+	 */
+	public double getKey1() {
+		return key1;
+	}
+
+	/**
+	 * Gets the second key of the last command.
+	 *
+	 * @return the ending key of a range
+	 */
+	public double getKey2() {
+		return key2;
+	}
+
+	/**
+	 * Gets the value of the last insert or delete.
+	 *
+	 * @return the value, null after a delete of a key with all its values
+	 */
+	public String getValue() {
+		return value;
+	}
+
+	/**
+	 * Gets the number of commands read.
+	 *
+	 * @return the command count
+	 */
+	public long getCommandCount() {
+		return commandCount;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+}
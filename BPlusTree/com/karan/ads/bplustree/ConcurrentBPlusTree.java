@@ -0,0 +1,426 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The Class ConcurrentBPlusTree. A thread safe B Plus Tree following the
+ * B-link tree of Lehman and Yao. Every node has a right link and a high key,
+ * and a version counter (a StampedLock) that readers check optimistically:
+ * searches and range scans never lock, and retry a node if it was modified
+ * while they read it. Writers lock only the node they insert into and, one
+ * after the other, the nodes they split on the way up. A node that was split
+ * after a key was routed to it is fixed by moving right to its sibling.
+ */
+public class ConcurrentBPlusTree {
+
+	/** The number of failed optimistic reads before a reader yields. */
+	private static final int SPINS_BEFORE_YIELD = 64;
+
+	/** The degree m. */
+	private int m;
+
+	/** The root of the B Plus Tree. */
+	private volatile ConcurrentNode root;
+
+	/** Guards the creation of a new root. */
+	private final Object rootLock = new Object();
+
+	/**
+	 * Instantiates a new concurrent b plus tree.
+	 */
+	public ConcurrentBPlusTree() {
+
+	}
+
+	/**
+	 * Initializes the B Plus Tree. Sets the degree of the BPlus Tree as m. The
+	 * tree must be initialized before it is shared between threads.
+	 *
+	 * @param order
+	 *            the degree of the B Plus Tree
+	 */
+	public void initialize(int order) {
+		if (order < 3) {
+			throw new IllegalArgumentException("Degree must be at least 3: " + order);
+		}
+		this.m = order;
+		this.root = new ConcurrentNode(order, 0);
+	}
+
+	/**
+	 * Insert a key and value pair to the B Plus Tree
+	 *
+	 * @param key
+	 *            the key to be inserted
+	 * @param value
+	 *            the value to be inserted
+	 */
+	public void insert(double key, String value) {
+		// The internal nodes passed on the way down, by level, are where the
+		// splits are propagated to
+		ConcurrentNode[] path = new ConcurrentNode[this.root.level + 1];
+		ConcurrentNode node = findNode(key, 0, path);
+
+		long stamp = node.lock.writeLock();
+		// The node may have been split since we read it, so move right with
+		// the lock until we reach the node holding the key
+		while (node.mustMoveRight(key)) {
+			ConcurrentNode right = node.right;
+			long rightStamp = right.lock.writeLock();
+			node.lock.unlockWrite(stamp);
+			node = right;
+			stamp = rightStamp;
+		}
+		insertWithinExternalNode(key, value, node);
+		if (node.keyCount < this.m) {
+			node.lock.unlockWrite(stamp);
+			return;
+		}
+		// If the external node becomes full, we split it and send the middle
+		// key up once the node is unlocked
+		ConcurrentNode rightPart = splitExternalNode(node);
+		double middleKey = node.highKey;
+		node.lock.unlockWrite(stamp);
+		insertIntoParent(path, node, middleKey, rightPart);
+	}
+
+	/**
+	 * Insert the key value pair to the locked external node.
+	 *
+	 * @param key
+	 *            the key to be inserted
+	 * @param value
+	 *            the value to be inserted
+	 * @param node
+	 *            the node where the key value pair has to be inserted
+	 */
+	private void insertWithinExternalNode(double key, String value, ConcurrentNode node) {
+		double[] keys = node.keys;
+		Object[] values = node.values;
+		int keyCount = node.keyCount;
+		int indexOfKey = BPlusTree.upperBound(key, keys, keyCount);
+		if (indexOfKey != 0 && keys[indexOfKey - 1] == key) {
+			// Key already exists. The values are copied, since readers may
+			// still hold the previous array
+			Object existing = values[indexOfKey - 1];
+			String[] valueArray;
+			if (existing instanceof String) {
+				valueArray = new String[] { (String) existing, value };
+			} else {
+				String[] previous = (String[]) existing;
+				valueArray = Arrays.copyOf(previous, previous.length + 1);
+				valueArray[previous.length] = value;
+			}
+			values[indexOfKey - 1] = valueArray;
+		} else {
+			System.arraycopy(keys, indexOfKey, keys, indexOfKey + 1, keyCount - indexOfKey);
+			System.arraycopy(values, indexOfKey, values, indexOfKey + 1, keyCount - indexOfKey);
+			keys[indexOfKey] = key;
+			values[indexOfKey] = value;
+			node.keyCount = keyCount + 1;
+		}
+	}
+
+	/**
+	 * Split the locked, over-full external node. The right part takes over the
+	 * high key and right link of the node, and the node is bounded by the
+	 * first key of the right part.
+	 *
+	 * @param node
+	 *            the over-full external node to be split
+	 * @return the right part of the split
+	 */
+	private ConcurrentNode splitExternalNode(ConcurrentNode node) {
+		int midIndex = this.m / 2;
+		int keyCount = node.keyCount;
+		ConcurrentNode rightPart = new ConcurrentNode(this.m, 0);
+		System.arraycopy(node.keys, midIndex, rightPart.keys, 0, keyCount - midIndex);
+		System.arraycopy(node.values, midIndex, rightPart.values, 0, keyCount - midIndex);
+		rightPart.keyCount = keyCount - midIndex;
+		rightPart.highKey = node.highKey;
+		rightPart.right = node.right;
+
+		node.right = rightPart;
+		node.highKey = rightPart.keys[0];
+		Arrays.fill(node.values, midIndex, keyCount, null);
+		node.keyCount = midIndex;
+		return rightPart;
+	}
+
+	/**
+	 * Insert the middle key and right part of a split into the parent of the
+	 * split node, splitting the parents as long as they become full.
+	 *
+	 * @param path
+	 *            the internal nodes passed on the way down, by level
+	 * @param left
+	 *            the node that was split
+	 * @param middleKey
+	 *            the middle key of the split
+	 * @param rightPart
+	 *            the right part of the split
+	 */
+	private void insertIntoParent(ConcurrentNode[] path, ConcurrentNode left, double middleKey,
+			ConcurrentNode rightPart) {
+		while (true) {
+			int level = left.level + 1;
+			ConcurrentNode parent = level < path.length ? path[level] : null;
+			if (null == parent) {
+				parent = findOrCreateParent(left, middleKey, rightPart);
+				if (null == parent) {
+					// a new root was created for the split
+					return;
+				}
+			}
+
+			long stamp = parent.lock.writeLock();
+			while (parent.mustMoveRight(middleKey)) {
+				ConcurrentNode right = parent.right;
+				long rightStamp = right.lock.writeLock();
+				parent.lock.unlockWrite(stamp);
+				parent = right;
+				stamp = rightStamp;
+			}
+			insertWithinInternalNode(middleKey, rightPart, parent);
+			if (parent.keyCount < this.m) {
+				parent.lock.unlockWrite(stamp);
+				return;
+			}
+			// do a split again if the internal node becomes full and
+			// propagate it one level up
+			ConcurrentNode newRightPart = splitInternalNode(parent);
+			middleKey = parent.highKey;
+			parent.lock.unlockWrite(stamp);
+			left = parent;
+			rightPart = newRightPart;
+		}
+	}
+
+	/**
+	 * Finds the parent level of a split node that was on the highest level
+	 * when it was reached. If the node is still the root, a new root is
+	 * created above it.
+	 *
+	 * @param left
+	 *            the node that was split
+	 * @param middleKey
+	 *            the middle key of the split
+	 * @param rightPart
+	 *            the right part of the split
+	 * @return the node on the parent level to insert into, or null if a new
+	 *         root was created
+	 */
+	private ConcurrentNode findOrCreateParent(ConcurrentNode left, double middleKey, ConcurrentNode rightPart) {
+		while (true) {
+			synchronized (this.rootLock) {
+				ConcurrentNode currRoot = this.root;
+				if (currRoot == left) {
+					ConcurrentNode newRoot = new ConcurrentNode(this.m, left.level + 1);
+					newRoot.keys[0] = middleKey;
+					newRoot.children[0] = left;
+					newRoot.children[1] = rightPart;
+					newRoot.keyCount = 1;
+					this.root = newRoot;
+					return null;
+				}
+				if (currRoot.level > left.level) {
+					break;
+				}
+			}
+			// the node is a sibling of the root whose own split has not yet
+			// created the new root, wait for it
+			Thread.yield();
+		}
+		return findNode(middleKey, left.level + 1, null);
+	}
+
+	/**
+	 * Insert a key and the child right of it to the locked internal node.
+	 *
+	 * @param key
+	 *            the key to be inserted
+	 * @param child
+	 *            the child right of the key
+	 * @param node
+	 *            the internal node
+	 */
+	private void insertWithinInternalNode(double key, ConcurrentNode child, ConcurrentNode node) {
+		int keyCount = node.keyCount;
+		int indexToBeInsertedAt = BPlusTree.upperBound(key, node.keys, keyCount);
+		System.arraycopy(node.keys, indexToBeInsertedAt, node.keys, indexToBeInsertedAt + 1,
+				keyCount - indexToBeInsertedAt);
+		System.arraycopy(node.children, indexToBeInsertedAt + 1, node.children, indexToBeInsertedAt + 2,
+				keyCount - indexToBeInsertedAt);
+		node.keys[indexToBeInsertedAt] = key;
+		node.children[indexToBeInsertedAt + 1] = child;
+		node.keyCount = keyCount + 1;
+	}
+
+	/**
+	 * Split the locked, over-full internal node like a b tree node. The middle
+	 * key becomes the high key of the node and is sent up.
+	 *
+	 * @param node
+	 *            the over-full internal node
+	 * @return the right part of the split
+	 */
+	private ConcurrentNode splitInternalNode(ConcurrentNode node) {
+		int midIndex = (int) Math.ceil(this.m / 2.0) - 1;
+		int rightKeyCount = this.m - midIndex - 1;
+		ConcurrentNode rightPart = new ConcurrentNode(this.m, node.level);
+		System.arraycopy(node.keys, midIndex + 1, rightPart.keys, 0, rightKeyCount);
+		System.arraycopy(node.children, midIndex + 1, rightPart.children, 0, rightKeyCount + 1);
+		rightPart.keyCount = rightKeyCount;
+		rightPart.highKey = node.highKey;
+		rightPart.right = node.right;
+
+		node.right = rightPart;
+		node.highKey = node.keys[midIndex];
+		Arrays.fill(node.children, midIndex + 1, this.m + 1, null);
+		node.keyCount = midIndex;
+		return rightPart;
+	}
+
+	/**
+	 * Search values for a key
+	 *
+	 * @param key
+	 *            the key to be searched
+	 * @return the list of values for the key
+	 */
+	public List<String> search(double key) {
+		ConcurrentNode node = findNode(key, 0, null);
+		while (true) {
+			long stamp = optimisticRead(node);
+			if (node.mustMoveRight(key)) {
+				ConcurrentNode right = node.right;
+				if (node.lock.validate(stamp)) {
+					node = right;
+				}
+				continue;
+			}
+			int index = BPlusTree.upperBound(key, node.keys, node.keyCount) - 1;
+			Object slot = index >= 0 && node.keys[index] == key ? node.values[index] : null;
+			if (node.lock.validate(stamp)) {
+				return null == slot ? null : valueList(slot);
+			}
+		}
+	}
+
+	/**
+	 * Search for all key values pairs between key1 and key2. Each external
+	 * node is copied under an optimistic read and validated before its keys
+	 * are added, so a node being split is read again.
+	 *
+	 * @param key1
+	 *            the starting key
+	 * @param key2
+	 *            the ending key
+	 * @return the list of key value pairs between the two keys
+	 */
+	public List<Key> search(double key1, double key2) {
+		List<Key> searchKeys = new ArrayList<>();
+		double[] keys = new double[this.m];
+		Object[] values = new Object[this.m];
+		ConcurrentNode node = findNode(key1, 0, null);
+		// keys are added in increasing order; a key already added is skipped
+		// if a split moved it into a node we have not read yet
+		double lastKey = Double.NEGATIVE_INFINITY;
+		boolean added = false;
+		while (null != node) {
+			long stamp = optimisticRead(node);
+			int keyCount = node.keyCount;
+			System.arraycopy(node.keys, 0, keys, 0, keyCount);
+			System.arraycopy(node.values, 0, values, 0, keyCount);
+			ConcurrentNode right = node.right;
+			double highKey = node.highKey;
+			if (!node.lock.validate(stamp)) {
+				continue;
+			}
+			for (int i = 0; i < keyCount; i++) {
+				if (keys[i] > key2) {
+					return searchKeys;
+				}
+				if (keys[i] >= key1 && (!added || keys[i] > lastKey)) {
+					searchKeys.add(new Key(keys[i], valueList(values[i])));
+					lastKey = keys[i];
+					added = true;
+				}
+			}
+			// all keys right of the node are at least its high key
+			node = highKey > key2 ? null : right;
+		}
+		return searchKeys;
+	}
+
+	/**
+	 * Traverses without locking to the node on a level whose key range holds a
+	 * key, recording the internal nodes passed on the way down.
+	 *
+	 * @param key
+	 *            the key to be searched
+	 * @param level
+	 *            the level of the node to be found, 0 for external nodes
+	 * @param path
+	 *            the array receiving the internal nodes by level, may be null
+	 * @return the node on the level, which may have been split since
+	 */
+	private ConcurrentNode findNode(double key, int level, ConcurrentNode[] path) {
+		ConcurrentNode node = this.root;
+		while (node.level > level) {
+			long stamp = optimisticRead(node);
+			boolean moveRight = node.mustMoveRight(key);
+			ConcurrentNode next = moveRight ? node.right
+					: node.children[BPlusTree.upperBound(key, node.keys, node.keyCount)];
+			if (!node.lock.validate(stamp)) {
+				continue;
+			}
+			if (!moveRight && null != path && node.level < path.length) {
+				path[node.level] = node;
+			}
+			node = next;
+		}
+		return node;
+	}
+
+	/**
+	 * Gets an optimistic read stamp of a node, waiting while it is locked.
+	 *
+	 * @param node
+	 *            the node to be read
+	 * @return the stamp to be validated once the node was read
+	 */
+	private static long optimisticRead(ConcurrentNode node) {
+		long stamp;
+		int spins = 0;
+		while (0 == (stamp = node.lock.tryOptimisticRead())) {
+			if (++spins == SPINS_BEFORE_YIELD) {
+				Thread.yield();
+				spins = 0;
+			}
+		}
+		return stamp;
+	}
+
+	/**
+	 * Gets the values of a key slot as an unmodifiable list.
+	 *
+	 * @param slot
+	 *            a String for a single value or an array of Strings
+	 * @return the list of values
+	 */
+	private static List<String> valueList(Object slot) {
+		if (slot instanceof String) {
+			return Collections.singletonList((String) slot);
+		}
+		return Collections.unmodifiableList(Arrays.asList((String[]) slot));
+	}
+
+}
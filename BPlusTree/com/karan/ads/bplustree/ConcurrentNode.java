@@ -0,0 +1,91 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The Class ConcurrentNode. A node of the concurrent B-link tree. Besides the
+ * keys and children of a Node, every node on every level has a link to its
+ * right sibling and a high key bounding the keys of its subtree, so that a
+ * reader that lands on a node which was split meanwhile can move right.
+ */
+class ConcurrentNode {
+
+	/** The sorted keys of the node. Only the first keyCount slots are in use. */
+	final double[] keys;
+
+	/** The number of keys currently stored in the node. */
+	int keyCount;
+
+	/** The children of this node. Set only for internal Nodes */
+	final ConcurrentNode[] children;
+
+	/**
+	 * The values for each key. A slot holds a String for a single value, or
+	 * an array of Strings that is replaced, never modified, on a duplicate.
+	 * Set only for external Nodes
+	 */
+	final Object[] values;
+
+	/** The upper bound (exclusive) of the keys in the subtree of the node. */
+	double highKey;
+
+	/** The right sibling on the same level. NULL for the rightmost node. */
+	ConcurrentNode right;
+
+	/** The level of the node, 0 for external nodes. */
+	final int level;
+
+	/**
+	 * The version counter of the node. Readers validate an optimistic stamp,
+	 * writers hold the write lock while they modify the node.
+	 */
+	final StampedLock lock;
+
+	/**
+	 * Instantiates a new node.
+	 *
+	 * @param order
+	 *            the degree of the B Plus Tree
+	 * @param level
+	 *            the level of the node, 0 for external nodes
+	 */
+	ConcurrentNode(int order, int level) {
+		this.keys = new double[order];
+		this.level = level;
+		if (level == 0) {
+			this.values = new Object[order];
+			this.children = null;
+		} else {
+			this.values = null;
+			this.children = new ConcurrentNode[order + 1];
+		}
+		this.highKey = Double.POSITIVE_INFINITY;
+		this.lock = new StampedLock();
+	}
+
+	/**
+	 * Checks if the node is an external node.
+	 *
+	 * @return true if the node is an external node
+	 */
+	boolean isExternal() {
+		return level == 0;
+	}
+
+	/**
+	 * Checks if a key belongs to a right sibling of the node, which happens
+	 * when the node was split after the key was routed to it.
+	 *
+	 * @param key
+	 *            the key
+	 * @return true if the search for the key has to move right
+	 */
+	boolean mustMoveRight(double key) {
+		return key >= highKey && null != right;
+	}
+
+}
@@ -0,0 +1,317 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.karan.ads.bplustree.WriteAheadLog.Durability;
+
+/**
+ * The Class DurableBPlusTree. A B Plus Tree kept in memory whose inserts
+ * and deletes survive a crash. Every insert and delete is appended to a
+ * write-ahead log before it is applied, and a checkpoint writes the whole tree to a file and empties the
+ * log. On open, the tree is rebuilt bottom-up from the last checkpoint and
+ * the records logged after it are replayed.
+ *
+ * The tree may be used by many threads. Inserts are applied one at a time,
+ * but callers wait for the log outside of the tree lock, so with SYNC
+ * durability the records of concurrent inserts are forced together.
+ */
+public class DurableBPlusTree implements Closeable {
+
+	/** The name of the checkpoint file in the directory of the tree. */
+	static final String CHECKPOINT_FILE = "checkpoint";
+
+	/** The name of the log file in the directory of the tree. */
+	static final String LOG_FILE = "wal";
+
+	/** The fill factor of the nodes rebuilt from a checkpoint. */
+	private static final double CHECKPOINT_FILL_FACTOR = 0.75;
+
+	/** The default interval between two syncs with PERIODIC durability. */
+	public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 10;
+
+	/** The directory holding the checkpoint and the log. */
+	private final Path directory;
+
+	/** The degree m. */
+	private final int m;
+
+	/** The tree, guarded by its own monitor. */
+	private final BPlusTree tree;
+
+	/** The write-ahead log. */
+	private final WriteAheadLog log;
+
+	/**
+	 * Opens a durable tree stored in a directory, creating it if it does not
+	 * exist, and recovers its contents.
+	 *
+	 * @param directory
+	 *            the directory holding the checkpoint and the log
+	 * @param order
+	 *            the degree of the B Plus Tree
+	 * @param durability
+	 *            the durability of the inserts
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public DurableBPlusTree(Path directory, int order, Durability durability) throws IOException {
+		this(directory, order, durability, DEFAULT_SYNC_INTERVAL_MILLIS);
+	}
+
+	/**
+	 * Opens a durable tree stored in a directory, creating it if it does not
+	 * exist, and recovers its contents.
+	 *
+	 * @param directory
+	 *            the directory holding the checkpoint and the log
+	 * @param order
+	 *            the degree of the B Plus Tree
+	 * @param durability
+	 *            the durability of the inserts
+	 * @param syncIntervalMillis
+	 *            the interval between two syncs with PERIODIC durability
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public DurableBPlusTree(Path directory, int order, Durability durability, long syncIntervalMillis)
+			throws IOException {
+		this.directory = Files.createDirectories(directory);
+		this.m = order;
+		this.tree = new BPlusTree();
+		this.tree.initialize(order);
+		long checkpointLsn = readCheckpoint();
+		this.log = new WriteAheadLog(directory.resolve(LOG_FILE), durability, syncIntervalMillis);
+		log.replay(checkpointLsn, (operation, key, value) -> {
+			if (operation == WriteAheadLog.OPERATION_INSERT) {
+				tree.insert(key, value);
+			} else if (operation == WriteAheadLog.OPERATION_DELETE_KEY) {
+				tree.delete(key);
+			} else if (operation == WriteAheadLog.OPERATION_DELETE_VALUE) {
+				tree.delete(key, value);
+			}
+		});
+	}
+
+	/**
+	 * Insert a key and value pair. With SYNC durability, returns once the
+	 * insert is forced to the device.
+	 *
+	 * @param key
+	 *            the key to be inserted
+	 * @param value
+	 *            the value to be inserted
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public void insert(double key, String value) throws IOException {
+		long lsn;
+		synchronized (tree) {
+			lsn = log.append(WriteAheadLog.OPERATION_INSERT, key, value);
+			tree.insert(key, value);
+		}
+		if (log.getDurability() == Durability.SYNC) {
+			log.sync(lsn);
+		}
+	}
+
+	/**
+	 * Delete a key with all its values. With SYNC durability, returns once
+	 * the delete is forced to the device.
+	 *
+	 * @param key
+	 *            the key to be deleted
+	 * @return true if the key was present
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public boolean delete(double key) throws IOException {
+		return delete(WriteAheadLog.OPERATION_DELETE_KEY, key, "");
+	}
+
+	/**
+	 * Delete one value of a key. With SYNC durability, returns once the
+	 * delete is forced to the device.
+	 *
+	 * @param key
+	 *            the key of the value
+	 * @param value
+	 *            the value to be deleted
+	 * @return true if the key had the value
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public boolean delete(double key, String value) throws IOException {
+		if (null == value) {
+			throw new IllegalArgumentException("Value must not be null");
+		}
+		return delete(WriteAheadLog.OPERATION_DELETE_VALUE, key, value);
+	}
+
+	/**
+	 * Logs and applies a delete. A delete of something absent is logged too,
+	 * and replays as a delete of nothing.
+	 *
+	 * @param operation
+	 *            OPERATION_DELETE_KEY or OPERATION_DELETE_VALUE
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the value, empty for OPERATION_DELETE_KEY
+	 * @return true if something was deleted
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private boolean delete(byte operation, double key, String value) throws IOException {
+		long lsn;
+		boolean deleted;
+		synchronized (tree) {
+			lsn = log.append(operation, key, value);
+			deleted = operation == WriteAheadLog.OPERATION_DELETE_KEY ? tree.delete(key) : tree.delete(key, value);
+		}
+		if (log.getDurability() == Durability.SYNC) {
+			log.sync(lsn);
+		}
+		return deleted;
+	}
+
+	/**
+	 * Search for the values of a key.
+	 *
+	 * @param key
+	 *            the key to be searched
+	 * @return a copy of the values for the key, null if the key is not
+	 *         present
+	 */
+	public List<String> search(double key) {
+		synchronized (tree) {
+			// the posting list of the key is appended to in place by inserts,
+			// so it is copied before the lock is released
+			List<String> values = tree.search(key);
+			return null == values ? null : new ArrayList<>(values);
+		}
+	}
+
+	/**
+	 * Search for all key value pairs between key1 and key2.
+	 *
+	 * @param key1
+	 *            the starting key
+	 * @param key2
+	 *            the ending key
+	 * @return the list of keys with copies of their values
+	 */
+	public List<Key> search(double key1, double key2) {
+		synchronized (tree) {
+			List<Key> pairs = tree.search(key1, key2);
+			for (int i = 0; i < pairs.size(); i++) {
+				Key pair = pairs.get(i);
+				pairs.set(i, new Key(pair.getKey(), new ArrayList<>(pair.getValues())));
+			}
+			return pairs;
+		}
+	}
+
+	/**
+	 * Writes a snapshot of the tree to the checkpoint file and empties the
+	 * log. Inserts wait until the checkpoint is written. The new checkpoint is
+	 * written next to the old one and moved over it, so a crash leaves one or
+	 * the other, and the LSN stored in it tells which records of the log it
+	 * already holds.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public void checkpoint() throws IOException {
+		synchronized (tree) {
+			Path temporary = directory.resolve(CHECKPOINT_FILE + ".tmp");
+			Snapshot.write(tree.findExternalNode(Double.NEGATIVE_INFINITY), temporary, log.getLastLsn());
+			Files.move(temporary, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			// the rename must reach the disk before the records it replaces
+			// are dropped from the log
+			forceDirectory(directory);
+			log.truncate();
+		}
+	}
+
+	/**
+	 * Forces the entries of a directory, such as a file just renamed in it,
+	 * to the storage device. Platforms that can not open a directory as a
+	 * channel, like Windows, are skipped.
+	 *
+	 * @param directory
+	 *            the directory
+	 */
+	private static void forceDirectory(Path directory) {
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			// not supported for directories on this platform
+		}
+	}
+
+	/**
+	 * Rebuilds the tree from the checkpoint file, if there is one.
+	 *
+	 * @return the LSN of the last record held by the checkpoint, 0 if there
+	 *         is none
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private long readCheckpoint() throws IOException {
+		Path path = directory.resolve(CHECKPOINT_FILE);
+		if (!Files.exists(path)) {
+			return 0;
+		}
+		Snapshot snapshot = Snapshot.read(path);
+		// the pairs are stored in key order, so the tree is built bottom-up
+		// without sorting them
+		tree.bulkLoad(snapshot.keys, snapshot.values, CHECKPOINT_FILL_FACTOR);
+		return snapshot.sequence;
+	}
+
+	/**
+	 * Gets the degree of the tree.
+	 *
+	 * @return the degree m
+	 */
+	public int getOrder() {
+		return m;
+	}
+
+	/**
+	 * Gets the write-ahead log of the tree.
+	 *
+	 * @return the log
+	 */
+	public WriteAheadLog getLog() {
+		return log;
+	}
+
+	/**
+	 * Forces the log and closes it. The tree is not checkpointed, so the next
+	 * open replays the log.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (tree) {
+			log.close();
+		}
+	}
+
+}
@@ -0,0 +1,235 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The Class GenericBPlusTree. A B Plus Tree with keys of any type, ordered by
+ * a Comparator: Comparator.naturalOrder() for Comparable keys such as String,
+ * or UNSIGNED_LEXICOGRAPHIC for byte[] keys. Keys are stored in Object[]
+ * arrays. The splits and the linked list of external nodes are shared with
+ * the other typed trees through AbstractBPlusTree.
+ *
+ * @param <K>
+ *            the type of the keys
+ */
+public class GenericBPlusTree<K> extends AbstractBPlusTree {
+
+	/**
+	 * Orders byte arrays by their bytes taken as unsigned, the shorter array
+	 * first if one is a prefix of the other, like memcmp on encoded keys.
+	 */
+	public static final Comparator<byte[]> UNSIGNED_LEXICOGRAPHIC = (a, b) -> {
+		int length = Math.min(a.length, b.length);
+		for (int i = 0; i < length; i++) {
+			if (a[i] != b[i]) {
+				return (a[i] & 0xFF) - (b[i] & 0xFF);
+			}
+		}
+		return a.length - b.length;
+	};
+
+	/**
+	 * The Class Cursor. A KeyedCursor over generic keys.
+	 *
+	 * @param <K>
+	 *            the type of the keys
+	 */
+	public static final class Cursor<K> extends KeyedCursor {
+
+		/**
+		 * Instantiates a new cursor.
+		 *
+		 * @param node
+		 *            the external node of the first key
+		 * @param index
+		 *            the index of the first key
+		 * @param endNode
+		 *            the external node of the position past the range
+		 * @param endIndex
+		 *            the index of the position past the range
+		 */
+		Cursor(KeyedNode node, int index, KeyedNode endNode, int endIndex) {
+			super(node, index, endNode, endIndex);
+		}
+
+		/**
+		 * Gets the key of the current pair.
+		 *
+		 * @return the key
+		 */
+		@SuppressWarnings("unchecked")
+		public K getKey() {
+			return (K) ((Object[]) node.keys)[index];
+		}
+	}
+
+	/** The order of the keys. */
+	private final Comparator<? super K> comparator;
+
+	/**
+	 * Instantiates a new generic B Plus Tree.
+	 *
+	 * @param comparator
+	 *            the order of the keys
+	 */
+	public GenericBPlusTree(Comparator<? super K> comparator) {
+		this.comparator = comparator;
+	}
+
+	@Override
+	Object newKeys(int length) {
+		return new Object[length];
+	}
+
+	/**
+	 * Insert a key and value pair to the B Plus Tree
+	 *
+	 * @param key
+	 *            the key to be inserted, not null
+	 * @param value
+	 *            the value to be inserted
+	 */
+	public void insert(K key, String value) {
+		if (null == key) {
+			throw new NullPointerException("key");
+		}
+		KeyedNode curr = rootForInsert();
+		while (!curr.isExternal()) {
+			curr = curr.children[upperBound(key, (Object[]) curr.keys, curr.keyCount)];
+		}
+		Object[] keys = (Object[]) curr.keys;
+		int index = upperBound(key, keys, curr.keyCount);
+		if (index != 0 && compare(keys[index - 1], key) == 0) {
+			addValue(curr, index - 1, value);
+			return;
+		}
+		openSlot(curr, index);
+		keys[index] = key;
+		insertedAt(curr, index, value);
+	}
+
+	/**
+	 * Search for the values of a key.
+	 *
+	 * @param key
+	 *            the key to be searched
+	 * @return the list of values for the key, null if the key is not present
+	 */
+	public List<String> search(K key) {
+		KeyedNode node = findExternalNode(key);
+		if (null == node) {
+			return null;
+		}
+		Object[] keys = (Object[]) node.keys;
+		int index = upperBound(key, keys, node.keyCount);
+		if (index != 0 && compare(keys[index - 1], key) == 0) {
+			return valueList(node, index - 1);
+		}
+		return null;
+	}
+
+	/**
+	 * Opens a cursor over all key value pairs between key1 and key2, both
+	 * inclusive.
+	 *
+	 * @param key1
+	 *            the starting key
+	 * @param key2
+	 *            the ending key
+	 * @return the cursor, positioned before the first pair
+	 */
+	public Cursor<K> cursor(K key1, K key2) {
+		if (comparator.compare(key1, key2) > 0 || null == this.root) {
+			return new Cursor<>(null, 0, null, 0);
+		}
+		KeyedNode start = findExternalNode(key1);
+		KeyedNode end = findExternalNode(key2);
+		return new Cursor<>(start, lowerBound(key1, (Object[]) start.keys, start.keyCount), end,
+				upperBound(key2, (Object[]) end.keys, end.keyCount));
+	}
+
+	/**
+	 * Traverses to the external node that 'should' contain a key.
+	 *
+	 * @param key
+	 *            the key to be searched
+	 * @return the external node, null if the tree is empty
+	 */
+	KeyedNode findExternalNode(K key) {
+		KeyedNode curr = this.root;
+		while (null != curr && !curr.isExternal()) {
+			curr = curr.children[upperBound(key, (Object[]) curr.keys, curr.keyCount)];
+		}
+		return curr;
+	}
+
+	/**
+	 * Compares a stored key with a key.
+	 *
+	 * @param stored
+	 *            the stored key
+	 * @param key
+	 *            the key
+	 * @return the comparison of the stored key with the key
+	 */
+	@SuppressWarnings("unchecked")
+	private int compare(Object stored, K key) {
+		return comparator.compare((K) stored, key);
+	}
+
+	/**
+	 * Finds the number of keys less than or equal to a key.
+	 *
+	 * @param key
+	 *            the key
+	 * @param keys
+	 *            the sorted keys
+	 * @param keyCount
+	 *            the number of keys
+	 * @return the index of the first key greater than the key
+	 */
+	private int upperBound(K key, Object[] keys, int keyCount) {
+		int low = 0;
+		int high = keyCount;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (compare(keys[mid], key) <= 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Finds the number of keys less than a key.
+	 *
+	 * @param key
+	 *            the key
+	 * @param keys
+	 *            the sorted keys
+	 * @param keyCount
+	 *            the number of keys
+	 * @return the index of the first key greater than or equal to the key
+	 */
+	private int lowerBound(K key, Object[] keys, int keyCount) {
+		int low = 0;
+		int high = keyCount;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (compare(keys[mid], key) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+}
@@ -0,0 +1,184 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.List;
+
+/**
+ * The Class IntBPlusTree. A B Plus Tree with int keys. Keys are stored in
+ * int[] arrays, half the size of the long[] and double[] arrays of the other
+ * trees, and compared as ints, so no key is boxed on the way down.
+ * The splits and the linked list of external nodes are shared with the other
+ * typed trees through AbstractBPlusTree.
+ */
+public class IntBPlusTree extends AbstractBPlusTree {
+
+	/**
+	 * The Class Cursor. A KeyedCursor over int keys.
+	 */
+	public static final class Cursor extends KeyedCursor {
+
+		/**
+		 * Instantiates a new cursor.
+		 *
+		 * @param node
+		 *            the external node of the first key
+		 * @param index
+		 *            the index of the first key
+		 * @param endNode
+		 *            the external node of the position past the range
+		 * @param endIndex
+		 *            the index of the position past the range
+		 */
+		Cursor(KeyedNode node, int index, KeyedNode endNode, int endIndex) {
+			super(node, index, endNode, endIndex);
+		}
+
+		/**
+		 * Gets the key of the current pair.
+		 *
+		 * @return the key
+		 */
+		public int getKey() {
+			return ((int[]) node.keys)[index];
+		}
+	}
+
+	@Override
+	Object newKeys(int length) {
+		return new int[length];
+	}
+
+	/**
+	 * Insert a key and value pair to the B Plus Tree
+	 *
+	 * @param key
+	 *            the key to be inserted
+	 * @param value
+	 *            the value to be inserted
+	 */
+	public void insert(int key, String value) {
+		KeyedNode curr = rootForInsert();
+		while (!curr.isExternal()) {
+			curr = curr.children[upperBound(key, (int[]) curr.keys, curr.keyCount)];
+		}
+		int[] keys = (int[]) curr.keys;
+		int index = upperBound(key, keys, curr.keyCount);
+		if (index != 0 && keys[index - 1] == key) {
+			addValue(curr, index - 1, value);
+			return;
+		}
+		openSlot(curr, index);
+		keys[index] = key;
+		insertedAt(curr, index, value);
+	}
+
+	/**
+	 * Search for the values of a key.
+	 *
+	 * @param key
+	 *            the key to be searched
+	 * @return the list of values for the key, null if the key is not present
+	 */
+	public List<String> search(int key) {
+		KeyedNode node = findExternalNode(key);
+		if (null == node) {
+			return null;
+		}
+		int[] keys = (int[]) node.keys;
+		int index = upperBound(key, keys, node.keyCount);
+		if (index != 0 && keys[index - 1] == key) {
+			return valueList(node, index - 1);
+		}
+		return null;
+	}
+
+	/**
+	 * Opens a cursor over all key value pairs between key1 and key2, both
+	 * inclusive.
+	 *
+	 * @param key1
+	 *            the starting key
+	 * @param key2
+	 *            the ending key
+	 * @return the cursor, positioned before the first pair
+	 */
+	public Cursor cursor(int key1, int key2) {
+		if (key1 > key2 || null == this.root) {
+			return new Cursor(null, 0, null, 0);
+		}
+		KeyedNode start = findExternalNode(key1);
+		KeyedNode end = findExternalNode(key2);
+		return new Cursor(start, lowerBound(key1, (int[]) start.keys, start.keyCount), end,
+				upperBound(key2, (int[]) end.keys, end.keyCount));
+	}
+
+	/**
+	 * Traverses to the external node that 'should' contain a key.
+	 *
+	 * @param key
+	 *            the key to be searched
+	 * @return the external node, null if the tree is empty
+	 */
+	KeyedNode findExternalNode(int key) {
+		KeyedNode curr = this.root;
+		while (null != curr && !curr.isExternal()) {
+			curr = curr.children[upperBound(key, (int[]) curr.keys, curr.keyCount)];
+		}
+		return curr;
+	}
+
+	/**
+	 * Finds the number of keys less than or equal to a key, which is the
+	 * child to follow in an internal node.
+	 *
+	 * @param key
+	 *            the key
+	 * @param keys
+	 *            the sorted keys
+	 * @param keyCount
+	 *            the number of keys
+	 * @return the index of the first key greater than the key
+	 */
+	static int upperBound(int key, int[] keys, int keyCount) {
+		int low = 0;
+		int high = keyCount;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (keys[mid] <= key) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Finds the number of keys less than a key.
+	 *
+	 * @param key
+	 *            the key
+	 * @param keys
+	 *            the sorted keys
+	 * @param keyCount
+	 *            the number of keys
+	 * @return the index of the first key greater than or equal to the key
+	 */
+	static int lowerBound(int key, int[] keys, int keyCount) {
+		int low = 0;
+		int high = keyCount;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (keys[mid] < key) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+}
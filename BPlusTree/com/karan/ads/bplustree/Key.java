@@ -45,6 +45,19 @@ public class Key {
 		this.values = new ArrayList<>();
 	}
 
+	/**
+	 * Instantiates a new key with an existing list of values
+	 *
+	 * @param key
+	 *            the key
+	 * @param values
+	 *            the list of values for the key
+	 */
+	public Key(double key, List<String> values) {
+		this.key = key;
+		this.values = values;
+	}
+
 	/**
 	 * Gets the key.
 	 *
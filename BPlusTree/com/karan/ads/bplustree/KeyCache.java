@@ -0,0 +1,335 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The Class KeyCache. A bounded cache of the values of the keys searched
+ * most, in front of the walk down the tree. The cache is set associative:
+ * the hash of a key selects a set of WAYS entries, which is all a lookup
+ * reads, and a full set evicts one of its entries with the CLOCK algorithm,
+ * skipping the entries found since the hand last passed them.
+ *
+ * A key is only admitted in place of the entry the clock chose if it was
+ * searched more often than the key of that entry, as in TinyLFU. The
+ * frequencies are estimated by a count-min sketch of 4-bit counters, halved
+ * every ten times the capacity searches, so that keys searched once do not
+ * push out the hot keys and a key that is no longer searched loses its
+ * place. The four counters of a key share one long, so counting a search
+ * touches a single cache line.
+ *
+ * The keys are kept as primitive doubles in immutable entries, and copied
+ * into an array of tags, so that a lookup compares the keys of a set in one
+ * cache line and reads only the entry whose tag matches. Searches may run
+ * at the same time, as those of a SearchBatch do: a search reads a whole
+ * entry or none and checks its key, and the tags, reference bits, hands and
+ * counters they race on only steer the lookup, eviction and admission.
+ * Invalidations run with the writes of the tree, which never run at the
+ * same time as searches.
+ */
+public final class KeyCache {
+
+	/** The number of entries of a set. */
+	private static final int WAYS = 8;
+
+	/** The largest capacity. */
+	private static final int MAX_CAPACITY = 1 << 24;
+
+	/** The number of counters of a key in the sketch, one per row. */
+	private static final int ROWS = 4;
+
+	/** The largest count of a counter of the sketch. */
+	private static final int MAX_COUNT = 15;
+
+	/** The mask of the 4-bit counters of a long but their highest bits, to halve them all at once. */
+	private static final long HALF_MASK = 0x7777777777777777L;
+
+	/** The number of searches per entry of the cache after which the counters are halved. */
+	private static final int SAMPLES_PER_ENTRY = 10;
+
+	/** The entries, WAYS per set, null where a way is free. */
+	private final Entry[] entries;
+
+	/** The key of each entry, NaN where a way is free. */
+	private final double[] tags;
+
+	/** The reference bit of each entry, set when it is found. */
+	private final boolean[] referenced;
+
+	/** The clock hand of each set, the way it inspects next. */
+	private final byte[] hands;
+
+	/** The mask of the index of a set. */
+	private final int setMask;
+
+	/** The counters of the sketch of frequencies, 16 per long. */
+	private final long[] counters;
+
+	/** The mask of the index of a counter. */
+	private final int counterMask;
+
+	/** The number of searches after which the counters are halved. */
+	private final int sampleSize;
+
+	/** The number of searches counted since the counters were last halved. */
+	private int samples;
+
+	/**
+	 * Instantiates a new key cache.
+	 *
+	 * @param capacity
+	 *            the largest number of keys held, rounded up to a power of
+	 *            two of at least WAYS
+	 */
+	public KeyCache(int capacity) {
+		if (capacity <= 0 || capacity > MAX_CAPACITY) {
+			throw new IllegalArgumentException("Capacity must be in (0, 2^24]: " + capacity);
+		}
+		int sets = Math.max(1, Integer.highestOneBit((capacity + WAYS - 1) / WAYS * 2 - 1));
+		this.entries = new Entry[sets * WAYS];
+		this.tags = new double[sets * WAYS];
+		Arrays.fill(tags, Double.NaN);
+		this.referenced = new boolean[sets * WAYS];
+		this.hands = new byte[sets];
+		this.setMask = sets - 1;
+		// A long of 16 counters per entry, 4 for each of the rows
+		this.counters = new long[sets * WAYS];
+		this.counterMask = counters.length - 1;
+		this.sampleSize = sets * WAYS * SAMPLES_PER_ENTRY;
+	}
+
+	/**
+	 * Gets the cached values of a key, and counts the search of the key.
+	 *
+	 * @param key
+	 *            the key searched
+	 * @return the values of the key, null if it is not cached
+	 */
+	public List<String> get(double key) {
+		long hash = hash(key);
+		record(hash);
+		int first = set(hash);
+		for (int i = first; i < first + WAYS; i++) {
+			if (tags[i] == key) {
+				Entry entry = entries[i];
+				if (null != entry && entry.key == key) {
+					referenced[i] = true;
+					return entry.values;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Offers the values of a key just found in the tree. The key takes a
+	 * free way of its set, or the place of the entry chosen by the clock if
+	 * it was searched more often than the key of that entry.
+	 *
+	 * @param key
+	 *            the key found
+	 * @param values
+	 *            the values of the key
+	 * @return true if the key was admitted
+	 */
+	public boolean offer(double key, List<String> values) {
+		long hash = hash(key);
+		int first = set(hash);
+		int free = -1;
+		for (int i = first; i < first + WAYS; i++) {
+			Entry entry = entries[i];
+			if (null == entry) {
+				free = i;
+			} else if (entry.key == key) {
+				// Cached meanwhile by another search
+				return false;
+			}
+		}
+		if (free < 0) {
+			// Move the hand past the entries found since it last passed
+			// them, giving each a second chance
+			int set = first / WAYS;
+			int hand = hands[set];
+			while (referenced[first + hand]) {
+				referenced[first + hand] = false;
+				hand = (hand + 1) & (WAYS - 1);
+			}
+			hands[set] = (byte) ((hand + 1) & (WAYS - 1));
+			free = first + hand;
+			Entry victim = entries[free];
+			if (null != victim && frequency(hash) <= frequency(hash(victim.key))) {
+				return false;
+			}
+		}
+		referenced[free] = false;
+		entries[free] = new Entry(key, values);
+		tags[free] = key;
+		return true;
+	}
+
+	/**
+	 * Drops the entry of a key, whose values changed.
+	 *
+	 * @param key
+	 *            the key
+	 */
+	public void invalidate(double key) {
+		int first = set(hash(key));
+		for (int i = first; i < first + WAYS; i++) {
+			Entry entry = entries[i];
+			if (null != entry && entry.key == key) {
+				entries[i] = null;
+				tags[i] = Double.NaN;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Drops every entry, keeping the frequencies of the keys.
+	 */
+	public void clear() {
+		Arrays.fill(entries, null);
+		Arrays.fill(tags, Double.NaN);
+	}
+
+	/**
+	 * Gets the largest number of keys held.
+	 *
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		return entries.length;
+	}
+
+	/**
+	 * Counts the keys held, by reading every entry.
+	 *
+	 * @return the number of keys held
+	 */
+	public int size() {
+		int size = 0;
+		for (Entry entry : entries) {
+			if (null != entry) {
+				size++;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Counts a search of a key in the sketch, in its counter of each row,
+	 * halving every counter once enough searches were counted.
+	 *
+	 * @param hash
+	 *            the hash of the key
+	 */
+	private void record(long hash) {
+		int index = (int) hash & counterMask;
+		long word = counters[index];
+		for (int row = 0; row < ROWS; row++) {
+			int shift = counterShift(hash, row);
+			if ((word >>> shift & MAX_COUNT) < MAX_COUNT) {
+				word += 1L << shift;
+			}
+		}
+		counters[index] = word;
+		if (++samples >= sampleSize) {
+			samples = 0;
+			for (int i = 0; i < counters.length; i++) {
+				counters[i] = counters[i] >>> 1 & HALF_MASK;
+			}
+		}
+	}
+
+	/**
+	 * Estimates how often a key was searched, as the least of its counters.
+	 *
+	 * @param hash
+	 *            the hash of the key
+	 * @return the estimated frequency
+	 */
+	private int frequency(long hash) {
+		long word = counters[(int) hash & counterMask];
+		int frequency = MAX_COUNT;
+		for (int row = 0; row < ROWS; row++) {
+			frequency = Math.min(frequency, (int) (word >>> counterShift(hash, row) & MAX_COUNT));
+		}
+		return frequency;
+	}
+
+	/**
+	 * Selects the counter of a key in a row of the sketch: one of the four
+	 * counters of the row in the long of the key, from two bits of the hash.
+	 *
+	 * @param hash
+	 *            the hash of the key
+	 * @param row
+	 *            the row, from 0 to 3
+	 * @return the shift of the counter in the long
+	 */
+	private static int counterShift(long hash, int row) {
+		return (row << 4) + ((int) (hash >>> (32 + 2 * row)) & 3) * 4;
+	}
+
+	/**
+	 * Selects the set of a key.
+	 *
+	 * @param hash
+	 *            the hash of the key
+	 * @return the index of the first entry of the set
+	 */
+	private int set(long hash) {
+		return ((int) (hash >>> 40) & setMask) * WAYS;
+	}
+
+	/**
+	 * Hashes a key. Both zeros hash alike, since the tree finds 0.0 when
+	 * searching -0.0.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the hash, with all its bits mixed
+	 */
+	private static long hash(double key) {
+		long bits = key == 0 ? 0 : Double.doubleToLongBits(key);
+		// The finalizer of MurmurHash3
+		bits ^= bits >>> 33;
+		bits *= 0xFF51AFD7ED558CCDL;
+		bits ^= bits >>> 33;
+		bits *= 0xC4CEB9FE1A85EC53L;
+		bits ^= bits >>> 33;
+		return bits;
+	}
+
+	/**
+	 * The Class Entry. A key with its values, never modified once cached.
+	 */
+	private static final class Entry {
+
+		/** The key. */
+		final double key;
+
+		/** The values of the key. */
+		final List<String> values;
+
+		/**
+		 * Instantiates a new entry.
+		 *
+		 * @param key
+		 *            the key
+		 * @param values
+		 *            the values of the key
+		 */
+		Entry(double key, List<String> values) {
+			this.key = key;
+			this.values = values;
+		}
+
+	}
+
+}
@@ -0,0 +1,216 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+/**
+ * The Class KeyFilter. A blocked Bloom filter over the keys of a tree, which
+ * tells for certain that a key is absent, or that it may be present. The bits
+ * are cut into blocks of 512 bits, the size of a cache line, and all the bits
+ * of a key are set in the one block its hash selects, so that a lookup reads
+ * a single cache line whatever the number of hash functions. This costs a
+ * slightly higher false positive rate than a plain Bloom filter of the same
+ * size.
+ *
+ * The filter is sized when it is created, from the number of keys it is
+ * expected to hold and the false positive rate wanted, within a budget of
+ * memory. A filter holding more keys than expected, or cut down by the
+ * budget, gives more false positives, but never a false negative. Keys can
+ * not be removed from it.
+ */
+public final class KeyFilter {
+
+	/** The number of bits of a block. */
+	private static final int BLOCK_BITS = 512;
+
+	/** The number of bytes of a block. */
+	private static final int BLOCK_BYTES = BLOCK_BITS / 8;
+
+	/** The number of longs of a block. */
+	private static final int BLOCK_WORDS = BLOCK_BITS / Long.SIZE;
+
+	/** The largest number of bits set for a key. */
+	private static final int MAX_HASHES = 16;
+
+	/** The bits, BLOCK_WORDS longs per block. */
+	private final long[] words;
+
+	/** The number of blocks. */
+	private final int blocks;
+
+	/** The number of bits set for each key. */
+	private final int hashes;
+
+	/** The number of keys the filter was sized for. */
+	private final long capacity;
+
+	/** The false positive rate the filter was sized for. */
+	private final double falsePositiveRate;
+
+	/** The largest number of bytes the bits could take. */
+	private final long maxBytes;
+
+	/** The number of keys added. */
+	private long count;
+
+	/**
+	 * Instantiates a new key filter.
+	 *
+	 * @param capacity
+	 *            the number of keys the filter is expected to hold
+	 * @param falsePositiveRate
+	 *            the rate of absent keys reported as maybe present, in (0,
+	 *            1), with capacity keys added
+	 * @param maxBytes
+	 *            the largest number of bytes taken by the bits
+	 */
+	public KeyFilter(long capacity, double falsePositiveRate, long maxBytes) {
+		if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+			throw new IllegalArgumentException("False positive rate must be in (0, 1): " + falsePositiveRate);
+		}
+		if (maxBytes < BLOCK_BYTES) {
+			throw new IllegalArgumentException("Memory budget must be at least " + BLOCK_BYTES + " bytes: " + maxBytes);
+		}
+		// The optimal number of bits per key and of hashes of a Bloom filter
+		double bitsPerKey = -Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+		long blockCount = Math.min((long) Math.ceil(Math.max(capacity, 1) * bitsPerKey / BLOCK_BITS),
+				maxBytes / BLOCK_BYTES);
+		this.blocks = (int) Math.max(1, Math.min(blockCount, Integer.MAX_VALUE / BLOCK_WORDS));
+		this.words = new long[blocks * BLOCK_WORDS];
+		this.hashes = (int) Math.max(1, Math.min(MAX_HASHES, Math.round(bitsPerKey * Math.log(2))));
+		this.capacity = capacity;
+		this.falsePositiveRate = falsePositiveRate;
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Adds a key to the filter.
+	 *
+	 * @param key
+	 *            the key
+	 */
+	public void add(double key) {
+		long hash = hash(key);
+		int block = block(hash);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32) | 1;
+		for (int i = 0; i < hashes; i++) {
+			int bit = (h1 + i * h2) & (BLOCK_BITS - 1);
+			words[block + (bit >>> 6)] |= 1L << bit;
+		}
+		count++;
+	}
+
+	/**
+	 * Checks if a key may have been added to the filter.
+	 *
+	 * @param key
+	 *            the key
+	 * @return false if the key was never added, true if it may have been
+	 */
+	public boolean mightContain(double key) {
+		long hash = hash(key);
+		int block = block(hash);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32) | 1;
+		for (int i = 0; i < hashes; i++) {
+			int bit = (h1 + i * h2) & (BLOCK_BITS - 1);
+			if ((words[block + (bit >>> 6)] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Hashes a key. Both zeros hash alike, since the tree finds 0.0 when
+	 * searching -0.0.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the hash, with all its bits mixed
+	 */
+	private static long hash(double key) {
+		long bits = key == 0 ? 0 : Double.doubleToLongBits(key);
+		// The finalizer of MurmurHash3
+		bits ^= bits >>> 33;
+		bits *= 0xFF51AFD7ED558CCDL;
+		bits ^= bits >>> 33;
+		bits *= 0xC4CEB9FE1A85EC53L;
+		bits ^= bits >>> 33;
+		return bits;
+	}
+
+	/**
+	 * Selects the block of a hash, mapping its high bits onto the blocks
+	 * with a multiplication instead of a division.
+	 *
+	 * @param hash
+	 *            the hash of a key
+	 * @return the index of the first word of the block
+	 */
+	private int block(long hash) {
+		return (int) (((hash >>> 32) * blocks) >>> 32) * BLOCK_WORDS;
+	}
+
+	/**
+	 * Gets the number of keys the filter was sized for.
+	 *
+	 * @return the capacity
+	 */
+	public long getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Gets the number of keys added to the filter.
+	 *
+	 * @return the number of keys added
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Gets the false positive rate the filter was sized for.
+	 *
+	 * @return the false positive rate
+	 */
+	public double getFalsePositiveRate() {
+		return falsePositiveRate;
+	}
+
+	/**
+	 * Gets the memory budget the filter was sized within.
+	 *
+	 * @return the largest number of bytes the bits could take
+	 */
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * Gets the number of bits set for each key.
+	 *
+	 * @return the number of hashes
+	 */
+	public int getHashes() {
+		return hashes;
+	}
+
+	/**
+	 * Gets the memory taken by the bits of the filter.
+	 *
+	 * @return the number of bytes
+	 */
+	public long getBytes() {
+		return (long) words.length * Long.BYTES;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("key filter: %d keys of %d, %d bytes, %d hashes", count, capacity, getBytes(), hashes);
+	}
+
+}
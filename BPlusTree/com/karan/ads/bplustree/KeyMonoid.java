@@ -0,0 +1,68 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+/**
+ * The Interface KeyMonoid. A summary of a run of keys of a tree, such as
+ * their sum or their largest key, that can be computed for each key on its
+ * own and combined for two runs side by side. A BPlusTree given a monoid
+ * keeps the summary of every child of its internal nodes, so that the
+ * summary of a range of keys is combined from the summaries of the whole
+ * subtrees inside the range and the keys of the two external nodes at its
+ * ends.
+ *
+ * combine must be associative, and identity must leave a summary unchanged
+ * when combined with it on either side. combine need not be commutative:
+ * summaries are always combined in the order of the keys, and are
+ * recomputed along the path of an insert unless isCommutative says
+ * otherwise.
+ *
+ * @param <S>
+ *            the type of the summary, which should be immutable
+ */
+public interface KeyMonoid<S> {
+
+	/**
+	 * Gets the summary of no key.
+	 *
+	 * @return the identity summary
+	 */
+	S identity();
+
+	/**
+	 * Gets the summary of a key with its values.
+	 *
+	 * @param key
+	 *            the key
+	 * @param valueCount
+	 *            the number of values of the key
+	 * @return the summary of the key
+	 */
+	S ofKey(double key, int valueCount);
+
+	/**
+	 * Combines the summaries of two runs of keys, the left one holding the
+	 * smaller keys.
+	 *
+	 * @param left
+	 *            the summary of the smaller keys
+	 * @param right
+	 *            the summary of the greater keys
+	 * @return the summary of both runs
+	 */
+	S combine(S left, S right);
+
+	/**
+	 * Checks if the order of the summaries combined does not matter. The
+	 * summaries above a new key are then updated by combining the summary of
+	 * the key into them, instead of being recomputed from the node below.
+	 *
+	 * @return true if combine is commutative
+	 */
+	default boolean isCommutative() {
+		return false;
+	}
+
+}
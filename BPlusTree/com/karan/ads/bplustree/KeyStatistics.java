@@ -0,0 +1,147 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+/**
+ * The Class KeyStatistics. The number of keys, the number of their values,
+ * the smallest and the greatest key, and the sum of the keys of a run of
+ * keys. KeyStatistics.MONOID summarizes keys with it, so a BPlusTree given
+ * that monoid answers all of these for a range of keys at once.
+ */
+public final class KeyStatistics {
+
+	/** The statistics of no key. */
+	public static final KeyStatistics EMPTY = new KeyStatistics(0, 0, Double.POSITIVE_INFINITY,
+			Double.NEGATIVE_INFINITY, 0);
+
+	/** The monoid of the statistics. */
+	public static final KeyMonoid<KeyStatistics> MONOID = new KeyMonoid<KeyStatistics>() {
+
+		@Override
+		public KeyStatistics identity() {
+			return EMPTY;
+		}
+
+		@Override
+		public KeyStatistics ofKey(double key, int valueCount) {
+			return new KeyStatistics(1, valueCount, key, key, key);
+		}
+
+		@Override
+		public KeyStatistics combine(KeyStatistics left, KeyStatistics right) {
+			if (left.keyCount == 0) {
+				return right;
+			}
+			if (right.keyCount == 0) {
+				return left;
+			}
+			return new KeyStatistics(left.keyCount + right.keyCount, left.valueCount + right.valueCount,
+					Math.min(left.min, right.min), Math.max(left.max, right.max), left.sum + right.sum);
+		}
+
+		@Override
+		public boolean isCommutative() {
+			return true;
+		}
+	};
+
+	/** The number of keys. */
+	private final long keyCount;
+
+	/** The number of values of the keys. */
+	private final long valueCount;
+
+	/** The smallest key. */
+	private final double min;
+
+	/** The greatest key. */
+	private final double max;
+
+	/** The sum of the keys. */
+	private final double sum;
+
+	/**
+	 * Instantiates new statistics.
+	 *
+	 * @param keyCount
+	 *            the number of keys
+	 * @param valueCount
+	 *            the number of values of the keys
+	 * @param min
+	 *            the smallest key
+	 * @param max
+	 *            the greatest key
+	 * @param sum
+	 *            the sum of the keys
+	 */
+	public KeyStatistics(long keyCount, long valueCount, double min, double max, double sum) {
+		this.keyCount = keyCount;
+		this.valueCount = valueCount;
+		this.min = min;
+		this.max = max;
+		this.sum = sum;
+	}
+
+	/**
+	 * Gets the number of keys.
+	 *
+	 * @return the number of keys
+	 */
+	public long getKeyCount() {
+		return keyCount;
+	}
+
+	/**
+	 * Gets the number of values of the keys, duplicates included.
+	 *
+	 * @return the number of values
+	 */
+	public long getValueCount() {
+		return valueCount;
+	}
+
+	/**
+	 * Gets the smallest key.
+	 *
+	 * @return the smallest key, positive infinity if there is no key
+	 */
+	public double getMin() {
+		return min;
+	}
+
+	/**
+	 * Gets the greatest key.
+	 *
+	 * @return the greatest key, negative infinity if there is no key
+	 */
+	public double getMax() {
+		return max;
+	}
+
+	/**
+	 * Gets the sum of the keys.
+	 *
+	 * @return the sum of the keys
+	 */
+	public double getSum() {
+		return sum;
+	}
+
+	/**
+	 * Gets the mean of the keys.
+	 *
+	 * @return the mean of the keys, NaN if there is no key
+	 */
+	public double getMean() {
+		return sum / keyCount;
+	}
+
+	@Override
+	public String toString() {
+		return "KeyStatistics [keyCount=" + keyCount + ", valueCount=" + valueCount + ", min=" + min + ", max="
+				+ max + ", sum=" + sum + "]";
+	}
+
+}
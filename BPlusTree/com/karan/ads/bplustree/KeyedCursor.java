@@ -0,0 +1,92 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.Iterator;
+
+/**
+ * The Class KeyedCursor. A cursor over the key value pairs of a range of a
+ * LongBPlusTree, IntBPlusTree or GenericBPlusTree. The tree finds both ends
+ * of the range with its own comparisons, so the cursor walks the linked list
+ * of external nodes from the first pair to the position past the last one
+ * without comparing keys. Each tree extends it with a typed getKey.
+ */
+public class KeyedCursor {
+
+	/** The external node of the current key, null once exhausted. */
+	KeyedNode node;
+
+	/** The index of the current key in the node. */
+	int index;
+
+	/** The external node holding the position past the range. */
+	private final KeyedNode endNode;
+
+	/** The index of the position past the range in the end node. */
+	private final int endIndex;
+
+	/** The remaining values of the current key. */
+	private Iterator<String> values;
+
+	/** The current value. */
+	private String value;
+
+	/**
+	 * Instantiates a new cursor.
+	 *
+	 * @param node
+	 *            the external node of the first key, null for an empty range
+	 * @param index
+	 *            the index of the first key in the node
+	 * @param endNode
+	 *            the external node holding the position past the range
+	 * @param endIndex
+	 *            the index of the position past the range in the end node
+	 */
+	KeyedCursor(KeyedNode node, int index, KeyedNode endNode, int endIndex) {
+		this.node = node;
+		this.index = index - 1;
+		this.endNode = endNode;
+		this.endIndex = endIndex;
+	}
+
+	/**
+	 * Moves the cursor to the next key value pair.
+	 *
+	 * @return true if the cursor is on a pair, false if the range is exhausted
+	 */
+	public boolean next() {
+		if (null == node) {
+			return false;
+		}
+		if (null != values && values.hasNext()) {
+			value = values.next();
+			return true;
+		}
+		index++;
+		while (null != node && index >= node.keyCount && node != endNode) {
+			node = node.next;
+			index = 0;
+		}
+		if (null == node || (node == endNode && index >= endIndex)) {
+			node = null;
+			values = null;
+			return false;
+		}
+		values = AbstractBPlusTree.valueList(node, index).iterator();
+		value = values.next();
+		return true;
+	}
+
+	/**
+	 * Gets the value of the current pair.
+	 *
+	 * @return the value
+	 */
+	public String getValue() {
+		return value;
+	}
+
+}
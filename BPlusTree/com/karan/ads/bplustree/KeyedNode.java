@@ -0,0 +1,62 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+/**
+ * The Class KeyedNode. A node of the B Plus Trees whose keys are not doubles
+ * (LongBPlusTree, IntBPlusTree and GenericBPlusTree). Its keys are held in a
+ * primitive array of the key type, a long[] or an int[], or in an Object[]
+ * for other keys, and are only ever compared by the tree owning the node.
+ * The rest of the node is laid out like Node.
+ */
+class KeyedNode {
+
+	/** The sorted keys of the node: a long[], an int[] or an Object[]. */
+	final Object keys;
+
+	/** The number of keys in the node. */
+	int keyCount;
+
+	/** The children of an internal node, null for an external node. */
+	final KeyedNode[] children;
+
+	/** The values of an external node, null for an internal node. */
+	final Object[] values;
+
+	/** The previous external node in the linked list. */
+	KeyedNode prev;
+
+	/** The next external node in the linked list. */
+	KeyedNode next;
+
+	/** The parent of the node, null for the root. */
+	KeyedNode parent;
+
+	/**
+	 * Instantiates a new node.
+	 *
+	 * @param keys
+	 *            the array of keys, of length m
+	 * @param order
+	 *            the degree of the tree
+	 * @param external
+	 *            true for an external node
+	 */
+	KeyedNode(Object keys, int order, boolean external) {
+		this.keys = keys;
+		this.children = external ? null : new KeyedNode[order + 1];
+		this.values = external ? new Object[order] : null;
+	}
+
+	/**
+	 * Checks if the node is external.
+	 *
+	 * @return true if the node is an external node
+	 */
+	boolean isExternal() {
+		return null == children;
+	}
+
+}
@@ -0,0 +1,186 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The Class LatencyHistogram. Counts latencies in nanoseconds into buckets
+ * of logarithmic width, in the manner of an HDR histogram: each power of two
+ * is cut into 32 linear buckets, so a percentile is read to within about 3%
+ * of its value whatever its magnitude, in a fixed array of counts. Recording
+ * is a few atomic increments and may be done from any thread.
+ */
+public class LatencyHistogram {
+
+	/** The number of bits of a latency kept below its highest bit. */
+	private static final int SUB_BUCKET_BITS = 5;
+
+	/** The number of buckets per power of two. */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/** The number of buckets, enough for any positive long. */
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	/** The count of each bucket. */
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	/** The number of latencies recorded. */
+	private final LongAdder count = new LongAdder();
+
+	/** The sum of the latencies recorded. */
+	private final LongAdder sum = new LongAdder();
+
+	/** The largest latency recorded. */
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a latency.
+	 *
+	 * @param nanos
+	 *            the latency in nanoseconds, negative values counting as 0
+	 */
+	public void record(long nanos) {
+		long value = Math.max(0, nanos);
+		counts.incrementAndGet(bucket(value));
+		count.increment();
+		sum.add(value);
+		long largest = max.get();
+		while (value > largest && !max.compareAndSet(largest, value)) {
+			largest = max.get();
+		}
+	}
+
+	/**
+	 * Finds the bucket of a latency. Latencies below 32 have a bucket each;
+	 * above, the bucket is given by the highest bit and the five bits below
+	 * it.
+	 *
+	 * @param value
+	 *            the latency, not negative
+	 * @return the index of the bucket
+	 */
+	private static int bucket(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int highestBit = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (highestBit - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (highestBit - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * Gets the largest latency counted in a bucket.
+	 *
+	 * @param bucket
+	 *            the index of the bucket
+	 * @return the largest latency of the bucket
+	 */
+	private static long highestValue(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+	/**
+	 * Gets the latency at a percentile: no more than that fraction of the
+	 * latencies recorded are greater.
+	 *
+	 * @param percentile
+	 *            the percentile, in [0, 100]
+	 * @return the latency in nanoseconds, 0 if nothing was recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			total += counts.get(i);
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(highestValue(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	/**
+	 * Gets the number of latencies recorded.
+	 *
+	 * @return the count
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * Gets the mean latency.
+	 *
+	 * @return the mean in nanoseconds, 0 if nothing was recorded
+	 */
+	public double getMean() {
+		long n = count.sum();
+		return n == 0 ? 0 : (double) sum.sum() / n;
+	}
+
+	/**
+	 * Gets the largest latency.
+	 *
+	 * @return the largest latency in nanoseconds
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Gets the median latency.
+	 *
+	 * @return the latency in nanoseconds at the 50th percentile
+	 */
+	public long getP50() {
+		return getValueAtPercentile(50);
+	}
+
+	/**
+	 * Gets the 99th percentile of the latencies.
+	 *
+	 * @return the latency in nanoseconds at the 99th percentile
+	 */
+	public long getP99() {
+		return getValueAtPercentile(99);
+	}
+
+	/**
+	 * Gets the 99.9th percentile of the latencies.
+	 *
+	 * @return the latency in nanoseconds at the 99.9th percentile
+	 */
+	public long getP999() {
+		return getValueAtPercentile(99.9);
+	}
+
+	/**
+	 * Forgets every latency recorded.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+		count.reset();
+		sum.reset();
+		max.set(0);
+	}
+
+}
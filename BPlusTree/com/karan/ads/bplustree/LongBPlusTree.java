@@ -0,0 +1,184 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.List;
+
+/**
+ * The Class LongBPlusTree. A B Plus Tree with long keys, such as timestamps
+ * and IDs, which doubles cannot hold exactly beyond 2^53. Keys are stored in
+ * long[] arrays and compared as longs, so no key is boxed on the way down.
+ * The splits and the linked list of external nodes are shared with the other
+ * typed trees through AbstractBPlusTree.
+ */
+public class LongBPlusTree extends AbstractBPlusTree {
+
+	/**
+	 * The Class Cursor. A KeyedCursor over long keys.
+	 */
+	public static final class Cursor extends KeyedCursor {
+
+		/**
+		 * Instantiates a new cursor.
+		 *
+		 * @param node
+		 *            the external node of the first key
+		 * @param index
+		 *            the index of the first key
+		 * @param endNode
+		 *            the external node of the position past the range
+		 * @param endIndex
+		 *            the index of the position past the range
+		 */
+		Cursor(KeyedNode node, int index, KeyedNode endNode, int endIndex) {
+			super(node, index, endNode, endIndex);
+		}
+
+		/**
+		 * Gets the key of the current pair.
+		 *
+		 * @return the key
+		 */
+		public long getKey() {
+			return ((long[]) node.keys)[index];
+		}
+	}
+
+	@Override
+	Object newKeys(int length) {
+		return new long[length];
+	}
+
+	/**
+	 * Insert a key and value pair to the B Plus Tree
+	 *
+	 * @param key
+	 *            the key to be inserted
+	 * @param value
+	 *            the value to be inserted
+	 */
+	public void insert(long key, String value) {
+		KeyedNode curr = rootForInsert();
+		while (!curr.isExternal()) {
+			curr = curr.children[upperBound(key, (long[]) curr.keys, curr.keyCount)];
+		}
+		long[] keys = (long[]) curr.keys;
+		int index = upperBound(key, keys, curr.keyCount);
+		if (index != 0 && keys[index - 1] == key) {
+			addValue(curr, index - 1, value);
+			return;
+		}
+		openSlot(curr, index);
+		keys[index] = key;
+		insertedAt(curr, index, value);
+	}
+
+	/**
+	 * Search for the values of a key.
+	 *
+	 * @param key
+	 *            the key to be searched
+	 * @return the list of values for the key, null if the key is not present
+	 */
+	public List<String> search(long key) {
+		KeyedNode node = findExternalNode(key);
+		if (null == node) {
+			return null;
+		}
+		long[] keys = (long[]) node.keys;
+		int index = upperBound(key, keys, node.keyCount);
+		if (index != 0 && keys[index - 1] == key) {
+			return valueList(node, index - 1);
+		}
+		return null;
+	}
+
+	/**
+	 * Opens a cursor over all key value pairs between key1 and key2, both
+	 * inclusive.
+	 *
+	 * @param key1
+	 *            the starting key
+	 * @param key2
+	 *            the ending key
+	 * @return the cursor, positioned before the first pair
+	 */
+	public Cursor cursor(long key1, long key2) {
+		if (key1 > key2 || null == this.root) {
+			return new Cursor(null, 0, null, 0);
+		}
+		KeyedNode start = findExternalNode(key1);
+		KeyedNode end = findExternalNode(key2);
+		return new Cursor(start, lowerBound(key1, (long[]) start.keys, start.keyCount), end,
+				upperBound(key2, (long[]) end.keys, end.keyCount));
+	}
+
+	/**
+	 * Traverses to the external node that 'should' contain a key.
+	 *
+	 * @param key
+	 *            the key to be searched
+	 * @return the external node, null if the tree is empty
+	 */
+	KeyedNode findExternalNode(long key) {
+		KeyedNode curr = this.root;
+		while (null != curr && !curr.isExternal()) {
+			curr = curr.children[upperBound(key, (long[]) curr.keys, curr.keyCount)];
+		}
+		return curr;
+	}
+
+	/**
+	 * Finds the number of keys less than or equal to a key, which is the
+	 * child to follow in an internal node.
+	 *
+	 * @param key
+	 *            the key
+	 * @param keys
+	 *            the sorted keys
+	 * @param keyCount
+	 *            the number of keys
+	 * @return the index of the first key greater than the key
+	 */
+	static int upperBound(long key, long[] keys, int keyCount) {
+		int low = 0;
+		int high = keyCount;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (keys[mid] <= key) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Finds the number of keys less than a key.
+	 *
+	 * @param key
+	 *            the key
+	 * @param keys
+	 *            the sorted keys
+	 * @param keyCount
+	 *            the number of keys
+	 * @return the index of the first key greater than or equal to the key
+	 */
+	static int lowerBound(long key, long[] keys, int keyCount) {
+		int low = 0;
+		int high = keyCount;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (keys[mid] < key) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+}
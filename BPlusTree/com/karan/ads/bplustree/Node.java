@@ -1,11 +1,10 @@
 package com.karan.ads.bplustree;
 
-/* 
+/*
  * author : Karan Chauhan
  */
 
-import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -13,11 +12,32 @@ import java.util.List;
  */
 public class Node {
 
-	/** The list of key values pairs in the node. */
-	private List<Key> keys;
+	/** The sorted keys of the node. Only the first keyCount slots are in use. */
+	private double[] keys;
+
+	/** The number of keys currently stored in the node. */
+	private int keyCount;
 
 	/** The children of this node. Set only for internal Nodes */
-	private List<Node> children;
+	private Node[] children;
+
+	/** The number of keys under each child. Set only for internal Nodes */
+	private long[] subtreeKeyCounts;
+
+	/** The number of values under each child. Set only for internal Nodes */
+	private long[] subtreeValueCounts;
+
+	/**
+	 * The summary of the keys under each child, by the KeyMonoid of the tree.
+	 * Set only for internal Nodes of a tree with a KeyMonoid
+	 */
+	private Object[] summaries;
+
+	/**
+	 * The values for each key. A slot holds a String for a single value, or a
+	 * List of Strings once duplicates are inserted. Set only for external Nodes
+	 */
+	private Object[] values;
 
 	/** The previous element in the linked list. Set only for external Nodes. */
 	private Node prev;
@@ -29,54 +49,185 @@ public class Node {
 	private Node parent;
 
 	/**
-	 * Instantiates a new node.
+	 * Instantiates a new node. The arrays are sized from the degree of the
+	 * tree, so that a node can hold one key more than allowed before it is
+	 * split.
+	 *
+	 * @param order
+	 *            the degree of the B Plus Tree
+	 * @param external
+	 *            true if the node is an external (leaf) node
 	 */
-	public Node() {
-		this.keys = new ArrayList<>();
-		this.children = new ArrayList<>();
+	public Node(int order, boolean external) {
+		this.keys = new double[order];
+		this.keyCount = 0;
+		if (external) {
+			this.values = new Object[order];
+		} else {
+			this.children = new Node[order + 1];
+			this.subtreeKeyCounts = new long[order + 1];
+			this.subtreeValueCounts = new long[order + 1];
+		}
 		this.prev = null;
 		this.next = null;
 	}
 
+	/**
+	 * Checks if the node is an external node.
+	 *
+	 * @return true if the node is an external node
+	 */
+	public boolean isExternal() {
+		return null == children;
+	}
+
 	/**
 	 * Gets the keys.
 	 *
-	 * @return the keys
+	 * @return the array of keys. Only the first keyCount elements are valid
 	 */
-	public List<Key> getKeys() {
+	public double[] getKeys() {
 		return keys;
 	}
 
 	/**
-	 * Sets the keys.
+	 * Gets the number of keys.
 	 *
-	 * @param keys
-	 *            the new keys
+	 * @return the number of keys
 	 */
-	public void setKeys(List<Key> keys) {
-		Iterator<Key> iter = keys.iterator();
-		while (iter.hasNext()) {
-			this.keys.add(iter.next());
-		}
+	public int getKeyCount() {
+		return keyCount;
 	}
 
 	/**
-	 * Gets the children.
+	 * Sets the number of keys.
 	 *
-	 * @return the children
+	 * @param keyCount
+	 *            the new number of keys
 	 */
-	public List<Node> getChildren() {
+	public void setKeyCount(int keyCount) {
+		this.keyCount = keyCount;
+	}
+
+	/**
+	 * Gets the children. An internal node has keyCount + 1 children.
+	 *
+	 * @return the array of children, null for external nodes
+	 */
+	public Node[] getChildren() {
 		return children;
 	}
 
 	/**
-	 * Sets the children.
+	 * Gets the number of keys under each child, in the order of the children.
 	 *
-	 * @param children
-	 *            the new children
+	 * @return the array of key counts, null for external nodes
 	 */
-	public void setChildren(List<Node> children) {
-		this.children = children;
+	public long[] getSubtreeKeyCounts() {
+		return subtreeKeyCounts;
+	}
+
+	/**
+	 * Gets the number of values under each child, in the order of the
+	 * children.
+	 *
+	 * @return the array of value counts, null for external nodes
+	 */
+	public long[] getSubtreeValueCounts() {
+		return subtreeValueCounts;
+	}
+
+	/**
+	 * Gets the summary of the keys under each child, in the order of the
+	 * children.
+	 *
+	 * @return the array of summaries, null for external nodes and for nodes
+	 *         of a tree without a KeyMonoid
+	 */
+	public Object[] getSummaries() {
+		return summaries;
+	}
+
+	/**
+	 * Sets the array of summaries.
+	 *
+	 * @param summaries
+	 *            the new array of summaries
+	 */
+	public void setSummaries(Object[] summaries) {
+		this.summaries = summaries;
+	}
+
+	/**
+	 * Counts the keys under the node.
+	 *
+	 * @return the number of keys of the node and of its descendants
+	 */
+	public long countKeys() {
+		if (isExternal()) {
+			return keyCount;
+		}
+		long count = 0;
+		for (int i = 0; i <= keyCount; i++) {
+			count += subtreeKeyCounts[i];
+		}
+		return count;
+	}
+
+	/**
+	 * Counts the values under the node.
+	 *
+	 * @return the number of values of the node and of its descendants
+	 */
+	public long countValues() {
+		long count = 0;
+		if (isExternal()) {
+			for (int i = 0; i < keyCount; i++) {
+				count += getValueCount(i);
+			}
+		} else {
+			for (int i = 0; i <= keyCount; i++) {
+				count += subtreeValueCounts[i];
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the values.
+	 *
+	 * @return the array of values, null for internal nodes
+	 */
+	public Object[] getValues() {
+		return values;
+	}
+
+	/**
+	 * Gets the values of a key of an external node as a list.
+	 *
+	 * @param index
+	 *            the index of the key in the node
+	 * @return the list of values for the key
+	 */
+	@SuppressWarnings("unchecked")
+	public List<String> getValueList(int index) {
+		Object slot = values[index];
+		if (slot instanceof String) {
+			return Collections.singletonList((String) slot);
+		}
+		return (List<String>) slot;
+	}
+
+	/**
+	 * Gets the number of values of a key of an external node.
+	 *
+	 * @param index
+	 *            the index of the key in the node
+	 * @return the number of values for the key
+	 */
+	public int getValueCount(int index) {
+		Object slot = values[index];
+		return slot instanceof String ? 1 : ((List<?>) slot).size();
 	}
 
 	/**
@@ -138,7 +289,14 @@ public class Node {
 
 	@Override
 	public String toString() {
-		return "Keys =" + keys.toString();
+		StringBuilder sb = new StringBuilder("Keys =[");
+		for (int i = 0; i < keyCount; i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			sb.append(keys[i]);
+		}
+		return sb.append(']').toString();
 	}
 
 }
@@ -0,0 +1,111 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+/**
+ * The Enum NodeSearch. The ways of finding, in the sorted keys of a node,
+ * the first key greater than a search key. Every strategy gives the same
+ * index, NaN keys included; they differ in how they use the processor.
+ *
+ * The strategy of the trees over double keys is read once from the system
+ * property bplustree.nodeSearch (BINARY, BRANCHLESS or LINEAR), BINARY if
+ * it is not set. A BPlusTree can also be given its own with setNodeSearch.
+ */
+public enum NodeSearch {
+
+	/**
+	 * A binary search that stops probing as soon as the range is empty. Each
+	 * probe is a branch the processor has to predict, which it does no better
+	 * than a coin flip on random keys.
+	 */
+	BINARY {
+		@Override
+		public int upperBound(double key, double[] keys, int keyCount) {
+			int st = 0;
+			int end = keyCount;
+			while (st < end) {
+				int mid = (st + end) >>> 1;
+				// Following condition ensures that we find a location s.t. key
+				// is smaller than element at that index and is greater than or
+				// equal to the element at the previous index. This location is
+				// where the key would be inserted
+				if (key < keys[mid]) {
+					end = mid;
+				} else {
+					st = mid + 1;
+				}
+			}
+			return st;
+		}
+	},
+
+	/**
+	 * A binary search whose probe only picks the next base of the range, a
+	 * conditional move rather than a branch, and which always takes
+	 * ceil(log2(keyCount)) probes. Nothing is mispredicted, and the loads of
+	 * the next probes can start before the current comparison is done.
+	 */
+	BRANCHLESS {
+		@Override
+		public int upperBound(double key, double[] keys, int keyCount) {
+			if (keyCount == 0) {
+				return 0;
+			}
+			int base = 0;
+			int n = keyCount;
+			while (n > 1) {
+				int half = n >>> 1;
+				base = key < keys[base + half] ? base : base + half;
+				n -= half;
+			}
+			return key < keys[base] ? base : base + 1;
+		}
+	},
+
+	/**
+	 * A scan that skips blocks of eight keys by their last key, then counts
+	 * the keys not greater than the search key in the block it stops in. The
+	 * keys are read in order, which the hardware prefetcher follows, and the
+	 * count has no branch; it pays off for small nodes or nodes that fit in a
+	 * few cache lines.
+	 */
+	LINEAR {
+		@Override
+		public int upperBound(double key, double[] keys, int keyCount) {
+			int i = 0;
+			while (i + BLOCK <= keyCount && !(key < keys[i + BLOCK - 1])) {
+				i += BLOCK;
+			}
+			int end = Math.min(i + BLOCK, keyCount);
+			int count = i;
+			for (; i < end; i++) {
+				count += key < keys[i] ? 0 : 1;
+			}
+			return count;
+		}
+	};
+
+	/** The number of keys the linear scan steps over at once. */
+	private static final int BLOCK = 8;
+
+	/** The strategy of the trees over double keys, from bplustree.nodeSearch. */
+	static final NodeSearch DEFAULT = NodeSearch.valueOf(System.getProperty("bplustree.nodeSearch", "BINARY"));
+
+	/**
+	 * Finds the first index of a sorted array of keys at which the key is
+	 * greater than the input key.
+	 *
+	 * @param key
+	 *            the key to be searched
+	 * @param keys
+	 *            the sorted array of keys to be searched
+	 * @param keyCount
+	 *            the number of keys in use in the array
+	 * @return the first index of the array at which the key is greater than
+	 *         the input key, or keyCount if there is no such key
+	 */
+	public abstract int upperBound(double key, double[] keys, int keyCount);
+
+}
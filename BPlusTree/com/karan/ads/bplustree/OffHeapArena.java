@@ -0,0 +1,413 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * The Class OffHeapArena. Allocates blocks of memory outside the Java heap,
+ * carved from slabs of direct ByteBuffers. A block is addressed by a long:
+ * the index of its slab in the high bits and its offset in the slab in the
+ * low bits, 0 being the null address. Blocks are handed out from the end of
+ * the last slab, and a freed block is pushed on a free list for its size,
+ * its first eight bytes linking to the next free block, so that the next
+ * allocation of that size reuses it. Only the slabs themselves are Java
+ * objects: the number of blocks does not change the work of the garbage
+ * collector.
+ *
+ * The arena is not thread safe.
+ */
+class OffHeapArena {
+
+	/** The most distinct block sizes with a free list. */
+	private static final int MAX_FREE_LISTS = 64;
+
+	/** The slabs. */
+	private ByteBuffer[] slabs = new ByteBuffer[8];
+
+	/** The number of slabs. */
+	private int slabCount;
+
+	/** The size of a slab in bytes, a power of two. */
+	private final int slabSize;
+
+	/** The number of bits of the offset in a slab. */
+	private final int slabShift;
+
+	/** The most bytes the slabs may take. */
+	private final long maxBytes;
+
+	/** The offset of the first unused byte of the last slab. */
+	private int slabOffset;
+
+	/** The block size of each free list. */
+	private final int[] freeSizes = new int[MAX_FREE_LISTS];
+
+	/** The address of the first free block of each free list. */
+	private final long[] freeHeads = new long[MAX_FREE_LISTS];
+
+	/** The number of free lists. */
+	private int freeListCount;
+
+	/** The bytes of the blocks in use. */
+	private long allocatedBytes;
+
+	/** The bytes of the blocks on the free lists. */
+	private long freeBytes;
+
+	/** The array overlapping copies go through. */
+	private byte[] scratch = new byte[256];
+
+	/**
+	 * Instantiates a new arena.
+	 *
+	 * @param slabSize
+	 *            the size of a slab in bytes, a power of two
+	 * @param maxBytes
+	 *            the most bytes the slabs may take
+	 */
+	OffHeapArena(int slabSize, long maxBytes) {
+		if (slabSize < 4096 || Integer.bitCount(slabSize) != 1) {
+			throw new IllegalArgumentException("Slab size must be a power of two of at least 4096: " + slabSize);
+		}
+		this.slabSize = slabSize;
+		this.slabShift = Integer.numberOfTrailingZeros(slabSize);
+		this.maxBytes = maxBytes;
+		// No slab yet: the first allocation adds one
+		this.slabOffset = slabSize;
+	}
+
+	/**
+	 * Allocates a block, reusing a freed block of the same size if there is
+	 * one. The contents of a reused block are not cleared.
+	 *
+	 * @param size
+	 *            the size of the block in bytes, rounded up to a multiple of 8
+	 * @return the address of the block
+	 */
+	long allocate(int size) {
+		size = (size + 7) & ~7;
+		if (size > slabSize) {
+			throw new IllegalArgumentException("A block of " + size + " bytes does not fit in a slab of "
+					+ slabSize + " bytes");
+		}
+		int list = freeList(size);
+		if (list >= 0 && freeHeads[list] != 0) {
+			long address = freeHeads[list];
+			freeHeads[list] = getLong(address, 0);
+			freeBytes -= size;
+			allocatedBytes += size;
+			return address;
+		}
+		if (slabSize - slabOffset < size) {
+			// The rest of the last slab is left unused
+			addSlab();
+		}
+		long address = ((long) (slabCount - 1) << slabShift) | slabOffset;
+		slabOffset += size;
+		allocatedBytes += size;
+		return address;
+	}
+
+	/**
+	 * Checks that blocks of the given sizes can be allocated without going
+	 * past the bound of the arena, not counting the free lists.
+	 *
+	 * @param sizes
+	 *            the sizes of the blocks, in the order they are allocated
+	 * @param count
+	 *            the number of blocks
+	 */
+	void reserve(int[] sizes, int count) {
+		long slabsNeeded = slabCount;
+		int offset = slabOffset;
+		for (int i = 0; i < count; i++) {
+			int size = (sizes[i] + 7) & ~7;
+			if (slabSize - offset < size) {
+				slabsNeeded++;
+				offset = slabsNeeded == 1 ? 8 : 0;
+			}
+			offset += size;
+		}
+		if (slabsNeeded * slabSize > maxBytes) {
+			throw new IllegalStateException("The off-heap arena is limited to " + maxBytes + " bytes");
+		}
+	}
+
+	/**
+	 * Returns a block to the free list for its size.
+	 *
+	 * @param address
+	 *            the address of the block
+	 * @param size
+	 *            the size the block was allocated with
+	 */
+	void free(long address, int size) {
+		size = (size + 7) & ~7;
+		int list = freeList(size);
+		if (list < 0) {
+			if (freeListCount == MAX_FREE_LISTS) {
+				// Too many distinct sizes, the block is lost until the arena
+				// is released
+				allocatedBytes -= size;
+				return;
+			}
+			list = freeListCount++;
+			freeSizes[list] = size;
+		}
+		putLong(address, 0, freeHeads[list]);
+		freeHeads[list] = address;
+		allocatedBytes -= size;
+		freeBytes += size;
+	}
+
+	/**
+	 * Finds the free list of a block size.
+	 *
+	 * @param size
+	 *            the block size
+	 * @return the index of the free list, -1 if there is none
+	 */
+	private int freeList(int size) {
+		for (int i = 0; i < freeListCount; i++) {
+			if (freeSizes[i] == size) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Adds a slab after the last one.
+	 */
+	private void addSlab() {
+		if ((long) (slabCount + 1) * slabSize > maxBytes) {
+			throw new IllegalStateException("The off-heap arena is limited to " + maxBytes + " bytes");
+		}
+		if (slabCount == slabs.length) {
+			slabs = Arrays.copyOf(slabs, slabCount * 2);
+		}
+		slabs[slabCount++] = ByteBuffer.allocateDirect(slabSize).order(ByteOrder.nativeOrder());
+		// Offset 0 of the first slab is the null address
+		slabOffset = slabCount == 1 ? 8 : 0;
+	}
+
+	/**
+	 * Releases all slabs. Their memory is returned once the ByteBuffers are
+	 * collected.
+	 */
+	void release() {
+		slabs = new ByteBuffer[8];
+		slabCount = 0;
+		slabOffset = slabSize;
+		freeListCount = 0;
+		allocatedBytes = 0;
+		freeBytes = 0;
+	}
+
+	/**
+	 * Gets the slab of an address.
+	 *
+	 * @param address
+	 *            the address
+	 * @return the slab
+	 */
+	private ByteBuffer slab(long address) {
+		return slabs[(int) (address >>> slabShift)];
+	}
+
+	/**
+	 * Gets the offset of an address in its slab.
+	 *
+	 * @param address
+	 *            the address
+	 * @return the offset
+	 */
+	private int offset(long address) {
+		return (int) address & (slabSize - 1);
+	}
+
+	/**
+	 * Reads an int of a block.
+	 *
+	 * @param address
+	 *            the address of the block
+	 * @param position
+	 *            the position in the block
+	 * @return the int
+	 */
+	int getInt(long address, int position) {
+		return slab(address).getInt(offset(address) + position);
+	}
+
+	/**
+	 * Writes an int of a block.
+	 *
+	 * @param address
+	 *            the address of the block
+	 * @param position
+	 *            the position in the block
+	 * @param value
+	 *            the int
+	 */
+	void putInt(long address, int position, int value) {
+		slab(address).putInt(offset(address) + position, value);
+	}
+
+	/**
+	 * Reads a long of a block.
+	 *
+	 * @param address
+	 *            the address of the block
+	 * @param position
+	 *            the position in the block
+	 * @return the long
+	 */
+	long getLong(long address, int position) {
+		return slab(address).getLong(offset(address) + position);
+	}
+
+	/**
+	 * Writes a long of a block.
+	 *
+	 * @param address
+	 *            the address of the block
+	 * @param position
+	 *            the position in the block
+	 * @param value
+	 *            the long
+	 */
+	void putLong(long address, int position, long value) {
+		slab(address).putLong(offset(address) + position, value);
+	}
+
+	/**
+	 * Reads a double of a block.
+	 *
+	 * @param address
+	 *            the address of the block
+	 * @param position
+	 *            the position in the block
+	 * @return the double
+	 */
+	double getDouble(long address, int position) {
+		return slab(address).getDouble(offset(address) + position);
+	}
+
+	/**
+	 * Writes a double of a block.
+	 *
+	 * @param address
+	 *            the address of the block
+	 * @param position
+	 *            the position in the block
+	 * @param value
+	 *            the double
+	 */
+	void putDouble(long address, int position, double value) {
+		slab(address).putDouble(offset(address) + position, value);
+	}
+
+	/**
+	 * Reads bytes of a block into an array.
+	 *
+	 * @param address
+	 *            the address of the block
+	 * @param position
+	 *            the position in the block
+	 * @param bytes
+	 *            the array
+	 * @param length
+	 *            the number of bytes
+	 */
+	void getBytes(long address, int position, byte[] bytes, int length) {
+		ByteBuffer view = slab(address).duplicate();
+		view.position(offset(address) + position);
+		view.get(bytes, 0, length);
+	}
+
+	/**
+	 * Writes bytes of an array to a block.
+	 *
+	 * @param address
+	 *            the address of the block
+	 * @param position
+	 *            the position in the block
+	 * @param bytes
+	 *            the array
+	 * @param length
+	 *            the number of bytes
+	 */
+	void putBytes(long address, int position, byte[] bytes, int length) {
+		ByteBuffer view = slab(address).duplicate();
+		view.position(offset(address) + position);
+		view.put(bytes, 0, length);
+	}
+
+	/**
+	 * Copies bytes from one block to another, which may overlap.
+	 *
+	 * @param from
+	 *            the address of the source block
+	 * @param fromPosition
+	 *            the position in the source block
+	 * @param to
+	 *            the address of the target block
+	 * @param toPosition
+	 *            the position in the target block
+	 * @param length
+	 *            the number of bytes
+	 */
+	void copy(long from, int fromPosition, long to, int toPosition, int length) {
+		if (length == 0) {
+			return;
+		}
+		ByteBuffer source = slab(from).duplicate();
+		source.position(offset(from) + fromPosition).limit(offset(from) + fromPosition + length);
+		ByteBuffer target = slab(to).duplicate();
+		target.position(offset(to) + toPosition);
+		if (slab(from) == slab(to) && Math.abs(source.position() - target.position()) < length) {
+			// The copy between buffers does not handle overlapping ranges,
+			// so the bytes go through an array
+			if (scratch.length < length) {
+				scratch = new byte[Math.max(length, scratch.length * 2)];
+			}
+			source.get(scratch, 0, length);
+			target.put(scratch, 0, length);
+		} else {
+			target.put(source);
+		}
+	}
+
+	/**
+	 * Gets the bytes taken by the slabs.
+	 *
+	 * @return the reserved bytes
+	 */
+	long getReservedBytes() {
+		return (long) slabCount * slabSize;
+	}
+
+	/**
+	 * Gets the bytes of the blocks in use.
+	 *
+	 * @return the allocated bytes
+	 */
+	long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	/**
+	 * Gets the bytes of the freed blocks waiting to be reused.
+	 *
+	 * @return the free bytes
+	 */
+	long getFreeBytes() {
+		return freeBytes;
+	}
+
+}
@@ -0,0 +1,627 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The Class OffHeapBPlusTree. A B Plus Tree whose nodes and values live
+ * outside the Java heap, in an OffHeapArena. The tree object itself is a
+ * handle holding the arena and the address of the root: however many keys
+ * the tree holds, the garbage collector only sees the slabs, and the memory
+ * of the tree is the size of its slabs, which can be bounded.
+ *
+ * Node block: flags, keyCount, prev, next, the m keys, then m + 1 slots
+ * holding the addresses of the children of an internal node, or of the
+ * value chains of an external node. Value chain block: capacity, bytes
+ * used, next block, and in the first block the number of values and the
+ * last block, then the values as length-prefixed UTF-8 strings. A chain
+ * grows by moving to a block twice as large, freeing the old one, until it
+ * reaches MAX_MOVED_BLOCK_SIZE; from there on, blocks are linked to it.
+ *
+ * Like BPlusTree, the tree is not thread safe.
+ */
+public class OffHeapBPlusTree implements Closeable {
+
+	/** The default size of a slab in bytes. */
+	public static final int DEFAULT_SLAB_SIZE = 1 << 20;
+
+	/** The most levels a tree can have. */
+	private static final int MAX_HEIGHT = 64;
+
+	/** The position of the flags of a node, 1 for an external node. */
+	private static final int FLAGS = 0;
+
+	/** The position of the number of keys of a node. */
+	private static final int KEY_COUNT = 4;
+
+	/** The position of the previous external node. */
+	private static final int PREV = 8;
+
+	/** The position of the next external node. */
+	private static final int NEXT = 16;
+
+	/** The position of the keys of a node. */
+	private static final int KEYS = 24;
+
+	/** The position of the capacity of a value block. */
+	private static final int CAPACITY = 0;
+
+	/** The position of the number of bytes used in a value block. */
+	private static final int USED = 4;
+
+	/** The position of the next block of a value chain. */
+	private static final int NEXT_BLOCK = 8;
+
+	/** The position of the number of values, in the first block of a chain. */
+	private static final int VALUE_COUNT = 16;
+
+	/** The position of the last block, in the first block of a chain. */
+	private static final int TAIL = 24;
+
+	/** The bytes taken by the header of a value block. */
+	private static final int BLOCK_HEADER_SIZE = 32;
+
+	/** The largest block a value chain is moved to as it grows. */
+	private static final int MAX_MOVED_BLOCK_SIZE = 4096;
+
+	/** The arena holding the nodes and values. */
+	private final OffHeapArena arena;
+
+	/** The degree m. */
+	private final int m;
+
+	/** The position of the child or value slots of a node. */
+	private final int slots;
+
+	/** The size of a node block in bytes. */
+	private final int nodeSize;
+
+	/** The size of a slab in bytes. */
+	private final int slabSize;
+
+	/** The address of the root, 0 for an empty tree. */
+	private long root;
+
+	/** The sizes of the blocks an insert may allocate. */
+	private final int[] reservedSizes = new int[MAX_HEIGHT + 3];
+
+	/** The array values are decoded from. */
+	private byte[] scratch = new byte[256];
+
+	/**
+	 * Instantiates a new off-heap B Plus Tree with slabs of the default size
+	 * and no bound on its memory.
+	 *
+	 * @param order
+	 *            the degree of the B Plus Tree
+	 */
+	public OffHeapBPlusTree(int order) {
+		this(order, DEFAULT_SLAB_SIZE, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Instantiates a new off-heap B Plus Tree.
+	 *
+	 * @param order
+	 *            the degree of the B Plus Tree
+	 * @param slabSize
+	 *            the size of a slab in bytes, a power of two of at least 4096
+	 * @param maxBytes
+	 *            the most bytes the slabs may take; an insert needing more
+	 *            throws an IllegalStateException
+	 */
+	public OffHeapBPlusTree(int order, int slabSize, long maxBytes) {
+		if (order < 3) {
+			throw new IllegalArgumentException("Order must be at least 3: " + order);
+		}
+		this.m = order;
+		this.slots = KEYS + 8 * order;
+		this.nodeSize = slots + 8 * (order + 1);
+		if (nodeSize > slabSize) {
+			throw new IllegalArgumentException("A node of degree " + order + " does not fit in a slab of "
+					+ slabSize + " bytes");
+		}
+		this.slabSize = slabSize;
+		this.arena = new OffHeapArena(slabSize, maxBytes);
+	}
+
+	/**
+	 * Insert a key and value pair to the B Plus Tree
+	 *
+	 * @param key
+	 *            the key to be inserted
+	 * @param value
+	 *            the value to be inserted
+	 */
+	public void insert(double key, String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		if (BLOCK_HEADER_SIZE + 4 + bytes.length > slabSize) {
+			throw new IllegalArgumentException("Value does not fit in a slab of " + slabSize + " bytes");
+		}
+		if (0 == this.root) {
+			this.root = newNode(true);
+		}
+		// There are no parent links between nodes, so the internal nodes
+		// passed on the way down are kept for the splits
+		long[] path = new long[MAX_HEIGHT];
+		int depth = 0;
+		long curr = this.root;
+		while (!isExternal(curr)) {
+			path[depth++] = curr;
+			curr = child(curr, upperBound(curr, key));
+		}
+		reserve(key, bytes.length, curr, depth);
+		insertWithinExternalNode(key, bytes, curr);
+		if (keyCount(curr) < this.m) {
+			return;
+		}
+
+		// If the external node becomes full, we split it, and propagate the
+		// split up the path as long as the parents become full
+		long rightPart = splitExternalNode(curr);
+		double middleKey = key(rightPart, 0);
+		long left = curr;
+		while (true) {
+			if (depth == 0) {
+				// the root was split, a new root is created above it
+				long newRoot = newNode(false);
+				arena.putDouble(newRoot, KEYS, middleKey);
+				arena.putLong(newRoot, slots, left);
+				arena.putLong(newRoot, slots + 8, rightPart);
+				arena.putInt(newRoot, KEY_COUNT, 1);
+				this.root = newRoot;
+				return;
+			}
+			long parent = path[--depth];
+			insertWithinInternalNode(middleKey, rightPart, parent);
+			if (keyCount(parent) < this.m) {
+				return;
+			}
+			rightPart = splitInternalNode(parent);
+			middleKey = key(parent, keyCount(parent));
+			left = parent;
+		}
+	}
+
+	/**
+	 * Checks that the arena can hold the blocks an insert may allocate: the
+	 * value block, and if the external node is split, a node for each split
+	 * up to the root and a new root. A
+	 * bounded arena then fails before the tree is modified, never in the
+	 * middle of a split.
+	 *
+	 * @param key
+	 *            the key to be inserted
+	 * @param length
+	 *            the length of the UTF-8 bytes of the value
+	 * @param node
+	 *            the external node where the pair will be inserted
+	 * @param depth
+	 *            the number of internal nodes above the external node
+	 */
+	private void reserve(double key, int length, long node, int depth) {
+		int index = upperBound(node, key) - 1;
+		int blocks = 0;
+		if (index >= 0 && key(node, index) == key) {
+			int size = newBlockSize(child(node, index), 4 + length);
+			if (0 != size) {
+				reservedSizes[blocks++] = size;
+			}
+		} else {
+			reservedSizes[blocks++] = BLOCK_HEADER_SIZE + 4 + length;
+			if (keyCount(node) + 1 == this.m) {
+				// The new key splits the external node, and at worst every
+				// node above it
+				for (int i = 0; i <= depth + 1; i++) {
+					reservedSizes[blocks++] = nodeSize;
+				}
+			}
+		}
+		arena.reserve(reservedSizes, blocks);
+	}
+
+	/**
+	 * Insert the key value pair to the external node.
+	 *
+	 * @param key
+	 *            the key to be inserted
+	 * @param bytes
+	 *            the UTF-8 bytes of the value to be inserted
+	 * @param node
+	 *            the external node where the pair has to be inserted
+	 */
+	private void insertWithinExternalNode(double key, byte[] bytes, long node) {
+		int keyCount = keyCount(node);
+		int indexOfKey = upperBound(node, key);
+		if (indexOfKey != 0 && key(node, indexOfKey - 1) == key) {
+			appendValue(node, indexOfKey - 1, bytes);
+			return;
+		}
+		// Key doesn't exist. Shift the greater keys and their value chains
+		// right and add key and value
+		int moved = 8 * (keyCount - indexOfKey);
+		arena.copy(node, KEYS + 8 * indexOfKey, node, KEYS + 8 * (indexOfKey + 1), moved);
+		arena.copy(node, slots + 8 * indexOfKey, node, slots + 8 * (indexOfKey + 1), moved);
+		arena.putDouble(node, KEYS + 8 * indexOfKey, key);
+		long block = arena.allocate(BLOCK_HEADER_SIZE + 4 + bytes.length);
+		arena.putInt(block, CAPACITY, (BLOCK_HEADER_SIZE + 4 + bytes.length + 7) & ~7);
+		arena.putInt(block, USED, BLOCK_HEADER_SIZE);
+		arena.putLong(block, NEXT_BLOCK, 0);
+		arena.putInt(block, VALUE_COUNT, 0);
+		arena.putLong(block, TAIL, block);
+		arena.putLong(node, slots + 8 * indexOfKey, block);
+		arena.putInt(node, KEY_COUNT, keyCount + 1);
+		appendValue(node, indexOfKey, bytes);
+	}
+
+	/**
+	 * Appends a value to the value chain of a key.
+	 *
+	 * @param node
+	 *            the external node
+	 * @param index
+	 *            the index of the key
+	 * @param bytes
+	 *            the UTF-8 bytes of the value
+	 */
+	private void appendValue(long node, int index, byte[] bytes) {
+		long head = child(node, index);
+		long tail = arena.getLong(head, TAIL);
+		int capacity = arena.getInt(tail, CAPACITY);
+		int used = arena.getInt(tail, USED);
+		int entrySize = 4 + bytes.length;
+		int size = newBlockSize(head, entrySize);
+		if (0 != size) {
+			if (head == tail && used + entrySize <= MAX_MOVED_BLOCK_SIZE) {
+				// Move the single block of the chain to a larger block, the
+				// old block is reused by the next block of its size
+				long block = arena.allocate(size);
+				arena.copy(head, 0, block, 0, used);
+				arena.putInt(block, CAPACITY, size);
+				arena.putLong(block, TAIL, block);
+				arena.free(head, capacity);
+				arena.putLong(node, slots + 8 * index, block);
+				head = block;
+			} else {
+				// Link a new block to the chain
+				long block = arena.allocate(size);
+				arena.putInt(block, CAPACITY, size);
+				arena.putLong(block, NEXT_BLOCK, 0);
+				arena.putLong(tail, NEXT_BLOCK, block);
+				arena.putLong(head, TAIL, block);
+				used = BLOCK_HEADER_SIZE;
+			}
+			tail = arena.getLong(head, TAIL);
+		}
+		arena.putInt(tail, used, bytes.length);
+		arena.putBytes(tail, used + 4, bytes, bytes.length);
+		arena.putInt(tail, USED, used + entrySize);
+		arena.putInt(head, VALUE_COUNT, arena.getInt(head, VALUE_COUNT) + 1);
+	}
+
+	/**
+	 * Finds the size of the block a value chain needs for one more value:
+	 * twice the size of its single block while the chain fits in
+	 * MAX_MOVED_BLOCK_SIZE, else twice the size of its last block, up to the
+	 * size of a slab.
+	 *
+	 * @param head
+	 *            the address of the first block of the chain
+	 * @param entrySize
+	 *            the bytes taken by the value
+	 * @return the size of the new block, 0 if the last block has room
+	 */
+	private int newBlockSize(long head, int entrySize) {
+		long tail = arena.getLong(head, TAIL);
+		int capacity = arena.getInt(tail, CAPACITY);
+		int used = arena.getInt(tail, USED);
+		if (used + entrySize <= capacity) {
+			return 0;
+		}
+		if (head == tail && used + entrySize <= MAX_MOVED_BLOCK_SIZE) {
+			return Math.min(MAX_MOVED_BLOCK_SIZE, powerOfTwo(Math.max(capacity * 2, used + entrySize)));
+		}
+		return Math.min(slabSize, Math.max(capacity * 2, powerOfTwo(BLOCK_HEADER_SIZE + entrySize)));
+	}
+
+	/**
+	 * Rounds a size up to a power of two.
+	 *
+	 * @param size
+	 *            the size, at least 2
+	 * @return the smallest power of two not less than the size
+	 */
+	private static int powerOfTwo(int size) {
+		return Integer.highestOneBit(size - 1) << 1;
+	}
+
+	/**
+	 * Split external node. The right half of the keys moves to a new node.
+	 *
+	 * @param curr
+	 *            the over-full external node
+	 * @return the address of the right part of the split
+	 */
+	private long splitExternalNode(long curr) {
+		int keyCount = keyCount(curr);
+		int midIndex = this.m / 2;
+		long rightPart = newNode(true);
+		arena.copy(curr, KEYS + 8 * midIndex, rightPart, KEYS, 8 * (keyCount - midIndex));
+		arena.copy(curr, slots + 8 * midIndex, rightPart, slots, 8 * (keyCount - midIndex));
+		arena.putInt(rightPart, KEY_COUNT, keyCount - midIndex);
+		arena.putInt(curr, KEY_COUNT, midIndex);
+
+		// Update the linked list of external nodes
+		long next = arena.getLong(curr, NEXT);
+		arena.putLong(rightPart, PREV, curr);
+		arena.putLong(rightPart, NEXT, next);
+		if (0 != next) {
+			arena.putLong(next, PREV, rightPart);
+		}
+		arena.putLong(curr, NEXT, rightPart);
+		return rightPart;
+	}
+
+	/**
+	 * Insert a key and the child right of it to an internal node.
+	 *
+	 * @param key
+	 *            the key to be inserted
+	 * @param child
+	 *            the address of the child right of the key
+	 * @param node
+	 *            the internal node
+	 */
+	private void insertWithinInternalNode(double key, long child, long node) {
+		int keyCount = keyCount(node);
+		int indexToBeInsertedAt = upperBound(node, key);
+		int moved = 8 * (keyCount - indexToBeInsertedAt);
+		arena.copy(node, KEYS + 8 * indexToBeInsertedAt, node, KEYS + 8 * (indexToBeInsertedAt + 1), moved);
+		arena.copy(node, slots + 8 * (indexToBeInsertedAt + 1), node, slots + 8 * (indexToBeInsertedAt + 2),
+				moved);
+		arena.putDouble(node, KEYS + 8 * indexToBeInsertedAt, key);
+		arena.putLong(node, slots + 8 * (indexToBeInsertedAt + 1), child);
+		arena.putInt(node, KEY_COUNT, keyCount + 1);
+	}
+
+	/**
+	 * Split the over-full internal node like a b tree node. The middle key is
+	 * left just past the keys of the node, at index keyCount, to be sent up.
+	 *
+	 * @param curr
+	 *            the over-full internal node
+	 * @return the address of the right part of the split
+	 */
+	private long splitInternalNode(long curr) {
+		int midIndex = (int) Math.ceil(this.m / 2.0) - 1;
+		int rightKeyCount = this.m - midIndex - 1;
+		long rightPart = newNode(false);
+		arena.copy(curr, KEYS + 8 * (midIndex + 1), rightPart, KEYS, 8 * rightKeyCount);
+		arena.copy(curr, slots + 8 * (midIndex + 1), rightPart, slots, 8 * (rightKeyCount + 1));
+		arena.putInt(rightPart, KEY_COUNT, rightKeyCount);
+		arena.putInt(curr, KEY_COUNT, midIndex);
+		return rightPart;
+	}
+
+	/**
+	 * Search values for a key
+	 *
+	 * @param key
+	 *            the key to be searched
+	 * @return the list of values for the key, null if the key is not present
+	 */
+	public List<String> search(double key) {
+		long curr = findExternalNode(key);
+		if (0 == curr) {
+			return null;
+		}
+		int index = upperBound(curr, key) - 1;
+		if (index >= 0 && key(curr, index) == key) {
+			return valueList(child(curr, index));
+		}
+		return null;
+	}
+
+	/**
+	 * Search for all key values pairs between key1 and key2.
+	 *
+	 * @param key1
+	 *            the starting key
+	 * @param key2
+	 *            the ending key
+	 * @return the list of key value pairs between the two keys
+	 */
+	public List<Key> search(double key1, double key2) {
+		List<Key> searchKeys = new ArrayList<>();
+		long curr = findExternalNode(key1);
+		while (0 != curr) {
+			int keyCount = keyCount(curr);
+			for (int i = 0; i < keyCount; i++) {
+				double key = key(curr, i);
+				if (key > key2) {
+					return searchKeys;
+				}
+				if (key >= key1) {
+					searchKeys.add(new Key(key, valueList(child(curr, i))));
+				}
+			}
+			curr = arena.getLong(curr, NEXT);
+		}
+		return searchKeys;
+	}
+
+	/**
+	 * Traverses to the external node that 'should' contain a key.
+	 *
+	 * @param key
+	 *            the key to be searched
+	 * @return the address of the external node, 0 if the tree is empty
+	 */
+	private long findExternalNode(double key) {
+		long curr = this.root;
+		while (0 != curr && !isExternal(curr)) {
+			curr = child(curr, upperBound(curr, key));
+		}
+		return curr;
+	}
+
+	/**
+	 * Decodes the values of a value chain.
+	 *
+	 * @param head
+	 *            the address of the first block of the chain
+	 * @return the values
+	 */
+	private List<String> valueList(long head) {
+		List<String> values = new ArrayList<>(arena.getInt(head, VALUE_COUNT));
+		for (long block = head; 0 != block; block = arena.getLong(block, NEXT_BLOCK)) {
+			int used = arena.getInt(block, USED);
+			int position = BLOCK_HEADER_SIZE;
+			while (position < used) {
+				int length = arena.getInt(block, position);
+				if (scratch.length < length) {
+					scratch = new byte[Math.max(length, scratch.length * 2)];
+				}
+				arena.getBytes(block, position + 4, scratch, length);
+				values.add(new String(scratch, 0, length, StandardCharsets.UTF_8));
+				position += 4 + length;
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Allocates an empty node.
+	 *
+	 * @param external
+	 *            true for an external node
+	 * @return the address of the node
+	 */
+	private long newNode(boolean external) {
+		long node = arena.allocate(nodeSize);
+		arena.putInt(node, FLAGS, external ? 1 : 0);
+		arena.putInt(node, KEY_COUNT, 0);
+		arena.putLong(node, PREV, 0);
+		arena.putLong(node, NEXT, 0);
+		return node;
+	}
+
+	/**
+	 * Checks if a node is external.
+	 *
+	 * @param node
+	 *            the address of the node
+	 * @return true, if the node is external
+	 */
+	private boolean isExternal(long node) {
+		return arena.getInt(node, FLAGS) == 1;
+	}
+
+	/**
+	 * Gets the number of keys of a node.
+	 *
+	 * @param node
+	 *            the address of the node
+	 * @return the key count
+	 */
+	private int keyCount(long node) {
+		return arena.getInt(node, KEY_COUNT);
+	}
+
+	/**
+	 * Gets a key of a node.
+	 *
+	 * @param node
+	 *            the address of the node
+	 * @param index
+	 *            the index of the key
+	 * @return the key
+	 */
+	private double key(long node, int index) {
+		return arena.getDouble(node, KEYS + 8 * index);
+	}
+
+	/**
+	 * Gets a slot of a node: a child of an internal node, or the first block
+	 * of a value chain of an external node.
+	 *
+	 * @param node
+	 *            the address of the node
+	 * @param index
+	 *            the index of the slot
+	 * @return the address held by the slot
+	 */
+	private long child(long node, int index) {
+		return arena.getLong(node, slots + 8 * index);
+	}
+
+	/**
+	 * Finds the first index of the keys of a node at which the key is greater
+	 * than the input key.
+	 *
+	 * @param node
+	 *            the address of the node
+	 * @param key
+	 *            the key to be searched
+	 * @return the first index at which the key is greater than the input key,
+	 *         or keyCount if there is no such key
+	 */
+	private int upperBound(long node, double key) {
+		int st = 0;
+		int end = keyCount(node);
+		while (st < end) {
+			int mid = (st + end) >>> 1;
+			if (key < key(node, mid)) {
+				end = mid;
+			} else {
+				st = mid + 1;
+			}
+		}
+		return st;
+	}
+
+	/**
+	 * Gets the bytes taken by the slabs of the tree, the whole off-heap
+	 * memory it holds.
+	 *
+	 * @return the reserved bytes
+	 */
+	public long getReservedBytes() {
+		return arena.getReservedBytes();
+	}
+
+	/**
+	 * Gets the bytes of the node and value blocks in use.
+	 *
+	 * @return the allocated bytes
+	 */
+	public long getAllocatedBytes() {
+		return arena.getAllocatedBytes();
+	}
+
+	/**
+	 * Gets the bytes of the freed blocks waiting to be reused.
+	 *
+	 * @return the free bytes
+	 */
+	public long getFreeBytes() {
+		return arena.getFreeBytes();
+	}
+
+	/**
+	 * Drops all slabs, emptying the tree. The off-heap memory is returned once
+	 * the garbage collector collects the slabs.
+	 */
+	@Override
+	public void close() {
+		arena.release();
+		this.root = 0;
+	}
+
+}
@@ -0,0 +1,77 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The Class OverflowPage. A page of a chain holding the values of a single key
+ * whose values do not fit in its external node. The first page of the chain
+ * also keeps the page ID of the last one, so that values are appended without
+ * walking the chain.
+ *
+ * Layout: type, next, tail, count, then length-prefixed UTF-8 strings.
+ */
+class OverflowPage extends Page {
+
+	/** The bytes taken by the header of an overflow page. */
+	static final int HEADER_SIZE = 1 + 8 + 8 + 4;
+
+	/** The page ID of the next page of the chain. */
+	long next = PageFile.NO_PAGE;
+
+	/** The page ID of the last page of the chain. Kept in the first page. */
+	long tail;
+
+	/** The values stored in this page. */
+	final List<String> values = new ArrayList<>();
+
+	/** The number of bytes the page takes when written. */
+	int encodedSize = HEADER_SIZE;
+
+	/**
+	 * Instantiates a new empty overflow page.
+	 *
+	 * @param pageId
+	 *            the page ID
+	 */
+	OverflowPage(long pageId) {
+		super(pageId);
+		this.tail = pageId;
+	}
+
+	@Override
+	void writeTo(ByteBuffer buffer) {
+		buffer.put(TYPE_OVERFLOW).putLong(next).putLong(tail).putInt(values.size());
+		for (String value : values) {
+			putString(buffer, value);
+		}
+	}
+
+	/**
+	 * Decodes an overflow page from a buffer positioned after the type byte.
+	 *
+	 * @param pageId
+	 *            the page ID
+	 * @param buffer
+	 *            the buffer
+	 * @return the page
+	 */
+	static OverflowPage readFrom(long pageId, ByteBuffer buffer) {
+		OverflowPage page = new OverflowPage(pageId);
+		page.next = buffer.getLong();
+		page.tail = buffer.getLong();
+		int count = buffer.getInt();
+		for (int i = 0; i < count; i++) {
+			String value = getString(buffer);
+			page.values.add(value);
+			page.encodedSize += encodedSize(value);
+		}
+		return page;
+	}
+
+}
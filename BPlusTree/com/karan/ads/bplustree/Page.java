@@ -0,0 +1,132 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The Class Page. A decoded page of a page file, kept in the buffer pool. The
+ * first byte of every page tells how the rest of it is laid out.
+ */
+abstract class Page {
+
+	/** The type of a page that was allocated but never written. */
+	static final byte TYPE_EMPTY = 0;
+
+	/** The type of an external node page. */
+	static final byte TYPE_EXTERNAL = 1;
+
+	/** The type of an internal node page. */
+	static final byte TYPE_INTERNAL = 2;
+
+	/** The type of a page continuing the values of a single key. */
+	static final byte TYPE_OVERFLOW = 3;
+
+	/** The page ID. */
+	final long pageId;
+
+	/**
+	 * Instantiates a new page.
+	 *
+	 * @param pageId
+	 *            the page ID
+	 */
+	Page(long pageId) {
+		this.pageId = pageId;
+	}
+
+	/**
+	 * Encodes the page into a buffer of one page.
+	 *
+	 * @param buffer
+	 *            the buffer, positioned at the start of the page
+	 */
+	abstract void writeTo(ByteBuffer buffer);
+
+	/**
+	 * Decodes a page from a buffer.
+	 *
+	 * @param pageId
+	 *            the page ID
+	 * @param buffer
+	 *            the buffer, positioned at the start of the page
+	 * @param order
+	 *            the degree of the tree
+	 * @return the page, or null for a page that was never written
+	 */
+	static Page readFrom(long pageId, ByteBuffer buffer, int order) {
+		byte type = buffer.get();
+		switch (type) {
+		case TYPE_EXTERNAL:
+		case TYPE_INTERNAL:
+			return PagedNode.readFrom(pageId, type == TYPE_EXTERNAL, buffer, order);
+		case TYPE_OVERFLOW:
+			return OverflowPage.readFrom(pageId, buffer);
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Gets the number of bytes a value takes in a page: its length and its
+	 * UTF-8 encoding.
+	 *
+	 * @param value
+	 *            the value
+	 * @return the size in bytes
+	 */
+	static int encodedSize(String value) {
+		int size = 4;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c < 0x80) {
+				size += 1;
+			} else if (c < 0x800) {
+				size += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+					&& Character.isLowSurrogate(value.charAt(i + 1))) {
+				size += 4;
+				i++;
+			} else if (Character.isSurrogate(c)) {
+				// an unpaired surrogate is encoded as '?'
+				size += 1;
+			} else {
+				size += 3;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Writes a value with its length.
+	 *
+	 * @param buffer
+	 *            the buffer
+	 * @param value
+	 *            the value
+	 */
+	static void putString(ByteBuffer buffer, String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		buffer.putInt(bytes.length);
+		buffer.put(bytes);
+	}
+
+	/**
+	 * Reads a value written by putString.
+	 *
+	 * @param buffer
+	 *            the buffer
+	 * @return the value
+	 */
+	static String getString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+				StandardCharsets.UTF_8);
+		buffer.position(buffer.position() + length);
+		return value;
+	}
+
+}
@@ -0,0 +1,212 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The Class PageFile. A file of fixed-size pages read and written through a
+ * FileChannel. Page 0 is the header, holding the page size, the degree of the
+ * tree, the page ID of the root and the number of allocated pages.
+ */
+class PageFile implements Closeable {
+
+	/** The magic number at the start of the header, "BPT1". */
+	private static final int MAGIC = 0x42505431;
+
+	/** The page ID used for a missing page, such as the next of the last leaf. */
+	static final long NO_PAGE = -1;
+
+	/** The channel to the file. */
+	private final FileChannel channel;
+
+	/** The size of a page in bytes. */
+	private final int pageSize;
+
+	/** The degree of the tree stored in the file. */
+	private final int order;
+
+	/** The page ID of the root. */
+	private long rootPageId;
+
+	/** The number of pages allocated, including the header. */
+	private long pageCount;
+
+	/**
+	 * Opens a page file, creating it if it does not exist or is empty. The
+	 * page size and degree of an existing file are read from its header.
+	 *
+	 * @param path
+	 *            the path of the file
+	 * @param order
+	 *            the degree of the tree, for a new file
+	 * @param pageSize
+	 *            the size of a page in bytes, for a new file
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	PageFile(Path path, int order, int pageSize) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		if (channel.size() == 0) {
+			this.pageSize = pageSize;
+			this.order = order;
+			this.rootPageId = NO_PAGE;
+			this.pageCount = 1;
+			writeHeader();
+		} else {
+			ByteBuffer header = ByteBuffer.allocate(28);
+			readFully(header, 0);
+			header.flip();
+			if (header.getInt() != MAGIC) {
+				channel.close();
+				throw new IOException("Not a B Plus Tree page file: " + path);
+			}
+			this.pageSize = header.getInt();
+			this.order = header.getInt();
+			this.rootPageId = header.getLong();
+			this.pageCount = header.getLong();
+		}
+	}
+
+	/**
+	 * Writes the header to page 0.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	void writeHeader() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(28);
+		header.putInt(MAGIC).putInt(pageSize).putInt(order).putLong(rootPageId).putLong(pageCount);
+		header.flip();
+		writeFully(header, 0);
+	}
+
+	/**
+	 * Allocates a new page at the end of the file. The page is written only
+	 * when it is flushed from the buffer pool.
+	 *
+	 * @return the page ID of the new page
+	 */
+	long allocate() {
+		return pageCount++;
+	}
+
+	/**
+	 * Reads consecutive pages into a buffer, starting at its position. Pages
+	 * past the end of the file are left as they are in the buffer.
+	 *
+	 * @param pageId
+	 *            the page ID of the first page
+	 * @param buffer
+	 *            the buffer, whose remaining bytes are a multiple of the page
+	 *            size
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	void read(long pageId, ByteBuffer buffer) throws IOException {
+		long position = pageId * pageSize - buffer.position();
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Writes a page from a buffer holding exactly one page.
+	 *
+	 * @param pageId
+	 *            the page ID
+	 * @param buffer
+	 *            the buffer holding the page
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	void write(long pageId, ByteBuffer buffer) throws IOException {
+		writeFully(buffer, pageId * pageSize);
+	}
+
+	/**
+	 * Forces the written pages to the storage device.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	void force() throws IOException {
+		channel.force(false);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of page file");
+			}
+		}
+	}
+
+	private void writeFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer, position + buffer.position());
+		}
+	}
+
+	/**
+	 * Gets the size of a page in bytes.
+	 *
+	 * @return the page size
+	 */
+	int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Gets the degree of the tree stored in the file.
+	 *
+	 * @return the degree
+	 */
+	int getOrder() {
+		return order;
+	}
+
+	/**
+	 * Gets the page ID of the root.
+	 *
+	 * @return the root page ID, NO_PAGE for a new file
+	 */
+	long getRootPageId() {
+		return rootPageId;
+	}
+
+	/**
+	 * Sets the page ID of the root.
+	 *
+	 * @param rootPageId
+	 *            the new root page ID
+	 */
+	void setRootPageId(long rootPageId) {
+		this.rootPageId = rootPageId;
+	}
+
+	/**
+	 * Gets the number of allocated pages.
+	 *
+	 * @return the page count
+	 */
+	long getPageCount() {
+		return pageCount;
+	}
+
+}
@@ -0,0 +1,545 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The Class PagedBPlusTree. A persistent B Plus Tree whose nodes are fixed-size
+ * pages of a file. Children and siblings are linked by page ID, and the nodes
+ * in use are kept in a bounded buffer pool, so the tree can be far larger than
+ * the memory given to it. Since the upper levels are touched by every search,
+ * they stay in the pool, and a search reads at most one page per level that
+ * is not. Range searches read ahead the pages following an external node that
+ * is not in the pool, which pays off for external nodes written in order, as
+ * by sequential inserts.
+ *
+ * An external node is split when it reaches m keys or when it no longer fits
+ * in its page. The values of a key that outgrow a quarter of a page are moved
+ * to a chain of overflow pages. The tree is written to the file by flush and
+ * close; it is not thread safe.
+ */
+public class PagedBPlusTree implements Closeable {
+
+	/** The default size of a page in bytes. */
+	public static final int DEFAULT_PAGE_SIZE = 4096;
+
+	/** The number of pages read at once when a scan misses the pool. */
+	private static final int READ_AHEAD_PAGES = 16;
+
+	/** The most levels a tree can have. */
+	private static final int MAX_HEIGHT = 64;
+
+	/** The page file. */
+	private final PageFile file;
+
+	/** The buffer pool. */
+	private final BufferPool pool;
+
+	/** The degree m. */
+	private final int m;
+
+	/** The size of a page in bytes. */
+	private final int pageSize;
+
+	/** The page ID of the root of the B Plus Tree. */
+	private long root;
+
+	/**
+	 * Opens the tree stored in a file, or creates a new tree if the file does
+	 * not exist or is empty. The degree and page size of an existing file are
+	 * taken from the file.
+	 *
+	 * @param path
+	 *            the path of the file
+	 * @param order
+	 *            the degree of a new tree
+	 * @param pageSize
+	 *            the size of a page of a new tree, in bytes
+	 * @param poolPages
+	 *            the number of pages kept in memory
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public PagedBPlusTree(Path path, int order, int pageSize, int poolPages) throws IOException {
+		if (poolPages < 8) {
+			throw new IllegalArgumentException("The buffer pool needs at least 8 pages: " + poolPages);
+		}
+		this.file = new PageFile(path, order, pageSize);
+		this.m = file.getOrder();
+		this.pageSize = file.getPageSize();
+		if (this.m < 3 || PagedNode.internalSize(this.m) > this.pageSize) {
+			file.close();
+			throw new IllegalArgumentException("A node of degree " + this.m + " does not fit in a page of "
+					+ this.pageSize + " bytes");
+		}
+		this.pool = new BufferPool(file, poolPages);
+		if (file.getRootPageId() == PageFile.NO_PAGE) {
+			PagedNode newRoot = pool.pinNew(new PagedNode(file.allocate(), m, true));
+			pool.unpin(newRoot, true);
+			file.setRootPageId(newRoot.pageId);
+		}
+		this.root = file.getRootPageId();
+	}
+
+	/**
+	 * Insert a key and value pair to the B Plus Tree
+	 *
+	 * @param key
+	 *            the key to be inserted
+	 * @param value
+	 *            the value to be inserted
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public void insert(double key, String value) throws IOException {
+		if (OverflowPage.HEADER_SIZE + Page.encodedSize(value) > pageSize) {
+			throw new IllegalArgumentException("Value does not fit in a page of " + pageSize + " bytes");
+		}
+		// There are no parent links between pages, so the internal nodes
+		// passed on the way down are kept for the splits
+		long[] path = new long[MAX_HEIGHT];
+		int depth = 0;
+		PagedNode curr = pinNode(this.root);
+		while (!curr.isExternal()) {
+			path[depth++] = curr.pageId;
+			long child = curr.children[BPlusTree.upperBound(key, curr.keys, curr.keyCount)];
+			pool.unpin(curr, false);
+			curr = pinNode(child);
+		}
+		insertWithinExternalNode(key, value, curr);
+		if (curr.keyCount < this.m && curr.encodedSize <= pageSize) {
+			pool.unpin(curr, true);
+			return;
+		}
+
+		// If the external node becomes full, we split it, and propagate the
+		// split up the path as long as the parents become full
+		PagedNode rightPart = splitExternalNode(curr);
+		double middleKey = rightPart.keys[0];
+		long left = curr.pageId;
+		pool.unpin(curr, true);
+		while (true) {
+			if (depth == 0) {
+				// the root was split, a new root is created above it
+				PagedNode newRoot = pool.pinNew(new PagedNode(file.allocate(), m, false));
+				newRoot.keys[0] = middleKey;
+				newRoot.children[0] = left;
+				newRoot.children[1] = rightPart.pageId;
+				newRoot.keyCount = 1;
+				newRoot.encodedSize = PagedNode.internalSize(1);
+				pool.unpin(newRoot, true);
+				pool.unpin(rightPart, true);
+				this.root = newRoot.pageId;
+				file.setRootPageId(this.root);
+				return;
+			}
+			PagedNode parent = pinNode(path[--depth]);
+			insertWithinInternalNode(middleKey, rightPart.pageId, parent);
+			pool.unpin(rightPart, true);
+			if (parent.keyCount < this.m) {
+				pool.unpin(parent, true);
+				return;
+			}
+			rightPart = splitInternalNode(parent);
+			middleKey = parent.keys[parent.keyCount];
+			left = parent.pageId;
+			pool.unpin(parent, true);
+		}
+	}
+
+	/**
+	 * Insert the key value pair to the external node, moving the values of
+	 * the key to an overflow chain if they take too much of the page.
+	 *
+	 * @param key
+	 *            the key to be inserted
+	 * @param value
+	 *            the value to be inserted
+	 * @param node
+	 *            the pinned external node
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@SuppressWarnings("unchecked")
+	private void insertWithinExternalNode(double key, String value, PagedNode node) throws IOException {
+		int indexOfKey = BPlusTree.upperBound(key, node.keys, node.keyCount);
+		if (indexOfKey != 0 && node.keys[indexOfKey - 1] == key) {
+			int slot = indexOfKey - 1;
+			Object existing = node.values[slot];
+			if (existing instanceof Long) {
+				appendToOverflow((Long) existing, value);
+				return;
+			}
+			int oldSize = PagedNode.slotSize(existing);
+			List<String> valueList;
+			if (existing instanceof String) {
+				valueList = new ArrayList<>();
+				valueList.add((String) existing);
+			} else {
+				valueList = (List<String>) existing;
+			}
+			valueList.add(value);
+			int newSize = PagedNode.slotSize(valueList);
+			if (newSize > pageSize / 4) {
+				// the values of the key move to their own pages
+				long head = createOverflow(valueList);
+				node.values[slot] = head;
+				newSize = PagedNode.slotSize(head);
+			} else {
+				node.values[slot] = valueList;
+			}
+			node.encodedSize += newSize - oldSize;
+		} else {
+			Object slot = value;
+			if (PagedNode.slotSize(value) > pageSize / 4) {
+				// a large value moves to its own page as well, so that the
+				// halves of a split always fit in their pages
+				slot = createOverflow(Collections.singletonList(value));
+			}
+			System.arraycopy(node.keys, indexOfKey, node.keys, indexOfKey + 1, node.keyCount - indexOfKey);
+			System.arraycopy(node.values, indexOfKey, node.values, indexOfKey + 1, node.keyCount - indexOfKey);
+			node.keys[indexOfKey] = key;
+			node.values[indexOfKey] = slot;
+			node.keyCount++;
+			node.encodedSize += PagedNode.slotSize(slot);
+		}
+	}
+
+	/**
+	 * Split the over-full external node. The node is split at the middle key,
+	 * or, if it is over-full because of its size in bytes, at the key where
+	 * half of its bytes are reached, moved if needed so that both halves fit
+	 * in a page.
+	 *
+	 * @param curr
+	 *            the pinned over-full external node
+	 * @return the right part of the split, pinned
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private PagedNode splitExternalNode(PagedNode curr) throws IOException {
+		int keyCount = curr.keyCount;
+		int midIndex = this.m / 2;
+		if (curr.encodedSize > pageSize) {
+			// bytes[i] is the size of the slots left of index i
+			int[] bytes = new int[keyCount + 1];
+			for (int i = 0; i < keyCount; i++) {
+				bytes[i + 1] = bytes[i] + PagedNode.slotSize(curr.values[i]);
+			}
+			int total = bytes[keyCount];
+			int room = pageSize - PagedNode.EXTERNAL_HEADER_SIZE;
+			midIndex = 1;
+			while (midIndex < keyCount - 1 && bytes[midIndex] < total / 2) {
+				midIndex++;
+			}
+			// Slots of more than a quarter of a page are moved to overflow
+			// pages, so the half of the bytes is never far from a split that
+			// fits
+			while (midIndex > 1 && bytes[midIndex] > room) {
+				midIndex--;
+			}
+			while (midIndex < keyCount - 1 && total - bytes[midIndex] > room) {
+				midIndex++;
+			}
+			if (bytes[midIndex] > room || total - bytes[midIndex] > room) {
+				throw new IllegalStateException("External node of " + curr.encodedSize
+						+ " bytes does not split into pages of " + pageSize + " bytes");
+			}
+		}
+
+		PagedNode rightPart = pool.pinNew(new PagedNode(file.allocate(), m, true));
+		System.arraycopy(curr.keys, midIndex, rightPart.keys, 0, keyCount - midIndex);
+		System.arraycopy(curr.values, midIndex, rightPart.values, 0, keyCount - midIndex);
+		rightPart.keyCount = keyCount - midIndex;
+		for (int i = 0; i < rightPart.keyCount; i++) {
+			int size = PagedNode.slotSize(rightPart.values[i]);
+			rightPart.encodedSize += size;
+			curr.encodedSize -= size;
+		}
+		Arrays.fill(curr.values, midIndex, keyCount, null);
+		curr.keyCount = midIndex;
+
+		// Update the linked list of external nodes
+		rightPart.prev = curr.pageId;
+		rightPart.next = curr.next;
+		if (curr.next != PageFile.NO_PAGE) {
+			PagedNode next = pinNode(curr.next);
+			next.prev = rightPart.pageId;
+			pool.unpin(next, true);
+		}
+		curr.next = rightPart.pageId;
+		return rightPart;
+	}
+
+	/**
+	 * Insert a key and the child right of it to an internal node.
+	 *
+	 * @param key
+	 *            the key to be inserted
+	 * @param child
+	 *            the page ID of the child right of the key
+	 * @param node
+	 *            the pinned internal node
+	 */
+	private void insertWithinInternalNode(double key, long child, PagedNode node) {
+		int keyCount = node.keyCount;
+		int indexToBeInsertedAt = BPlusTree.upperBound(key, node.keys, keyCount);
+		System.arraycopy(node.keys, indexToBeInsertedAt, node.keys, indexToBeInsertedAt + 1,
+				keyCount - indexToBeInsertedAt);
+		System.arraycopy(node.children, indexToBeInsertedAt + 1, node.children, indexToBeInsertedAt + 2,
+				keyCount - indexToBeInsertedAt);
+		node.keys[indexToBeInsertedAt] = key;
+		node.children[indexToBeInsertedAt + 1] = child;
+		node.keyCount = keyCount + 1;
+		node.encodedSize = PagedNode.internalSize(node.keyCount);
+	}
+
+	/**
+	 * Split the over-full internal node like a b tree node. The middle key is
+	 * left just past the keys of the node, in keys[keyCount], to be sent up.
+	 *
+	 * @param curr
+	 *            the pinned over-full internal node
+	 * @return the right part of the split, pinned
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private PagedNode splitInternalNode(PagedNode curr) throws IOException {
+		int midIndex = (int) Math.ceil(this.m / 2.0) - 1;
+		int rightKeyCount = this.m - midIndex - 1;
+		PagedNode rightPart = pool.pinNew(new PagedNode(file.allocate(), m, false));
+		System.arraycopy(curr.keys, midIndex + 1, rightPart.keys, 0, rightKeyCount);
+		System.arraycopy(curr.children, midIndex + 1, rightPart.children, 0, rightKeyCount + 1);
+		rightPart.keyCount = rightKeyCount;
+		rightPart.encodedSize = PagedNode.internalSize(rightKeyCount);
+		curr.keyCount = midIndex;
+		curr.encodedSize = PagedNode.internalSize(midIndex);
+		return rightPart;
+	}
+
+	/**
+	 * Creates an overflow chain holding a list of values.
+	 *
+	 * @param values
+	 *            the values
+	 * @return the page ID of the first page of the chain
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private long createOverflow(List<String> values) throws IOException {
+		OverflowPage head = pool.pinNew(new OverflowPage(file.allocate()));
+		pool.unpin(head, true);
+		for (String value : values) {
+			appendToOverflow(head.pageId, value);
+		}
+		return head.pageId;
+	}
+
+	/**
+	 * Appends a value to the last page of an overflow chain, adding a page to
+	 * the chain if it is full.
+	 *
+	 * @param headPageId
+	 *            the page ID of the first page of the chain
+	 * @param value
+	 *            the value to be appended
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private void appendToOverflow(long headPageId, String value) throws IOException {
+		OverflowPage head = (OverflowPage) pool.pin(headPageId);
+		OverflowPage tail = head.tail == head.pageId ? head : (OverflowPage) pool.pin(head.tail);
+		int size = Page.encodedSize(value);
+		if (tail.encodedSize + size > pageSize) {
+			OverflowPage newTail = pool.pinNew(new OverflowPage(file.allocate()));
+			tail.next = newTail.pageId;
+			head.tail = newTail.pageId;
+			if (tail != head) {
+				pool.unpin(tail, true);
+			}
+			tail = newTail;
+		}
+		tail.values.add(value);
+		tail.encodedSize += size;
+		if (tail != head) {
+			pool.unpin(tail, true);
+		}
+		pool.unpin(head, true);
+	}
+
+	/**
+	 * Search values for a key
+	 *
+	 * @param key
+	 *            the key to be searched
+	 * @return the list of values for the key
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public List<String> search(double key) throws IOException {
+		PagedNode curr = findExternalNode(key);
+		try {
+			int index = BPlusTree.upperBound(key, curr.keys, curr.keyCount) - 1;
+			if (index >= 0 && curr.keys[index] == key) {
+				return valueList(curr.values[index]);
+			}
+			return null;
+		} finally {
+			pool.unpin(curr, false);
+		}
+	}
+
+	/**
+	 * Search for all key values pairs between key1 and key2. Pages following
+	 * an external node that is not in the pool are read ahead.
+	 *
+	 * @param key1
+	 *            the starting key
+	 * @param key2
+	 *            the ending key
+	 * @return the list of key value pairs between the two keys
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public List<Key> search(double key1, double key2) throws IOException {
+		List<Key> searchKeys = new ArrayList<>();
+		PagedNode curr = findExternalNode(key1);
+		while (true) {
+			for (int i = 0; i < curr.keyCount; i++) {
+				if (curr.keys[i] > key2) {
+					pool.unpin(curr, false);
+					return searchKeys;
+				}
+				if (curr.keys[i] >= key1) {
+					searchKeys.add(new Key(curr.keys[i], valueList(curr.values[i])));
+				}
+			}
+			long next = curr.next;
+			pool.unpin(curr, false);
+			if (next == PageFile.NO_PAGE) {
+				return searchKeys;
+			}
+			if (!pool.contains(next)) {
+				pool.readAhead(next, READ_AHEAD_PAGES);
+			}
+			curr = pinNode(next);
+		}
+	}
+
+	/**
+	 * Traverses to the external node that 'should' contain a key.
+	 *
+	 * @param key
+	 *            the key to be searched
+	 * @return the external node, pinned
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private PagedNode findExternalNode(double key) throws IOException {
+		PagedNode curr = pinNode(this.root);
+		while (!curr.isExternal()) {
+			long child = curr.children[BPlusTree.upperBound(key, curr.keys, curr.keyCount)];
+			pool.unpin(curr, false);
+			curr = pinNode(child);
+		}
+		return curr;
+	}
+
+	/**
+	 * Gets the values of a key slot as a list, reading its overflow chain if
+	 * it has one.
+	 *
+	 * @param slot
+	 *            the value slot
+	 * @return the list of values
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@SuppressWarnings("unchecked")
+	private List<String> valueList(Object slot) throws IOException {
+		if (slot instanceof String) {
+			return Collections.singletonList((String) slot);
+		}
+		if (slot instanceof Long) {
+			List<String> values = new ArrayList<>();
+			long pageId = (Long) slot;
+			while (pageId != PageFile.NO_PAGE) {
+				OverflowPage page = (OverflowPage) pool.pin(pageId);
+				values.addAll(page.values);
+				pageId = page.next;
+				pool.unpin(page, false);
+			}
+			return values;
+		}
+		return new ArrayList<>((List<String>) slot);
+	}
+
+	/**
+	 * Pins a node page.
+	 *
+	 * @param pageId
+	 *            the page ID
+	 * @return the node
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private PagedNode pinNode(long pageId) throws IOException {
+		return (PagedNode) pool.pin(pageId);
+	}
+
+	/**
+	 * Writes all modified pages and the header to the file, and forces them to
+	 * the storage device.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public void flush() throws IOException {
+		pool.flush();
+		file.writeHeader();
+		file.force();
+	}
+
+	/**
+	 * Flushes the tree and closes the file.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Gets the number of pages read from the file since the tree was opened.
+	 *
+	 * @return the page reads
+	 */
+	public long getPageReads() {
+		return pool.getPageReads();
+	}
+
+	/**
+	 * Gets the number of pages written to the file since the tree was opened.
+	 *
+	 * @return the page writes
+	 */
+	public long getPageWrites() {
+		return pool.getPageWrites();
+	}
+
+}
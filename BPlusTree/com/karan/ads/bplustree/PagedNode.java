@@ -0,0 +1,207 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The Class PagedNode. A node of the paged B Plus Tree, stored in one page.
+ * Children and siblings are referenced by page ID. A value slot of an
+ * external node holds a String, a List of Strings for duplicates, or the
+ * Long page ID of an overflow chain once the values of a key outgrow a
+ * fraction of the page.
+ *
+ * External page: type, keyCount, prev, next, then per key the key, a kind
+ * byte and either the values (count, then length-prefixed UTF-8 strings) or
+ * the page ID of the overflow chain. Internal page: type, keyCount, keys,
+ * children.
+ */
+class PagedNode extends Page {
+
+	/** The bytes taken by the header of an external page. */
+	static final int EXTERNAL_HEADER_SIZE = 1 + 4 + 8 + 8;
+
+	/** The bytes taken by the header of an internal page. */
+	static final int INTERNAL_HEADER_SIZE = 1 + 4;
+
+	/** The kind byte of a key whose values are stored in the node. */
+	private static final byte VALUES_INLINE = 0;
+
+	/** The kind byte of a key whose values are stored in an overflow chain. */
+	private static final byte VALUES_OVERFLOW = 1;
+
+	/** The sorted keys of the node. Only the first keyCount slots are in use. */
+	final double[] keys;
+
+	/** The number of keys currently stored in the node. */
+	int keyCount;
+
+	/** The page IDs of the children. Set only for internal Nodes */
+	final long[] children;
+
+	/** The values for each key. Set only for external Nodes */
+	final Object[] values;
+
+	/** The page ID of the previous external node. */
+	long prev = PageFile.NO_PAGE;
+
+	/** The page ID of the next external node. */
+	long next = PageFile.NO_PAGE;
+
+	/** The number of bytes the node takes when written to its page. */
+	int encodedSize;
+
+	/**
+	 * Instantiates a new empty node.
+	 *
+	 * @param pageId
+	 *            the page ID
+	 * @param order
+	 *            the degree of the B Plus Tree
+	 * @param external
+	 *            true if the node is an external node
+	 */
+	PagedNode(long pageId, int order, boolean external) {
+		super(pageId);
+		this.keys = new double[order];
+		if (external) {
+			this.values = new Object[order];
+			this.children = null;
+			this.encodedSize = EXTERNAL_HEADER_SIZE;
+		} else {
+			this.values = null;
+			this.children = new long[order + 1];
+			this.encodedSize = INTERNAL_HEADER_SIZE;
+		}
+	}
+
+	/**
+	 * Checks if the node is an external node.
+	 *
+	 * @return true if the node is an external node
+	 */
+	boolean isExternal() {
+		return null == children;
+	}
+
+	/**
+	 * Gets the number of bytes a key and its value slot take in an external
+	 * page.
+	 *
+	 * @param slot
+	 *            the value slot
+	 * @return the size in bytes
+	 */
+	@SuppressWarnings("unchecked")
+	static int slotSize(Object slot) {
+		int size = 8 + 1;
+		if (slot instanceof Long) {
+			return size + 8;
+		}
+		size += 4;
+		if (slot instanceof String) {
+			return size + encodedSize((String) slot);
+		}
+		for (String value : (List<String>) slot) {
+			size += encodedSize(value);
+		}
+		return size;
+	}
+
+	/**
+	 * Gets the number of bytes an internal page with a number of keys takes.
+	 *
+	 * @param keyCount
+	 *            the number of keys
+	 * @return the size in bytes
+	 */
+	static int internalSize(int keyCount) {
+		return INTERNAL_HEADER_SIZE + 8 * keyCount + 8 * (keyCount + 1);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	void writeTo(ByteBuffer buffer) {
+		if (isExternal()) {
+			buffer.put(TYPE_EXTERNAL).putInt(keyCount).putLong(prev).putLong(next);
+			for (int i = 0; i < keyCount; i++) {
+				buffer.putDouble(keys[i]);
+				Object slot = values[i];
+				if (slot instanceof Long) {
+					buffer.put(VALUES_OVERFLOW).putLong((Long) slot);
+				} else if (slot instanceof String) {
+					buffer.put(VALUES_INLINE).putInt(1);
+					putString(buffer, (String) slot);
+				} else {
+					List<String> valueList = (List<String>) slot;
+					buffer.put(VALUES_INLINE).putInt(valueList.size());
+					for (String value : valueList) {
+						putString(buffer, value);
+					}
+				}
+			}
+		} else {
+			buffer.put(TYPE_INTERNAL).putInt(keyCount);
+			for (int i = 0; i < keyCount; i++) {
+				buffer.putDouble(keys[i]);
+			}
+			for (int i = 0; i <= keyCount; i++) {
+				buffer.putLong(children[i]);
+			}
+		}
+	}
+
+	/**
+	 * Decodes a node from a buffer positioned after the type byte.
+	 *
+	 * @param pageId
+	 *            the page ID
+	 * @param external
+	 *            true for an external node
+	 * @param buffer
+	 *            the buffer
+	 * @param order
+	 *            the degree of the tree
+	 * @return the node
+	 */
+	static PagedNode readFrom(long pageId, boolean external, ByteBuffer buffer, int order) {
+		PagedNode node = new PagedNode(pageId, order, external);
+		node.keyCount = buffer.getInt();
+		if (external) {
+			node.prev = buffer.getLong();
+			node.next = buffer.getLong();
+			for (int i = 0; i < node.keyCount; i++) {
+				node.keys[i] = buffer.getDouble();
+				if (buffer.get() == VALUES_OVERFLOW) {
+					node.values[i] = buffer.getLong();
+				} else {
+					int count = buffer.getInt();
+					if (count == 1) {
+						node.values[i] = getString(buffer);
+					} else {
+						List<String> valueList = new ArrayList<>(count);
+						for (int j = 0; j < count; j++) {
+							valueList.add(getString(buffer));
+						}
+						node.values[i] = valueList;
+					}
+				}
+				node.encodedSize += slotSize(node.values[i]);
+			}
+		} else {
+			for (int i = 0; i < node.keyCount; i++) {
+				node.keys[i] = buffer.getDouble();
+			}
+			for (int i = 0; i <= node.keyCount; i++) {
+				node.children[i] = buffer.getLong();
+			}
+			node.encodedSize = internalSize(node.keyCount);
+		}
+		return node;
+	}
+
+}
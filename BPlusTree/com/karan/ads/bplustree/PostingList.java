@@ -0,0 +1,360 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The Class PostingList. The values of a duplicate key, stored compactly.
+ * Each value is encoded as a variable-length integer followed by its UTF-8
+ * bytes, or, with a ValueDictionary, as the variable-length code of the
+ * value alone. The encoded values are appended to a chain of byte array
+ * chunks, doubling in size up to a cap, so the list never copies what it
+ * already holds as it grows, and no String is kept per value.
+ *
+ * The list is a read-only view: values are decoded as they are read. It is
+ * meant to be read in order, by its iterator or a page; get is answered by
+ * finding the chunk of the value and decoding the chunk up to it. Values
+ * can only be decoded forwards, so the descending iterator decodes one chunk
+ * at a time, from the last, and returns its values backwards.
+ */
+public class PostingList extends AbstractList<String> {
+
+	/** The size of the first chunk in bytes. */
+	private static final int FIRST_CHUNK_SIZE = 32;
+
+	/** The largest size of a chunk in bytes, unless a single value is larger. */
+	private static final int MAX_CHUNK_SIZE = 4096;
+
+	/** The dictionary of the values, null if values are stored as bytes. */
+	private final ValueDictionary dictionary;
+
+	/** The chunks of encoded values. */
+	private byte[][] chunks = new byte[1][];
+
+	/** The index of the first value of each chunk. */
+	private int[] chunkStarts = new int[1];
+
+	/** The number of chunks. */
+	private int chunkCount;
+
+	/** The number of bytes used in the last chunk. */
+	private int tailLength;
+
+	/** The number of values. */
+	private int size;
+
+	/**
+	 * Instantiates a new posting list.
+	 *
+	 * @param dictionary
+	 *            the dictionary of the values, null to store their bytes
+	 */
+	PostingList(ValueDictionary dictionary) {
+		this.dictionary = dictionary;
+	}
+
+	/**
+	 * Appends a value to the list.
+	 *
+	 * @param value
+	 *            the value
+	 */
+	void append(String value) {
+		byte[] bytes = null;
+		int length;
+		if (null != dictionary) {
+			length = varIntSize(dictionary.encode(value));
+		} else {
+			bytes = value.getBytes(StandardCharsets.UTF_8);
+			length = varIntSize(bytes.length) + bytes.length;
+		}
+		if (chunkCount == 0 || chunks[chunkCount - 1].length - tailLength < length) {
+			addChunk(length);
+		}
+		byte[] chunk = chunks[chunkCount - 1];
+		if (null != dictionary) {
+			tailLength = putVarInt(chunk, tailLength, dictionary.encode(value));
+		} else {
+			tailLength = putVarInt(chunk, tailLength, bytes.length);
+			System.arraycopy(bytes, 0, chunk, tailLength, bytes.length);
+			tailLength += bytes.length;
+		}
+		size++;
+	}
+
+	/**
+	 * Adds a chunk after the last one, twice as large as it up to the cap,
+	 * and large enough for the next value.
+	 *
+	 * @param length
+	 *            the encoded length of the next value
+	 */
+	private void addChunk(int length) {
+		if (chunkCount == chunks.length) {
+			chunks = Arrays.copyOf(chunks, chunkCount * 2);
+			chunkStarts = Arrays.copyOf(chunkStarts, chunkCount * 2);
+		}
+		int chunkSize = chunkCount == 0 ? FIRST_CHUNK_SIZE
+				: Math.min(MAX_CHUNK_SIZE, chunks[chunkCount - 1].length * 2);
+		chunks[chunkCount] = new byte[Math.max(chunkSize, length)];
+		chunkStarts[chunkCount] = size;
+		chunkCount++;
+		tailLength = 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public String get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		// the last chunk starting at or before the index holds the value
+		int chunk = Arrays.binarySearch(chunkStarts, 0, chunkCount, index);
+		if (chunk < 0) {
+			chunk = -chunk - 2;
+		}
+		Reader reader = new Reader(chunk);
+		for (int i = chunkStarts[chunk]; i < index; i++) {
+			reader.skip();
+		}
+		return reader.next();
+	}
+
+	@Override
+	public Iterator<String> iterator() {
+		return new Reader(0);
+	}
+
+	/**
+	 * Iterates the values from the last appended to the first.
+	 *
+	 * @return the iterator of the values in reverse order
+	 */
+	public Iterator<String> descendingIterator() {
+		return new Iterator<String>() {
+
+			/** The index of the chunk decoded into values. */
+			private int chunk = chunkCount;
+
+			/** The values of the decoded chunk. */
+			private String[] values = new String[0];
+
+			/** The number of values of the decoded chunk not returned yet. */
+			private int remaining;
+
+			@Override
+			public boolean hasNext() {
+				return remaining > 0 || chunk > 0;
+			}
+
+			@Override
+			public String next() {
+				if (remaining == 0) {
+					if (chunk == 0) {
+						throw new NoSuchElementException();
+					}
+					chunk--;
+					int end = chunk + 1 < chunkCount ? chunkStarts[chunk + 1] : size;
+					remaining = end - chunkStarts[chunk];
+					if (values.length < remaining) {
+						values = new String[remaining];
+					}
+					Reader reader = new Reader(chunk);
+					for (int i = 0; i < remaining; i++) {
+						values[i] = reader.next();
+					}
+				}
+				String value = values[--remaining];
+				values[remaining] = null;
+				return value;
+			}
+
+		};
+	}
+
+	/**
+	 * Decodes a page of the values.
+	 *
+	 * @param offset
+	 *            the index of the first value of the page
+	 * @param limit
+	 *            the largest number of values in the page
+	 * @return the values of the page, empty past the end of the list
+	 */
+	public List<String> page(int offset, int limit) {
+		if (offset < 0 || limit < 0) {
+			throw new IllegalArgumentException("Offset and limit must not be negative: " + offset + ", " + limit);
+		}
+		int end = (int) Math.min(size, (long) offset + limit);
+		List<String> page = new ArrayList<>(Math.max(0, end - offset));
+		if (offset >= end) {
+			return page;
+		}
+		int chunk = Arrays.binarySearch(chunkStarts, 0, chunkCount, offset);
+		if (chunk < 0) {
+			chunk = -chunk - 2;
+		}
+		Reader reader = new Reader(chunk);
+		for (int i = chunkStarts[chunk]; i < offset; i++) {
+			reader.skip();
+		}
+		for (int i = offset; i < end; i++) {
+			page.add(reader.next());
+		}
+		return page;
+	}
+
+	/**
+	 * Gets the number of bytes held by the chunks, used or not.
+	 *
+	 * @return the size of the chunks in bytes
+	 */
+	public long getChunkBytes() {
+		long bytes = 0;
+		for (int i = 0; i < chunkCount; i++) {
+			bytes += chunks[i].length;
+		}
+		return bytes;
+	}
+
+	/**
+	 * Writes a variable-length integer, seven bits per byte, the high bit
+	 * set on every byte but the last.
+	 *
+	 * @param chunk
+	 *            the chunk
+	 * @param position
+	 *            the position in the chunk
+	 * @param value
+	 *            the non-negative integer
+	 * @return the position after the integer
+	 */
+	private static int putVarInt(byte[] chunk, int position, int value) {
+		while ((value & ~0x7F) != 0) {
+			chunk[position++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		chunk[position++] = (byte) value;
+		return position;
+	}
+
+	/**
+	 * Gets the number of bytes of a variable-length integer.
+	 *
+	 * @param value
+	 *            the non-negative integer
+	 * @return the number of bytes
+	 */
+	private static int varIntSize(int value) {
+		int bytes = 1;
+		while ((value & ~0x7F) != 0) {
+			value >>>= 7;
+			bytes++;
+		}
+		return bytes;
+	}
+
+	/**
+	 * The Class Reader. Decodes the values in order, from the start of a
+	 * chunk.
+	 */
+	private final class Reader implements Iterator<String> {
+
+		/** The current chunk. */
+		private int chunk;
+
+		/** The position in the current chunk. */
+		private int position;
+
+		/** The index of the next value. */
+		private int index;
+
+		/**
+		 * Instantiates a new reader at the start of a chunk.
+		 *
+		 * @param chunk
+		 *            the index of the chunk
+		 */
+		Reader(int chunk) {
+			this.chunk = chunk;
+			this.index = chunkCount == 0 ? 0 : chunkStarts[chunk];
+		}
+
+		@Override
+		public boolean hasNext() {
+			return index < size;
+		}
+
+		@Override
+		public String next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			moveToValue();
+			byte[] bytes = chunks[chunk];
+			int code = readVarInt(bytes);
+			index++;
+			if (null != dictionary) {
+				return dictionary.decode(code);
+			}
+			String value = new String(bytes, position, code, StandardCharsets.UTF_8);
+			position += code;
+			return value;
+		}
+
+		/**
+		 * Moves past the next value without decoding it.
+		 */
+		void skip() {
+			moveToValue();
+			int code = readVarInt(chunks[chunk]);
+			if (null == dictionary) {
+				position += code;
+			}
+			index++;
+		}
+
+		/**
+		 * Moves to the next chunk once all values of the current one are read.
+		 */
+		private void moveToValue() {
+			if (chunk + 1 < chunkCount && index == chunkStarts[chunk + 1]) {
+				chunk++;
+				position = 0;
+			}
+		}
+
+		/**
+		 * Reads a variable-length integer at the position.
+		 *
+		 * @param bytes
+		 *            the chunk
+		 * @return the integer
+		 */
+		private int readVarInt(byte[] bytes) {
+			int value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = bytes[position++];
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			return value;
+		}
+	}
+
+}
@@ -0,0 +1,161 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The Class RangeCursor. A cursor over the key value pairs of a range,
+ * walking the linked list of external nodes one pair at a time, forwards
+ * through the 'next' links or backwards through the 'prev' links. Nothing is
+ * copied or allocated while moving the cursor forwards. Backwards, the keys
+ * come in descending order and the values of each key from the last inserted
+ * to the first. The tree must not be modified while a cursor is open.
+ */
+public class RangeCursor {
+
+	/** The external node of the current key. Null once the cursor is done. */
+	private Node node;
+
+	/** The index of the current key in the node. */
+	private int index;
+
+	/** The rest of the values of the current key, null if it has one. */
+	private Iterator<String> values;
+
+	/** The current key. */
+	private double key;
+
+	/** The current value. */
+	private String value;
+
+	/** True once next has been called for the first time. */
+	private boolean started;
+
+	/** The ending key, the upper bound forwards and the lower bound backwards. */
+	private final double key2;
+
+	/** True if pairs with key equal to the ending key are included. */
+	private final boolean key2Inclusive;
+
+	/** True if the cursor moves backwards. */
+	private final boolean descending;
+
+	/** The number of pairs the cursor may still return. */
+	private long remaining;
+
+	/**
+	 * Instantiates a new range cursor.
+	 *
+	 * @param node
+	 *            the external node holding the first key, may be null
+	 * @param index
+	 *            the index of the first key in the node
+	 * @param key2
+	 *            the ending key
+	 * @param key2Inclusive
+	 *            true if pairs with key equal to key2 are included
+	 * @param limit
+	 *            the maximum number of pairs to be returned
+	 */
+	RangeCursor(Node node, int index, double key2, boolean key2Inclusive, long limit) {
+		this(node, index, key2, key2Inclusive, limit, false);
+	}
+
+	/**
+	 * Instantiates a new range cursor moving in either direction.
+	 *
+	 * @param node
+	 *            the external node holding the first key, may be null
+	 * @param index
+	 *            the index of the first key in the node, -1 backwards if it
+	 *            is in a previous node
+	 * @param key2
+	 *            the ending key, the lower bound if the cursor moves
+	 *            backwards
+	 * @param key2Inclusive
+	 *            true if pairs with key equal to key2 are included
+	 * @param limit
+	 *            the maximum number of pairs to be returned
+	 * @param descending
+	 *            true to move backwards
+	 */
+	RangeCursor(Node node, int index, double key2, boolean key2Inclusive, long limit, boolean descending) {
+		this.node = node;
+		this.index = index;
+		this.key2 = key2;
+		this.key2Inclusive = key2Inclusive;
+		this.remaining = limit;
+		this.descending = descending;
+	}
+
+	/**
+	 * Moves the cursor to the next key value pair.
+	 *
+	 * @return true if the cursor is on a pair, false if the range is exhausted
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean next() {
+		if (null == node || remaining <= 0) {
+			node = null;
+			return false;
+		}
+		if (started) {
+			// Move to the next value of the current key if there is one
+			if (null != values && values.hasNext()) {
+				value = values.next();
+				remaining--;
+				return true;
+			}
+			index += descending ? -1 : 1;
+		}
+		started = true;
+		// Move to the next key, following the linked list at the end of a
+		// node
+		while (descending ? index < 0 : index >= node.getKeyCount()) {
+			node = descending ? node.getPrev() : node.getNext();
+			if (null == node) {
+				return false;
+			}
+			index = descending ? node.getKeyCount() - 1 : 0;
+		}
+		key = node.getKeys()[index];
+		if ((descending ? key < key2 : key > key2) || (!key2Inclusive && key == key2)) {
+			// Stop at the first key past the ending key
+			node = null;
+			return false;
+		}
+		Object slot = node.getValues()[index];
+		if (slot instanceof String) {
+			values = null;
+			value = (String) slot;
+		} else {
+			values = descending ? ((PostingList) slot).descendingIterator() : ((List<String>) slot).iterator();
+			value = values.next();
+		}
+		remaining--;
+		return true;
+	}
+
+	/**
+	 * Gets the key of the current pair.
+	 *
+	 * @return the key
+	 */
+	public double getKey() {
+		return key;
+	}
+
+	/**
+	 * Gets the value of the current pair.
+	 *
+	 * @return the value
+	 */
+	public String getValue() {
+		return value;
+	}
+
+}
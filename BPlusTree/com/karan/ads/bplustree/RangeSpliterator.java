@@ -0,0 +1,95 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * The Class RangeSpliterator. Produces the keys of a range, each with its list
+ * of values, by walking the linked list of external nodes lazily. The tree
+ * must not be modified while the spliterator is in use.
+ */
+class RangeSpliterator implements Spliterator<Key> {
+
+	/** The external node of the next key. Null once the range is done. */
+	private Node node;
+
+	/** The index of the next key in the node. */
+	private int index;
+
+	/** The ending key. */
+	private final double key2;
+
+	/** True if the ending key itself is included. */
+	private final boolean key2Inclusive;
+
+	/**
+	 * Instantiates a new range spliterator.
+	 *
+	 * @param node
+	 *            the external node holding the first key, may be null
+	 * @param index
+	 *            the index of the first key in the node
+	 * @param key2
+	 *            the ending key
+	 * @param key2Inclusive
+	 *            true if key2 itself is included
+	 */
+	RangeSpliterator(Node node, int index, double key2, boolean key2Inclusive) {
+		this.node = node;
+		this.index = index;
+		this.key2 = key2;
+		this.key2Inclusive = key2Inclusive;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super Key> action) {
+		if (null == node) {
+			return false;
+		}
+		// Follow the linked list at the end of a node
+		while (index >= node.getKeyCount()) {
+			node = node.getNext();
+			index = 0;
+			if (null == node) {
+				return false;
+			}
+		}
+		double key = node.getKeys()[index];
+		if (key > key2 || (!key2Inclusive && key == key2)) {
+			// Stop at the first key past the ending key
+			node = null;
+			return false;
+		}
+		action.accept(new Key(key, node.getValueList(index)));
+		index++;
+		return true;
+	}
+
+	@Override
+	public Spliterator<Key> trySplit() {
+		// The end of the range is only found while walking it, so the range
+		// is not split
+		return null;
+	}
+
+	@Override
+	public long estimateSize() {
+		return null == node ? 0 : Long.MAX_VALUE;
+	}
+
+	@Override
+	public int characteristics() {
+		return ORDERED | SORTED | DISTINCT | NONNULL;
+	}
+
+	@Override
+	public Comparator<? super Key> getComparator() {
+		return Comparator.comparingDouble(Key::getKey);
+	}
+
+}
@@ -0,0 +1,315 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * The Class ResultWriter. Writes the results of searches in the format of
+ * the output file of treesearch:
+ *
+ * value1, value2 for a search by key, (key1,value1), (key2,value2) for a
+ * search between keys, and Null if nothing was found
+ *
+ * Results are appended to a reusable byte buffer, which is written to the
+ * file through a FileChannel whenever it fills up. A writer without a file
+ * keeps its results in memory, growing its buffer, until they are appended
+ * to another writer, so that results produced in parallel can be written in
+ * order.
+ */
+public class ResultWriter implements Closeable {
+
+	/** The result written when nothing is found. */
+	private static final byte[] RESULT_NOT_FOUND = "Null".getBytes(StandardCharsets.US_ASCII);
+
+	/** The line separator of the platform, as written by BufferedWriter. */
+	private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+	/** The size of the buffer. */
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	/** The channel to the output file, null for a writer in memory. */
+	private final FileChannel channel;
+
+	/** The buffered bytes. */
+	private ByteBuffer buffer;
+
+	/** The last key written, whose text is reused for its next values. */
+	private double lastKey = Double.NaN;
+
+	/** The text of the last key written. */
+	private String lastKeyText;
+
+	/**
+	 * Creates an output file, replacing an existing one.
+	 *
+	 * @param path
+	 *            the path of the output file
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public ResultWriter(Path path) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	}
+
+	/**
+	 * Creates a writer keeping its results in memory.
+	 *
+	 * @param initialSize
+	 *            the initial size of the buffer in bytes
+	 */
+	public ResultWriter(int initialSize) {
+		this.channel = null;
+		this.buffer = ByteBuffer.allocate(Math.max(initialSize, 16));
+	}
+
+	/**
+	 * Writes the result of a search by key.
+	 *
+	 * @param values
+	 *            the values of the key, null if the key was not found
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public void writeValues(List<String> values) throws IOException {
+		if (null == values || values.isEmpty()) {
+			put(RESULT_NOT_FOUND);
+		} else {
+			boolean first = true;
+			for (String value : values) {
+				if (!first) {
+					put((byte) ',');
+					put((byte) ' ');
+				}
+				put(value);
+				first = false;
+			}
+		}
+		put(LINE_SEPARATOR);
+	}
+
+	/**
+	 * Writes the result of a search between keys, reading the pairs from a
+	 * cursor, so that they are never collected into a list.
+	 *
+	 * @param cursor
+	 *            the cursor over the pairs found
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public void writePairs(RangeCursor cursor) throws IOException {
+		boolean found = false;
+		while (cursor.next()) {
+			if (found) {
+				put((byte) ',');
+				put((byte) ' ');
+			}
+			found = true;
+			put((byte) '(');
+			putKey(cursor.getKey());
+			put((byte) ',');
+			put(cursor.getValue());
+			put((byte) ')');
+		}
+		if (!found) {
+			put(RESULT_NOT_FOUND);
+		}
+		put(LINE_SEPARATOR);
+	}
+
+	/**
+	 * Writes the result of a search between keys.
+	 *
+	 * @param keys
+	 *            the keys found, each with its values
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public void writePairs(List<Key> keys) throws IOException {
+		boolean found = false;
+		for (Key key : keys) {
+			for (String value : key.getValues()) {
+				if (found) {
+					put((byte) ',');
+					put((byte) ' ');
+				}
+				found = true;
+				put((byte) '(');
+				putKey(key.getKey());
+				put((byte) ',');
+				put(value);
+				put((byte) ')');
+			}
+		}
+		if (!found) {
+			put(RESULT_NOT_FOUND);
+		}
+		put(LINE_SEPARATOR);
+	}
+
+	/**
+	 * Appends a key as Double.toString writes it. The text of a key is kept
+	 * for its next values, so a key with many values is formatted once.
+	 *
+	 * @param key
+	 *            the key
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private void putKey(double key) throws IOException {
+		if (Double.doubleToRawLongBits(key) != Double.doubleToRawLongBits(lastKey) || null == lastKeyText) {
+			lastKey = key;
+			lastKeyText = Double.toString(key);
+		}
+		put(lastKeyText);
+	}
+
+	/**
+	 * Appends a string encoded in UTF-8. ASCII characters are copied
+	 * directly, without encoding the string into a new array.
+	 *
+	 * @param text
+	 *            the string
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private void put(String text) throws IOException {
+		int length = text.length();
+		while (buffer.remaining() < length && (null == channel || buffer.position() > 0)) {
+			makeRoom();
+		}
+		if (buffer.remaining() >= length) {
+			byte[] bytes = buffer.array();
+			int position = buffer.position();
+			for (int i = 0; i < length; i++) {
+				char c = text.charAt(i);
+				if (c >= 0x80) {
+					buffer.position(position + i);
+					put(text.substring(i).getBytes(StandardCharsets.UTF_8));
+					return;
+				}
+				bytes[position + i] = (byte) c;
+			}
+			buffer.position(position + length);
+		} else {
+			put(text.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * Appends bytes, making room in the buffer as often as needed.
+	 *
+	 * @param bytes
+	 *            the bytes
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private void put(byte[] bytes) throws IOException {
+		int offset = 0;
+		while (offset < bytes.length) {
+			if (!buffer.hasRemaining()) {
+				makeRoom();
+			}
+			int length = Math.min(bytes.length - offset, buffer.remaining());
+			buffer.put(bytes, offset, length);
+			offset += length;
+		}
+	}
+
+	/**
+	 * Appends a single byte.
+	 *
+	 * @param b
+	 *            the byte
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private void put(byte b) throws IOException {
+		if (!buffer.hasRemaining()) {
+			makeRoom();
+		}
+		buffer.put(b);
+	}
+
+	/**
+	 * Appends the results kept by a writer in memory, and empties it.
+	 *
+	 * @param results
+	 *            the writer in memory
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public void append(ResultWriter results) throws IOException {
+		ByteBuffer bytes = results.buffer;
+		int offset = 0;
+		while (offset < bytes.position()) {
+			if (!buffer.hasRemaining()) {
+				makeRoom();
+			}
+			int length = Math.min(bytes.position() - offset, buffer.remaining());
+			buffer.put(bytes.array(), offset, length);
+			offset += length;
+		}
+		bytes.clear();
+	}
+
+	/**
+	 * Makes room in the buffer, by writing it to the file, or by growing it for
+	 * a writer in memory.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private void makeRoom() throws IOException {
+		if (null == channel) {
+			ByteBuffer grown = ByteBuffer.allocate(buffer.capacity() * 2);
+			buffer.flip();
+			grown.put(buffer);
+			buffer = grown;
+		} else {
+			flush();
+		}
+	}
+
+	/**
+	 * Writes the buffered bytes to the file. Does nothing for a writer in
+	 * memory.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public void flush() throws IOException {
+		if (null == channel) {
+			return;
+		}
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (null == channel) {
+			return;
+		}
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+
+}
@@ -0,0 +1,213 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * The Class SearchBatch. Collects a run of consecutive searches of
+ * treesearch and runs them in parallel on a ForkJoinPool. The searches only
+ * read the tree, so they may run at the same time as long as no insert is
+ * applied meanwhile: the caller executes the batch before each insert, which
+ * makes inserts barriers between batches.
+ *
+ * The batch is cut into contiguous chunks, and each chunk writes its results
+ * to a writer in memory. Once every chunk is done, the writers are appended
+ * to the output in the order of the chunks, so the output is the same as if
+ * the searches had run one after the other. Within a chunk, the searches of
+ * single keys go through BPlusTree.multiGet, sharing one walk of the tree.
+ */
+public class SearchBatch {
+
+	/** The fewest searches given to a chunk, below which a batch runs on the calling thread. */
+	private static final int MIN_CHUNK_SIZE = 64;
+
+	/** The number of chunks per thread, so that threads finishing early get more work. */
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	/** The initial size of the buffer of a chunk. */
+	private static final int CHUNK_BUFFER_SIZE = 1 << 14;
+
+	/** The command of each search, SEARCH_KEY or SEARCH_RANGE of CommandReader. */
+	private final int[] commands;
+
+	/** The key, or the starting key of a range, of each search. */
+	private final double[] keys1;
+
+	/** The ending key of each range search. */
+	private final double[] keys2;
+
+	/** The number of searches in the batch. */
+	private int size;
+
+	/** The pool running the chunks, null to run every batch on the calling thread. */
+	private final ForkJoinPool pool;
+
+	/** The writer of each chunk, reused from batch to batch. */
+	private final ResultWriter[] chunkWriters;
+
+	/**
+	 * Instantiates a new search batch.
+	 *
+	 * @param capacity
+	 *            the largest number of searches in a batch
+	 * @param threads
+	 *            the number of threads running a batch, 1 to run every batch
+	 *            on the calling thread
+	 */
+	public SearchBatch(int capacity, int threads) {
+		this.commands = new int[capacity];
+		this.keys1 = new double[capacity];
+		this.keys2 = new double[capacity];
+		if (threads > 1) {
+			this.pool = new ForkJoinPool(threads);
+			this.chunkWriters = new ResultWriter[threads * CHUNKS_PER_THREAD];
+			for (int i = 0; i < chunkWriters.length; i++) {
+				chunkWriters[i] = new ResultWriter(CHUNK_BUFFER_SIZE);
+			}
+		} else {
+			this.pool = null;
+			this.chunkWriters = null;
+		}
+	}
+
+	/**
+	 * Adds a search to the batch.
+	 *
+	 * @param command
+	 *            SEARCH_KEY or SEARCH_RANGE of CommandReader
+	 * @param key1
+	 *            the key, or the starting key of a range
+	 * @param key2
+	 *            the ending key of a range
+	 * @return true if the batch is full and has to be executed
+	 */
+	public boolean add(int command, double key1, double key2) {
+		commands[size] = command;
+		keys1[size] = key1;
+		keys2[size] = key2;
+		size++;
+		return size == commands.length;
+	}
+
+	/**
+	 * Checks if the batch is empty.
+	 *
+	 * @return true if there is no search in the batch
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Runs the searches of the batch, writes their results in order and
+	 * empties the batch.
+	 *
+	 * @param tree
+	 *            the tree, not modified while the batch runs
+	 * @param out
+	 *            the writer of the results
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public void execute(BPlusTree tree, ResultWriter out) throws IOException {
+		int chunks = null == pool ? 1 : Math.min(chunkWriters.length, size / MIN_CHUNK_SIZE);
+		if (chunks <= 1) {
+			run(tree, 0, size, out);
+			size = 0;
+			return;
+		}
+		List<Callable<Void>> tasks = new ArrayList<>(chunks);
+		for (int i = 0; i < chunks; i++) {
+			int from = (int) ((long) size * i / chunks);
+			int to = (int) ((long) size * (i + 1) / chunks);
+			ResultWriter writer = chunkWriters[i];
+			tasks.add(() -> {
+				run(tree, from, to, writer);
+				return null;
+			});
+		}
+		try {
+			for (Future<Void> future : pool.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while running searches", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+		for (int i = 0; i < chunks; i++) {
+			out.append(chunkWriters[i]);
+		}
+		size = 0;
+	}
+
+	/**
+	 * Runs a range of the searches of the batch.
+	 *
+	 * @param tree
+	 *            the tree
+	 * @param from
+	 *            the index of the first search
+	 * @param to
+	 *            the index after the last search
+	 * @param writer
+	 *            the writer of the results
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private void run(BPlusTree tree, int from, int to, ResultWriter writer) throws IOException {
+		// The searches of single keys share one walk of the tree
+		int keyCount = 0;
+		for (int i = from; i < to; i++) {
+			if (commands[i] == CommandReader.SEARCH_KEY) {
+				keyCount++;
+			}
+		}
+		double[] keys = new double[keyCount];
+		keyCount = 0;
+		for (int i = from; i < to; i++) {
+			if (commands[i] == CommandReader.SEARCH_KEY) {
+				keys[keyCount++] = keys1[i];
+			}
+		}
+		List<List<String>> found = tree.multiGet(keys);
+		TreeStats stats = tree.getStats();
+		keyCount = 0;
+		for (int i = from; i < to; i++) {
+			if (commands[i] == CommandReader.SEARCH_KEY) {
+				writer.writeValues(found.get(keyCount++));
+			} else if (null == stats) {
+				writer.writePairs(tree.cursor(keys1[i], keys2[i]));
+			} else {
+				// A cursor reads the range as its pairs are written, so the
+				// writing is timed with it
+				long start = System.nanoTime();
+				writer.writePairs(tree.cursor(keys1[i], keys2[i]));
+				stats.recordRangeSearch(System.nanoTime() - start);
+			}
+		}
+	}
+
+	/**
+	 * Stops the threads of the pool.
+	 */
+	public void shutdown() {
+		if (null != pool) {
+			pool.shutdown();
+		}
+	}
+
+}
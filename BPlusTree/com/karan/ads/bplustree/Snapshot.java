@@ -0,0 +1,318 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * The Class Snapshot. A binary image of the external nodes of a tree: every
+ * key value pair in key order, with the key repeated for each value of a
+ * duplicate key. The file is made of three sections:
+ *
+ * header: magic, version, pair count, size of the value section, sequence
+ * number, CRC32 of the key section, CRC32 of the value section
+ *
+ * keys: the key of each pair, as an array of doubles
+ *
+ * values: the value of each pair, as its UTF-8 length followed by its bytes
+ *
+ * Keys are kept apart from values so that they are read with bulk copies. A
+ * snapshot is read through memory-mapped windows of the file, and the pairs
+ * read are handed to the BulkLoader, so a tree is rebuilt without inserting
+ * pairs one by one.
+ */
+class Snapshot {
+
+	/** The magic number at the start of a snapshot, "BPS1". */
+	private static final int MAGIC = 0x42505331;
+
+	/** The version of the format. */
+	private static final int VERSION = 1;
+
+	/** The size of the header in bytes. */
+	static final int HEADER_SIZE = 40;
+
+	/** The size of the buffers used to write a snapshot. */
+	private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+	/** The largest window of the file mapped at once. */
+	private static final int MAP_WINDOW_SIZE = 1 << 30;
+
+	/** The key of each pair, in order. */
+	final double[] keys;
+
+	/** The value of each pair. */
+	final String[] values;
+
+	/** The number stored with the snapshot, such as the LSN of a log. */
+	final long sequence;
+
+	/**
+	 * Instantiates a snapshot that was read.
+	 *
+	 * @param keys
+	 *            the keys
+	 * @param values
+	 *            the values
+	 * @param sequence
+	 *            the sequence number
+	 */
+	private Snapshot(double[] keys, String[] values, long sequence) {
+		this.keys = keys;
+		this.values = values;
+		this.sequence = sequence;
+	}
+
+	/**
+	 * Writes the pairs of the external nodes starting at a node to a file,
+	 * replacing its contents, and forces the file to the device.
+	 *
+	 * @param first
+	 *            the leftmost external node, null for an empty tree
+	 * @param path
+	 *            the path of the file
+	 * @param sequence
+	 *            the number stored with the snapshot
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	static void write(Node first, Path path, long sequence) throws IOException {
+		// the pairs are counted first, so that the value section can be
+		// written at its place while the keys are written
+		long pairCount = 0;
+		for (Node node = first; null != node; node = node.getNext()) {
+			for (int i = 0; i < node.getKeyCount(); i++) {
+				Object slot = node.getValues()[i];
+				pairCount += slot instanceof String ? 1 : ((List<?>) slot).size();
+			}
+		}
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			Section keySection = new Section(channel, HEADER_SIZE);
+			Section valueSection = new Section(channel, HEADER_SIZE + pairCount * Double.BYTES);
+			for (Node node = first; null != node; node = node.getNext()) {
+				for (int i = 0; i < node.getKeyCount(); i++) {
+					double key = node.getKeys()[i];
+					for (String value : node.getValueList(i)) {
+						byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+						keySection.ensure(Double.BYTES).putDouble(key);
+						valueSection.ensure(Integer.BYTES).putInt(bytes.length);
+						valueSection.put(bytes);
+					}
+				}
+			}
+			keySection.flush();
+			valueSection.flush();
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC).putInt(VERSION).putLong(pairCount).putLong(valueSection.size()).putLong(sequence)
+					.putInt((int) keySection.crc.getValue()).putInt((int) valueSection.crc.getValue());
+			header.flip();
+			while (header.hasRemaining()) {
+				channel.write(header, header.position());
+			}
+			channel.force(true);
+		}
+	}
+
+	/**
+	 * Reads a snapshot, checking its checksums.
+	 *
+	 * @param path
+	 *            the path of the file
+	 * @return the snapshot
+	 * @throws IOException
+	 *             if the file cannot be read or is not a valid snapshot
+	 */
+	static Snapshot read(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+			}
+			header.flip();
+			if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+				throw new IOException("Not a B Plus Tree snapshot: " + path);
+			}
+			int version = header.getInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported snapshot version " + version + ": " + path);
+			}
+			long pairCount = header.getLong();
+			long valuesSize = header.getLong();
+			long sequence = header.getLong();
+			int keysChecksum = header.getInt();
+			int valuesChecksum = header.getInt();
+			long valuesStart = HEADER_SIZE + pairCount * Double.BYTES;
+			if (pairCount < 0 || valuesSize < 0 || valuesStart + valuesSize != size) {
+				throw new IOException("Truncated snapshot: " + path);
+			}
+			if (pairCount > Integer.MAX_VALUE - 8) {
+				throw new IOException("Snapshot of " + pairCount + " pairs is too large to load: " + path);
+			}
+			int count = (int) pairCount;
+			double[] keys = new double[count];
+			String[] values = new String[count];
+			CRC32 crc = new CRC32();
+
+			// keys are copied in bulk, one window at a time
+			int read = 0;
+			long position = HEADER_SIZE;
+			while (read < count) {
+				int length = Math.min(count - read, MAP_WINDOW_SIZE / Double.BYTES);
+				MappedByteBuffer window = channel.map(MapMode.READ_ONLY, position, (long) length * Double.BYTES);
+				crc.update(window.duplicate());
+				DoubleBuffer doubles = window.asDoubleBuffer();
+				doubles.get(keys, read, length);
+				read += length;
+				position += (long) length * Double.BYTES;
+			}
+			if ((int) crc.getValue() != keysChecksum) {
+				throw new IOException("Checksum mismatch in the keys of snapshot " + path);
+			}
+
+			// a window of values ends at the last value it holds in full, and
+			// the next one starts at the value that did not fit
+			crc.reset();
+			read = 0;
+			position = valuesStart;
+			byte[] bytes = new byte[64];
+			while (read < count) {
+				long windowSize = Math.min(size - position, MAP_WINDOW_SIZE);
+				MappedByteBuffer window = channel.map(MapMode.READ_ONLY, position, windowSize);
+				int start = read;
+				while (read < count && window.remaining() >= Integer.BYTES) {
+					int length = window.getInt(window.position());
+					if (length < 0) {
+						throw new IOException("Corrupt value in snapshot " + path);
+					}
+					if (window.remaining() - Integer.BYTES < length) {
+						break;
+					}
+					window.position(window.position() + Integer.BYTES);
+					if (bytes.length < length) {
+						bytes = new byte[Math.max(length, bytes.length * 2)];
+					}
+					window.get(bytes, 0, length);
+					values[read++] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+				}
+				if (read == start) {
+					throw new IOException("Corrupt value in snapshot " + path);
+				}
+				int consumed = window.position();
+				window.position(0).limit(consumed);
+				crc.update(window);
+				position += consumed;
+			}
+			if ((int) crc.getValue() != valuesChecksum) {
+				throw new IOException("Checksum mismatch in the values of snapshot " + path);
+			}
+			return new Snapshot(keys, values, sequence);
+		}
+	}
+
+	/**
+	 * The Class Section. Buffers the bytes of one section of a snapshot and
+	 * writes them at consecutive positions of the file.
+	 */
+	private static final class Section {
+
+		/** The channel to the file. */
+		private final FileChannel channel;
+
+		/** The buffered bytes. */
+		private final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+
+		/** The checksum of the bytes written. */
+		private final CRC32 crc = new CRC32();
+
+		/** The start of the section in the file. */
+		private final long start;
+
+		/** The position in the file of the first buffered byte. */
+		private long position;
+
+		/**
+		 * Instantiates a new section.
+		 *
+		 * @param channel
+		 *            the channel to the file
+		 * @param start
+		 *            the position of the section in the file
+		 */
+		Section(FileChannel channel, long start) {
+			this.channel = channel;
+			this.start = start;
+			this.position = start;
+		}
+
+		/**
+		 * Makes room for a number of bytes in the buffer.
+		 *
+		 * @param length
+		 *            the number of bytes, at most the size of the buffer
+		 * @return the buffer
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		ByteBuffer ensure(int length) throws IOException {
+			if (buffer.remaining() < length) {
+				flush();
+			}
+			return buffer;
+		}
+
+		/**
+		 * Adds bytes to the section.
+		 *
+		 * @param bytes
+		 *            the bytes
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		void put(byte[] bytes) throws IOException {
+			int offset = 0;
+			while (offset < bytes.length) {
+				int length = Math.min(bytes.length - offset, ensure(1).remaining());
+				buffer.put(bytes, offset, length);
+				offset += length;
+			}
+		}
+
+		/**
+		 * Writes the buffered bytes to the file.
+		 *
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		void flush() throws IOException {
+			crc.update(buffer.array(), 0, buffer.position());
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				position += channel.write(buffer, position);
+			}
+			buffer.clear();
+		}
+
+		/**
+		 * Gets the number of bytes written to the section.
+		 *
+		 * @return the size
+		 */
+		long size() {
+			return position - start;
+		}
+	}
+
+}
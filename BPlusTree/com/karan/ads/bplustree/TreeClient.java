@@ -0,0 +1,235 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The Class TreeClient. A connection to a TreeServer. The requests can be
+ * pipelined: any number of them are sent, then flushed, then their answers
+ * read in the same order, each with the read method of its operation. The
+ * insert and search methods send a single request and wait for its answer.
+ *
+ * A client is not thread safe: each thread needs its own.
+ */
+public class TreeClient implements Closeable {
+
+	/** The size of the buffers of the socket streams. */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** The socket. */
+	private final Socket socket;
+
+	/** The stream of the requests. */
+	private final DataOutputStream out;
+
+	/** The stream of the answers. */
+	private final DataInputStream in;
+
+	/**
+	 * Instantiates a new tree client, connected to a server.
+	 *
+	 * @param host
+	 *            the host of the server
+	 * @param port
+	 *            the port of the server
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public TreeClient(String host, int port) throws IOException {
+		this.socket = new Socket(host, port);
+		socket.setTcpNoDelay(true);
+		this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE));
+		this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE));
+	}
+
+	/**
+	 * Sends an insert, without flushing it.
+	 *
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the value
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public void sendInsert(double key, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > TreeServer.MAX_VALUE_BYTES) {
+			throw new IllegalArgumentException("Value has " + bytes.length + " bytes, more than "
+					+ TreeServer.MAX_VALUE_BYTES);
+		}
+		out.writeByte(TreeServer.OPERATION_INSERT);
+		out.writeDouble(key);
+		out.writeShort(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Sends a search of a key, without flushing it.
+	 *
+	 * @param key
+	 *            the key
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public void sendSearch(double key) throws IOException {
+		out.writeByte(TreeServer.OPERATION_SEARCH_KEY);
+		out.writeDouble(key);
+	}
+
+	/**
+	 * Sends a search between two keys, without flushing it.
+	 *
+	 * @param key1
+	 *            the starting key, included
+	 * @param key2
+	 *            the ending key, included
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public void sendSearch(double key1, double key2) throws IOException {
+		out.writeByte(TreeServer.OPERATION_SEARCH_RANGE);
+		out.writeDouble(key1);
+		out.writeDouble(key2);
+	}
+
+	/**
+	 * Flushes the requests sent.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	/**
+	 * Reads the answer to an insert.
+	 *
+	 * @throws IOException
+	 *             if the server failed or answered something else
+	 */
+	public void readInsert() throws IOException {
+		int status = in.readUnsignedByte();
+		if (status != TreeServer.STATUS_OK) {
+			throw new IOException("Unexpected status " + status);
+		}
+	}
+
+	/**
+	 * Reads the answer to a search of a key.
+	 *
+	 * @return the values of the key, null if it was not found
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public List<String> readValues() throws IOException {
+		List<String> values = null;
+		for (int count = in.readInt(); count > 0; count = in.readInt()) {
+			if (null == values) {
+				values = new ArrayList<String>(count);
+			}
+			for (int i = 0; i < count; i++) {
+				values.add(readValue());
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Reads the answer to a search between two keys.
+	 *
+	 * @return the pairs found, in ascending order of keys, empty if none
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public List<Key> readPairs() throws IOException {
+		List<Key> pairs = new ArrayList<Key>();
+		for (int count = in.readInt(); count > 0; count = in.readInt()) {
+			for (int i = 0; i < count; i++) {
+				double key = in.readDouble();
+				pairs.add(new Key(key, readValue()));
+			}
+		}
+		return pairs;
+	}
+
+	/**
+	 * Reads a value of an answer.
+	 *
+	 * @return the value
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private String readValue() throws IOException {
+		byte[] bytes = new byte[in.readUnsignedShort()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Inserts a pair and waits for the answer.
+	 *
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the value
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public void insert(double key, String value) throws IOException {
+		sendInsert(key, value);
+		flush();
+		readInsert();
+	}
+
+	/**
+	 * Searches a key and waits for the answer.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the values of the key, null if it was not found
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public List<String> search(double key) throws IOException {
+		sendSearch(key);
+		flush();
+		return readValues();
+	}
+
+	/**
+	 * Searches between two keys and waits for the answer.
+	 *
+	 * @param key1
+	 *            the starting key, included
+	 * @param key2
+	 *            the ending key, included
+	 * @return the pairs found, in ascending order of keys, empty if none
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public List<Key> search(double key1, double key2) throws IOException {
+		sendSearch(key1, key2);
+		flush();
+		return readPairs();
+	}
+
+	@Override
+	public void close() throws IOException {
+		socket.close();
+	}
+
+}
@@ -0,0 +1,605 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The Class TreeServer. Serves a B Plus Tree over TCP with a compact binary
+ * protocol, with the operations of the commands of treesearch. Each request
+ * is an operation code followed by its arguments, big-endian:
+ *
+ * INSERT (1) key:double length:u16 value:UTF-8 bytes, answered by OK (0)
+ *
+ * SEARCH_KEY (2) key:double, answered by the values of the key
+ *
+ * SEARCH_RANGE (3) key1:double key2:double, answered by the pairs between
+ * the two keys, both included
+ *
+ * The answer to a search is streamed as chunks, each a count:i32 followed by
+ * that many values, as length:u16 and UTF-8 bytes, preceded by their key:
+ * double for a range, and ends with a count of 0. A search that finds nothing
+ * is answered by the count 0 alone, the Null of treesearch.
+ *
+ * A client may send any number of requests without waiting for the answers
+ * (pipelining), which come back in the order of the requests. All
+ * connections are served by one thread, around a Selector, so the operations
+ * are applied to the tree one at a time and the tree needs no locks. Each
+ * connection reads its requests into a buffer and writes its answers into
+ * another, and stops taking requests while its answers are not read by the
+ * client. A search whose answer does not fit in the buffer is paused until
+ * the client reads it, and resumed by searching again from the last key sent,
+ * skipping the values of that key already sent: keys inserted meanwhile by
+ * other connections may be part of the rest of the answer.
+ */
+public class TreeServer implements Closeable {
+
+	/** The operation code of an insert. */
+	public static final byte OPERATION_INSERT = CommandReader.INSERT;
+
+	/** The operation code of a search of a key. */
+	public static final byte OPERATION_SEARCH_KEY = CommandReader.SEARCH_KEY;
+
+	/** The operation code of a search between two keys. */
+	public static final byte OPERATION_SEARCH_RANGE = CommandReader.SEARCH_RANGE;
+
+	/** The answer to an insert. */
+	public static final byte STATUS_OK = 0;
+
+	/** The largest number of bytes of a value in UTF-8. */
+	public static final int MAX_VALUE_BYTES = 0xFFFF;
+
+	/** The size of the buffers of a connection, enough for any request and any pair. */
+	private static final int BUFFER_SIZE = 1 << 17;
+
+	/** The bytes of an insert before its value. */
+	private static final int INSERT_HEADER_BYTES = 1 + 8 + 2;
+
+	/** The bytes of a search of a key. */
+	private static final int SEARCH_KEY_BYTES = 1 + 8;
+
+	/** The bytes of a search between two keys. */
+	private static final int SEARCH_RANGE_BYTES = 1 + 8 + 8;
+
+	/** The tree served. */
+	private final BPlusTree tree;
+
+	/** The channel accepting connections. */
+	private final ServerSocketChannel serverChannel;
+
+	/** The selector of the channels ready. */
+	private final Selector selector;
+
+	/** False once the server is closed. */
+	private volatile boolean running = true;
+
+	/**
+	 * Instantiates a new tree server, listening on an address. Connections
+	 * are accepted once run is called.
+	 *
+	 * @param tree
+	 *            the tree served, not to be modified by other threads
+	 * @param address
+	 *            the address to listen on, with port 0 for any free port
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public TreeServer(BPlusTree tree, InetSocketAddress address) throws IOException {
+		this.tree = tree;
+		this.selector = Selector.open();
+		this.serverChannel = ServerSocketChannel.open();
+		try {
+			serverChannel.bind(address);
+			serverChannel.configureBlocking(false);
+			serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+		} catch (IOException e) {
+			serverChannel.close();
+			selector.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Gets the port the server listens on.
+	 *
+	 * @return the port
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public int getPort() throws IOException {
+		return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+	}
+
+	/**
+	 * Serves the connections on the calling thread until the server is
+	 * closed. A connection that fails or breaks the protocol is closed
+	 * without stopping the server.
+	 *
+	 * @throws IOException
+	 *             if the selector fails
+	 */
+	public void run() throws IOException {
+		try {
+			while (running) {
+				selector.select();
+				Iterator<SelectionKey> ready = selector.selectedKeys().iterator();
+				while (ready.hasNext()) {
+					SelectionKey key = ready.next();
+					ready.remove();
+					if (key.isAcceptable()) {
+						accept();
+						continue;
+					}
+					Connection connection = (Connection) key.attachment();
+					try {
+						if (key.isReadable()) {
+							read(connection);
+						}
+						if (key.isValid() && key.isWritable()) {
+							write(connection);
+						}
+					} catch (IOException | RuntimeException e) {
+						// Only this connection is lost
+						closeConnection(connection);
+					}
+				}
+			}
+		} catch (ClosedSelectorException e) {
+			// Closed while waiting
+		} finally {
+			for (SelectionKey key : selector.keys()) {
+				key.channel().close();
+			}
+			selector.close();
+		}
+	}
+
+	/**
+	 * Stops the server: run returns and closes every connection.
+	 */
+	@Override
+	public void close() {
+		running = false;
+		selector.wakeup();
+	}
+
+	/**
+	 * Accepts a connection.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private void accept() throws IOException {
+		SocketChannel channel = serverChannel.accept();
+		if (null == channel) {
+			return;
+		}
+		channel.configureBlocking(false);
+		channel.socket().setTcpNoDelay(true);
+		Connection connection = new Connection(channel);
+		connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+	}
+
+	/**
+	 * Reads requests from a connection and answers them.
+	 *
+	 * @param connection
+	 *            the connection
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private void read(Connection connection) throws IOException {
+		if (connection.channel.read(connection.in) < 0) {
+			// The client sent its last request, answer what is left
+			connection.endOfInput = true;
+		}
+		serve(connection);
+	}
+
+	/**
+	 * Writes the answers of a connection, and answers the requests left once
+	 * they are written.
+	 *
+	 * @param connection
+	 *            the connection
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private void write(Connection connection) throws IOException {
+		flush(connection);
+		if (connection.out.position() == 0) {
+			serve(connection);
+		} else {
+			updateInterest(connection);
+		}
+	}
+
+	/**
+	 * Answers the requests read from a connection, and writes the answers,
+	 * until the requests are all answered or the socket takes no more. A
+	 * connection whose client closed its side is closed once its last
+	 * complete request is answered.
+	 *
+	 * @param connection
+	 *            the connection
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private void serve(Connection connection) throws IOException {
+		boolean blocked;
+		do {
+			blocked = answer(connection);
+			flush(connection);
+			// The socket may have taken every answer, making room to go on
+		} while (blocked && connection.out.position() == 0);
+		if (connection.endOfInput && !blocked && connection.out.position() == 0) {
+			closeConnection(connection);
+			return;
+		}
+		updateInterest(connection);
+	}
+
+	/**
+	 * Answers the requests read from a connection, in order, into the buffer
+	 * of the answers, finishing first the answer of a paused search.
+	 *
+	 * @param connection
+	 *            the connection
+	 * @return true if it stopped for lack of room for the answers, false if
+	 *         it answered every complete request
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private boolean answer(Connection connection) throws IOException {
+		ByteBuffer in = connection.in;
+		in.flip();
+		try {
+			while (true) {
+				if (connection.scanning && !scan(connection)) {
+					return true;
+				}
+				if (!in.hasRemaining()) {
+					return false;
+				}
+				int start = in.position();
+				byte operation = in.get(start);
+				if (operation == OPERATION_INSERT) {
+					if (in.remaining() < INSERT_HEADER_BYTES) {
+						return false;
+					}
+					int length = in.getShort(start + 9) & 0xFFFF;
+					if (in.remaining() < INSERT_HEADER_BYTES + length) {
+						return false;
+					}
+					if (!room(connection, 1)) {
+						return true;
+					}
+					double key = in.getDouble(start + 1);
+					String value = new String(in.array(), start + INSERT_HEADER_BYTES, length, StandardCharsets.UTF_8);
+					in.position(start + INSERT_HEADER_BYTES + length);
+					tree.insert(key, value);
+					connection.out.put(STATUS_OK);
+				} else if (operation == OPERATION_SEARCH_KEY) {
+					if (in.remaining() < SEARCH_KEY_BYTES) {
+						return false;
+					}
+					double key = in.getDouble(start + 1);
+					in.position(start + SEARCH_KEY_BYTES);
+					connection.startScan(key, key, false);
+				} else if (operation == OPERATION_SEARCH_RANGE) {
+					if (in.remaining() < SEARCH_RANGE_BYTES) {
+						return false;
+					}
+					double key1 = in.getDouble(start + 1);
+					double key2 = in.getDouble(start + 9);
+					in.position(start + SEARCH_RANGE_BYTES);
+					connection.startScan(key1, key2, true);
+				} else {
+					throw new IllegalStateException("Unknown operation " + operation);
+				}
+			}
+		} finally {
+			in.compact();
+		}
+	}
+
+	/**
+	 * Writes the answer of the search of a connection, or as much of it as
+	 * fits in the buffer of the answers, as one chunk.
+	 *
+	 * @param connection
+	 *            the connection
+	 * @return true if the answer was written to its end, false if the search
+	 *         is paused
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private boolean scan(Connection connection) throws IOException {
+		ByteBuffer out = connection.out;
+		if (!room(connection, 4)) {
+			return false;
+		}
+		int chunkStart = out.position();
+		out.putInt(0);
+		int count = 0;
+		boolean done = true;
+		// Search again from the last key sent, and skip its values already
+		// sent
+		long skip = connection.sent;
+		TreeStats stats = tree.getStats();
+		long start = null == stats ? 0 : System.nanoTime();
+		if (connection.range) {
+			RangeCursor cursor = tree.cursor(connection.resumeKey, true, connection.key2, true, Long.MAX_VALUE);
+			while (cursor.next()) {
+				if (skip > 0 && cursor.getKey() == connection.resumeKey) {
+					skip--;
+					continue;
+				}
+				skip = 0;
+				if (!put(connection, cursor.getKey(), cursor.getValue())) {
+					done = false;
+					break;
+				}
+				count++;
+			}
+			if (null != stats) {
+				// The cursor does not count in the statistics, the range
+				// search is recorded once answered, with the time of its
+				// walks
+				connection.walkNanos += System.nanoTime() - start;
+			}
+		} else {
+			List<String> values = tree.search(connection.resumeKey);
+			if (null != values) {
+				Iterator<String> iterator = values.iterator();
+				while (iterator.hasNext()) {
+					String value = iterator.next();
+					if (skip > 0) {
+						skip--;
+						continue;
+					}
+					if (!put(connection, connection.resumeKey, value)) {
+						done = false;
+						break;
+					}
+					count++;
+				}
+			}
+		}
+		if (count == 0) {
+			// Drop the empty chunk
+			out.position(chunkStart);
+		} else {
+			out.putInt(chunkStart, count);
+		}
+		if (done) {
+			if (!room(connection, 4)) {
+				// The end is written once the client read the chunk
+				return false;
+			}
+			out.putInt(0);
+			connection.scanning = false;
+			if (connection.range && null != stats) {
+				stats.recordRangeSearch(connection.walkNanos);
+			}
+		}
+		return done;
+	}
+
+	/**
+	 * Writes a value found by the search of a connection, preceded by its key
+	 * in a range, if there is room for it.
+	 *
+	 * @param connection
+	 *            the connection
+	 * @param key
+	 *            the key of the value
+	 * @param value
+	 *            the value
+	 * @return true if the value was written
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private boolean put(Connection connection, double key, String value) throws IOException {
+		ByteBuffer out = connection.out;
+		int length = utf8Length(value);
+		if (length > MAX_VALUE_BYTES) {
+			throw new IllegalStateException("Value of key " + key + " has " + length + " bytes");
+		}
+		// The chunk in progress is only written once it is complete, so the
+		// room is checked without flushing
+		if (out.remaining() < (connection.range ? 8 : 0) + 2 + length) {
+			return false;
+		}
+		if (connection.range) {
+			out.putDouble(key);
+		}
+		out.putShort((short) length);
+		if (length == value.length()) {
+			// ASCII, copied without encoding the value into a new array
+			byte[] bytes = out.array();
+			int position = out.position();
+			for (int i = 0; i < length; i++) {
+				bytes[position + i] = (byte) value.charAt(i);
+			}
+			out.position(position + length);
+		} else {
+			out.put(value.getBytes(StandardCharsets.UTF_8));
+		}
+		if (key != connection.resumeKey) {
+			connection.resumeKey = key;
+			connection.sent = 0;
+		}
+		connection.sent++;
+		return true;
+	}
+
+	/**
+	 * Counts the bytes of a string in UTF-8.
+	 *
+	 * @param text
+	 *            the string
+	 * @return the number of bytes
+	 */
+	static int utf8Length(String text) {
+		int length = text.length();
+		int bytes = length;
+		for (int i = 0; i < length; i++) {
+			char c = text.charAt(i);
+			if (c >= 0x800) {
+				// Surrogate pairs take 4 bytes for 2 chars
+				bytes += Character.isSurrogate(c) ? 1 : 2;
+			} else if (c >= 0x80) {
+				bytes++;
+			}
+		}
+		return bytes;
+	}
+
+	/**
+	 * Makes room in the buffer of the answers of a connection, writing what
+	 * the socket takes if needed.
+	 *
+	 * @param connection
+	 *            the connection
+	 * @param bytes
+	 *            the room needed
+	 * @return true if there is room
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private static boolean room(Connection connection, int bytes) throws IOException {
+		if (connection.out.remaining() < bytes) {
+			flush(connection);
+		}
+		return connection.out.remaining() >= bytes;
+	}
+
+	/**
+	 * Writes the answers of a connection, as far as the socket takes them.
+	 *
+	 * @param connection
+	 *            the connection
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private static void flush(Connection connection) throws IOException {
+		ByteBuffer out = connection.out;
+		if (out.position() == 0) {
+			return;
+		}
+		out.flip();
+		connection.channel.write(out);
+		out.compact();
+	}
+
+	/**
+	 * Chooses the events a connection waits for: to write while answers are
+	 * left, and to read while it may take requests.
+	 *
+	 * @param connection
+	 *            the connection
+	 */
+	private static void updateInterest(Connection connection) {
+		boolean pending = connection.out.position() > 0;
+		boolean reading = !pending && !connection.endOfInput && connection.in.hasRemaining();
+		connection.key.interestOps((pending ? SelectionKey.OP_WRITE : 0) | (reading ? SelectionKey.OP_READ : 0));
+	}
+
+	/**
+	 * Closes a connection.
+	 *
+	 * @param connection
+	 *            the connection
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private static void closeConnection(Connection connection) throws IOException {
+		connection.key.cancel();
+		connection.channel.close();
+	}
+
+	/**
+	 * The Class Connection. The state of a connection: its buffers and the
+	 * search whose answer is being written.
+	 */
+	private static final class Connection {
+
+		/** The channel of the connection. */
+		final SocketChannel channel;
+
+		/** The requests read and not answered yet. */
+		final ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+
+		/** The answers not written yet. */
+		final ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+
+		/** The key of the channel in the selector. */
+		SelectionKey key;
+
+		/** True once the client closed its side of the connection. */
+		boolean endOfInput;
+
+		/** True while the answer of a search is being written. */
+		boolean scanning;
+
+		/** True if the search is a range, whose values come with their keys. */
+		boolean range;
+
+		/** The last key whose values were sent, or the first key of the search. */
+		double resumeKey;
+
+		/** The number of values of resumeKey sent. */
+		long sent;
+
+		/** The time spent walking the range, over the walks of its chunks. */
+		long walkNanos;
+
+		/** The ending key of a range. */
+		double key2;
+
+		/**
+		 * Instantiates a new connection.
+		 *
+		 * @param channel
+		 *            the channel of the connection
+		 */
+		Connection(SocketChannel channel) {
+			this.channel = channel;
+		}
+
+		/**
+		 * Starts the answer of a search.
+		 *
+		 * @param key1
+		 *            the key, or the starting key of a range
+		 * @param key2
+		 *            the ending key of a range
+		 * @param range
+		 *            true for a search between two keys
+		 */
+		void startScan(double key1, double key2, boolean range) {
+			this.scanning = true;
+			this.range = range;
+			this.resumeKey = key1;
+			this.sent = 0;
+			this.walkNanos = 0;
+			this.key2 = key2;
+		}
+
+	}
+
+}
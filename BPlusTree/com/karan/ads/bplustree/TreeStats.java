@@ -0,0 +1,433 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The Class TreeStats. Counts the operations of a BPlusTree, the splits,
+ * merges and borrows of its nodes, and the latencies of inserts, deletes and
+ * searches, and computes the
+ * structure of the tree on demand. A tree only keeps statistics once
+ * enableStats is called; until then, each operation pays a single null
+ * check. The counters may be updated from any thread, as the searches of a
+ * SearchBatch are.
+ *
+ * The statistics can be registered with the platform MBean server and read
+ * over JMX, and report formats them for a person to read.
+ */
+public class TreeStats implements TreeStatsMXBean {
+
+	/** The tree. */
+	private final BPlusTree tree;
+
+	/** The number of inserts. */
+	private final LongAdder inserts = new LongAdder();
+
+	/** The number of appends. */
+	private final LongAdder appends = new LongAdder();
+
+	/** The number of deletes that removed a key or a value. */
+	private final LongAdder deletes = new LongAdder();
+
+	/** The number of keys searched. */
+	private final LongAdder searches = new LongAdder();
+
+	/** The number of calls of multiGet. */
+	private final LongAdder multiGets = new LongAdder();
+
+	/** The number of range searches. */
+	private final LongAdder rangeSearches = new LongAdder();
+
+	/** The number of splits of an external node. */
+	private final LongAdder externalSplits = new LongAdder();
+
+	/** The number of splits of an internal node. */
+	private final LongAdder internalSplits = new LongAdder();
+
+	/** The number of splits that added a root. */
+	private final LongAdder rootSplits = new LongAdder();
+
+	/** The number of merges of a node into its sibling. */
+	private final LongAdder merges = new LongAdder();
+
+	/** The number of moves of keys from a node to its sibling. */
+	private final LongAdder borrows = new LongAdder();
+
+	/** The number of searches answered by the key filter. */
+	private final LongAdder filterRejects = new LongAdder();
+
+	/** The number of searches of absent keys let through by the key filter. */
+	private final LongAdder filterFalsePositives = new LongAdder();
+
+	/** The number of searches answered by the key cache. */
+	private final LongAdder cacheHits = new LongAdder();
+
+	/** The number of searches that missed the key cache. */
+	private final LongAdder cacheMisses = new LongAdder();
+
+	/** The latencies of inserts. */
+	private final LatencyHistogram insertLatency = new LatencyHistogram();
+
+	/** The latencies of deletes. */
+	private final LatencyHistogram deleteLatency = new LatencyHistogram();
+
+	/** The latencies of searches of a key. */
+	private final LatencyHistogram searchLatency = new LatencyHistogram();
+
+	/** The latencies of multiGet. */
+	private final LatencyHistogram multiGetLatency = new LatencyHistogram();
+
+	/** The latencies of range searches. */
+	private final LatencyHistogram rangeSearchLatency = new LatencyHistogram();
+
+	/**
+	 * Instantiates new statistics of a tree.
+	 *
+	 * @param tree
+	 *            the tree
+	 */
+	TreeStats(BPlusTree tree) {
+		this.tree = tree;
+	}
+
+	/**
+	 * Records an insert.
+	 *
+	 * @param nanos
+	 *            the latency of the insert
+	 */
+	void recordInsert(long nanos) {
+		inserts.increment();
+		insertLatency.record(nanos);
+	}
+
+	/**
+	 * Records a delete that removed a key or a value.
+	 *
+	 * @param nanos
+	 *            the latency of the delete
+	 */
+	void recordDelete(long nanos) {
+		deletes.increment();
+		deleteLatency.record(nanos);
+	}
+
+	/**
+	 * Records a search of a key.
+	 *
+	 * @param nanos
+	 *            the latency of the search
+	 */
+	void recordSearch(long nanos) {
+		searches.increment();
+		searchLatency.record(nanos);
+	}
+
+	/**
+	 * Records a multiGet.
+	 *
+	 * @param keys
+	 *            the number of keys searched
+	 * @param nanos
+	 *            the latency of the whole batch
+	 */
+	void recordMultiGet(int keys, long nanos) {
+		searches.add(keys);
+		multiGets.increment();
+		multiGetLatency.record(nanos);
+	}
+
+	/**
+	 * Records a range search.
+	 *
+	 * @param nanos
+	 *            the latency of the range search
+	 */
+	void recordRangeSearch(long nanos) {
+		rangeSearches.increment();
+		rangeSearchLatency.record(nanos);
+	}
+
+	/**
+	 * Counts an append.
+	 */
+	void countAppend() {
+		appends.increment();
+	}
+
+	/**
+	 * Counts a split of an external node.
+	 */
+	void countExternalSplit() {
+		externalSplits.increment();
+	}
+
+	/**
+	 * Counts a split of an internal node.
+	 */
+	void countInternalSplit() {
+		internalSplits.increment();
+	}
+
+	/**
+	 * Counts a split that added a root.
+	 */
+	void countRootSplit() {
+		rootSplits.increment();
+	}
+
+	/**
+	 * Counts a merge of a node into its sibling.
+	 */
+	void countMerge() {
+		merges.increment();
+	}
+
+	/**
+	 * Counts a move of keys from a node to its sibling.
+	 */
+	void countBorrow() {
+		borrows.increment();
+	}
+
+	/**
+	 * Counts searches answered by the key filter.
+	 *
+	 * @param count
+	 *            the number of searches
+	 */
+	void countFilterRejects(long count) {
+		filterRejects.add(count);
+	}
+
+	/**
+	 * Counts searches of absent keys let through by the key filter.
+	 *
+	 * @param count
+	 *            the number of searches
+	 */
+	void countFilterFalsePositives(long count) {
+		filterFalsePositives.add(count);
+	}
+
+	/**
+	 * Counts searches answered by the key cache.
+	 *
+	 * @param count
+	 *            the number of searches
+	 */
+	void countCacheHits(long count) {
+		cacheHits.add(count);
+	}
+
+	/**
+	 * Counts searches that missed the key cache.
+	 *
+	 * @param count
+	 *            the number of searches
+	 */
+	void countCacheMisses(long count) {
+		cacheMisses.add(count);
+	}
+
+	@Override
+	public long getInserts() {
+		return inserts.sum();
+	}
+
+	@Override
+	public long getAppends() {
+		return appends.sum();
+	}
+
+	@Override
+	public long getDeletes() {
+		return deletes.sum();
+	}
+
+	@Override
+	public long getSearches() {
+		return searches.sum();
+	}
+
+	@Override
+	public long getMultiGets() {
+		return multiGets.sum();
+	}
+
+	@Override
+	public long getRangeSearches() {
+		return rangeSearches.sum();
+	}
+
+	@Override
+	public long getExternalSplits() {
+		return externalSplits.sum();
+	}
+
+	@Override
+	public long getInternalSplits() {
+		return internalSplits.sum();
+	}
+
+	@Override
+	public long getRootSplits() {
+		return rootSplits.sum();
+	}
+
+	@Override
+	public long getMerges() {
+		return merges.sum();
+	}
+
+	@Override
+	public long getBorrows() {
+		return borrows.sum();
+	}
+
+	@Override
+	public long getFilterRejects() {
+		return filterRejects.sum();
+	}
+
+	@Override
+	public long getFilterFalsePositives() {
+		return filterFalsePositives.sum();
+	}
+
+	@Override
+	public long getCacheHits() {
+		return cacheHits.sum();
+	}
+
+	@Override
+	public long getCacheMisses() {
+		return cacheMisses.sum();
+	}
+
+	@Override
+	public LatencyHistogram getInsertLatency() {
+		return insertLatency;
+	}
+
+	@Override
+	public LatencyHistogram getDeleteLatency() {
+		return deleteLatency;
+	}
+
+	@Override
+	public LatencyHistogram getSearchLatency() {
+		return searchLatency;
+	}
+
+	@Override
+	public LatencyHistogram getMultiGetLatency() {
+		return multiGetLatency;
+	}
+
+	@Override
+	public LatencyHistogram getRangeSearchLatency() {
+		return rangeSearchLatency;
+	}
+
+	@Override
+	public TreeStructure getStructure() {
+		return tree.structure();
+	}
+
+	@Override
+	public void reset() {
+		for (LongAdder counter : new LongAdder[] { inserts, appends, deletes, searches, multiGets,
+				rangeSearches, externalSplits, internalSplits, rootSplits, merges, borrows, filterRejects,
+				filterFalsePositives, cacheHits, cacheMisses }) {
+			counter.reset();
+		}
+		for (LatencyHistogram histogram : new LatencyHistogram[] { insertLatency, deleteLatency, searchLatency,
+				multiGetLatency, rangeSearchLatency }) {
+			histogram.reset();
+		}
+	}
+
+	/**
+	 * Registers the statistics with the platform MBean server.
+	 *
+	 * @param name
+	 *            the object name, such as
+	 *            com.karan.ads.bplustree:type=BPlusTree,name=orders
+	 * @throws JMException
+	 *             if the name is malformed or already registered
+	 */
+	public void register(String name) throws JMException {
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(name));
+	}
+
+	/**
+	 * Unregisters the statistics from the platform MBean server.
+	 *
+	 * @param name
+	 *            the object name they were registered with
+	 * @throws JMException
+	 *             if the name is malformed or not registered
+	 */
+	public void unregister(String name) throws JMException {
+		ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(name));
+	}
+
+	/**
+	 * Formats the counters, the latencies and the structure of the tree.
+	 *
+	 * @return the report, one item per line
+	 */
+	public String report() {
+		StringBuilder builder = new StringBuilder();
+		builder.append(String.format(
+				"inserts %d (appends %d), deletes %d, searches %d (in %d multiGets), range searches %d%n", getInserts(),
+				getAppends(), getDeletes(), getSearches(), getMultiGets(), getRangeSearches()));
+		builder.append(String.format("splits: external %d, internal %d, root %d; merges %d, borrows %d%n",
+				getExternalSplits(), getInternalSplits(), getRootSplits(), getMerges(), getBorrows()));
+		KeyFilter filter = tree.getKeyFilter();
+		if (null != filter) {
+			builder.append(String.format("%s; searches rejected %d, false positives %d%n", filter,
+					getFilterRejects(), getFilterFalsePositives()));
+		}
+		KeyCache cache = tree.getKeyCache();
+		if (null != cache) {
+			long hits = getCacheHits();
+			long lookups = hits + getCacheMisses();
+			builder.append(String.format("key cache: %d keys of %d; hits %d, misses %d, hit rate %.1f%%%n",
+					cache.size(), cache.getCapacity(), hits, lookups - hits, lookups == 0 ? 0 : 100.0 * hits / lookups));
+		}
+		builder.append(String.format("%-14s %12s %10s %10s %10s %10s %12s%n", "latency (ns)", "count", "mean", "p50",
+				"p99", "p99.9", "max"));
+		appendLatency(builder, "insert", insertLatency);
+		appendLatency(builder, "delete", deleteLatency);
+		appendLatency(builder, "search", searchLatency);
+		appendLatency(builder, "multiGet", multiGetLatency);
+		appendLatency(builder, "range search", rangeSearchLatency);
+		builder.append(getStructure());
+		return builder.toString();
+	}
+
+	/**
+	 * Appends a line of latencies to the report.
+	 *
+	 * @param builder
+	 *            the report
+	 * @param name
+	 *            the name of the operation
+	 * @param histogram
+	 *            the latencies of the operation
+	 */
+	private static void appendLatency(StringBuilder builder, String name, LatencyHistogram histogram) {
+		builder.append(String.format("%-14s %12d %10.0f %10d %10d %10d %12d%n", name, histogram.getCount(),
+				histogram.getMean(), histogram.getP50(), histogram.getP99(), histogram.getP999(), histogram.getMax()));
+	}
+
+}
@@ -0,0 +1,170 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+/**
+ * The Interface TreeStatsMXBean. The statistics of a BPlusTree as seen over
+ * JMX: the counters and latencies of its operations, which are read as they
+ * are, and its structure, which is computed when it is read.
+ */
+public interface TreeStatsMXBean {
+
+	/**
+	 * Gets the number of inserts.
+	 *
+	 * @return the number of inserts
+	 */
+	long getInserts();
+
+	/**
+	 * Gets the number of inserts that appended a key after every other key.
+	 *
+	 * @return the number of appends
+	 */
+	long getAppends();
+
+	/**
+	 * Gets the number of deletes that removed a key or a value.
+	 *
+	 * @return the number of deletes
+	 */
+	long getDeletes();
+
+	/**
+	 * Gets the number of keys searched, alone or in a multiGet.
+	 *
+	 * @return the number of keys searched
+	 */
+	long getSearches();
+
+	/**
+	 * Gets the number of calls of multiGet.
+	 *
+	 * @return the number of batches searched
+	 */
+	long getMultiGets();
+
+	/**
+	 * Gets the number of range searches.
+	 *
+	 * @return the number of range searches
+	 */
+	long getRangeSearches();
+
+	/**
+	 * Gets the number of splits of an external node.
+	 *
+	 * @return the number of external node splits
+	 */
+	long getExternalSplits();
+
+	/**
+	 * Gets the number of splits of an internal node.
+	 *
+	 * @return the number of internal node splits
+	 */
+	long getInternalSplits();
+
+	/**
+	 * Gets the number of splits that added a root.
+	 *
+	 * @return the number of root splits
+	 */
+	long getRootSplits();
+
+	/**
+	 * Gets the number of merges of a node into its sibling after a delete.
+	 *
+	 * @return the number of merges
+	 */
+	long getMerges();
+
+	/**
+	 * Gets the number of moves of keys from a node to its sibling after a
+	 * delete.
+	 *
+	 * @return the number of borrows
+	 */
+	long getBorrows();
+
+	/**
+	 * Gets the number of searches of an absent key answered by the key
+	 * filter, without walking down the tree.
+	 *
+	 * @return the number of traversals saved
+	 */
+	long getFilterRejects();
+
+	/**
+	 * Gets the number of searches of an absent key that the key filter let
+	 * walk down the tree.
+	 *
+	 * @return the number of false positives
+	 */
+	long getFilterFalsePositives();
+
+	/**
+	 * Gets the number of searches of a key answered by the key cache.
+	 *
+	 * @return the number of cache hits
+	 */
+	long getCacheHits();
+
+	/**
+	 * Gets the number of searches of a key that missed the key cache.
+	 *
+	 * @return the number of cache misses
+	 */
+	long getCacheMisses();
+
+	/**
+	 * Gets the latencies of inserts.
+	 *
+	 * @return the histogram of insert latencies
+	 */
+	LatencyHistogram getInsertLatency();
+
+	/**
+	 * Gets the latencies of deletes.
+	 *
+	 * @return the histogram of delete latencies
+	 */
+	LatencyHistogram getDeleteLatency();
+
+	/**
+	 * Gets the latencies of searches of a key.
+	 *
+	 * @return the histogram of search latencies
+	 */
+	LatencyHistogram getSearchLatency();
+
+	/**
+	 * Gets the latencies of multiGet, for a whole batch.
+	 *
+	 * @return the histogram of multiGet latencies
+	 */
+	LatencyHistogram getMultiGetLatency();
+
+	/**
+	 * Gets the latencies of range searches.
+	 *
+	 * @return the histogram of range search latencies
+	 */
+	LatencyHistogram getRangeSearchLatency();
+
+	/**
+	 * Computes the structure of the tree. The nodes are read without any
+	 * lock, so the result may be slightly off if the tree changes meanwhile.
+	 *
+	 * @return the structure of the tree
+	 */
+	TreeStructure getStructure();
+
+	/**
+	 * Sets every counter and latency back to zero.
+	 */
+	void reset();
+
+}
@@ -0,0 +1,182 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+/**
+ * The Class TreeStructure. The shape of a BPlusTree at one point in time:
+ * its height, its nodes, how full they are, and an estimate of the memory
+ * they take. Computed on demand by BPlusTree.structure, in a walk of every
+ * node.
+ */
+public class TreeStructure {
+
+	/** The number of buckets of the fill histogram, each a tenth of a node. */
+	public static final int FILL_BUCKETS = 10;
+
+	/** The number of levels, 0 for an empty tree. */
+	private final int height;
+
+	/** The number of internal nodes. */
+	private final long internalNodes;
+
+	/** The number of external nodes. */
+	private final long externalNodes;
+
+	/** The number of keys. */
+	private final long keys;
+
+	/** The number of values. */
+	private final long values;
+
+	/** The mean fraction of the children an internal node can hold that are in use. */
+	private final double internalFill;
+
+	/** The mean fraction of the keys an external node can hold that are in use. */
+	private final double externalFill;
+
+	/** The number of external nodes in each tenth of fill. */
+	private final long[] fillHistogram;
+
+	/** The estimated bytes taken by the nodes and their values. */
+	private final long estimatedBytes;
+
+	/**
+	 * Instantiates a new tree structure.
+	 *
+	 * @param height
+	 *            the number of levels
+	 * @param internalNodes
+	 *            the number of internal nodes
+	 * @param externalNodes
+	 *            the number of external nodes
+	 * @param keys
+	 *            the number of keys
+	 * @param values
+	 *            the number of values
+	 * @param internalFill
+	 *            the mean fill of the internal nodes
+	 * @param externalFill
+	 *            the mean fill of the external nodes
+	 * @param fillHistogram
+	 *            the number of external nodes in each tenth of fill
+	 * @param estimatedBytes
+	 *            the estimated bytes taken by the nodes and their values
+	 */
+	public TreeStructure(int height, long internalNodes, long externalNodes, long keys, long values,
+			double internalFill, double externalFill, long[] fillHistogram, long estimatedBytes) {
+		this.height = height;
+		this.internalNodes = internalNodes;
+		this.externalNodes = externalNodes;
+		this.keys = keys;
+		this.values = values;
+		this.internalFill = internalFill;
+		this.externalFill = externalFill;
+		this.fillHistogram = fillHistogram.clone();
+		this.estimatedBytes = estimatedBytes;
+	}
+
+	/**
+	 * Gets the height.
+	 *
+	 * @return the number of levels, 0 for an empty tree
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Gets the number of internal nodes.
+	 *
+	 * @return the number of internal nodes
+	 */
+	public long getInternalNodes() {
+		return internalNodes;
+	}
+
+	/**
+	 * Gets the number of external nodes.
+	 *
+	 * @return the number of external nodes
+	 */
+	public long getExternalNodes() {
+		return externalNodes;
+	}
+
+	/**
+	 * Gets the number of keys.
+	 *
+	 * @return the number of keys
+	 */
+	public long getKeys() {
+		return keys;
+	}
+
+	/**
+	 * Gets the number of values.
+	 *
+	 * @return the number of values
+	 */
+	public long getValues() {
+		return values;
+	}
+
+	/**
+	 * Gets the mean fill of the internal nodes.
+	 *
+	 * @return the mean fraction of the children an internal node can hold
+	 *         that are in use
+	 */
+	public double getInternalFill() {
+		return internalFill;
+	}
+
+	/**
+	 * Gets the mean fill of the external nodes.
+	 *
+	 * @return the mean fraction of the keys an external node can hold that
+	 *         are in use
+	 */
+	public double getExternalFill() {
+		return externalFill;
+	}
+
+	/**
+	 * Gets the fill histogram of the external nodes. Bucket i counts the
+	 * nodes filled to at least i tenths and less than i + 1 tenths, full
+	 * nodes being counted in the last bucket.
+	 *
+	 * @return the number of external nodes in each tenth of fill
+	 */
+	public long[] getFillHistogram() {
+		return fillHistogram.clone();
+	}
+
+	/**
+	 * Gets the estimated memory taken by the nodes and their values, assuming
+	 * compressed references and strings of one byte per character. A string
+	 * shared by several keys is counted for each, and the summaries of a
+	 * KeyMonoid are not counted.
+	 *
+	 * @return the estimated bytes
+	 */
+	public long getEstimatedBytes() {
+		return estimatedBytes;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append(String.format("height %d, %d internal nodes (%.0f%% full), %d external nodes (%.0f%% full)%n",
+				height, internalNodes, internalFill * 100, externalNodes, externalFill * 100));
+		builder.append(String.format("%d keys, %d values, about %.1f MB%n", keys, values, estimatedBytes / 1e6));
+		builder.append("external nodes by fill:");
+		for (int i = 0; i < FILL_BUCKETS; i++) {
+			builder.append(String.format(" %d-%d%%: %d", i * 10, (i + 1) * 10, fillHistogram[i]));
+			builder.append(i + 1 < FILL_BUCKETS ? "," : "");
+		}
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The Class ValueDictionary. Gives each distinct value of a tree a small
+ * integer code. Posting lists built with a dictionary store the code of each
+ * value instead of its bytes, usually one or two bytes per value, and single
+ * values are replaced by the one String instance kept by the dictionary, so a
+ * value repeated under many keys is held in memory once. A dictionary only
+ * pays off when values repeat: each distinct value costs a map entry.
+ */
+public class ValueDictionary {
+
+	/** The code of each value. */
+	private final Map<String, Integer> codes = new HashMap<>();
+
+	/** The value of each code. */
+	private String[] values = new String[16];
+
+	/** The number of distinct values. */
+	private int size;
+
+	/**
+	 * Gets the code of a value, giving it the next code if it is new.
+	 *
+	 * @param value
+	 *            the value
+	 * @return the code
+	 */
+	public int encode(String value) {
+		Integer code = codes.get(value);
+		if (null != code) {
+			return code;
+		}
+		if (size == values.length) {
+			values = Arrays.copyOf(values, size * 2);
+		}
+		values[size] = value;
+		codes.put(value, size);
+		return size++;
+	}
+
+	/**
+	 * Gets the value of a code.
+	 *
+	 * @param code
+	 *            the code
+	 * @return the value
+	 */
+	public String decode(int code) {
+		return values[code];
+	}
+
+	/**
+	 * Gets the instance of a value kept by the dictionary, adding it if it is
+	 * new.
+	 *
+	 * @param value
+	 *            the value
+	 * @return the equal value held by the dictionary
+	 */
+	public String intern(String value) {
+		return values[encode(value)];
+	}
+
+	/**
+	 * Gets the number of distinct values.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return size;
+	}
+
+}
@@ -0,0 +1,252 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The Class Version. A root published by a writer of the VersionedBPlusTree,
+ * and the epoch of the readers reading it. A reader pins the version before
+ * it reads and unpins it after; the nodes reachable from the root stay as
+ * they are while the version is pinned.
+ *
+ * The versions form a list from the oldest one not yet reclaimed to the
+ * current one. Every version but the current one holds the nodes that its
+ * successor replaced by copies: nothing newer reaches them, so they may be
+ * reused once this version and every older one are sealed, that is once
+ * their pins dropped to zero and no reader can pin them any more.
+ */
+final class Version {
+
+	/** The pin count of a sealed version. */
+	private static final int SEALED = -1;
+
+	/** The number of the version, counting the published roots. */
+	final long number;
+
+	/** The root, null for an empty tree. */
+	final VersionedNode root;
+
+	/** The number of keys reachable from the root. */
+	final long size;
+
+	/** The number of readers reading the version, SEALED once it is reclaimed. */
+	private final AtomicInteger pins = new AtomicInteger();
+
+	/** The nodes of this version replaced in the next one. Set by the writer. */
+	VersionedNode[] retired;
+
+	/** The next version. Set by the writer. */
+	Version next;
+
+	/**
+	 * Instantiates a new version.
+	 *
+	 * @param number
+	 *            the number of the version
+	 * @param root
+	 *            the root, null for an empty tree
+	 * @param size
+	 *            the number of keys reachable from the root
+	 */
+	Version(long number, VersionedNode root, long size) {
+		this.number = number;
+		this.root = root;
+		this.size = size;
+	}
+
+	/**
+	 * Pins the version, unless it was sealed meanwhile.
+	 *
+	 * @return true if the version is pinned, false if it is sealed
+	 */
+	boolean pin() {
+		while (true) {
+			int count = pins.get();
+			if (count == SEALED) {
+				return false;
+			}
+			if (pins.compareAndSet(count, count + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Unpins the version.
+	 */
+	void unpin() {
+		pins.decrementAndGet();
+	}
+
+	/**
+	 * Seals the version if no reader pins it. A sealed version can not be
+	 * pinned again.
+	 *
+	 * @return true if the version is sealed
+	 */
+	boolean seal() {
+		return pins.compareAndSet(0, SEALED);
+	}
+
+	/**
+	 * Search values for a key
+	 *
+	 * @param key
+	 *            the key to be searched
+	 * @return the list of values for the key
+	 */
+	List<String> search(double key) {
+		VersionedNode node = root;
+		if (null == node) {
+			return null;
+		}
+		while (!node.isExternal()) {
+			node = node.children[BPlusTree.upperBound(key, node.keys, node.keyCount)];
+		}
+		int index = BPlusTree.upperBound(key, node.keys, node.keyCount) - 1;
+		return index >= 0 && node.keys[index] == key ? valueList(node.values[index]) : null;
+	}
+
+	/**
+	 * Search for all key values pairs between key1 and key2
+	 *
+	 * @param key1
+	 *            the starting key
+	 * @param key2
+	 *            the ending key
+	 * @return the list of key value pairs between the two keys
+	 */
+	List<Key> search(double key1, double key2) {
+		List<Key> searchKeys = new ArrayList<>();
+		Scan scan = new Scan(key1, key2);
+		while (scan.hasNext()) {
+			searchKeys.add(scan.next());
+		}
+		return searchKeys;
+	}
+
+	/**
+	 * Lists the values of a slot of an external node.
+	 *
+	 * @param slot
+	 *            a String or an array of Strings
+	 * @return the list of values
+	 */
+	private static List<String> valueList(Object slot) {
+		if (slot instanceof String) {
+			return Collections.singletonList((String) slot);
+		}
+		return Collections.unmodifiableList(Arrays.asList((String[]) slot));
+	}
+
+	/**
+	 * The Class Scan. Iterates the key value pairs between two keys. Nodes
+	 * have no sibling links, so the scan keeps the path from the root to its
+	 * external node, and moves to the next external node through the lowest
+	 * internal node on the path that has a child right of the path.
+	 */
+	final class Scan implements Iterator<Key> {
+
+		/** The ending key. */
+		private final double key2;
+
+		/** The nodes on the path, from the root at 0 to the external node. */
+		private final VersionedNode[] nodes;
+
+		/** The index of the child, or in the external node of the key, at each level. */
+		private final int[] indexes;
+
+		/** The index of the external node on the path, -1 once the scan is done. */
+		private int leaf;
+
+		/**
+		 * Instantiates a new scan, descending to the first key not less than
+		 * key1.
+		 *
+		 * @param key1
+		 *            the starting key
+		 * @param key2
+		 *            the ending key
+		 */
+		Scan(double key1, double key2) {
+			this.key2 = key2;
+			int height = 0;
+			for (VersionedNode node = root; null != node; node = node.isExternal() ? null : node.children[0]) {
+				height++;
+			}
+			this.nodes = new VersionedNode[height];
+			this.indexes = new int[height];
+			this.leaf = height - 1;
+			if (height == 0) {
+				return;
+			}
+			VersionedNode node = root;
+			for (int level = 0; level < leaf; level++) {
+				int index = BPlusTree.upperBound(key1, node.keys, node.keyCount);
+				nodes[level] = node;
+				indexes[level] = index;
+				node = node.children[index];
+			}
+			int index = BPlusTree.upperBound(key1, node.keys, node.keyCount);
+			if (index != 0 && node.keys[index - 1] == key1) {
+				index--;
+			}
+			nodes[leaf] = node;
+			indexes[leaf] = index;
+			advance();
+		}
+
+		/**
+		 * Moves past the end of exhausted external nodes, and ends the scan
+		 * at the last external node or after the ending key.
+		 */
+		private void advance() {
+			while (leaf >= 0 && indexes[leaf] == nodes[leaf].keyCount) {
+				int level = leaf - 1;
+				while (level >= 0 && indexes[level] == nodes[level].keyCount) {
+					level--;
+				}
+				if (level < 0) {
+					leaf = -1;
+					return;
+				}
+				indexes[level]++;
+				for (; level < leaf; level++) {
+					nodes[level + 1] = nodes[level].children[indexes[level]];
+					indexes[level + 1] = 0;
+				}
+			}
+			if (leaf >= 0 && nodes[leaf].keys[indexes[leaf]] > key2) {
+				leaf = -1;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return leaf >= 0;
+		}
+
+		@Override
+		public Key next() {
+			if (leaf < 0) {
+				throw new NoSuchElementException();
+			}
+			VersionedNode node = nodes[leaf];
+			int index = indexes[leaf]++;
+			Key key = new Key(node.keys[index], valueList(node.values[index]));
+			advance();
+			return key;
+		}
+
+	}
+
+}
@@ -0,0 +1,130 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The Class VersionView. A version of a VersionedBPlusTree pinned by a
+ * reader. Every search of the view reads the tree as it was when the view
+ * was pinned, however long the reader takes and whatever writers insert
+ * meanwhile. The nodes of the version are not reused while the view is open,
+ * so the view has to be closed, best with try-with-resources: an open view
+ * keeps its version and every newer one from being reclaimed.
+ */
+public class VersionView implements AutoCloseable {
+
+	/** The pinned version. */
+	private final Version version;
+
+	/** Whether the view was closed. */
+	private boolean closed;
+
+	/**
+	 * Instantiates a new view of a pinned version.
+	 *
+	 * @param version
+	 *            the pinned version
+	 */
+	VersionView(Version version) {
+		this.version = version;
+	}
+
+	/**
+	 * Gets the number of the version, counting the inserts into the tree.
+	 *
+	 * @return the number of the version
+	 */
+	public long getVersion() {
+		return version.number;
+	}
+
+	/**
+	 * Counts the keys of the version.
+	 *
+	 * @return the number of keys
+	 */
+	public long size() {
+		return version.size;
+	}
+
+	/**
+	 * Search values for a key
+	 *
+	 * @param key
+	 *            the key to be searched
+	 * @return the list of values for the key
+	 */
+	public List<String> search(double key) {
+		checkOpen();
+		return version.search(key);
+	}
+
+	/**
+	 * Search for all key values pairs between key1 and key2
+	 *
+	 * @param key1
+	 *            the starting key
+	 * @param key2
+	 *            the ending key
+	 * @return the list of key value pairs between the two keys
+	 */
+	public List<Key> search(double key1, double key2) {
+		checkOpen();
+		return version.search(key1, key2);
+	}
+
+	/**
+	 * Iterates the key value pairs between key1 and key2 in increasing order
+	 * of the keys. The iterator may be used only while the view is open.
+	 *
+	 * @param key1
+	 *            the starting key
+	 * @param key2
+	 *            the ending key
+	 * @return the iterator of the key value pairs between the two keys
+	 */
+	public Iterator<Key> iterator(double key1, double key2) {
+		checkOpen();
+		Iterator<Key> scan = version.new Scan(key1, key2);
+		return new Iterator<Key>() {
+
+			@Override
+			public boolean hasNext() {
+				checkOpen();
+				return scan.hasNext();
+			}
+
+			@Override
+			public Key next() {
+				checkOpen();
+				return scan.next();
+			}
+
+		};
+	}
+
+	/**
+	 * Unpins the version. Closing a closed view has no effect.
+	 */
+	@Override
+	public void close() {
+		if (!closed) {
+			closed = true;
+			version.unpin();
+		}
+	}
+
+	/**
+	 * Checks that the view was not closed.
+	 */
+	private void checkOpen() {
+		if (closed) {
+			throw new IllegalStateException("The view is closed");
+		}
+	}
+
+}
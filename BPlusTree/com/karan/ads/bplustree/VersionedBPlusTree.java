@@ -0,0 +1,452 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The Class VersionedBPlusTree. A thread safe B Plus Tree whose readers see
+ * consistent versions. A writer never modifies a node a reader may reach: it
+ * copies the path from the root to the external node it inserts into, and
+ * publishes the copied root as a new version. A reader pins the current
+ * version and reads it without locks for as long as it likes, while writers
+ * go on publishing newer ones. Writers take turns on a lock among themselves.
+ *
+ * The nodes a version replaced are retired with the version before it, and
+ * are reclaimed epoch by epoch: once no reader pins that version or an older
+ * one, no reader can reach them any more, and the writer reuses them for its
+ * next copies instead of allocating new nodes.
+ */
+public class VersionedBPlusTree {
+
+	/** The largest number of reclaimed nodes of each kind kept for reuse. */
+	private static final int MAX_POOLED_NODES = 1024;
+
+	/** The retired nodes of a version replacing only an empty tree. */
+	private static final VersionedNode[] NO_NODES = new VersionedNode[0];
+
+	/** The degree m. */
+	private int m;
+
+	/** The current version, the one new readers pin. */
+	private volatile Version current;
+
+	/** The oldest version whose retired nodes were not reclaimed yet. */
+	private Version oldest;
+
+	/** Lets one writer at a time copy and publish. */
+	private final Object writeLock = new Object();
+
+	/** The internal nodes passed on the way down, from the root. */
+	private VersionedNode[] path = new VersionedNode[8];
+
+	/** The index of the child taken at each internal node on the path. */
+	private int[] pathIndexes = new int[8];
+
+	/** The reclaimed external nodes ready for reuse. */
+	private final ArrayDeque<VersionedNode> freeExternalNodes = new ArrayDeque<>();
+
+	/** The reclaimed internal nodes ready for reuse. */
+	private final ArrayDeque<VersionedNode> freeInternalNodes = new ArrayDeque<>();
+
+	/** The number of nodes reclaimed so far. */
+	private long reclaimedNodes;
+
+	/**
+	 * Instantiates a new versioned b plus tree.
+	 */
+	public VersionedBPlusTree() {
+
+	}
+
+	/**
+	 * Initializes the B Plus Tree. Sets the degree of the BPlus Tree as m. The
+	 * tree must be initialized before it is shared between threads.
+	 *
+	 * @param order
+	 *            the degree of the B Plus Tree
+	 */
+	public void initialize(int order) {
+		if (order < 3) {
+			throw new IllegalArgumentException("Degree must be at least 3: " + order);
+		}
+		this.m = order;
+		this.current = new Version(0, null, 0);
+		this.oldest = this.current;
+	}
+
+	/**
+	 * Insert a key and value pair to the B Plus Tree, publishing a new
+	 * version.
+	 *
+	 * @param key
+	 *            the key to be inserted
+	 * @param value
+	 *            the value to be inserted
+	 */
+	public void insert(double key, String value) {
+		synchronized (writeLock) {
+			Version version = this.current;
+			if (null == version.root) {
+				VersionedNode leaf = allocate(true);
+				leaf.keys[0] = key;
+				leaf.values[0] = value;
+				leaf.keyCount = 1;
+				publish(version, leaf, 1, NO_NODES);
+				return;
+			}
+
+			// Case 1 : Record the path down to the external node
+			int depth = 0;
+			VersionedNode node = version.root;
+			while (!node.isExternal()) {
+				if (depth == path.length) {
+					path = Arrays.copyOf(path, depth * 2);
+					pathIndexes = Arrays.copyOf(pathIndexes, depth * 2);
+				}
+				int index = BPlusTree.upperBound(key, node.keys, node.keyCount);
+				path[depth] = node;
+				pathIndexes[depth] = index;
+				depth++;
+				node = node.children[index];
+			}
+			VersionedNode[] retired = new VersionedNode[depth + 1];
+			retired[depth] = node;
+
+			// Case 2 : Copy the external node with the key, and split the
+			// copy if it is full
+			VersionedNode child = allocate(true);
+			boolean newKey = copyWithinExternalNode(key, value, node, child);
+			VersionedNode rightPart = null;
+			double middleKey = 0;
+			if (child.keyCount == this.m) {
+				rightPart = splitExternalNode(child);
+				middleKey = rightPart.keys[0];
+			}
+
+			// Case 3 : Copy the internal nodes on the path with the copied
+			// children, inserting the middle keys of the splits
+			for (int level = depth - 1; level >= 0; level--) {
+				VersionedNode parent = path[level];
+				path[level] = null;
+				retired[level] = parent;
+				VersionedNode copy = allocate(false);
+				int index = pathIndexes[level];
+				if (null == rightPart) {
+					System.arraycopy(parent.keys, 0, copy.keys, 0, parent.keyCount);
+					System.arraycopy(parent.children, 0, copy.children, 0, parent.keyCount + 1);
+					copy.keyCount = parent.keyCount;
+					copy.children[index] = child;
+				} else {
+					copyWithinInternalNode(middleKey, child, rightPart, index, parent, copy);
+					if (copy.keyCount == this.m) {
+						middleKey = copy.keys[this.m / 2];
+						rightPart = splitInternalNode(copy);
+					} else {
+						rightPart = null;
+					}
+				}
+				child = copy;
+			}
+
+			// Case 4 : A split of the root grows the tree by a level
+			if (null != rightPart) {
+				VersionedNode root = allocate(false);
+				root.keys[0] = middleKey;
+				root.children[0] = child;
+				root.children[1] = rightPart;
+				root.keyCount = 1;
+				child = root;
+			}
+			publish(version, child, newKey ? version.size + 1 : version.size, retired);
+		}
+	}
+
+	/**
+	 * Copy an external node into an empty one, inserting a key and value
+	 * pair. The values of an existing key are copied, since readers may still
+	 * hold the previous array.
+	 *
+	 * @param key
+	 *            the key to be inserted
+	 * @param value
+	 *            the value to be inserted
+	 * @param node
+	 *            the external node to be copied
+	 * @param copy
+	 *            the empty external node receiving the copy
+	 * @return true if the key is new to the tree
+	 */
+	private static boolean copyWithinExternalNode(double key, String value, VersionedNode node,
+			VersionedNode copy) {
+		int keyCount = node.keyCount;
+		int indexOfKey = BPlusTree.upperBound(key, node.keys, keyCount);
+		if (indexOfKey != 0 && node.keys[indexOfKey - 1] == key) {
+			System.arraycopy(node.keys, 0, copy.keys, 0, keyCount);
+			System.arraycopy(node.values, 0, copy.values, 0, keyCount);
+			copy.keyCount = keyCount;
+			Object existing = node.values[indexOfKey - 1];
+			String[] valueArray;
+			if (existing instanceof String) {
+				valueArray = new String[] { (String) existing, value };
+			} else {
+				String[] previous = (String[]) existing;
+				valueArray = Arrays.copyOf(previous, previous.length + 1);
+				valueArray[previous.length] = value;
+			}
+			copy.values[indexOfKey - 1] = valueArray;
+			return false;
+		}
+		System.arraycopy(node.keys, 0, copy.keys, 0, indexOfKey);
+		System.arraycopy(node.values, 0, copy.values, 0, indexOfKey);
+		copy.keys[indexOfKey] = key;
+		copy.values[indexOfKey] = value;
+		System.arraycopy(node.keys, indexOfKey, copy.keys, indexOfKey + 1, keyCount - indexOfKey);
+		System.arraycopy(node.values, indexOfKey, copy.values, indexOfKey + 1, keyCount - indexOfKey);
+		copy.keyCount = keyCount + 1;
+		return true;
+	}
+
+	/**
+	 * Copy an internal node into an empty one, replacing the child that was
+	 * split by the two parts of the split.
+	 *
+	 * @param middleKey
+	 *            the middle key of the split
+	 * @param leftPart
+	 *            the left part of the split
+	 * @param rightPart
+	 *            the right part of the split
+	 * @param index
+	 *            the index of the child that was split
+	 * @param node
+	 *            the internal node to be copied
+	 * @param copy
+	 *            the empty internal node receiving the copy
+	 */
+	private static void copyWithinInternalNode(double middleKey, VersionedNode leftPart,
+			VersionedNode rightPart, int index, VersionedNode node, VersionedNode copy) {
+		int keyCount = node.keyCount;
+		System.arraycopy(node.keys, 0, copy.keys, 0, index);
+		copy.keys[index] = middleKey;
+		System.arraycopy(node.keys, index, copy.keys, index + 1, keyCount - index);
+		System.arraycopy(node.children, 0, copy.children, 0, index);
+		copy.children[index] = leftPart;
+		copy.children[index + 1] = rightPart;
+		System.arraycopy(node.children, index + 1, copy.children, index + 2, keyCount - index);
+		copy.keyCount = keyCount + 1;
+	}
+
+	/**
+	 * Split a full external node that no reader can reach yet.
+	 *
+	 * @param node
+	 *            the full external node to be split
+	 * @return the right part of the split
+	 */
+	private VersionedNode splitExternalNode(VersionedNode node) {
+		int midIndex = this.m / 2;
+		int keyCount = node.keyCount;
+		VersionedNode rightPart = allocate(true);
+		System.arraycopy(node.keys, midIndex, rightPart.keys, 0, keyCount - midIndex);
+		System.arraycopy(node.values, midIndex, rightPart.values, 0, keyCount - midIndex);
+		rightPart.keyCount = keyCount - midIndex;
+		Arrays.fill(node.values, midIndex, keyCount, null);
+		node.keyCount = midIndex;
+		return rightPart;
+	}
+
+	/**
+	 * Split a full internal node that no reader can reach yet. The middle key
+	 * moves up to the parent.
+	 *
+	 * @param node
+	 *            the full internal node to be split
+	 * @return the right part of the split
+	 */
+	private VersionedNode splitInternalNode(VersionedNode node) {
+		int midIndex = this.m / 2;
+		int keyCount = node.keyCount;
+		VersionedNode rightPart = allocate(false);
+		System.arraycopy(node.keys, midIndex + 1, rightPart.keys, 0, keyCount - midIndex - 1);
+		System.arraycopy(node.children, midIndex + 1, rightPart.children, 0, keyCount - midIndex);
+		rightPart.keyCount = keyCount - midIndex - 1;
+		Arrays.fill(node.children, midIndex + 1, keyCount + 1, null);
+		node.keyCount = midIndex;
+		return rightPart;
+	}
+
+	/**
+	 * Publishes a new root as the current version, and reclaims the nodes of
+	 * the versions no reader pins.
+	 *
+	 * @param version
+	 *            the current version
+	 * @param root
+	 *            the new root
+	 * @param size
+	 *            the number of keys reachable from the new root
+	 * @param retired
+	 *            the nodes of the current version replaced by copies
+	 */
+	private void publish(Version version, VersionedNode root, long size, VersionedNode[] retired) {
+		Version next = new Version(version.number + 1, root, size);
+		version.retired = retired;
+		version.next = next;
+		this.current = next;
+
+		// Readers of a sealed version are gone, and new ones can not come,
+		// so the nodes it shares with no newer version are free
+		while (oldest != next && oldest.seal()) {
+			for (VersionedNode node : oldest.retired) {
+				reclaim(node);
+			}
+			Version reclaimed = oldest;
+			oldest = reclaimed.next;
+			reclaimed.retired = null;
+			reclaimed.next = null;
+		}
+	}
+
+	/**
+	 * Takes a node for a copy, reusing a reclaimed one if there is any.
+	 *
+	 * @param external
+	 *            true for an external node
+	 * @return the empty node
+	 */
+	private VersionedNode allocate(boolean external) {
+		VersionedNode node = external ? freeExternalNodes.poll() : freeInternalNodes.poll();
+		return null == node ? new VersionedNode(this.m, external) : node;
+	}
+
+	/**
+	 * Keeps a node no reader can reach for reuse, dropping its references so
+	 * that they do not hold on to values or nodes meanwhile.
+	 *
+	 * @param node
+	 *            the reclaimed node
+	 */
+	private void reclaim(VersionedNode node) {
+		reclaimedNodes++;
+		ArrayDeque<VersionedNode> free = node.isExternal() ? freeExternalNodes : freeInternalNodes;
+		if (free.size() < MAX_POOLED_NODES) {
+			if (node.isExternal()) {
+				Arrays.fill(node.values, 0, node.keyCount, null);
+			} else {
+				Arrays.fill(node.children, 0, node.keyCount + 1, null);
+			}
+			node.keyCount = 0;
+			free.push(node);
+		}
+	}
+
+	/**
+	 * Pins the current version for a reader. The view has to be closed once
+	 * the reader is done.
+	 *
+	 * @return the view of the current version
+	 */
+	public VersionView pin() {
+		return new VersionView(acquire());
+	}
+
+	/**
+	 * Pins the current version. A version sealed between reading and
+	 * pinning it is no longer current, so the pin is retried on the newer
+	 * one.
+	 *
+	 * @return the pinned version
+	 */
+	private Version acquire() {
+		while (true) {
+			Version version = this.current;
+			if (version.pin()) {
+				return version;
+			}
+		}
+	}
+
+	/**
+	 * Search values for a key in the current version
+	 *
+	 * @param key
+	 *            the key to be searched
+	 * @return the list of values for the key
+	 */
+	public List<String> search(double key) {
+		Version version = acquire();
+		try {
+			return version.search(key);
+		} finally {
+			version.unpin();
+		}
+	}
+
+	/**
+	 * Search for all key values pairs between key1 and key2 in the current
+	 * version
+	 *
+	 * @param key1
+	 *            the starting key
+	 * @param key2
+	 *            the ending key
+	 * @return the list of key value pairs between the two keys
+	 */
+	public List<Key> search(double key1, double key2) {
+		Version version = acquire();
+		try {
+			return version.search(key1, key2);
+		} finally {
+			version.unpin();
+		}
+	}
+
+	/**
+	 * Counts the keys of the current version.
+	 *
+	 * @return the number of keys
+	 */
+	public long size() {
+		return this.current.size;
+	}
+
+	/**
+	 * Gets the number of the current version, counting the inserts.
+	 *
+	 * @return the number of the current version
+	 */
+	public long getVersion() {
+		return this.current.number;
+	}
+
+	/**
+	 * Counts the versions whose retired nodes were not reclaimed yet,
+	 * including the current one. A reader holding on to a version keeps it
+	 * and every newer version from being reclaimed.
+	 *
+	 * @return the number of versions retained
+	 */
+	public long getRetainedVersions() {
+		synchronized (writeLock) {
+			return this.current.number - this.oldest.number + 1;
+		}
+	}
+
+	/**
+	 * Counts the nodes reclaimed so far, whether they were kept for reuse or
+	 * left to the garbage collector.
+	 *
+	 * @return the number of nodes reclaimed
+	 */
+	public long getReclaimedNodes() {
+		synchronized (writeLock) {
+			return this.reclaimedNodes;
+		}
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+/**
+ * The Class VersionedNode. A node of the VersionedBPlusTree. A node is never
+ * modified once a version reaching it is published: a writer copies it
+ * instead, so nodes need no locks, and have no parent or sibling links, which
+ * would have to be copied along with every node they point to. A node is
+ * only written again after it was retired and reclaimed, once no reader can
+ * reach it.
+ */
+class VersionedNode {
+
+	/** The sorted keys of the node. Only the first keyCount slots are in use. */
+	final double[] keys;
+
+	/** The number of keys currently stored in the node. */
+	int keyCount;
+
+	/** The children of this node. Set only for internal Nodes */
+	final VersionedNode[] children;
+
+	/**
+	 * The values for each key. A slot holds a String for a single value, or
+	 * an array of Strings that is replaced, never modified, on a duplicate.
+	 * Set only for external Nodes
+	 */
+	final Object[] values;
+
+	/**
+	 * Instantiates a new node.
+	 *
+	 * @param order
+	 *            the degree of the B Plus Tree
+	 * @param external
+	 *            true for an external node
+	 */
+	VersionedNode(int order, boolean external) {
+		this.keys = new double[order];
+		if (external) {
+			this.values = new Object[order];
+			this.children = null;
+		} else {
+			this.values = null;
+			this.children = new VersionedNode[order + 1];
+		}
+	}
+
+	/**
+	 * Checks if the node is an external node.
+	 *
+	 * @return true if the node is an external node
+	 */
+	boolean isExternal() {
+		return null != values;
+	}
+
+}
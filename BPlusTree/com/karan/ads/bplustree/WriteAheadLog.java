@@ -0,0 +1,444 @@
+package com.karan.ads.bplustree;
+
+/*
+ * author : Karan Chauhan
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * The Class WriteAheadLog. An append-only log of the operations on a tree.
+ * Every record gets a log sequence number (LSN). Records are appended to a
+ * buffer in memory and written to the file in batches: with SYNC durability,
+ * the first caller waiting for its record becomes the leader and writes and
+ * forces the records of all callers that appended meanwhile with a single
+ * fsync (group commit).
+ *
+ * Record layout: length of the rest of the record, CRC32 of the rest, LSN,
+ * operation, key, length-prefixed UTF-8 value. A torn record at the end of
+ * the file, left by a crash, is detected by its length or checksum and cut
+ * off on replay.
+ *
+ * Once a write or a force of the log fails, the records written since the
+ * last force may be torn in the middle of the file, and replay would drop
+ * every record after them. The log then stays failed: every later append,
+ * sync, flush and truncate throws, so no record is ever acknowledged past the
+ * failure.
+ */
+public class WriteAheadLog implements Closeable {
+
+	/**
+	 * The durability of the appended records.
+	 */
+	public enum Durability {
+		/** An operation returns once its record is forced to the device. */
+		SYNC,
+		/** Records are forced in the background at a fixed interval. */
+		PERIODIC,
+		/** Records are written to the file but never forced until close. */
+		NONE
+	}
+
+	/**
+	 * The Interface RecordHandler. Receives the records of the log on replay.
+	 */
+	public interface RecordHandler {
+
+		/**
+		 * Applies a record.
+		 *
+		 * @param operation
+		 *            the operation of the record
+		 * @param key
+		 *            the key
+		 * @param value
+		 *            the value
+		 */
+		void apply(byte operation, double key, String value);
+	}
+
+	/** The operation of an insert record. */
+	public static final byte OPERATION_INSERT = 1;
+
+	/** The operation of a record deleting a key with all its values, logged with an empty value. */
+	public static final byte OPERATION_DELETE_KEY = 2;
+
+	/** The operation of a record deleting one value of a key. */
+	public static final byte OPERATION_DELETE_VALUE = 3;
+
+	/** The bytes of a record before its value: length, CRC, LSN, operation, key, value length. */
+	private static final int RECORD_HEADER_SIZE = 4 + 4 + 8 + 1 + 8 + 4;
+
+	/** The buffered bytes above which records are written without waiting for a sync. */
+	private static final int WRITE_THRESHOLD = 64 * 1024;
+
+	/** The channel to the log file. */
+	private final FileChannel channel;
+
+	/** The durability of the records. */
+	private final Durability durability;
+
+	/** Forces the log at a fixed interval with PERIODIC durability. */
+	private final ScheduledExecutorService flusher;
+
+	/** The records appended but not written yet. */
+	private ByteBuffer pending = ByteBuffer.allocate(WRITE_THRESHOLD * 2);
+
+	/** The buffer swapped with pending while a batch is written. */
+	private ByteBuffer writing = ByteBuffer.allocate(WRITE_THRESHOLD * 2);
+
+	/** Computes the checksums of records. */
+	private final CRC32 crc = new CRC32();
+
+	/** The LSN of the last appended record. */
+	private long lastLsn;
+
+	/** The LSN of the last record forced to the device. */
+	private long durableLsn;
+
+	/** True while a batch is being written. */
+	private boolean flushing;
+
+	/** The number of times the log was forced. */
+	private long syncCount;
+
+	/** The first failure to write or force the log, null while there is none. */
+	private IOException failure;
+
+	/**
+	 * Opens a log file, creating it if it does not exist. Records already in
+	 * the file are read by replay.
+	 *
+	 * @param path
+	 *            the path of the log file
+	 * @param durability
+	 *            the durability of appended records
+	 * @param syncIntervalMillis
+	 *            the interval between two syncs with PERIODIC durability
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public WriteAheadLog(Path path, Durability durability, long syncIntervalMillis) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		this.durability = durability;
+		if (durability == Durability.PERIODIC) {
+			this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "wal-flusher");
+				thread.setDaemon(true);
+				return thread;
+			});
+			this.flusher.scheduleWithFixedDelay(() -> {
+				try {
+					flushPending(true);
+				} catch (IOException e) {
+					// the failure is kept and thrown to the writers, there is
+					// nothing left to force
+					flusher.shutdown();
+				}
+			}, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+		} else {
+			this.flusher = null;
+		}
+	}
+
+	/**
+	 * Replays the records of the log with an LSN greater than a given one, in
+	 * order. Replay stops at the first torn or corrupt record, and the file is
+	 * cut there so that new records follow the last valid one. Must be called
+	 * before any record is appended.
+	 *
+	 * @param afterLsn
+	 *            the LSN of the last record already reflected in the tree
+	 * @param handler
+	 *            the handler applying the records
+	 * @return the number of records applied
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public synchronized long replay(long afterLsn, RecordHandler handler) throws IOException {
+		long applied = 0;
+		long position = 0;
+		long size = channel.size();
+		ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+		lastLsn = afterLsn;
+		while (position + 4 <= size) {
+			lengthBuffer.clear();
+			channel.read(lengthBuffer, position);
+			lengthBuffer.flip();
+			int length = lengthBuffer.getInt();
+			if (length < RECORD_HEADER_SIZE - 4 || position + 4 + length > size) {
+				break;
+			}
+			ByteBuffer record = ByteBuffer.allocate(length);
+			while (record.hasRemaining()) {
+				channel.read(record, position + 4 + record.position());
+			}
+			record.flip();
+			int checksum = record.getInt();
+			crc.reset();
+			crc.update(record.array(), 4, length - 4);
+			if ((int) crc.getValue() != checksum) {
+				break;
+			}
+			long lsn = record.getLong();
+			byte operation = record.get();
+			double key = record.getDouble();
+			int valueLength = record.getInt();
+			String value = new String(record.array(), record.position(), valueLength, StandardCharsets.UTF_8);
+			if (lsn > afterLsn) {
+				handler.apply(operation, key, value);
+				applied++;
+			}
+			lastLsn = Math.max(lastLsn, lsn);
+			position += 4 + length;
+		}
+		// cut off a torn record so that new records are not appended after it
+		channel.truncate(position);
+		channel.position(position);
+		durableLsn = lastLsn;
+		return applied;
+	}
+
+	/**
+	 * Appends a record to the log. The record is durable only once sync
+	 * returns for its LSN, or once the background flush forced it.
+	 *
+	 * @param operation
+	 *            the operation
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the value
+	 * @return the LSN of the record
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public long append(byte operation, double key, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		long lsn;
+		boolean write;
+		synchronized (this) {
+			checkFailure();
+			lsn = ++lastLsn;
+			int length = RECORD_HEADER_SIZE + bytes.length;
+			if (pending.remaining() < length) {
+				ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + length));
+				pending.flip();
+				grown.put(pending);
+				pending = grown;
+			}
+			int start = pending.position();
+			pending.putInt(length - 4).putInt(0).putLong(lsn).put(operation).putDouble(key).putInt(bytes.length)
+					.put(bytes);
+			crc.reset();
+			crc.update(pending.array(), start + 8, length - 8);
+			pending.putInt(start + 4, (int) crc.getValue());
+			write = durability != Durability.SYNC && pending.position() >= WRITE_THRESHOLD;
+		}
+		if (write) {
+			// without sync, large batches are written as they fill up
+			flushPending(false);
+		}
+		return lsn;
+	}
+
+	/**
+	 * Waits until a record is forced to the device. If no batch is being
+	 * written, the caller writes and forces all records appended so far, for
+	 * every waiting caller at once.
+	 *
+	 * @param lsn
+	 *            the LSN of the record
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public void sync(long lsn) throws IOException {
+		while (true) {
+			synchronized (this) {
+				while (flushing && durableLsn < lsn) {
+					awaitFlush();
+				}
+				checkFailure();
+				if (durableLsn >= lsn) {
+					return;
+				}
+			}
+			flushPending(true);
+		}
+	}
+
+	/**
+	 * Writes the buffered records to the file, and forces them if asked to.
+	 * Only one batch is written at a time; a caller arriving while a batch is
+	 * written waits for it and then writes what was appended meanwhile.
+	 *
+	 * @param force
+	 *            true if the records are to be forced to the device
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	void flushPending(boolean force) throws IOException {
+		ByteBuffer batch;
+		long upTo;
+		synchronized (this) {
+			while (flushing) {
+				awaitFlush();
+			}
+			checkFailure();
+			if (pending.position() == 0 && (!force || durableLsn == lastLsn)) {
+				return;
+			}
+			flushing = true;
+			batch = pending;
+			pending = writing;
+			writing = batch;
+			upTo = lastLsn;
+		}
+		boolean written = false;
+		try {
+			batch.flip();
+			while (batch.hasRemaining()) {
+				channel.write(batch);
+			}
+			if (force) {
+				channel.force(false);
+			}
+			written = true;
+		} catch (IOException e) {
+			fail(e);
+			throw e;
+		} finally {
+			synchronized (this) {
+				batch.clear();
+				flushing = false;
+				// the records are durable only once written and forced
+				if (written && force) {
+					durableLsn = upTo;
+					syncCount++;
+				}
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Empties the log once all of its records are reflected in a checkpoint.
+	 * The caller must make sure no record is appended meanwhile.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public void truncate() throws IOException {
+		flushPending(true);
+		synchronized (this) {
+			checkFailure();
+			try {
+				channel.truncate(0);
+				channel.position(0);
+				channel.force(false);
+			} catch (IOException e) {
+				fail(e);
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Marks the log as failed, keeping the first failure.
+	 *
+	 * @param e
+	 *            the failure to write, force or truncate the log
+	 */
+	private synchronized void fail(IOException e) {
+		if (null == failure) {
+			failure = e;
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Throws if the log failed. Must be called holding the monitor of the
+	 * log.
+	 *
+	 * @throws IOException
+	 *             if a write, force or truncate of the log failed
+	 */
+	private void checkFailure() throws IOException {
+		if (null != failure) {
+			throw new IOException("The log failed, records after LSN " + durableLsn + " are not durable", failure);
+		}
+	}
+
+	/**
+	 * Waits for the batch being written.
+	 *
+	 * @throws InterruptedIOException
+	 *             if the thread is interrupted while waiting
+	 */
+	private void awaitFlush() throws InterruptedIOException {
+		try {
+			wait();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the log to be written");
+		}
+	}
+
+	/**
+	 * Gets the durability of the log.
+	 *
+	 * @return the durability
+	 */
+	public Durability getDurability() {
+		return durability;
+	}
+
+	/**
+	 * Gets the LSN of the last appended record.
+	 *
+	 * @return the last LSN
+	 */
+	public synchronized long getLastLsn() {
+		return lastLsn;
+	}
+
+	/**
+	 * Gets the number of times the log was forced to the device.
+	 *
+	 * @return the sync count
+	 */
+	public synchronized long getSyncCount() {
+		return syncCount;
+	}
+
+	/**
+	 * Writes and forces all records and closes the file.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (null != flusher) {
+			flusher.shutdown();
+		}
+		try {
+			flushPending(true);
+		} finally {
+			channel.close();
+		}
+	}
+
+}
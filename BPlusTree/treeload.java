@@ -0,0 +1,333 @@
+/*
+ *  author: Karan Chauhan
+ */
+
+import com.karan.ads.bplustree.LatencyHistogram;
+import com.karan.ads.bplustree.TreeClient;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The Class treeload. A load generator for treeserver: each connection sends
+ * requests in pipelined batches from its own thread, and the latency of each
+ * request is measured from the sending of its batch to the reading of its
+ * answer.
+ */
+public class treeload {
+
+	/** The Constant OPTION_HOST. */
+	private static final String OPTION_HOST = "--host";
+
+	/** The Constant OPTION_PORT. */
+	private static final String OPTION_PORT = "--port";
+
+	/** The Constant OPTION_CONNECTIONS. */
+	private static final String OPTION_CONNECTIONS = "--connections";
+
+	/** The Constant OPTION_DEPTH, the number of requests of a pipelined batch. */
+	private static final String OPTION_DEPTH = "--depth";
+
+	/** The Constant OPTION_SECONDS. */
+	private static final String OPTION_SECONDS = "--seconds";
+
+	/** The Constant OPTION_KEYS, the number of distinct keys requested. */
+	private static final String OPTION_KEYS = "--keys";
+
+	/** The Constant OPTION_PRELOAD, the number of keys inserted before measuring. */
+	private static final String OPTION_PRELOAD = "--preload";
+
+	/** The Constant OPTION_INSERTS, the percentage of inserts. */
+	private static final String OPTION_INSERTS = "--inserts";
+
+	/** The Constant OPTION_RANGES, the percentage of searches between two keys. */
+	private static final String OPTION_RANGES = "--ranges";
+
+	/** The Constant OPTION_WIDTH, the number of keys of a search between two keys. */
+	private static final String OPTION_WIDTH = "--width";
+
+	/** The Constant PRELOAD_BATCH, the number of inserts pipelined while preloading. */
+	private static final int PRELOAD_BATCH = 1024;
+
+	/** The Constant WARMUP_SECONDS, before the latencies are recorded. */
+	private static final int WARMUP_SECONDS = 2;
+
+	/** The histograms of the latencies, one per operation. */
+	private static final LatencyHistogram INSERTS = new LatencyHistogram();
+
+	/** The histogram of the latencies of searches of a key. */
+	private static final LatencyHistogram SEARCHES = new LatencyHistogram();
+
+	/** The histogram of the latencies of searches between two keys. */
+	private static final LatencyHistogram RANGES = new LatencyHistogram();
+
+	// Sample run: java treeload --connections 4 --depth 32 --seconds 10
+	// --keys 1000000 --preload 1000000 --inserts 10 --ranges 5 --width 100
+
+	/**
+	 * The main method.
+	 *
+	 * @param args
+	 *            optionally --host and --port of the server, --connections n
+	 *            to open n connections, --depth n to pipeline n requests at
+	 *            a time, --seconds n to measure for n seconds, --keys n to
+	 *            request keys 0 to n - 1, --preload n to insert keys 0 to n -
+	 *            1 first, --inserts and --ranges for the percentages of
+	 *            inserts and of searches between two keys among the
+	 *            requests, the others being searches of a key, and --width n
+	 *            for the number of keys between the two keys
+	 */
+	public static void main(String args[]) {
+		String host = "localhost";
+		int port = 7070;
+		int connections = 4;
+		int depth = 16;
+		int seconds = 10;
+		int keys = 1000000;
+		int preload = 1000000;
+		int inserts = 10;
+		int ranges = 0;
+		int width = 100;
+		try {
+			for (int i = 0; i + 1 < args.length; i += 2) {
+				String value = args[i + 1];
+				if (OPTION_HOST.equals(args[i])) {
+					host = value;
+				} else if (OPTION_PORT.equals(args[i])) {
+					port = Integer.parseInt(value);
+				} else if (OPTION_CONNECTIONS.equals(args[i])) {
+					connections = Integer.parseInt(value);
+				} else if (OPTION_DEPTH.equals(args[i])) {
+					depth = Integer.parseInt(value);
+				} else if (OPTION_SECONDS.equals(args[i])) {
+					seconds = Integer.parseInt(value);
+				} else if (OPTION_KEYS.equals(args[i])) {
+					keys = Integer.parseInt(value);
+				} else if (OPTION_PRELOAD.equals(args[i])) {
+					preload = Integer.parseInt(value);
+				} else if (OPTION_INSERTS.equals(args[i])) {
+					inserts = Integer.parseInt(value);
+				} else if (OPTION_RANGES.equals(args[i])) {
+					ranges = Integer.parseInt(value);
+				} else if (OPTION_WIDTH.equals(args[i])) {
+					width = Integer.parseInt(value);
+				} else {
+					System.out.println("Error: Unknown option " + args[i]);
+					return;
+				}
+			}
+		} catch (NumberFormatException e) {
+			System.out.println("Enter valid numbers");
+			return;
+		}
+
+		try {
+			preload(host, port, preload);
+
+			final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+			final long warmupEnd = System.nanoTime() + WARMUP_SECONDS * 1000000000L;
+			final long end = warmupEnd + seconds * 1000000000L;
+			List<Thread> threads = new ArrayList<Thread>();
+			for (int c = 0; c < connections; c++) {
+				final TreeClient client = new TreeClient(host, port);
+				final Load load = new Load(client, depth, keys, inserts, ranges, width, c);
+				Thread thread = new Thread() {
+					@Override
+					public void run() {
+						try {
+							load.run(warmupEnd, end);
+						} catch (IOException | RuntimeException e) {
+							failure.compareAndSet(null, e);
+						} finally {
+							try {
+								client.close();
+							} catch (IOException e) {
+								// Closing a broken connection
+							}
+						}
+					}
+				};
+				threads.add(thread);
+				thread.start();
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			if (null != failure.get()) {
+				System.out.println("Error: A connection failed");
+				failure.get().printStackTrace();
+				return;
+			}
+
+			long total = INSERTS.getCount() + SEARCHES.getCount() + RANGES.getCount();
+			System.out.printf("%d connections, %d requests in flight each: %.0f requests/sec%n", connections, depth,
+					total / (double) seconds);
+			report("insert", INSERTS, seconds);
+			report("search", SEARCHES, seconds);
+			report("range", RANGES, seconds);
+		} catch (IOException e) {
+			System.out.println("Error: Failed to connect to " + host + ":" + port);
+			e.printStackTrace();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Inserts keys 0 to count - 1, in pipelined batches.
+	 *
+	 * @param host
+	 *            the host of the server
+	 * @param port
+	 *            the port of the server
+	 * @param count
+	 *            the number of keys
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private static void preload(String host, int port, int count) throws IOException {
+		try (TreeClient client = new TreeClient(host, port)) {
+			for (int start = 0; start < count; start += PRELOAD_BATCH) {
+				int batchEnd = Math.min(count, start + PRELOAD_BATCH);
+				for (int key = start; key < batchEnd; key++) {
+					client.sendInsert(key, "Value" + key);
+				}
+				client.flush();
+				for (int key = start; key < batchEnd; key++) {
+					client.readInsert();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Prints the latencies of an operation.
+	 *
+	 * @param name
+	 *            the name of the operation
+	 * @param histogram
+	 *            its latencies
+	 * @param seconds
+	 *            the duration of the measure
+	 */
+	private static void report(String name, LatencyHistogram histogram, int seconds) {
+		if (histogram.getCount() == 0) {
+			return;
+		}
+		System.out.printf("%-6s %10.0f/s  p50 %7.1f us  p99 %7.1f us  p99.9 %7.1f us  max %8.1f us%n", name,
+				histogram.getCount() / (double) seconds, histogram.getP50() / 1e3, histogram.getP99() / 1e3,
+				histogram.getP999() / 1e3, histogram.getMax() / 1e3);
+	}
+
+	/**
+	 * The Class Load. The requests of one connection.
+	 */
+	private static final class Load {
+
+		/** The operation codes of the requests of a batch. */
+		private static final int INSERT = 0, SEARCH = 1, RANGE = 2;
+
+		/** The client. */
+		private final TreeClient client;
+
+		/** The number of requests of a batch. */
+		private final int depth;
+
+		/** The number of distinct keys requested. */
+		private final int keys;
+
+		/** The percentage of inserts. */
+		private final int inserts;
+
+		/** The percentage of searches between two keys. */
+		private final int ranges;
+
+		/** The number of keys of a search between two keys. */
+		private final int width;
+
+		/** The random source of the requests. */
+		private final SplittableRandom random;
+
+		/**
+		 * Instantiates a new load.
+		 *
+		 * @param client
+		 *            the client
+		 * @param depth
+		 *            the number of requests of a batch
+		 * @param keys
+		 *            the number of distinct keys requested
+		 * @param inserts
+		 *            the percentage of inserts
+		 * @param ranges
+		 *            the percentage of searches between two keys
+		 * @param width
+		 *            the number of keys of a search between two keys
+		 * @param seed
+		 *            the seed of the random source
+		 */
+		Load(TreeClient client, int depth, int keys, int inserts, int ranges, int width, long seed) {
+			this.client = client;
+			this.depth = depth;
+			this.keys = keys;
+			this.inserts = inserts;
+			this.ranges = ranges;
+			this.width = width;
+			this.random = new SplittableRandom(seed);
+		}
+
+		/**
+		 * Sends batches of requests until a deadline, recording their
+		 * latencies once warmed up.
+		 *
+		 * @param warmupEnd
+		 *            the time the latencies start to be recorded
+		 * @param end
+		 *            the deadline
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		void run(long warmupEnd, long end) throws IOException {
+			int[] operations = new int[depth];
+			long start;
+			while ((start = System.nanoTime()) < end) {
+				for (int i = 0; i < depth; i++) {
+					int percent = random.nextInt(100);
+					double key = random.nextInt(keys);
+					if (percent < inserts) {
+						operations[i] = INSERT;
+						client.sendInsert(key, "Value" + (long) key);
+					} else if (percent < inserts + ranges) {
+						operations[i] = RANGE;
+						client.sendSearch(key, key + width - 1);
+					} else {
+						operations[i] = SEARCH;
+						client.sendSearch(key);
+					}
+				}
+				client.flush();
+				boolean recording = start >= warmupEnd;
+				for (int i = 0; i < depth; i++) {
+					LatencyHistogram histogram;
+					if (operations[i] == INSERT) {
+						client.readInsert();
+						histogram = INSERTS;
+					} else if (operations[i] == RANGE) {
+						client.readPairs();
+						histogram = RANGES;
+					} else {
+						client.readValues();
+						histogram = SEARCHES;
+					}
+					if (recording) {
+						histogram.record(System.nanoTime() - start);
+					}
+				}
+			}
+		}
+
+	}
+
+}
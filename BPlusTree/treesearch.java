@@ -2,90 +2,154 @@
  *  author: Karan Chauhan
  */
 
-import com.karan.ads.bplustree.Key;
-import com.karan.ads.bplustree.Node;
 import com.karan.ads.bplustree.BPlusTree;
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
+import com.karan.ads.bplustree.CommandReader;
+import com.karan.ads.bplustree.ResultWriter;
+import com.karan.ads.bplustree.SearchBatch;
 import java.io.IOException;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Scanner;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
 
 /**
  * The Class treesearch.
  */
 public class treesearch {
 
-	/** The Constant OPERATION_INSERT. */
-	private static final String OPERATION_INSERT = "Insert";
-
-	/** The Constant OPERATION_SEARCH. */
-	private static final String OPERATION_SEARCH = "Search";
-
-	/** The Constant RESULT_NOT_FOUND. */
-	private static final String RESULT_NOT_FOUND = "Null";
-
 	/** The Constant OUTPUT_FILENAME. */
 	private static final String OUTPUT_FILENAME = "output_file";
 
 	/** The Constant OUTPUT_FILEEXTENSION. */
 	private static final String OUTPUT_FILEEXTENSION = ".txt";
 
+	/** The Constant OPTION_THROUGHPUT. */
+	private static final String OPTION_THROUGHPUT = "--throughput";
+
+	/** The Constant OPTION_STATS. */
+	private static final String OPTION_STATS = "--stats";
+
+	/** The Constant OPTION_THREADS. */
+	private static final String OPTION_THREADS = "--threads";
+
+	/** The Constant OPTION_FILTER. */
+	private static final String OPTION_FILTER = "--filter";
+
+	/** The Constant FILTER_FALSE_POSITIVE_RATE, of the key filter set by --filter. */
+	private static final double FILTER_FALSE_POSITIVE_RATE = 0.01;
+
+	/** The Constant FILTER_MAX_BYTES, the memory budget of the key filter set by --filter. */
+	private static final long FILTER_MAX_BYTES = 64L << 20;
+
+	/** The Constant OPTION_CACHE. */
+	private static final String OPTION_CACHE = "--cache";
+
+	/** The Constant BATCH_SIZE, the largest number of searches run in parallel at once. */
+	private static final int BATCH_SIZE = 4096;
+
 	// Sample inputs: Insert(0.02,Value98) Search(3.55) Search(-3.91,30.96)
+	// Delete(0.02) Delete(0.02,Value98)
 
 	/**
 	 * The main method.
 	 *
 	 * @param args
-	 *            the name of the input file
+	 *            the name of the input file, optionally followed by
+	 *            --throughput to report the operations per second reached,
+	 *            by --stats to report the statistics of the tree, by
+	 *            --threads n to run searches on n threads, by --filter to
+	 *            answer searches of absent keys from a key filter, and by
+	 *            --cache n to cache the values of the n keys searched most
 	 */
 	public static void main(String args[]) {
 
 		// Read name of input file from command line argument
-		String fileName = args[0];
-		File inputFile = new File(fileName);
-		try {
-			Scanner sc = new Scanner(inputFile);
-			// For creating output file
-			BufferedWriter bw = openNewFile();
+		String fileName = null;
+		boolean reportThroughput = false;
+		boolean reportStats = false;
+		boolean filter = false;
+		int cacheCapacity = 0;
+		int threads = Runtime.getRuntime().availableProcessors();
+		for (int i = 0; i < args.length; i++) {
+			if (OPTION_THROUGHPUT.equals(args[i])) {
+				reportThroughput = true;
+			} else if (OPTION_STATS.equals(args[i])) {
+				reportStats = true;
+			} else if (OPTION_FILTER.equals(args[i])) {
+				filter = true;
+			} else if (OPTION_CACHE.equals(args[i]) && i + 1 < args.length) {
+				cacheCapacity = Integer.parseInt(args[++i]);
+			} else if (OPTION_THREADS.equals(args[i]) && i + 1 < args.length) {
+				threads = Integer.parseInt(args[++i]);
+			} else {
+				fileName = args[i];
+			}
+		}
+		// Runs of consecutive searches are run in parallel, and each insert
+		// waits for the searches before it
+		SearchBatch batch = new SearchBatch(BATCH_SIZE, threads);
+		// The commands are parsed from the bytes of the file, and the results
+		// are appended to a reusable buffer
+		try (CommandReader reader = new CommandReader(Paths.get(fileName));
+				ResultWriter writer = openNewFile()) {
+			long start = System.nanoTime();
 
 			BPlusTree tree = new BPlusTree();
-			tree.initialize(Integer.parseInt(sc.nextLine()));
-
-			while (sc.hasNextLine()) {
-				String newLine = sc.nextLine();
-				// splitting input file line based on regex
-				String[] input = newLine.split("\\(|,|\\)");
+			tree.initialize(reader.readOrder());
+			if (reportStats) {
+				tree.enableStats();
+			}
+			if (filter) {
+				tree.enableKeyFilter(FILTER_FALSE_POSITIVE_RATE, FILTER_MAX_BYTES);
+			}
+			if (cacheCapacity > 0) {
+				tree.enableKeyCache(cacheCapacity);
+			}
 
-				switch (input[0]) {
+			int command;
+			while ((command = reader.next()) != CommandReader.END) {
+				switch (command) {
 				// for inserting element into B Plus Tree
-				case OPERATION_INSERT: {
-					tree.insert(Double.parseDouble(input[1]), input[2]);
+				case CommandReader.INSERT: {
+					if (!batch.isEmpty()) {
+						batch.execute(tree, writer);
+					}
+					tree.insert(reader.getKey1(), reader.getValue());
 					break;
 				}
-				case OPERATION_SEARCH: {
-					// for finding all key value pairs between two keys
-					if (input.length == 2) {
-						List<String> res = tree.search(Double.parseDouble(input[1]));
-						writeSearchByKey(res, bw);
-					} 
-					// for finding all values for a key
-					else {
-						List<Key> res = tree.search(Double.parseDouble(input[1]), Double.parseDouble(input[2]));
-						writeSearchByKeys(res, bw);
+				// for deleting a key, or one of its values
+				case CommandReader.DELETE: {
+					if (!batch.isEmpty()) {
+						batch.execute(tree, writer);
+					}
+					if (null == reader.getValue()) {
+						tree.delete(reader.getKey1());
+					} else {
+						tree.delete(reader.getKey1(), reader.getValue());
 					}
 					break;
 				}
+				// for finding all values for a key, or all key value pairs
+				// between two keys
+				case CommandReader.SEARCH_KEY:
+				case CommandReader.SEARCH_RANGE: {
+					if (batch.add(command, reader.getKey1(), reader.getKey2())) {
+						batch.execute(tree, writer);
+					}
+					break;
 				}
+				}
+			}
+			batch.execute(tree, writer);
+			writer.flush();
 
+			if (reportThroughput) {
+				long elapsed = System.nanoTime() - start;
+				System.out.printf("Processed %d operations in %.3f s (%.0f ops/sec)%n", reader.getCommandCount(),
+						elapsed / 1e9, reader.getCommandCount() / (elapsed / 1e9));
 			}
-			// closing scanner and buffered writer
-			sc.close();
-			bw.close();
-		} catch (FileNotFoundException e) {
+			if (reportStats) {
+				System.out.println(tree.getStats().report());
+			}
+		} catch (NoSuchFileException e) {
 			// LOGGER.severe("File is not found");
 			System.out.println("Error: File not found with name: " + fileName);
 			e.printStackTrace();
@@ -97,81 +161,21 @@ public class treesearch {
 			e.printStackTrace();
 		} catch (Exception e) {
 			e.printStackTrace();
+		} finally {
+			batch.shutdown();
 		}
 	}
 
 	/**
 	 * Open new file to which output has to be written to.
 	 *
-	 * @return the buffered writer
+	 * @return the result writer
 	 * @throws IOException
 	 *             Signals that an I/O exception has occurred.
 	 */
-	private static BufferedWriter openNewFile() throws IOException {
+	private static ResultWriter openNewFile() throws IOException {
 		// Creating a new file to write output to (output_file.txt)
-		File file = new File(OUTPUT_FILENAME + OUTPUT_FILEEXTENSION);
-		BufferedWriter bw = new BufferedWriter(new FileWriter(file));
-		return bw;
-	}
-
-	/**
-	 * Write search by key result to the output file.
-	 *
-	 * @param res
-	 *            the list of values to be written
-	 * @param bw
-	 *            the BufferedWriter object
-	 * @throws IOException
-	 *             Signals that an I/O exception has occurred.
-	 */
-	private static void writeSearchByKey(List<String> res, BufferedWriter bw) throws IOException {
-		String newLine = "";
-		if (null == res) {
-			// if no values are found for key
-			bw.write(RESULT_NOT_FOUND);
-		} else {
-			// if values are found, write to file in given format
-			Iterator<String> valueIterator = res.iterator();
-			while (valueIterator.hasNext()) {
-				newLine = newLine + valueIterator.next() + ", ";
-			}
-			bw.write(newLine.substring(0, newLine.length() - 2));
-		}
-		bw.newLine();
-
-	}
-
-	/**
-	 * Write search by keys result to the output file.
-	 *
-	 * @param res
-	 *            the list of key value pairs to be written
-	 * @param bw
-	 *            the BufferedWriter object
-	 * @throws IOException
-	 *             Signals that an I/O exception has occurred.
-	 */
-	private static void writeSearchByKeys(List<Key> res, BufferedWriter bw) throws IOException {
-		String newLine = "";
-		if (res.isEmpty()) {
-			// if no values are found between given keys
-			bw.write(RESULT_NOT_FOUND);
-		} else {
-			// if pairs are found, write to file in given format
-			Iterator<Key> keyIterator = res.iterator();
-			Iterator<String> valueIterator;
-			Key key;
-			while (keyIterator.hasNext()) {
-				key = keyIterator.next();
-				valueIterator = key.getValues().iterator();
-				while (valueIterator.hasNext()) {
-					newLine = newLine + "(" + key.getKey() + "," + valueIterator.next() + "), ";
-				}
-			}
-			bw.write(newLine.substring(0, newLine.length() - 2));
-		}
-		bw.newLine();
-
+		return new ResultWriter(Paths.get(OUTPUT_FILENAME + OUTPUT_FILEEXTENSION));
 	}
 
 }
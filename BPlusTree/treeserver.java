@@ -0,0 +1,122 @@
+/*
+ *  author: Karan Chauhan
+ */
+
+import com.karan.ads.bplustree.BPlusTree;
+import com.karan.ads.bplustree.TreeServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+/**
+ * The Class treeserver.
+ */
+public class treeserver {
+
+	/** The Constant OPTION_PORT. */
+	private static final String OPTION_PORT = "--port";
+
+	/** The Constant OPTION_ORDER. */
+	private static final String OPTION_ORDER = "--order";
+
+	/** The Constant OPTION_STATS. */
+	private static final String OPTION_STATS = "--stats";
+
+	/** The Constant OPTION_FILTER. */
+	private static final String OPTION_FILTER = "--filter";
+
+	/** The Constant FILTER_FALSE_POSITIVE_RATE, of the key filter set by --filter. */
+	private static final double FILTER_FALSE_POSITIVE_RATE = 0.01;
+
+	/** The Constant FILTER_MAX_BYTES, the memory budget of the key filter set by --filter. */
+	private static final long FILTER_MAX_BYTES = 64L << 20;
+
+	/** The Constant OPTION_CACHE. */
+	private static final String OPTION_CACHE = "--cache";
+
+	/** The Constant DEFAULT_PORT. */
+	private static final int DEFAULT_PORT = 7070;
+
+	/** The Constant DEFAULT_ORDER. */
+	private static final int DEFAULT_ORDER = 64;
+
+	// Sample run: java treeserver --port 7070 --order 64 --cache 16384
+
+	/**
+	 * The main method. Serves an empty tree until the process is stopped.
+	 *
+	 * @param args
+	 *            optionally --port n to listen on port n of localhost, --order
+	 *            n for the order of the tree, --stats to report the
+	 *            statistics of the tree when stopped, --filter to answer
+	 *            searches of absent keys from a key filter, and --cache n to
+	 *            cache the values of the n keys searched most
+	 */
+	public static void main(String args[]) {
+		int port = DEFAULT_PORT;
+		int order = DEFAULT_ORDER;
+		boolean reportStats = false;
+		boolean filter = false;
+		int cacheCapacity = 0;
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if (OPTION_PORT.equals(args[i]) && i + 1 < args.length) {
+					port = Integer.parseInt(args[++i]);
+				} else if (OPTION_ORDER.equals(args[i]) && i + 1 < args.length) {
+					order = Integer.parseInt(args[++i]);
+				} else if (OPTION_STATS.equals(args[i])) {
+					reportStats = true;
+				} else if (OPTION_FILTER.equals(args[i])) {
+					filter = true;
+				} else if (OPTION_CACHE.equals(args[i]) && i + 1 < args.length) {
+					cacheCapacity = Integer.parseInt(args[++i]);
+				} else {
+					System.out.println("Error: Unknown option " + args[i]);
+					return;
+				}
+			}
+		} catch (NumberFormatException e) {
+			System.out.println("Enter valid port, order and cache size");
+			return;
+		}
+
+		BPlusTree tree = new BPlusTree();
+		tree.initialize(order);
+		if (reportStats) {
+			tree.enableStats();
+		}
+		if (filter) {
+			tree.enableKeyFilter(FILTER_FALSE_POSITIVE_RATE, FILTER_MAX_BYTES);
+		}
+		if (cacheCapacity > 0) {
+			tree.enableKeyCache(cacheCapacity);
+		}
+
+		try {
+			final TreeServer server = new TreeServer(tree, new InetSocketAddress(port));
+			final Thread serving = Thread.currentThread();
+			final boolean report = reportStats;
+			// Stop serving on Ctrl-C, and report once the last operation is
+			// done
+			Runtime.getRuntime().addShutdownHook(new Thread() {
+				@Override
+				public void run() {
+					server.close();
+					try {
+						serving.join();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					if (report) {
+						System.out.println(tree.getStats().report());
+					}
+				}
+			});
+			System.out.println("Serving a tree of order " + order + " on port " + server.getPort());
+			server.run();
+		} catch (IOException e) {
+			System.out.println("Error: Failed to serve on port " + port);
+			e.printStackTrace();
+		}
+	}
+
+}